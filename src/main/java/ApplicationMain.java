@@ -1,13 +1,30 @@
 
 
+import com.skyhawk.league.analytics.LeagueAnalytics;
+import com.skyhawk.league.beans.ConnectionProvider;
+import com.skyhawk.league.cache.RequestCoalescer;
+import com.skyhawk.league.cache.ResponseCache;
 import com.skyhawk.league.controller.*;
+import com.skyhawk.league.importer.SeasonImporter;
+import com.skyhawk.league.live.GameLineups;
+import com.skyhawk.league.live.GameTimelines;
+import com.skyhawk.league.live.LiveGameFeed;
+import com.skyhawk.league.live.LiveStatisticCounters;
+import com.skyhawk.league.replay.ReplayTool;
 import com.skyhawk.league.repository.*;
+import com.skyhawk.league.repository.memory.MemoryStorage;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
+import org.postgresql.ds.PGSimpleDataSource;
 import com.sun.net.httpserver.HttpExchange;
 
 import java.net.InetSocketAddress;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
 
 public class ApplicationMain {
     public static void main(String[] args) {
@@ -15,46 +32,169 @@ public class ApplicationMain {
             String dbUrl = System.getenv("DB_URL");
             String dbUser = System.getenv("DB_USER");
             String dbPassword = System.getenv("DB_PASSWORD");
+            String dbReplicaUrl = System.getenv("DB_REPLICA_URL");
+            int replicaMaxLagMillis = intEnv("REPLICA_MAX_LAG_MS", 5000);
+            int liveBufferSize = intEnv("LIVE_BUFFER_SIZE", 256);
+            int liveCounterSlots = intEnv("LIVE_COUNTER_SLOTS", 0);
+            int timelineGames = intEnv("TIMELINE_GAMES", 0);
+            int lineupGames = intEnv("LINEUP_GAMES", 0);
+            boolean leagueAnalyticsEnabled = intEnv("LEAGUE_ANALYTICS", 0) != 0;
+            int rollingGames = intEnv("ROLLING_GAMES", 5);
+            Map<String, Integer> rollingGamesByLeague = intMapEnv("ROLLING_GAMES_BY_LEAGUE");
+            int coalesceTtlMillis = intEnv("COALESCE_TTL_MS", 0);
+            int responseCacheMaxMb = intEnv("RESPONSE_CACHE_MAX_MB", 64);
+            String statisticLayout = System.getenv().getOrDefault("STATISTIC_LAYOUT", "narrow");
+            int nodeId = intEnv("NODE_ID", 0);
+            int exportFetchSize = intEnv("EXPORT_FETCH_SIZE", 1000);
+            int exportMaxConcurrent = intEnv("EXPORT_MAX_CONCURRENT", 2);
+            int replayParallelism = intEnv("REPLAY_PARALLELISM", Runtime.getRuntime().availableProcessors());
+            String storageBackend = System.getenv().getOrDefault("STORAGE_BACKEND", "postgres").trim().toLowerCase();
 
-            Connection connection = DriverManager.getConnection(dbUrl, dbUser, dbPassword);
-            System.out.println("✅ Connected to PostgreSQL");
+            // Node id of application-assigned ids; must differ between nodes sharing a database
+            SnowflakeIdGenerator.configure(nodeId);
 
-            // Create repositories and tables
-            new LeagueRepository(connection).createTable();
-            new TeamRepository(connection).createTable();
-            new PlayerRepository(connection).createTable();
-            new GameRepository(connection).createTable();
-            new StatisticTypeRepository(connection).createTable();
-            new StatisticRepository(connection).createTable();
+            // "memory" keeps every table in this process instead of PostgreSQL; its data is lost on exit
+            Connection connection = null;
+            if ("memory".equals(storageBackend)) {
+                if (args.length > 0) {
+                    System.err.println("❌ Maintenance tools work on PostgreSQL only, not with STORAGE_BACKEND=memory");
+                    return;
+                }
+                Storage.setBackend(new MemoryStorage());
+                System.out.println("✅ Using in-memory storage");
+            } else if ("postgres".equals(storageBackend)) {
+                connection = DriverManager.getConnection(dbUrl, dbUser, dbPassword);
+                System.out.println("✅ Connected to PostgreSQL");
+            } else {
+                throw new IllegalArgumentException("Unknown STORAGE_BACKEND: " + storageBackend);
+            }
+
+            // Statistic storage format; switch with "statistics to-wide" / "statistics to-narrow" first
+            StatisticRepository.setLayout(StatisticLayout.valueOf(statisticLayout.trim().toUpperCase()));
+
+            // Maintenance mode: "partitions", "ids", "statistics", "import" and "replay" run a tool and exit
+            if (args.length > 0 && "partitions".equals(args[0])) {
+                // convert prepares the schema for the partitioning migration, so it runs before it
+                if (args.length < 2 || !"convert".equals(args[1])) {
+                    new SchemaManager(connection).migrate();
+                }
+                PartitionTool.run(connection, args);
+                connection.close();
+                return;
+            }
+            if (args.length > 0 && "ids".equals(args[0])) {
+                // Runs before the migrations: the 64-bit ids migration stops startup until it is done
+                if (args.length < 2 || !"widen".equals(args[1])) {
+                    System.err.println("Usage: ids widen");
+                } else {
+                    SchemaManager.widenIdColumns(connection);
+                    System.out.println("✅ ids widen done");
+                }
+                connection.close();
+                return;
+            }
+            if (args.length > 0 && "statistics".equals(args[0])) {
+                new SchemaManager(connection).migrate();
+                StatisticLayoutTool.run(connection, args);
+                connection.close();
+                return;
+            }
+            if (args.length > 1 && "import".equals(args[0])) {
+                new SchemaManager(connection).migrate();
+                new SeasonImporter(connection).importDirectory(Path.of(args[1]));
+                connection.close();
+                return;
+            }
+            if (args.length > 0 && "replay".equals(args[0])) {
+                new SchemaManager(connection).migrate();
+                ReplayTool.run(connection, new ConnectionProvider(dataSource(dbUrl, dbUser, dbPassword)),
+                        replayParallelism, args);
+                connection.close();
+                return;
+            }
+
+            // Create or upgrade the schema; a warm restart is a single version check
+            if (connection != null) {
+                new SchemaManager(connection).migrate();
+            }
+
+            // Shared live game feed (SSE fan-out)
+            LiveGameFeed liveGameFeed = new LiveGameFeed(liveBufferSize);
+
+            // Off-heap counters of running games; only for deployments where one node takes all events of a game
+            LiveStatisticCounters liveCounters = new LiveStatisticCounters(liveCounterSlots);
+
+            // Per-minute timelines of recent games, counted at ingest; same single-node condition as the counters
+            GameTimelines timelines = new GameTimelines(timelineGames);
+
+            // Lineups of recent games with their plus/minus, tracked at ingest under the same condition
+            GameLineups lineups = new GameLineups(lineupGames);
+
+            // Shared single-flight coalescer for heavy read endpoints
+            RequestCoalescer requestCoalescer = new RequestCoalescer(coalesceTtlMillis);
+
+            // Shared serialized-response cache, invalidated by statistic writes
+            ResponseCache responseCache = new ResponseCache(responseCacheMaxMb * 1024L * 1024L);
+
+            // GET requests read from the replica when DB_REPLICA_URL is set; everything else uses the primary
+            ConnectionProvider primaryProvider = connection != null ? new ConnectionProvider(dataSource(dbUrl, dbUser, dbPassword)) : null;
+            ConnectionProvider replicaProvider = connection != null && dbReplicaUrl != null && !dbReplicaUrl.isBlank()
+                    ? new ConnectionProvider(dataSource(dbReplicaUrl, dbUser, dbPassword)) : null;
+            ConnectionRouter connectionRouter = new ConnectionRouter(connection, primaryProvider, replicaProvider,
+                    replicaMaxLagMillis);
+            if (replicaProvider != null) {
+                System.out.println("✅ Reading from replica " + dbReplicaUrl);
+            }
+
+            // Columnar copy of every league's statistics for the analytics endpoints, with the rolling windows;
+            // loaded only when LEAGUE_ANALYTICS is set, as it holds every statistic in the heap
+            LeagueAnalytics leagueAnalytics = new LeagueAnalytics(connectionRouter, leagueAnalyticsEnabled, rollingGames,
+                    rollingGamesByLeague);
+            leagueAnalytics.load();
 
             // Create controllers
-            LeagueController leagueController = new LeagueController(connection);
-            TeamController teamController = new TeamController(connection);
-            PlayerController playerController = new PlayerController(connection);
-            GameController gameController = new GameController(connection);
-            StatisticTypeController statisticTypeController = new StatisticTypeController(connection);
-            EventController eventController = new EventController(connection);
+            LeagueController leagueController = new LeagueController(connectionRouter);
+            TeamController teamController = new TeamController(connectionRouter, requestCoalescer, responseCache);
+            PlayerController playerController = new PlayerController(connectionRouter, requestCoalescer, responseCache, liveCounters,
+                    leagueAnalytics);
+            GameController gameController = new GameController(connectionRouter, liveGameFeed, timelines, lineups);
+            StatisticTypeController statisticTypeController = new StatisticTypeController(connectionRouter);
+            AnalyticsController analyticsController = new AnalyticsController(connectionRouter, leagueAnalytics);
+            EventController eventController = new EventController(connectionRouter, liveGameFeed, responseCache, liveCounters,
+                    leagueAnalytics, timelines, lineups, primaryProvider);
+            // Exports stream through server-side cursors on connections of their own, from the replica if there is one
+            ExportController exportController = new ExportController(connectionRouter,
+                    replicaProvider != null ? replicaProvider : primaryProvider, exportFetchSize, exportMaxConcurrent);
 
             // Start HTTP server
             HttpServer server = HttpServer.create(new InetSocketAddress(8080), 0);
 
             // Register endpoints (simple routing logic)
-            server.createContext("/league", exchange -> leagueController.handle(exchange));
-            server.createContext("/events", exchange -> eventController.handle(exchange));
-            server.createContext("/", (HttpExchange exchange) -> {
+            // "/league/" is registered with the router so nested league paths are not swallowed by "/league"
+            HttpHandler router = (HttpExchange exchange) -> {
                 String path = exchange.getRequestURI().getPath();
-                if (path.matches("/league/[^/]+/teams/?")) {
-                    teamController.handle(exchange);
-                } else if (path.matches("/league/[^/]+/teams/[^/]+/players/?")) {
+                if (path.matches("/league/[^/]+/teams/[^/]+/players(/.*)?")) {
                     playerController.handle(exchange);
-                } else if (path.matches("/league/[^/]+/games/?")) {
+                } else if (path.matches("/league/[^/]+/teams(/.*)?")) {
+                    teamController.handle(exchange);
+                } else if (path.matches("/league/[^/]+/games(/.*)?")) {
                     gameController.handle(exchange);
-                } else if (path.matches("/league/[^/]+/statistic-types/?")) {
+                } else if (path.matches("/league/[^/]+/statistic-types(/.*)?")) {
                     statisticTypeController.handle(exchange);
+                } else if (path.matches("/league/[^/]+/(analytics|leaders)(/.*)?")) {
+                    analyticsController.handle(exchange);
+                } else if (path.matches("/league/[^/]+/statistics/export/?")) {
+                    exportController.handle(exchange);
+                } else if (path.matches("/league/[^/]+/?")) {
+                    leagueController.handle(exchange);
                 } else {
                     exchange.sendResponseHeaders(404, -1);
                 }
-            });
+            };
+            server.createContext("/league", withConsistency(connectionRouter, exchange -> leagueController.handle(exchange)));
+            server.createContext("/league/", withConsistency(connectionRouter, router));
+            server.createContext("/events", withConsistency(connectionRouter, exchange -> eventController.handle(exchange)));
+            server.createContext("/", withConsistency(connectionRouter, router));
 
 
             // Health check
@@ -69,7 +209,10 @@ public class ApplicationMain {
                 }
             });
 
-            server.setExecutor(null);
+            // Virtual threads: long-lived live streams must not block other requests. Requests run
+            // concurrently, each on database connections of its own (see withConsistency);
+            // EventController applies the events of one game one at a time
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
             server.start();
             System.out.println("🚀 League app started on http://localhost:8080");
 
@@ -78,4 +221,53 @@ public class ApplicationMain {
             e.printStackTrace();
         }
     }
+
+    // Reads of GET requests may be served by the replica; "X-Read-Your-Writes: true" asks for one that
+    // has caught up with the primary. Other methods read from the primary, as they read before writing.
+    // The request runs on connections of its own, never shared with a concurrent one.
+    private static HttpHandler withConsistency(ConnectionRouter connectionRouter, HttpHandler handler) {
+        return exchange -> {
+            String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                ConnectionRouter.setConsistency(ConnectionRouter.Consistency.PRIMARY);
+            } else if ("true".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("X-Read-Your-Writes"))) {
+                ConnectionRouter.setConsistency(ConnectionRouter.Consistency.READ_YOUR_WRITES);
+            } else {
+                ConnectionRouter.setConsistency(ConnectionRouter.Consistency.REPLICA);
+            }
+            connectionRouter.beginRequest();
+            try {
+                handler.handle(exchange);
+            } finally {
+                connectionRouter.endRequest();
+                ConnectionRouter.clearConsistency();
+            }
+        };
+    }
+
+    private static PGSimpleDataSource dataSource(String url, String user, String password) {
+        PGSimpleDataSource dataSource = new PGSimpleDataSource();
+        dataSource.setURL(url);
+        dataSource.setUser(user);
+        dataSource.setPassword(password);
+        return dataSource;
+    }
+
+    private static int intEnv(String name, int defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.isBlank() ? Integer.parseInt(value.trim()) : defaultValue;
+    }
+
+    // "name=1,other=2"; empty when unset
+    private static Map<String, Integer> intMapEnv(String name) {
+        Map<String, Integer> values = new HashMap<>();
+        String value = System.getenv(name);
+        if (value != null && !value.isBlank()) {
+            for (String pair : value.split(",")) {
+                int separator = pair.lastIndexOf('=');
+                values.put(pair.substring(0, separator).trim(), Integer.parseInt(pair.substring(separator + 1).trim()));
+            }
+        }
+        return values;
+    }
 }
@@ -0,0 +1,41 @@
+package com.skyhawk.league.analytics;
+
+import java.util.Arrays;
+
+import com.skyhawk.league.collections.LongIndex;
+
+// Dense int codes of ids, in first-seen order. Codes are assigned under the owner's lock; id() may be
+// read without it for any code below a size() read earlier.
+public final class IdDictionary {
+    private final LongIndex codes = new LongIndex();
+    private volatile long[] ids = new long[16];
+    private volatile int size;
+
+    public int code(long id) {
+        int code = codes.add(id);
+        if (code < size) {
+            return code;
+        }
+        long[] current = ids;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+            ids = current;
+        }
+        current[size] = id;
+        size++;
+        return code;
+    }
+
+    // -1 when the id has no code
+    public int find(long id) {
+        return codes.indexOf(id);
+    }
+
+    public long id(int code) {
+        return ids[code];
+    }
+
+    public int size() {
+        return size;
+    }
+}
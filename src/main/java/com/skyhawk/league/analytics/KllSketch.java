@@ -0,0 +1,216 @@
+package com.skyhawk.league.analytics;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * KLL quantile sketch of float values: a stack of compactors, level h holding items that each stand
+ * for 2^h values. Values go into level 0; a level over its capacity is sorted and every other item,
+ * from an alternating offset, moves up a level while the rest are dropped. Capacities shrink by 2/3
+ * per level below the top, so the sketch keeps O(k) items for any number of values and a rank is
+ * within about 1.7/k of the exact one. Sketches with the same k merge by adding up their levels and
+ * compacting, so season or team sketches combine into one for the union of their values.
+ *
+ * Not thread-safe.
+ */
+public final class KllSketch {
+    public static final int DEFAULT_K = 200;
+
+    private static final int FORMAT = 1;
+    private static final double SHRINK = 2.0 / 3.0;
+
+    private final int k;
+    private long count;
+    private float[][] levels = new float[1][];
+    private int[] sizes = new int[1];
+    // Per level, and their sum; they change only when a level is added
+    private int[] capacities;
+    private int totalCapacity;
+    private int retained;
+    // Offset of the next compaction, alternated so promoted items are not always the lower ones
+    private boolean odd;
+
+    public KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    public KllSketch(int k) {
+        if (k < 8) {
+            throw new IllegalArgumentException("KLL sketch needs k >= 8: " + k);
+        }
+        this.k = k;
+        levels[0] = new float[k];
+        updateCapacities();
+    }
+
+    public void add(double value) {
+        append(0, (float) value);
+        count++;
+        compress();
+    }
+
+    // Adds every value of other, which must have the same k
+    public void merge(KllSketch other) {
+        if (other.k != k) {
+            throw new IllegalArgumentException("Cannot merge KLL sketches of k " + k + " and " + other.k);
+        }
+        for (int level = 0; level < other.levels.length; level++) {
+            for (int i = 0; i < other.sizes[level]; i++) {
+                append(level, other.levels[level][i]);
+            }
+        }
+        count += other.count;
+        compress();
+    }
+
+    // Number of values added
+    public long count() {
+        return count;
+    }
+
+    // Estimated share of the values <= value, 0 for an empty sketch
+    public double rank(double value) {
+        if (count == 0) {
+            return 0;
+        }
+        long weight = 0;
+        for (int level = 0; level < levels.length; level++) {
+            for (int i = 0; i < sizes[level]; i++) {
+                if (levels[level][i] <= value) {
+                    weight += 1L << level;
+                }
+            }
+        }
+        return (double) weight / count;
+    }
+
+    // Estimated value at the given share (0..1) of the sorted values; NaN for an empty sketch
+    public double quantile(double fraction) {
+        if (retained == 0) {
+            return Double.NaN;
+        }
+        float[] items = new float[retained];
+        long[] weights = new long[retained];
+        int n = 0;
+        for (int level = 0; level < levels.length; level++) {
+            for (int i = 0; i < sizes[level]; i++) {
+                items[n] = levels[level][i];
+                weights[n++] = 1L << level;
+            }
+        }
+        Integer[] order = new Integer[retained];
+        for (int i = 0; i < retained; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Float.compare(items[a], items[b]));
+        long target = (long) Math.ceil(Math.max(0, Math.min(1, fraction)) * count);
+        long weight = 0;
+        for (int index : order) {
+            weight += weights[index];
+            if (weight >= target) {
+                return items[index];
+            }
+        }
+        return items[order[retained - 1]];
+    }
+
+    /**
+     * Format 1: format, k, count, levels (ints and a long), then per level its size and items, so an
+     * item costs four bytes. Only the retained items are written.
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 4 + 8 + 4 + 4 * levels.length + 4 * retained);
+        buffer.putInt(FORMAT).putInt(k).putLong(count).putInt(levels.length);
+        for (int level = 0; level < levels.length; level++) {
+            buffer.putInt(sizes[level]);
+            for (int i = 0; i < sizes[level]; i++) {
+                buffer.putFloat(levels[level][i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    public static KllSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int format = buffer.getInt();
+        if (format != FORMAT) {
+            throw new IllegalArgumentException("Unknown KLL sketch format: " + format);
+        }
+        KllSketch sketch = new KllSketch(buffer.getInt());
+        sketch.count = buffer.getLong();
+        int levelCount = buffer.getInt();
+        sketch.levels = new float[levelCount][];
+        sketch.sizes = new int[levelCount];
+        for (int level = 0; level < levelCount; level++) {
+            int size = buffer.getInt();
+            float[] items = new float[Math.max(size, 2)];
+            for (int i = 0; i < size; i++) {
+                items[i] = buffer.getFloat();
+            }
+            sketch.levels[level] = items;
+            sketch.sizes[level] = size;
+            sketch.retained += size;
+        }
+        sketch.updateCapacities();
+        return sketch;
+    }
+
+    private void append(int level, float item) {
+        if (level == levels.length) {
+            levels = Arrays.copyOf(levels, level + 1);
+            sizes = Arrays.copyOf(sizes, level + 1);
+            updateCapacities();
+            levels[level] = new float[capacities[level]];
+        }
+        float[] items = levels[level];
+        if (sizes[level] == items.length) {
+            items = Arrays.copyOf(items, items.length * 2);
+            levels[level] = items;
+        }
+        items[sizes[level]++] = item;
+        retained++;
+    }
+
+    // Compacts the lowest full level until the retained items fit the capacities
+    private void compress() {
+        while (retained > totalCapacity) {
+            for (int level = 0; level < levels.length; level++) {
+                if (sizes[level] >= capacities[level]) {
+                    compact(level);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void compact(int level) {
+        int size = sizes[level];
+        float[] items = levels[level];
+        Arrays.sort(items, 0, size);
+        // An odd item out stays at this level
+        int pairs = size / 2;
+        int offset = odd ? 1 : 0;
+        odd = !odd;
+        float leftover = items[size - 1];
+        for (int pair = 0; pair < pairs; pair++) {
+            append(level + 1, levels[level][2 * pair + offset]);
+        }
+        items = levels[level];
+        sizes[level] = 0;
+        retained -= size;
+        if (size % 2 == 1) {
+            items[sizes[level]++] = leftover;
+            retained++;
+        }
+    }
+
+    private void updateCapacities() {
+        capacities = new int[levels.length];
+        totalCapacity = 0;
+        for (int level = 0; level < levels.length; level++) {
+            int depth = levels.length - 1 - level;
+            capacities[level] = Math.max(2, (int) Math.ceil(k * Math.pow(SHRINK, depth)));
+            totalCapacity += capacities[level];
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.skyhawk.league.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import com.skyhawk.league.collections.LongIndex;
+
+/**
+ * Season totals of one statistic type per player, kept ranked as they change so the leaders are read
+ * by walking the first entries of the ranking. Changed under the lock of the owning StatisticColumns,
+ * read without it: a total is ranked at its new value before its old entry is dropped, and readers
+ * skip the older entry of a player they have already seen.
+ */
+final class Leaderboard {
+    // Totals this close to zero are float residue of values that were taken back
+    private static final double ZERO = 1e-9;
+    private static final Comparator<Entry> RANKING = Comparator.comparingDouble(Entry::total).reversed()
+            .thenComparingInt(Entry::player);
+
+    record Entry(double total, int player) {
+    }
+
+    // By player code
+    private double[] totals = new double[64];
+    private final ConcurrentSkipListSet<Entry> ranking = new ConcurrentSkipListSet<>(RANKING);
+
+    void add(int player, double delta) {
+        if (delta == 0) {
+            return;
+        }
+        if (player >= totals.length) {
+            totals = Arrays.copyOf(totals, Math.max(player + 1, totals.length * 2));
+        }
+        double old = totals[player];
+        double total = old + delta;
+        if (Math.abs(total) < ZERO) {
+            total = 0;
+        }
+        // A delta below the total's precision leaves it as it is; its entry must stay
+        if (total == old) {
+            return;
+        }
+        totals[player] = total;
+        if (total != 0) {
+            ranking.add(new Entry(total, player));
+        }
+        if (old != 0) {
+            ranking.remove(new Entry(old, player));
+        }
+    }
+
+    // The n highest totals, highest first
+    List<Entry> top(int n) {
+        List<Entry> top = new ArrayList<>(Math.min(n, 64));
+        LongIndex seen = new LongIndex(Math.min(n, 64));
+        for (Entry entry : ranking) {
+            if (top.size() >= n) {
+                break;
+            }
+            int known = seen.size();
+            if (seen.add(entry.player()) == known) {
+                top.add(entry);
+            }
+        }
+        return top;
+    }
+}
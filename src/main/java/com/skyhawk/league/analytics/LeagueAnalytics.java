@@ -0,0 +1,348 @@
+package com.skyhawk.league.analytics;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.skyhawk.league.model.Game;
+import com.skyhawk.league.model.League;
+import com.skyhawk.league.model.Player;
+import com.skyhawk.league.model.Statistic;
+import com.skyhawk.league.model.StatisticType;
+import com.skyhawk.league.model.Team;
+import com.skyhawk.league.repository.ConnectionRouter;
+import com.skyhawk.league.repository.GameRepository;
+import com.skyhawk.league.repository.LeagueRepository;
+import com.skyhawk.league.repository.PlayerRepository;
+import com.skyhawk.league.repository.StatisticRepository;
+import com.skyhawk.league.repository.StatisticTypeRepository;
+import com.skyhawk.league.repository.TeamRepository;
+
+/**
+ * The {@link StatisticColumns} of every league. Loaded once at startup from the repositories, then
+ * kept current by EventController, which repeats each of its statistic writes here. Rows written by
+ * the maintenance commands (import, replay) are seen after a restart.
+ *
+ * Finished games also go into each league's {@link RollingWindows}: at startup in date order, then
+ * as EventController ends games. Their values go into the {@link StatisticSketches} as they end; a
+ * league without stored sketches gets them built from its finished games at startup.
+ *
+ * The {@link PlayerFeatures} of a league's season are built from its columns on request and kept
+ * until the columns change.
+ *
+ * The leagues, statistic types, teams and players are kept by name and id as well, so the leaders
+ * endpoint answers from memory; one created after startup is read once, on first use.
+ *
+ * Disabled unless enabled is set: then nothing is loaded or kept, the writes are ignored and the
+ * endpoints answering from here answer 404. The name and id lookups still read through.
+ */
+public class LeagueAnalytics {
+    private static final Logger log = LoggerFactory.getLogger(LeagueAnalytics.class);
+    // Games whose rows are read by one query while loading
+    private static final int LOAD_GAMES = 500;
+
+    private final Map<Long, StatisticColumns> leagues = new ConcurrentHashMap<>();
+    private final Map<Long, RollingWindows> rollingWindows = new ConcurrentHashMap<>();
+    // League id -> the season features built last
+    private final Map<Long, PlayerFeatures> playerFeatures = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final int rollingGames;
+    // League name -> games in its rolling windows; other leagues use rollingGames
+    private final Map<String, Integer> rollingGamesByLeague;
+    private final Map<String, League> leaguesByName = new ConcurrentHashMap<>();
+    // League id -> name -> type; names are unique per league only
+    private final Map<Long, Map<String, StatisticType>> statisticTypesByName = new ConcurrentHashMap<>();
+    private final Map<Long, Team> teamsById = new ConcurrentHashMap<>();
+    private final Map<Long, Player> playersById = new ConcurrentHashMap<>();
+    private final LeagueRepository leagueRepository;
+    private final TeamRepository teamRepository;
+    private final PlayerRepository playerRepository;
+    private final GameRepository gameRepository;
+    private final StatisticRepository statisticRepository;
+    private final StatisticTypeRepository statisticTypeRepository;
+    private final StatisticSketches sketches;
+
+    public LeagueAnalytics(ConnectionRouter router, boolean enabled, int rollingGames,
+            Map<String, Integer> rollingGamesByLeague) {
+        this.enabled = enabled;
+        this.leagueRepository = new LeagueRepository(router);
+        this.teamRepository = new TeamRepository(router);
+        this.playerRepository = new PlayerRepository(router);
+        this.gameRepository = new GameRepository(router);
+        this.statisticRepository = new StatisticRepository(router);
+        this.statisticTypeRepository = new StatisticTypeRepository(router);
+        this.sketches = new StatisticSketches(router);
+        this.rollingGames = rollingGames;
+        this.rollingGamesByLeague = rollingGamesByLeague;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void load() throws SQLException {
+        if (!enabled) {
+            return;
+        }
+        log.info("Start load");
+        List<Team> teams = teamRepository.getAll();
+        for (Team team : teams) {
+            teamsById.put(team.getId(), team);
+        }
+        for (StatisticType type : statisticTypeRepository.getAll()) {
+            statisticTypesByName(type.getLeagueId()).put(type.getName(), type);
+        }
+        for (League league : leagueRepository.getAll()) {
+            leaguesByName.put(league.getName(), league);
+            StatisticColumns columns = columns(league.getId());
+            List<Long> playerIds = new ArrayList<>();
+            Map<Long, Long> playerTeamIds = new HashMap<>();
+            for (Team team : teams) {
+                if (team.getLeagueId() == league.getId()) {
+                    for (Player player : playerRepository.getByTeamId(team.getId())) {
+                        columns.addPlayer(player.getId(), team.getId());
+                        playersById.put(player.getId(), player);
+                        playerIds.add(player.getId());
+                        playerTeamIds.put(player.getId(), team.getId());
+                    }
+                }
+            }
+            List<Long> gameIds = gameRepository.getIdsByLeagueId(league.getId(), null);
+            List<Game> games = new ArrayList<>(gameIds.size());
+            for (int from = 0; from < gameIds.size(); from += LOAD_GAMES) {
+                games.addAll(gameRepository.getByIds(gameIds.subList(from, Math.min(gameIds.size(), from + LOAD_GAMES))));
+            }
+            // Oldest first, so the rolling windows end with each player's latest games
+            games.sort(Comparator.comparing(Game::getDate)
+                    .thenComparing(Game::getStartTime, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparingLong(Game::getId));
+            RollingWindows windows = rollingWindows(league);
+            boolean buildSketches = !sketches.load(league.getId());
+            for (int from = 0; from < games.size(); from += LOAD_GAMES) {
+                List<Game> chunk = games.subList(from, Math.min(games.size(), from + LOAD_GAMES));
+                List<Long> chunkIds = new ArrayList<>(chunk.size());
+                for (Game game : chunk) {
+                    columns.addGame(game.getId(), game.getDate().getYear());
+                    chunkIds.add(game.getId());
+                }
+                List<Statistic> statistics = playerIds.isEmpty() ? List.of()
+                        : statisticRepository.getByPlayerIdsAndGameIds(playerIds, chunkIds);
+                columns.upsertAll(statistics);
+                Map<Long, List<Statistic>> statisticsByGame = new HashMap<>();
+                for (Statistic statistic : statistics) {
+                    statisticsByGame.computeIfAbsent(statistic.getGameId(), id -> new ArrayList<>()).add(statistic);
+                }
+                for (Game game : chunk) {
+                    if (game.getGameState() == Game.GameStateEnum.End) {
+                        Map<Long, Map<Long, Double>> values = values(statisticsByGame.getOrDefault(game.getId(), List.of()));
+                        windows.push(game.getId(), values);
+                        if (buildSketches) {
+                            sketches.add(league.getId(), game.getDate().getYear(), values, playerTeamIds);
+                        }
+                    }
+                }
+            }
+            sketches.flush(league.getId());
+            log.info("Loaded league: leagueId={}, players={}, games={}, rows={}, rollingGames={}", league.getId(),
+                    playerIds.size(), gameIds.size(), columns.rowCount(), windows.getGames());
+        }
+        log.info("End load: leagues={}", leagues.size());
+    }
+
+    // Empty columns for a league without rows yet
+    public StatisticColumns columns(long leagueId) {
+        return leagues.computeIfAbsent(leagueId, id -> new StatisticColumns());
+    }
+
+    // The league's rolling windows, sized when first used
+    public RollingWindows rollingWindows(long leagueId) throws SQLException {
+        RollingWindows windows = rollingWindows.get(leagueId);
+        if (windows == null) {
+            League league = leagueRepository.getById(leagueId);
+            windows = league != null ? rollingWindows(league) : rollingWindows.computeIfAbsent(leagueId,
+                    id -> new RollingWindows(rollingGames));
+        }
+        return windows;
+    }
+
+    private RollingWindows rollingWindows(League league) {
+        return rollingWindows.computeIfAbsent(league.getId(),
+                id -> new RollingWindows(rollingGamesByLeague.getOrDefault(league.getName(), rollingGames)));
+    }
+
+    // The league's player profiles of the season, rebuilt by one scan when the columns have changed since
+    public PlayerFeatures playerFeatures(long leagueId, int season) {
+        StatisticColumns columns = columns(leagueId);
+        PlayerFeatures features = playerFeatures.get(leagueId);
+        long version = columns.version();
+        if (features == null || features.getSeason() != season || features.getVersion() != version) {
+            features = new PlayerFeatures(season, version, columns.seasonAverages(season));
+            playerFeatures.put(leagueId, features);
+        }
+        return features;
+    }
+
+    public StatisticSketches sketches() {
+        return sketches;
+    }
+
+    // Adds the ended game's rows, as the columns hold them, to the players' rolling windows and the sketches
+    public void endGame(Game game) throws SQLException {
+        StatisticColumns columns = prepare(game.getLeagueId(), null, game.getId());
+        if (columns == null) {
+            return;
+        }
+        Map<Long, Map<Long, Double>> values = columns.gameValues(game.getId(), game.getHomeTeamId(),
+                game.getVisitorTeamId());
+        rollingWindows(game.getLeagueId()).push(game.getId(), values);
+        Map<Long, Long> playerTeamIds = new HashMap<>();
+        for (long playerId : values.keySet()) {
+            Player player = player(playerId);
+            if (player != null) {
+                playerTeamIds.put(playerId, player.getTeamId());
+            }
+        }
+        sketches.add(game.getLeagueId(), game.getDate().getYear(), values, playerTeamIds);
+        sketches.flush(game.getLeagueId());
+    }
+
+    // null when there is no such league
+    public League league(String name) throws SQLException {
+        League league = leaguesByName.get(name);
+        if (league == null) {
+            league = leagueRepository.getByName(name);
+            if (league != null) {
+                leaguesByName.put(name, league);
+            }
+        }
+        return league;
+    }
+
+    // null when the league has no such statistic type
+    public StatisticType statisticType(long leagueId, String name) throws SQLException {
+        Map<String, StatisticType> types = statisticTypesByName(leagueId);
+        StatisticType type = types.get(name);
+        if (type == null) {
+            type = statisticTypeRepository.getByLeagueIdAndName(leagueId, name);
+            if (type != null) {
+                types.put(name, type);
+            }
+        }
+        return type;
+    }
+
+    private Map<String, StatisticType> statisticTypesByName(long leagueId) {
+        return statisticTypesByName.computeIfAbsent(leagueId, id -> new ConcurrentHashMap<>());
+    }
+
+    // null when there is no such team
+    public Team team(long id) throws SQLException {
+        Team team = teamsById.get(id);
+        if (team == null) {
+            team = teamRepository.getById(id);
+            if (team != null) {
+                teamsById.put(id, team);
+            }
+        }
+        return team;
+    }
+
+    // null when there is no such player
+    public Player player(long id) throws SQLException {
+        Player player = playersById.get(id);
+        if (player == null) {
+            player = playerRepository.getById(id);
+            if (player != null) {
+                playersById.put(id, player);
+            }
+        }
+        return player;
+    }
+
+    public void saveIfNotExists(long leagueId, Statistic statistic) throws SQLException {
+        StatisticColumns columns = prepare(leagueId, statistic.getPlayerId(), statistic.getGameId());
+        if (columns != null) {
+            columns.saveIfNotExists(statistic);
+        }
+    }
+
+    public void addNumberValue(long leagueId, long playerId, long gameId, long statisticTypeId, long delta)
+            throws SQLException {
+        StatisticColumns columns = prepare(leagueId, playerId, gameId);
+        if (columns != null) {
+            columns.addNumberValue(playerId, gameId, statisticTypeId, delta);
+        }
+    }
+
+    public void upsertAll(long leagueId, long gameId, List<Statistic> statistics) throws SQLException {
+        StatisticColumns columns = prepare(leagueId, null, gameId);
+        if (columns != null) {
+            columns.upsertAll(known(leagueId, gameId, statistics));
+        }
+    }
+
+    public void replacePlayerStatistics(long leagueId, long gameId, Collection<Long> playerIds, List<Statistic> statistics)
+            throws SQLException {
+        if (!enabled) {
+            return;
+        }
+        StatisticColumns columns = prepare(leagueId, null, gameId);
+        if (columns != null) {
+            columns.replacePlayerStatistics(gameId, playerIds, known(leagueId, gameId, statistics));
+        }
+        rollingWindows(leagueId).replace(gameId, playerIds, values(statistics));
+    }
+
+    // Values by player id and statistic type id
+    private static Map<Long, Map<Long, Double>> values(Collection<Statistic> statistics) {
+        Map<Long, Map<Long, Double>> values = new LinkedHashMap<>();
+        for (Statistic statistic : statistics) {
+            values.computeIfAbsent(statistic.getPlayerId(), id -> new LinkedHashMap<>())
+                    .put(statistic.getStatisticTypeId(), statistic.getNumberValue() + (double) statistic.getFloatValue());
+        }
+        return values;
+    }
+
+    // The rows whose player still exists, with the players added
+    private List<Statistic> known(long leagueId, long gameId, List<Statistic> statistics) throws SQLException {
+        List<Statistic> known = new ArrayList<>(statistics.size());
+        for (Statistic statistic : statistics) {
+            if (prepare(leagueId, statistic.getPlayerId(), gameId) != null) {
+                known.add(statistic);
+            }
+        }
+        return known;
+    }
+
+    // The league's columns with the player and the game added; null when either no longer exists, or when disabled
+    private StatisticColumns prepare(long leagueId, Long playerId, long gameId) throws SQLException {
+        if (!enabled) {
+            return null;
+        }
+        StatisticColumns columns = columns(leagueId);
+        if (!columns.hasGame(gameId)) {
+            Game game = gameRepository.getById(gameId);
+            if (game == null) {
+                return null;
+            }
+            columns.addGame(gameId, game.getDate().getYear());
+        }
+        if (playerId != null && !columns.hasPlayer(playerId)) {
+            Player player = player(playerId);
+            if (player == null) {
+                return null;
+            }
+            columns.addPlayer(playerId, player.getTeamId());
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,158 @@
+package com.skyhawk.league.analytics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.skyhawk.league.collections.LongIntMap;
+
+/**
+ * Per-game profiles of a league's players in one season, for nearest-player search. Each player is a
+ * float vector over the statistic types: the per-game averages, standardized per type across the
+ * season's players (so a type with large values does not outweigh the others) and scaled to unit
+ * length, so the dot product of two players is the cosine similarity of their profiles.
+ *
+ * The vectors are one contiguous array, type-major: the values of one type for every player are
+ * adjacent. Scoring one player against all of them is then, per type, one multiply-add of a whole
+ * column into the scores, run on SIMD lanes over players by {@link VectorKernels} when the
+ * jdk.incubator.vector module is present, and by a plain loop otherwise.
+ *
+ * Immutable once built; built from {@link StatisticColumns#seasonAverages} and tagged with the
+ * columns' version, so the owner can tell when it is stale.
+ */
+public final class PlayerFeatures {
+    private static final boolean SIMD = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    public record Similar(long playerId, float score) {
+    }
+
+    private final int season;
+    private final long version;
+    private final long[] playerIds;
+    private final long[] typeIds;
+    // Type-major: the value of player i and type j is features[j * playerIds.length + i]
+    private final float[] features;
+    // Player id -> index in playerIds
+    private final LongIntMap playerIndex;
+
+    public PlayerFeatures(int season, long version, StatisticColumns.SeasonAverages averages) {
+        this.season = season;
+        this.version = version;
+        this.playerIds = averages.playerIds();
+        this.typeIds = averages.typeIds();
+        int players = playerIds.length;
+        int types = typeIds.length;
+        float[] values = averages.averages();
+        features = new float[players * types];
+        playerIndex = new LongIntMap(-1, players);
+        for (int player = 0; player < players; player++) {
+            playerIndex.put(playerIds[player], player);
+        }
+        for (int type = 0; type < types; type++) {
+            double sum = 0;
+            for (int player = 0; player < players; player++) {
+                sum += values[player * types + type];
+            }
+            double mean = players == 0 ? 0 : sum / players;
+            double squares = 0;
+            for (int player = 0; player < players; player++) {
+                double deviation = values[player * types + type] - mean;
+                squares += deviation * deviation;
+            }
+            double deviation = players == 0 ? 0 : Math.sqrt(squares / players);
+            // A type all players have the same average of does not tell them apart
+            if (deviation > 0) {
+                for (int player = 0; player < players; player++) {
+                    features[type * players + player] = (float) ((values[player * types + type] - mean) / deviation);
+                }
+            }
+        }
+        for (int player = 0; player < players; player++) {
+            double squares = 0;
+            for (int type = 0; type < types; type++) {
+                float value = features[type * players + player];
+                squares += value * value;
+            }
+            if (squares > 0) {
+                float scale = (float) (1 / Math.sqrt(squares));
+                for (int type = 0; type < types; type++) {
+                    features[type * players + player] *= scale;
+                }
+            }
+        }
+    }
+
+    public static boolean isSimd() {
+        return SIMD;
+    }
+
+    public int getSeason() {
+        return season;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Statistic types of the vector dimensions, in order
+    public long[] getStatisticTypeIds() {
+        return typeIds.clone();
+    }
+
+    public int getPlayerCount() {
+        return playerIds.length;
+    }
+
+    public boolean contains(long playerId) {
+        return playerIndex.containsKey(playerId);
+    }
+
+    /**
+     * The k players whose profiles are closest to the player's, most similar first, the player
+     * excluded; empty for a player without games in the season.
+     */
+    public List<Similar> nearest(long playerId, int k) {
+        int query = playerIndex.get(playerId);
+        List<Similar> nearest = new ArrayList<>();
+        if (query < 0 || k <= 0) {
+            return nearest;
+        }
+        int players = playerIds.length;
+        float[] scores = new float[players];
+        for (int type = 0; type < typeIds.length; type++) {
+            float weight = features[type * players + query];
+            if (weight == 0) {
+                continue;
+            }
+            if (SIMD) {
+                VectorKernels.addScaled(scores, features, type * players, players, weight);
+            } else {
+                addScaled(scores, features, type * players, players, weight);
+            }
+        }
+
+        // Best k so far, kept sorted by score descending
+        int[] top = new int[Math.min(k, players)];
+        int size = 0;
+        for (int player = 0; player < players; player++) {
+            if (player == query || (size == top.length && scores[player] <= scores[top[size - 1]])) {
+                continue;
+            }
+            int at = size == top.length ? size - 1 : size++;
+            while (at > 0 && scores[top[at - 1]] < scores[player]) {
+                top[at] = top[at - 1];
+                at--;
+            }
+            top[at] = player;
+        }
+        for (int i = 0; i < size; i++) {
+            nearest.add(new Similar(playerIds[top[i]], scores[top[i]]));
+        }
+        return nearest;
+    }
+
+    private static void addScaled(float[] scores, float[] column, int offset, int count, float weight) {
+        for (int i = 0; i < count; i++) {
+            scores[i] += column[offset + i] * weight;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.skyhawk.league.analytics;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.skyhawk.league.collections.LongIndex;
+
+/**
+ * The last games of every player of one league, for rolling averages. Each player has a ring of
+ * game slots holding the game's value of every statistic type, and the sums of the values in the
+ * ring: a finished game overwrites the oldest slot and moves the sums by the difference, so an
+ * average is one division. Values are number and float values added together, as elsewhere.
+ */
+public class RollingWindows {
+    private final int games;
+    // Statistic type id -> index into the per-game values and the sums
+    private final LongIndex statisticTypes = new LongIndex();
+    private final Map<Long, Window> players = new HashMap<>();
+
+    private final class Window {
+        final long[] gameIds = new long[games];
+        final double[][] values = new double[games][];
+        double[] sums = new double[8];
+        // Slot the next game goes to
+        int next;
+        int count;
+
+        int slotOf(long gameId) {
+            for (int slot = 0; slot < count; slot++) {
+                if (gameIds[slot] == gameId) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        void set(int slot, Map<Long, Double> gameValues) {
+            double[] old = values[slot];
+            if (old != null) {
+                for (int code = 0; code < old.length; code++) {
+                    sums[code] -= old[code];
+                }
+            }
+            double[] current = new double[statisticTypes.size()];
+            for (Map.Entry<Long, Double> entry : gameValues.entrySet()) {
+                current[statisticTypes.indexOf(entry.getKey())] = entry.getValue();
+            }
+            if (sums.length < current.length) {
+                sums = Arrays.copyOf(sums, Math.max(current.length, sums.length * 2));
+            }
+            for (int code = 0; code < current.length; code++) {
+                sums[code] += current[code];
+            }
+            values[slot] = current;
+        }
+    }
+
+    public RollingWindows(int games) {
+        if (games < 1) {
+            throw new IllegalArgumentException("Rolling window needs at least one game: " + games);
+        }
+        this.games = games;
+    }
+
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * Makes a finished game the newest of each player in values (player id -> statistic type id ->
+     * value), dropping the player's oldest game when the window is full. A game already in a player's
+     * window keeps its place and gets the new values.
+     */
+    public synchronized void push(long gameId, Map<Long, Map<Long, Double>> values) {
+        for (Map.Entry<Long, Map<Long, Double>> entry : values.entrySet()) {
+            addStatisticTypes(entry.getValue());
+            Window window = players.computeIfAbsent(entry.getKey(), id -> new Window());
+            int slot = window.slotOf(gameId);
+            if (slot < 0) {
+                slot = window.next;
+                window.next = (window.next + 1) % games;
+                window.count = Math.min(games, window.count + 1);
+                window.gameIds[slot] = gameId;
+            }
+            window.set(slot, entry.getValue());
+        }
+    }
+
+    // Rewrites the game's values of the given players whose windows still hold it; no values is all zero
+    public synchronized void replace(long gameId, Collection<Long> playerIds, Map<Long, Map<Long, Double>> values) {
+        for (long playerId : playerIds) {
+            Window window = players.get(playerId);
+            int slot = window != null ? window.slotOf(gameId) : -1;
+            if (slot >= 0) {
+                Map<Long, Double> gameValues = values.getOrDefault(playerId, Map.of());
+                addStatisticTypes(gameValues);
+                window.set(slot, gameValues);
+            }
+        }
+    }
+
+    // Games in the player's window, up to getGames(); 0 before the player's first finished game
+    public synchronized int getGames(long playerId) {
+        Window window = players.get(playerId);
+        return window != null ? window.count : 0;
+    }
+
+    // Per-game averages over the player's window by statistic type id, for the types with any value
+    public synchronized Map<Long, Double> getAverages(long playerId) {
+        Map<Long, Double> averages = new LinkedHashMap<>();
+        Window window = players.get(playerId);
+        if (window == null) {
+            return averages;
+        }
+        for (int code = 0; code < Math.min(window.sums.length, statisticTypes.size()); code++) {
+            if (window.sums[code] != 0) {
+                averages.put(statisticTypes.key(code), window.sums[code] / window.count);
+            }
+        }
+        return averages;
+    }
+
+    private void addStatisticTypes(Map<Long, Double> gameValues) {
+        for (long statisticTypeId : gameValues.keySet()) {
+            statisticTypes.add(statisticTypeId);
+        }
+    }
+}
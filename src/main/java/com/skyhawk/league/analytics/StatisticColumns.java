@@ -0,0 +1,504 @@
+package com.skyhawk.league.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import com.skyhawk.league.collections.LongIndex;
+import com.skyhawk.league.collections.LongIntMap;
+import com.skyhawk.league.model.Statistic;
+
+/**
+ * Column-oriented copy of one league's statistic rows, for scans over a whole league or season.
+ *
+ * A row is the dictionary codes of its player, game and statistic type and its two values, each
+ * field in a primitive array of its own, so a scan reads only the arrays it needs, front to back.
+ * Games carry their season and players their team. Writes mirror the repository calls of the live
+ * path under the instance lock: rows are appended, values updated in place and removed rows blanked.
+ * Scans take no lock; they read the rows published when they start, in chunks on a parallel stream.
+ * Every value change is also applied to the season leaderboard of its statistic type, so leaders are
+ * read without a scan, and counted in a version, so results derived from a scan can tell they are stale.
+ */
+public class StatisticColumns {
+    private static final int CHUNK_ROWS = 1 << 16;
+    private static final int REMOVED = -1;
+    private static final int MAX_PLAYERS = 1 << 24;
+    private static final int MAX_GAMES = 1 << 24;
+    private static final int MAX_TYPES = 1 << 16;
+
+    private final IdDictionary players = new IdDictionary();
+    private final IdDictionary games = new IdDictionary();
+    private final IdDictionary types = new IdDictionary();
+    private final IdDictionary teams = new IdDictionary();
+    // By game code and by player code
+    private volatile int[] gameSeasons = new int[16];
+    private volatile int[] playerTeams = new int[16];
+
+    private volatile Rows rows = new Rows(1024);
+    private volatile int size;
+    // Packed player, game and type codes -> row
+    private final LongIntMap rowIndex = new LongIntMap(-1);
+    // Games each player and each team has rows in
+    private final Pairs playerGames = new Pairs();
+    private final Pairs teamGames = new Pairs();
+    // Season << 16 | type code -> per-player season totals, ranked
+    private final Map<Long, Leaderboard> leaderboards = new ConcurrentHashMap<>();
+    private volatile int latestSeason;
+    // Incremented by every row added and value changed
+    private volatile long version;
+
+    // Field arrays of the rows; replaced, never shrunk, when full
+    private static final class Rows {
+        final int[] player;
+        final int[] game;
+        final int[] type;
+        final long[] number;
+        final float[] decimal;
+
+        Rows(int capacity) {
+            player = new int[capacity];
+            game = new int[capacity];
+            type = new int[capacity];
+            number = new long[capacity];
+            decimal = new float[capacity];
+        }
+
+        Rows(Rows rows, int capacity) {
+            player = Arrays.copyOf(rows.player, capacity);
+            game = Arrays.copyOf(rows.game, capacity);
+            type = Arrays.copyOf(rows.type, capacity);
+            number = Arrays.copyOf(rows.number, capacity);
+            decimal = Arrays.copyOf(rows.decimal, capacity);
+        }
+
+        int capacity() {
+            return player.length;
+        }
+    }
+
+    // Distinct (code, game code) pairs, as two columns
+    private static final class Pairs {
+        private final LongIndex seen = new LongIndex();
+        volatile int[] first = new int[1024];
+        volatile int[] game = new int[1024];
+        volatile int size;
+
+        void add(int code, int gameCode) {
+            int known = seen.size();
+            if (seen.add(((long) code << 32) | gameCode) < known) {
+                return;
+            }
+            if (size == first.length) {
+                game = Arrays.copyOf(game, size * 2);
+                first = Arrays.copyOf(first, size * 2);
+            }
+            first[size] = code;
+            game[size] = gameCode;
+            size++;
+        }
+    }
+
+    public synchronized void addGame(long gameId, int season) {
+        int code = games.code(gameId);
+        if (code >= MAX_GAMES) {
+            throw new IllegalStateException("Too many games for statistic columns: " + gameId);
+        }
+        if (code == gameSeasons.length) {
+            gameSeasons = Arrays.copyOf(gameSeasons, code * 2);
+        }
+        gameSeasons[code] = season;
+        latestSeason = Math.max(latestSeason, season);
+    }
+
+    public synchronized void addPlayer(long playerId, long teamId) {
+        int code = players.code(playerId);
+        if (code >= MAX_PLAYERS) {
+            throw new IllegalStateException("Too many players for statistic columns: " + playerId);
+        }
+        if (code == playerTeams.length) {
+            playerTeams = Arrays.copyOf(playerTeams, code * 2);
+        }
+        playerTeams[code] = teams.code(teamId);
+    }
+
+    public synchronized boolean hasGame(long gameId) {
+        return games.find(gameId) >= 0;
+    }
+
+    public synchronized boolean hasPlayer(long playerId) {
+        return players.find(playerId) >= 0;
+    }
+
+    // Adds the row if it does not exist; the player and the game must have been added
+    public synchronized void saveIfNotExists(Statistic statistic) {
+        long key = key(statistic.getPlayerId(), statistic.getGameId(), statistic.getStatisticTypeId());
+        if (!rowIndex.containsKey(key)) {
+            set(append(key), statistic.getNumberValue(), statistic.getFloatValue());
+        }
+    }
+
+    public synchronized void upsertAll(Collection<Statistic> statistics) {
+        for (Statistic statistic : statistics) {
+            int row = row(statistic.getPlayerId(), statistic.getGameId(), statistic.getStatisticTypeId());
+            set(row, statistic.getNumberValue(), statistic.getFloatValue());
+        }
+    }
+
+    // Adds delta to the row's number value, adding the row at delta if it does not exist
+    public synchronized void addNumberValue(long playerId, long gameId, long statisticTypeId, long delta) {
+        int row = row(playerId, gameId, statisticTypeId);
+        set(row, rows.number[row] + delta, rows.decimal[row]);
+    }
+
+    public synchronized void updateFloatValue(long playerId, long gameId, long statisticTypeId, float value) {
+        int row = row(playerId, gameId, statisticTypeId);
+        set(row, rows.number[row], value);
+    }
+
+    // The given players' rows of the game become the given rows; other players' rows are kept
+    public synchronized void replacePlayerStatistics(long gameId, Collection<Long> playerIds, Collection<Statistic> statistics) {
+        int gameCode = games.find(gameId);
+        for (long playerId : playerIds) {
+            int playerCode = players.find(playerId);
+            if (gameCode < 0 || playerCode < 0) {
+                continue;
+            }
+            for (int typeCode = 0; typeCode < types.size(); typeCode++) {
+                int row = rowIndex.remove(pack(playerCode, gameCode, typeCode));
+                if (row >= 0) {
+                    set(row, 0, 0);
+                    rows.type[row] = REMOVED;
+                }
+            }
+        }
+        upsertAll(statistics);
+    }
+
+    // Values of the game's rows of the given teams' players, by player id and statistic type id
+    public synchronized Map<Long, Map<Long, Double>> gameValues(long gameId, long homeTeamId, long visitorTeamId) {
+        Map<Long, Map<Long, Double>> values = new LinkedHashMap<>();
+        int gameCode = games.find(gameId);
+        int homeCode = teams.find(homeTeamId);
+        int visitorCode = teams.find(visitorTeamId);
+        if (gameCode < 0) {
+            return values;
+        }
+        for (int playerCode = 0; playerCode < players.size(); playerCode++) {
+            int teamCode = playerTeams[playerCode];
+            if (teamCode != homeCode && teamCode != visitorCode) {
+                continue;
+            }
+            for (int typeCode = 0; typeCode < types.size(); typeCode++) {
+                int row = rowIndex.get(pack(playerCode, gameCode, typeCode));
+                if (row >= 0) {
+                    values.computeIfAbsent(players.id(playerCode), id -> new LinkedHashMap<>())
+                            .put(types.id(typeCode), rows.number[row] + (double) rows.decimal[row]);
+                }
+            }
+        }
+        return values;
+    }
+
+    public int rowCount() {
+        return size;
+    }
+
+    // Season of the league's most recent game, 0 before any game
+    public int latestSeason() {
+        return latestSeason;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Per-game averages of every statistic type for each player with games in the season, in one scan:
+     * byPlayer for all types at once. Values are added up as in byPlayer.
+     */
+    public SeasonAverages seasonAverages(int season) {
+        int typeCount;
+        synchronized (this) {
+            typeCount = types.size();
+        }
+        // Sizes before arrays, as in aggregate
+        int rowCount = size;
+        int pairCount = playerGames.size;
+        int playerCount = players.size();
+        Rows rows = this.rows;
+        int[] gameSeasons = this.gameSeasons;
+
+        double[] totals = IntStream.range(0, chunks(rowCount)).parallel()
+                .mapToObj(chunk -> {
+                    double[] sums = new double[playerCount * typeCount];
+                    int end = Math.min(rowCount, (chunk + 1) * CHUNK_ROWS);
+                    for (int row = chunk * CHUNK_ROWS; row < end; row++) {
+                        int type = rows.type[row];
+                        if (type == REMOVED || type >= typeCount || gameSeasons[rows.game[row]] != season) {
+                            continue;
+                        }
+                        sums[rows.player[row] * typeCount + type] += rows.number[row] + rows.decimal[row];
+                    }
+                    return sums;
+                })
+                .reduce(StatisticColumns::add)
+                .orElseGet(() -> new double[playerCount * typeCount]);
+
+        int[] pairFirst = playerGames.first;
+        int[] pairGame = playerGames.game;
+        int[] gamesPlayed = new int[playerCount];
+        for (int pair = 0; pair < pairCount; pair++) {
+            if (gameSeasons[pairGame[pair]] == season) {
+                gamesPlayed[pairFirst[pair]]++;
+            }
+        }
+
+        int seasonPlayers = 0;
+        for (int code = 0; code < playerCount; code++) {
+            if (gamesPlayed[code] > 0) {
+                seasonPlayers++;
+            }
+        }
+        long[] playerIds = new long[seasonPlayers];
+        float[] averages = new float[seasonPlayers * typeCount];
+        int player = 0;
+        for (int code = 0; code < playerCount; code++) {
+            if (gamesPlayed[code] == 0) {
+                continue;
+            }
+            playerIds[player] = players.id(code);
+            for (int type = 0; type < typeCount; type++) {
+                averages[player * typeCount + type] = (float) (totals[code * typeCount + type] / gamesPlayed[code]);
+            }
+            player++;
+        }
+        long[] typeIds = new long[typeCount];
+        for (int type = 0; type < typeCount; type++) {
+            typeIds[type] = types.id(type);
+        }
+        return new SeasonAverages(playerIds, typeIds, averages);
+    }
+
+    /**
+     * The n players with the highest season totals of one statistic type, highest first, from the
+     * leaderboard kept up to date by the writes. Values are added up as in byPlayer.
+     */
+    public List<Leader> leaders(long statisticTypeId, int season, int n) {
+        int typeCode;
+        synchronized (this) {
+            typeCode = types.find(statisticTypeId);
+        }
+        Leaderboard leaderboard = typeCode < 0 ? null : leaderboards.get(leaderboardKey(season, typeCode));
+        if (leaderboard == null) {
+            return List.of();
+        }
+        int[] playerTeams = this.playerTeams;
+        List<Leader> leaders = new ArrayList<>();
+        for (Leaderboard.Entry entry : leaderboard.top(n)) {
+            int player = entry.player();
+            leaders.add(new Leader(players.id(player), teams.id(playerTeams[player]), entry.total()));
+        }
+        return leaders;
+    }
+
+    /**
+     * Totals of one statistic type per player, over one season or all seasons when season is null.
+     * Number and float values are added together, as the season statistics endpoints do; games is
+     * the number of games the player has any row in.
+     */
+    public List<Aggregate> byPlayer(long statisticTypeId, Integer season) {
+        return aggregate(statisticTypeId, season, false);
+    }
+
+    // Like byPlayer, per team of the players
+    public List<Aggregate> byTeam(long statisticTypeId, Integer season) {
+        return aggregate(statisticTypeId, season, true);
+    }
+
+    private List<Aggregate> aggregate(long statisticTypeId, Integer season, boolean byTeam) {
+        int typeCode;
+        synchronized (this) {
+            typeCode = types.find(statisticTypeId);
+        }
+        // Sizes before arrays: arrays read afterwards cover every code of the published rows
+        Pairs pairs = byTeam ? teamGames : playerGames;
+        int rowCount = size;
+        int pairCount = pairs.size;
+        int groupCount = byTeam ? teams.size() : players.size();
+        Rows rows = this.rows;
+        int[] gameSeasons = this.gameSeasons;
+        int[] playerTeams = this.playerTeams;
+        boolean allSeasons = season == null;
+        int seasonValue = allSeasons ? 0 : season;
+
+        double[] totals = typeCode < 0 ? new double[groupCount] : IntStream.range(0, chunks(rowCount)).parallel()
+                .mapToObj(chunk -> {
+                    double[] sums = new double[groupCount];
+                    int end = Math.min(rowCount, (chunk + 1) * CHUNK_ROWS);
+                    for (int row = chunk * CHUNK_ROWS; row < end; row++) {
+                        if (rows.type[row] != typeCode || (!allSeasons && gameSeasons[rows.game[row]] != seasonValue)) {
+                            continue;
+                        }
+                        int player = rows.player[row];
+                        sums[byTeam ? playerTeams[player] : player] += rows.number[row] + rows.decimal[row];
+                    }
+                    return sums;
+                })
+                .reduce(StatisticColumns::add)
+                .orElseGet(() -> new double[groupCount]);
+
+        int[] pairFirst = pairs.first;
+        int[] pairGame = pairs.game;
+        int[] gamesPlayed = new int[groupCount];
+        for (int pair = 0; pair < pairCount; pair++) {
+            if (allSeasons || gameSeasons[pairGame[pair]] == seasonValue) {
+                gamesPlayed[pairFirst[pair]]++;
+            }
+        }
+
+        IdDictionary ids = byTeam ? teams : players;
+        List<Aggregate> result = new ArrayList<>();
+        for (int code = 0; code < groupCount; code++) {
+            if (gamesPlayed[code] > 0 || totals[code] != 0) {
+                result.add(new Aggregate(ids.id(code), totals[code], gamesPlayed[code]));
+            }
+        }
+        return result;
+    }
+
+    private static int chunks(int rowCount) {
+        return (rowCount + CHUNK_ROWS - 1) / CHUNK_ROWS;
+    }
+
+    private static double[] add(double[] left, double[] right) {
+        for (int i = 0; i < left.length; i++) {
+            left[i] += right[i];
+        }
+        return left;
+    }
+
+    // Sets the row's values and moves the difference onto the leaderboard of its season and type
+    private void set(int row, long number, float decimal) {
+        Rows rows = this.rows;
+        double delta = (number + decimal) - (rows.number[row] + rows.decimal[row]);
+        rows.number[row] = number;
+        rows.decimal[row] = decimal;
+        if (delta != 0) {
+            version++;
+            long key = leaderboardKey(gameSeasons[rows.game[row]], rows.type[row]);
+            leaderboards.computeIfAbsent(key, k -> new Leaderboard()).add(rows.player[row], delta);
+        }
+    }
+
+    private static long leaderboardKey(int season, int typeCode) {
+        return ((long) season << 16) | typeCode;
+    }
+
+    private int row(long playerId, long gameId, long statisticTypeId) {
+        long key = key(playerId, gameId, statisticTypeId);
+        int row = rowIndex.get(key);
+        return row >= 0 ? row : append(key);
+    }
+
+    private int append(long key) {
+        int playerCode = (int) (key >>> 40);
+        int gameCode = (int) (key >>> 16) & (MAX_GAMES - 1);
+        int typeCode = (int) key & (MAX_TYPES - 1);
+        Rows current = rows;
+        if (size == current.capacity()) {
+            current = new Rows(current, current.capacity() * 2);
+            rows = current;
+        }
+        int row = size;
+        current.player[row] = playerCode;
+        current.game[row] = gameCode;
+        current.type[row] = typeCode;
+        current.number[row] = 0;
+        current.decimal[row] = 0;
+        rowIndex.put(key, row);
+        playerGames.add(playerCode, gameCode);
+        teamGames.add(playerTeams[playerCode], gameCode);
+        size++;
+        version++;
+        return row;
+    }
+
+    private long key(long playerId, long gameId, long statisticTypeId) {
+        int playerCode = players.find(playerId);
+        int gameCode = games.find(gameId);
+        if (playerCode < 0 || gameCode < 0) {
+            throw new IllegalStateException("Player or game not added: playerId=" + playerId + ", gameId=" + gameId);
+        }
+        int typeCode = types.code(statisticTypeId);
+        if (typeCode >= MAX_TYPES) {
+            throw new IllegalStateException("Too many statistic types for statistic columns: " + statisticTypeId);
+        }
+        return pack(playerCode, gameCode, typeCode);
+    }
+
+    private static long pack(int playerCode, int gameCode, int typeCode) {
+        return ((long) playerCode << 40) | ((long) gameCode << 16) | typeCode;
+    }
+
+    public static final class Leader {
+        private final long playerId;
+        private final long teamId;
+        private final double total;
+
+        Leader(long playerId, long teamId, double total) {
+            this.playerId = playerId;
+            this.teamId = teamId;
+            this.total = total;
+        }
+
+        public long getPlayerId() {
+            return playerId;
+        }
+
+        public long getTeamId() {
+            return teamId;
+        }
+
+        public double getTotal() {
+            return total;
+        }
+    }
+
+    // Player-major: the average of player i and type j is averages[i * typeIds.length + j]
+    public record SeasonAverages(long[] playerIds, long[] typeIds, float[] averages) {
+    }
+
+    public static final class Aggregate {
+        private final long id;
+        private final double total;
+        private final int games;
+
+        Aggregate(long id, double total, int games) {
+            this.id = id;
+            this.total = total;
+            this.games = games;
+        }
+
+        // Player or team id
+        public long getId() {
+            return id;
+        }
+
+        public double getTotal() {
+            return total;
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public double getPerGame() {
+            return games == 0 ? 0 : total / games;
+        }
+    }
+}
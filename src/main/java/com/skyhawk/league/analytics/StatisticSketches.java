@@ -0,0 +1,100 @@
+package com.skyhawk.league.analytics;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.skyhawk.league.model.StatisticSketch;
+import com.skyhawk.league.repository.ConnectionRouter;
+import com.skyhawk.league.repository.StatisticSketchRepository;
+
+/**
+ * {@link KllSketch}es of the per-game values of each statistic type, one per league, type, season
+ * and team, so percentiles over any seasons and teams are a merge of a few sketches and a rank. The
+ * sketches are read once from statistic_sketch, take a finished game's values in memory and are
+ * written back as blobs, the changed ones in one batch. A finished game is added once: corrections
+ * made after it ended are not taken back out of the sketches.
+ */
+public class StatisticSketches {
+    private final StatisticSketchRepository sketchRepository;
+    // League id -> (statistic type id, season, team id) -> sketch
+    private final Map<Long, Map<List<Long>, KllSketch>> leagues = new HashMap<>();
+    private final Map<Long, Map<List<Long>, KllSketch>> changed = new HashMap<>();
+
+    public StatisticSketches(ConnectionRouter router) {
+        this.sketchRepository = new StatisticSketchRepository(router);
+    }
+
+    // Reads the league's stored sketches; false when it has none yet
+    public synchronized boolean load(long leagueId) throws SQLException {
+        Map<List<Long>, KllSketch> sketches = new HashMap<>();
+        for (StatisticSketch stored : sketchRepository.getByLeagueId(leagueId)) {
+            sketches.put(key(stored.getStatisticTypeId(), stored.getSeason(), stored.getTeamId()),
+                    KllSketch.fromBytes(stored.getSketch()));
+        }
+        leagues.put(leagueId, sketches);
+        return !sketches.isEmpty();
+    }
+
+    /**
+     * Adds a finished game's values (player id -> statistic type id -> value) to the sketches of
+     * the players' teams in the season; kept in memory until {@link #flush}.
+     */
+    public synchronized void add(long leagueId, int season, Map<Long, Map<Long, Double>> values,
+            Map<Long, Long> playerTeamIds) {
+        Map<List<Long>, KllSketch> sketches = leagues.computeIfAbsent(leagueId, id -> new HashMap<>());
+        Map<List<Long>, KllSketch> leagueChanged = changed.computeIfAbsent(leagueId, id -> new HashMap<>());
+        for (Map.Entry<Long, Map<Long, Double>> player : values.entrySet()) {
+            Long teamId = playerTeamIds.get(player.getKey());
+            if (teamId == null) {
+                continue;
+            }
+            for (Map.Entry<Long, Double> value : player.getValue().entrySet()) {
+                List<Long> key = key(value.getKey(), season, teamId);
+                KllSketch sketch = sketches.computeIfAbsent(key, k -> new KllSketch());
+                sketch.add(value.getValue());
+                leagueChanged.put(key, sketch);
+            }
+        }
+    }
+
+    // Writes the league's sketches changed since the last flush
+    public synchronized void flush(long leagueId) throws SQLException {
+        Map<List<Long>, KllSketch> leagueChanged = changed.remove(leagueId);
+        if (leagueChanged == null || leagueChanged.isEmpty()) {
+            return;
+        }
+        List<StatisticSketch> rows = new ArrayList<>(leagueChanged.size());
+        for (Map.Entry<List<Long>, KllSketch> entry : leagueChanged.entrySet()) {
+            List<Long> key = entry.getKey();
+            rows.add(new StatisticSketch(leagueId, key.get(0), key.get(1).intValue(), key.get(2),
+                    entry.getValue().toBytes()));
+        }
+        sketchRepository.upsertAll(rows);
+    }
+
+    /**
+     * The statistic type's values of the given seasons and teams (all when null) merged into one
+     * sketch; empty when there are none.
+     */
+    public synchronized KllSketch merge(long leagueId, long statisticTypeId, Collection<Integer> seasons,
+            Collection<Long> teamIds) {
+        KllSketch merged = new KllSketch();
+        for (Map.Entry<List<Long>, KllSketch> entry : leagues.getOrDefault(leagueId, Map.of()).entrySet()) {
+            List<Long> key = entry.getKey();
+            if (key.get(0) == statisticTypeId
+                    && (seasons == null || seasons.contains(key.get(1).intValue()))
+                    && (teamIds == null || teamIds.contains(key.get(2)))) {
+                merged.merge(entry.getValue());
+            }
+        }
+        return merged;
+    }
+
+    private static List<Long> key(long statisticTypeId, int season, long teamId) {
+        return List.of(statisticTypeId, (long) season, teamId);
+    }
+}
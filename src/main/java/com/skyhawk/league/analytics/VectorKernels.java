@@ -0,0 +1,26 @@
+package com.skyhawk.league.analytics;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorSpecies;
+
+// SIMD loops of PlayerFeatures; only loaded when the jdk.incubator.vector module is in the boot layer
+final class VectorKernels {
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    private VectorKernels() {
+    }
+
+    // scores[i] += column[offset + i] * weight for i < count, a vector of lanes per fused multiply-add
+    static void addScaled(float[] scores, float[] column, int offset, int count, float weight) {
+        FloatVector weights = FloatVector.broadcast(SPECIES, weight);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(count); i < bound; i += SPECIES.length()) {
+            FloatVector.fromArray(SPECIES, column, offset + i)
+                    .fma(weights, FloatVector.fromArray(SPECIES, scores, i))
+                    .intoArray(scores, i);
+        }
+        for (; i < count; i++) {
+            scores[i] += column[offset + i] * weight;
+        }
+    }
+}
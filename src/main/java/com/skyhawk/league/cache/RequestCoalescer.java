@@ -0,0 +1,116 @@
+package com.skyhawk.league.cache;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Single-flight execution of identical concurrent reads. The first caller for a key
+ * computes the response; callers arriving while it is in flight wait for and share the
+ * same serialized bytes. With a positive TTL a successful result is also reused for that
+ * many milliseconds after it completes.
+ */
+public class RequestCoalescer {
+    private static final Logger log = LoggerFactory.getLogger(RequestCoalescer.class);
+
+    private static final int SWEEP_THRESHOLD = 1024;
+
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+
+    public RequestCoalescer(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    private static final class Flight {
+        private final CompletableFuture<SerializedResponse> future = new CompletableFuture<>();
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        private boolean isExpired(long now) {
+            return future.isDone() && expiresAt <= now;
+        }
+    }
+
+    // Normalized route key: method, path without duplicate or trailing slashes, and sorted query parameters
+    public static String key(HttpExchange exchange) {
+        URI uri = exchange.getRequestURI();
+        String path = uri.getPath().replaceAll("/{2,}", "/");
+        if (path.length() > 1 && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        StringBuilder key = new StringBuilder(exchange.getRequestMethod()).append(' ').append(path);
+        String query = uri.getRawQuery();
+        if (query != null && !query.isEmpty()) {
+            String[] params = query.split("&");
+            Arrays.sort(params);
+            key.append('?').append(String.join("&", params));
+        }
+        return key.toString();
+    }
+
+    public SerializedResponse execute(String key, Callable<SerializedResponse> loader) throws Exception {
+        if (flights.size() > SWEEP_THRESHOLD) {
+            sweepExpired();
+        }
+        Flight flight = new Flight();
+        while (true) {
+            Flight current = flights.putIfAbsent(key, flight);
+            if (current == null) {
+                return lead(key, flight, loader);
+            }
+            if (current.isExpired(System.currentTimeMillis())) {
+                flights.remove(key, current);
+                continue;
+            }
+            log.debug("Coalesced request: key={}", key);
+            return await(current);
+        }
+    }
+
+    public int inFlight() {
+        return flights.size();
+    }
+
+    private SerializedResponse lead(String key, Flight flight, Callable<SerializedResponse> loader) throws Exception {
+        SerializedResponse response;
+        try {
+            response = loader.call();
+        } catch (Exception e) {
+            flights.remove(key, flight);
+            flight.future.completeExceptionally(e);
+            throw e;
+        }
+        boolean reusable = ttlMillis > 0 && response.getStatus() == 200;
+        flight.expiresAt = reusable ? System.currentTimeMillis() + ttlMillis : 0;
+        flight.future.complete(response);
+        if (!reusable) {
+            flights.remove(key, flight);
+        }
+        return response;
+    }
+
+    private SerializedResponse await(Flight flight) throws Exception {
+        try {
+            return flight.future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void sweepExpired() {
+        long now = System.currentTimeMillis();
+        flights.entrySet().removeIf(entry -> entry.getValue().isExpired(now));
+    }
+}
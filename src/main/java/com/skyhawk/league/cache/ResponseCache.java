@@ -0,0 +1,167 @@
+package com.skyhawk.league.cache;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * LRU cache of fully serialized responses, bounded by the total size of the cached bodies.
+ * Every entry carries the tags (player, team, game) it was computed from; writing a statistic
+ * invalidates exactly the entries tagged with the affected ids.
+ *
+ * A computation takes a {@link #stamp()} before reading from the database and passes it to
+ * {@link #put}; the result is dropped if one of its tags was invalidated in the meantime, so a
+ * slow computation can never re-insert data that a concurrent write has already made stale.
+ * The invalidated tags are remembered for that check only until {@link #MAX_TAG_VERSIONS} of them
+ * pile up; they are then forgotten at once and every stamp taken before is refused instead.
+ */
+public class ResponseCache {
+    private static final Logger log = LoggerFactory.getLogger(ResponseCache.class);
+
+    static final int MAX_TAG_VERSIONS = 4096;
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, Set<String>> keysByTag = new HashMap<>();
+    private final Map<String, Long> tagVersions = new HashMap<>();
+    private long version;
+    // Stamps below this were taken before the tag versions were last pruned
+    private long oldestStamp;
+    private long totalBytes;
+    private long hits;
+    private long misses;
+
+    public ResponseCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    private static final class Entry {
+        private final SerializedResponse response;
+        private final String[] tags;
+
+        private Entry(SerializedResponse response, String[] tags) {
+            this.response = response;
+            this.tags = tags;
+        }
+    }
+
+    public static String playerTag(long playerId) {
+        return "player:" + playerId;
+    }
+
+    public static String teamTag(long teamId) {
+        return "team:" + teamId;
+    }
+
+    public static String gameTag(long gameId) {
+        return "game:" + gameId;
+    }
+
+    public synchronized SerializedResponse get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        log.debug("Cache hit: key={}", key);
+        return entry.response;
+    }
+
+    public synchronized long stamp() {
+        return version;
+    }
+
+    public synchronized boolean put(String key, SerializedResponse response, long stamp, String... tags) {
+        if (response.size() > maxBytes) {
+            return false;
+        }
+        if (stamp < oldestStamp) {
+            log.debug("Cache put skipped, stamp older than the pruned tags: key={}", key);
+            return false;
+        }
+        for (String tag : tags) {
+            if (tagVersions.getOrDefault(tag, 0L) > stamp) {
+                log.debug("Cache put skipped, invalidated while computing: key={}, tag={}", key, tag);
+                return false;
+            }
+        }
+        remove(key);
+        entries.put(key, new Entry(response, tags));
+        totalBytes += response.size();
+        for (String tag : tags) {
+            keysByTag.computeIfAbsent(tag, t -> new HashSet<>()).add(key);
+        }
+        evict();
+        return true;
+    }
+
+    public synchronized void invalidate(String... tags) {
+        version++;
+        int removed = 0;
+        for (String tag : tags) {
+            tagVersions.put(tag, version);
+            Set<String> keys = keysByTag.remove(tag);
+            if (keys != null) {
+                for (String key : keys.toArray(new String[0])) {
+                    if (remove(key)) {
+                        removed++;
+                    }
+                }
+            }
+        }
+        if (removed > 0) {
+            log.debug("Cache invalidated: tags={}, removed={}", String.join(",", tags), removed);
+        }
+        if (tagVersions.size() > MAX_TAG_VERSIONS) {
+            // Every remembered version is at or below the current one, so no later stamp needs them
+            tagVersions.clear();
+            oldestStamp = version;
+        }
+    }
+
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    synchronized int tagVersionCount() {
+        return tagVersions.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ResponseCache [entries=" + entries.size() + ", totalBytes=" + totalBytes + ", maxBytes=" + maxBytes
+                + ", hits=" + hits + ", misses=" + misses + "]";
+    }
+
+    private boolean remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        totalBytes -= entry.response.size();
+        for (String tag : entry.tags) {
+            Set<String> keys = keysByTag.get(tag);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByTag.remove(tag);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void evict() {
+        while (totalBytes > maxBytes && !entries.isEmpty()) {
+            String eldest = entries.keySet().iterator().next();
+            remove(eldest);
+            log.debug("Cache evicted: key={}", eldest);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.skyhawk.league.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpExchange;
+
+public class SerializedResponse {
+    private final int status;
+    private final String contentType;
+    private final byte[] body;
+
+    public SerializedResponse(int status, String contentType, byte[] body) {
+        this.status = status;
+        this.contentType = contentType;
+        this.body = body;
+    }
+
+    public static SerializedResponse json(String json) {
+        return new SerializedResponse(200, "application/json", json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SerializedResponse json(byte[] json) {
+        return new SerializedResponse(200, "application/json", json);
+    }
+
+    public static SerializedResponse status(int status) {
+        return new SerializedResponse(status, null, null);
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public int size() {
+        return body != null ? body.length : 0;
+    }
+
+    public void send(HttpExchange exchange) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        if (contentType != null) {
+            exchange.getResponseHeaders().add("Content-Type", contentType);
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SerializedResponse [status=" + status + ", contentType=" + contentType + ", size=" + size() + "]";
+    }
+}
@@ -0,0 +1,23 @@
+package com.skyhawk.league.collections;
+
+// Hash spreading and table sizing shared by the open-addressing tables
+final class Hashing {
+
+    private Hashing() {
+    }
+
+    // Ids are often sequential or share their low bits (snowflake ids): spread every bit into the low ones
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // Power of two that keeps the table at most half full
+    static int tableSize(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2L) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
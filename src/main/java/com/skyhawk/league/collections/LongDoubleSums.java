@@ -0,0 +1,38 @@
+package com.skyhawk.league.collections;
+
+import java.util.Arrays;
+
+// Sums of double values per long key; entries are read by ordinal, in the order keys were first added
+public final class LongDoubleSums {
+    private final LongIndex index;
+    private double[] sums;
+
+    public LongDoubleSums() {
+        this(8);
+    }
+
+    public LongDoubleSums(int expectedSize) {
+        this.index = new LongIndex(expectedSize);
+        this.sums = new double[Math.max(4, expectedSize)];
+    }
+
+    public void add(long key, double value) {
+        int ordinal = index.add(key);
+        if (ordinal == sums.length) {
+            sums = Arrays.copyOf(sums, ordinal * 2);
+        }
+        sums[ordinal] += value;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public long key(int ordinal) {
+        return index.key(ordinal);
+    }
+
+    public double sum(int ordinal) {
+        return sums[ordinal];
+    }
+}
@@ -0,0 +1,85 @@
+package com.skyhawk.league.collections;
+
+import java.util.Arrays;
+
+/**
+ * Dense ordinals of long keys in insertion order: the first key added gets 0, the next 1 and so on,
+ * so per-key values can live in plain primitive arrays indexed by ordinal. The table is open
+ * addressing with linear probing and holds ordinal + 1 per slot (0 is free); keys are kept once, in
+ * insertion order. Keys cannot be removed. Not thread-safe.
+ */
+public final class LongIndex {
+    private long[] keys;
+    private int[] slots;
+    private int mask;
+    private int size;
+
+    public LongIndex() {
+        this(8);
+    }
+
+    public LongIndex(int expectedSize) {
+        int capacity = Hashing.tableSize(expectedSize);
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        this.keys = new long[Math.max(4, expectedSize)];
+    }
+
+    // The key's ordinal, adding the key when it is new
+    public int add(long key) {
+        int slot = Hashing.mix(key) & mask;
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            if (keys[entry - 1] == key) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        keys[size] = key;
+        slots[slot] = ++size;
+        if (size > slots.length / 2) {
+            rehash(slots.length * 2);
+        }
+        return size - 1;
+    }
+
+    // -1 when the key has not been added
+    public int indexOf(long key) {
+        int slot = Hashing.mix(key) & mask;
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            if (keys[entry - 1] == key) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public boolean contains(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    public long key(int ordinal) {
+        return keys[ordinal];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        mask = capacity - 1;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            int slot = Hashing.mix(keys[ordinal]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = ordinal + 1;
+        }
+    }
+}
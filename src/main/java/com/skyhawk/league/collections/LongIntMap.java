@@ -0,0 +1,130 @@
+package com.skyhawk.league.collections;
+
+/**
+ * Map of long keys to int values without boxing. Open addressing with linear probing; removal shifts
+ * the following entries of the probe run back, so there are no tombstones. Not thread-safe.
+ */
+public final class LongIntMap {
+    private final int noValue;
+    private long[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int mask;
+    private int size;
+
+    // noValue is what get() and remove() return for an absent key
+    public LongIntMap(int noValue) {
+        this(noValue, 8);
+    }
+
+    public LongIntMap(int noValue, int expectedSize) {
+        this.noValue = noValue;
+        allocate(Hashing.tableSize(expectedSize));
+    }
+
+    public int get(long key) {
+        int slot = Hashing.mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return noValue;
+    }
+
+    public boolean containsKey(long key) {
+        int slot = Hashing.mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    // The previous value, or noValue
+    public int put(long key, int value) {
+        int slot = Hashing.mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > keys.length / 2) {
+            rehash(keys.length * 2);
+        }
+        return noValue;
+    }
+
+    // The removed value, or noValue
+    public int remove(long key) {
+        int slot = Hashing.mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                int previous = values[slot];
+                shiftBack(slot);
+                size--;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return noValue;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Moves later entries of the run into the freed slot when their home slot allows it
+    private void shiftBack(int free) {
+        int slot = free;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (!used[slot]) {
+                break;
+            }
+            int home = Hashing.mix(keys[slot]) & mask;
+            // The entry may move to free unless its home lies cyclically in (free, slot]
+            boolean stays = free <= slot ? free < home && home <= slot : free < home || home <= slot;
+            if (!stays) {
+                keys[free] = keys[slot];
+                values[free] = values[slot];
+                free = slot;
+            }
+        }
+        used[free] = false;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = Hashing.mix(oldKeys[i]) & mask;
+                while (used[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
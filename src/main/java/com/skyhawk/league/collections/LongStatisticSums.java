@@ -0,0 +1,50 @@
+package com.skyhawk.league.collections;
+
+import java.util.Arrays;
+
+/**
+ * Sums of both statistic values per long key (usually a statistic type id): number values in a long,
+ * float values in a float, added in the order given, as the boxed aggregation did. Entries are read
+ * by ordinal, in the order keys were first added.
+ */
+public final class LongStatisticSums {
+    private final LongIndex index;
+    private long[] numberSums;
+    private float[] floatSums;
+
+    public LongStatisticSums() {
+        this(8);
+    }
+
+    public LongStatisticSums(int expectedSize) {
+        this.index = new LongIndex(expectedSize);
+        this.numberSums = new long[Math.max(4, expectedSize)];
+        this.floatSums = new float[Math.max(4, expectedSize)];
+    }
+
+    public void add(long key, long numberValue, float floatValue) {
+        int ordinal = index.add(key);
+        if (ordinal == numberSums.length) {
+            numberSums = Arrays.copyOf(numberSums, ordinal * 2);
+            floatSums = Arrays.copyOf(floatSums, ordinal * 2);
+        }
+        numberSums[ordinal] += numberValue;
+        floatSums[ordinal] += floatValue;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public long key(int ordinal) {
+        return index.key(ordinal);
+    }
+
+    public long numberSum(int ordinal) {
+        return numberSums[ordinal];
+    }
+
+    public float floatSum(int ordinal) {
+        return floatSums[ordinal];
+    }
+}
@@ -0,0 +1,255 @@
+package com.skyhawk.league.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skyhawk.league.analytics.KllSketch;
+import com.skyhawk.league.analytics.LeagueAnalytics;
+import com.skyhawk.league.analytics.StatisticColumns;
+import com.skyhawk.league.analytics.StatisticColumns.Aggregate;
+import com.skyhawk.league.analytics.StatisticColumns.Leader;
+import com.skyhawk.league.cache.SerializedResponse;
+import com.skyhawk.league.model.League;
+import com.skyhawk.league.model.Player;
+import com.skyhawk.league.model.StatisticType;
+import com.skyhawk.league.model.Team;
+import com.skyhawk.league.repository.ConnectionRouter;
+import com.skyhawk.league.repository.LeagueRepository;
+import com.skyhawk.league.repository.PlayerRepository;
+import com.skyhawk.league.repository.StatisticTypeRepository;
+import com.skyhawk.league.repository.TeamRepository;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// League-wide aggregates of one statistic type, scanned from the in-memory statistic columns, the
+// season leaders kept with them and percentiles from the statistic sketches
+public class AnalyticsController {
+	private static final Logger log = LoggerFactory.getLogger(AnalyticsController.class);
+
+    private final LeagueRepository leagueRepository;
+    private final TeamRepository teamRepository;
+    private final PlayerRepository playerRepository;
+    private final StatisticTypeRepository statisticTypeRepository;
+    private final LeagueAnalytics leagueAnalytics;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public AnalyticsController(ConnectionRouter router, LeagueAnalytics leagueAnalytics) {
+        this.leagueRepository = new LeagueRepository(router);
+        this.teamRepository = new TeamRepository(router);
+        this.playerRepository = new PlayerRepository(router);
+        this.statisticTypeRepository = new StatisticTypeRepository(router);
+        this.leagueAnalytics = leagueAnalytics;
+    }
+
+    public void handle(HttpExchange exchange) {
+		log.info("Start handle: exchange={}", exchange);
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            String[] segments = path.split("/");
+
+            if (!leagueAnalytics.isEnabled()) {
+                // Every endpoint here answers from the in-memory analytics, which LEAGUE_ANALYTICS turns on
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            if ("GET".equals(method) && segments.length == 6 && "analytics".equals(segments[3])) {
+                if ("teams".equals(segments[4])) {
+                    getTeamAggregates(exchange, segments[2], segments[5]);
+                    return;
+                } else if ("players".equals(segments[4])) {
+                    getPlayerAggregates(exchange, segments[2], segments[5]);
+                    return;
+                } else if ("percentile".equals(segments[4])) {
+                    getPercentile(exchange, segments[2], segments[5]);
+                    return;
+                }
+            } else if ("GET".equals(method) && segments.length == 5 && "leaders".equals(segments[3])) {
+                getLeaders(exchange, segments[2], segments[4]);
+                return;
+            }
+            exchange.sendResponseHeaders(404, -1);
+        } catch (NumberFormatException e) {
+            // A malformed ?season=, ?n=, ?limit= or ?value=
+            try {
+                exchange.sendResponseHeaders(400, -1);
+            } catch (Exception ignored) {}
+        } catch (Exception e) {
+            try {
+                exchange.sendResponseHeaders(500, -1);
+            } catch (Exception ignored) {}
+        }
+		log.info("End handle: exchange={}", exchange);
+    }
+
+    // Every team of the league, best per-game average first
+    private void getTeamAggregates(HttpExchange exchange, String leagueName, String typeName) throws Exception {
+		log.debug("Start getTeamAggregates: exchange={}, leagueName={}, typeName={}", exchange, leagueName, typeName);
+        League league = leagueRepository.getByName(leagueName);
+        StatisticType type = league != null ? statisticTypeRepository.getByLeagueIdAndName(league.getId(), typeName) : null;
+        if (type == null) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        List<Aggregate> aggregates = leagueAnalytics.columns(league.getId())
+                .byTeam(type.getId(), intParam(exchange, "season", null));
+        aggregates.sort(Comparator.comparingDouble(Aggregate::getPerGame).reversed());
+        Map<Long, Team> teams = new HashMap<>();
+        for (Team team : teamRepository.getByIds(aggregates.stream().map(Aggregate::getId).toList())) {
+            teams.put(team.getId(), team);
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(body)) {
+            json.writeStartArray();
+            for (Aggregate aggregate : aggregates) {
+                Team team = teams.get(aggregate.getId());
+                if (team != null) {
+                    writeAggregate(json, "team", team.getName(), aggregate);
+                }
+            }
+            json.writeEndArray();
+        }
+        SerializedResponse.json(body.toByteArray()).send(exchange);
+		log.debug("End getTeamAggregates: exchange={}, leagueName={}, typeName={}", exchange, leagueName, typeName);
+    }
+
+    // The league's players with the highest totals, ?limit= of them (default 10)
+    private void getPlayerAggregates(HttpExchange exchange, String leagueName, String typeName) throws Exception {
+		log.debug("Start getPlayerAggregates: exchange={}, leagueName={}, typeName={}", exchange, leagueName, typeName);
+        League league = leagueRepository.getByName(leagueName);
+        StatisticType type = league != null ? statisticTypeRepository.getByLeagueIdAndName(league.getId(), typeName) : null;
+        if (type == null) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        List<Aggregate> aggregates = leagueAnalytics.columns(league.getId())
+                .byPlayer(type.getId(), intParam(exchange, "season", null));
+        aggregates.sort(Comparator.comparingDouble(Aggregate::getTotal).reversed());
+        aggregates = aggregates.subList(0, Math.min(aggregates.size(), Math.max(0, intParam(exchange, "limit", 10))));
+        Map<Long, Player> players = new HashMap<>();
+        for (Player player : playerRepository.getByIds(aggregates.stream().map(Aggregate::getId).toList())) {
+            players.put(player.getId(), player);
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(body)) {
+            json.writeStartArray();
+            for (Aggregate aggregate : aggregates) {
+                Player player = players.get(aggregate.getId());
+                if (player != null) {
+                    writeAggregate(json, "player", player.getName(), aggregate);
+                }
+            }
+            json.writeEndArray();
+        }
+        SerializedResponse.json(body.toByteArray()).send(exchange);
+		log.debug("End getPlayerAggregates: exchange={}, leagueName={}, typeName={}", exchange, leagueName, typeName);
+    }
+
+    // The ?n= (default 10) players with the highest totals of the ?season= (default latest); no query
+    private void getLeaders(HttpExchange exchange, String leagueName, String typeName) throws Exception {
+		log.debug("Start getLeaders: exchange={}, leagueName={}, typeName={}", exchange, leagueName, typeName);
+        League league = leagueAnalytics.league(leagueName);
+        StatisticType type = league != null ? leagueAnalytics.statisticType(league.getId(), typeName) : null;
+        if (type == null) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        StatisticColumns columns = leagueAnalytics.columns(league.getId());
+        int season = intParam(exchange, "season", columns.latestSeason());
+        List<Leader> leaders = columns.leaders(type.getId(), season, Math.max(0, intParam(exchange, "n", 10)));
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(body)) {
+            json.writeStartArray();
+            for (Leader leader : leaders) {
+                Player player = leagueAnalytics.player(leader.getPlayerId());
+                Team team = leagueAnalytics.team(leader.getTeamId());
+                if (player != null) {
+                    json.writeStartObject();
+                    json.writeStringField("player", player.getName());
+                    json.writeStringField("team", team != null ? team.getName() : null);
+                    json.writeNumberField("total", leader.getTotal());
+                    json.writeEndObject();
+                }
+            }
+            json.writeEndArray();
+        }
+        SerializedResponse.json(body.toByteArray()).send(exchange);
+		log.debug("End getLeaders: exchange={}, leagueName={}, typeName={}", exchange, leagueName, typeName);
+    }
+
+    /**
+     * Where ?value= falls among the per-game values of the statistic type, from the sketches of the
+     * ?season= and ?team= lists (comma separated, all when absent) merged into one.
+     */
+    private void getPercentile(HttpExchange exchange, String leagueName, String typeName) throws Exception {
+		log.debug("Start getPercentile: exchange={}, leagueName={}, typeName={}", exchange, leagueName, typeName);
+        League league = leagueAnalytics.league(leagueName);
+        StatisticType type = league != null ? leagueAnalytics.statisticType(league.getId(), typeName) : null;
+        String value = param(exchange, "value");
+        if (type == null || value == null) {
+            exchange.sendResponseHeaders(value == null ? 400 : 404, -1);
+            return;
+        }
+        List<Integer> seasons = null;
+        if (param(exchange, "season") != null) {
+            seasons = new ArrayList<>();
+            for (String season : param(exchange, "season").split(",")) {
+                seasons.add(Integer.valueOf(season.trim()));
+            }
+        }
+        List<Long> teamIds = null;
+        if (param(exchange, "team") != null) {
+            teamIds = new ArrayList<>();
+            for (String teamName : param(exchange, "team").split(",")) {
+                Team team = teamRepository.getByName(teamName.trim());
+                if (team != null && team.getLeagueId() == league.getId()) {
+                    teamIds.add(team.getId());
+                }
+            }
+        }
+        KllSketch sketch = leagueAnalytics.sketches().merge(league.getId(), type.getId(), seasons, teamIds);
+        double number = Double.parseDouble(value);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(body)) {
+            json.writeStartObject();
+            json.writeNumberField("value", number);
+            json.writeNumberField("percentile", sketch.rank(number) * 100);
+            json.writeNumberField("count", sketch.count());
+            json.writeEndObject();
+        }
+        SerializedResponse.json(body.toByteArray()).send(exchange);
+		log.debug("End getPercentile: exchange={}, leagueName={}, typeName={}", exchange, leagueName, typeName);
+    }
+
+    private static void writeAggregate(JsonGenerator json, String nameField, String name, Aggregate aggregate)
+            throws IOException {
+        json.writeStartObject();
+        json.writeStringField(nameField, name);
+        json.writeNumberField("total", aggregate.getTotal());
+        json.writeNumberField("games", aggregate.getGames());
+        json.writeNumberField("perGame", aggregate.getPerGame());
+        json.writeEndObject();
+    }
+
+    private static Integer intParam(HttpExchange exchange, String name, Integer defaultValue) {
+        String value = param(exchange, name);
+        return value != null ? Integer.valueOf(value) : defaultValue;
+    }
+
+    private static String param(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                if (pair.startsWith(name + "=")) {
+                    return pair.substring(name.length() + 1);
+                }
+            }
+        }
+        return null;
+    }
+}
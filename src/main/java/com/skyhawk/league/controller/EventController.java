@@ -5,7 +5,15 @@ import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,17 +21,35 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skyhawk.league.beans.ConnectionProvider;
+import com.skyhawk.league.analytics.LeagueAnalytics;
+import com.skyhawk.league.cache.ResponseCache;
+import com.skyhawk.league.live.GameLineup;
+import com.skyhawk.league.live.GameLineups;
+import com.skyhawk.league.live.GameTimeline;
+import com.skyhawk.league.live.GameTimelines;
+import com.skyhawk.league.live.LiveGameFeed;
+import com.skyhawk.league.live.LiveStatisticCounters;
 import com.skyhawk.league.model.Event;
 import com.skyhawk.league.model.Event.EventType;
 import com.skyhawk.league.model.Game;
 import com.skyhawk.league.model.Game.GameStateEnum;
 import com.skyhawk.league.model.Player;
+import com.skyhawk.league.model.PlayerStint;
 import com.skyhawk.league.model.Statistic;
 import com.skyhawk.league.model.StatisticType;
+import com.skyhawk.league.replay.GameReplay;
+import com.skyhawk.league.repository.ConnectionRouter;
+import com.skyhawk.league.repository.EventRepository;
 import com.skyhawk.league.repository.GameRepository;
 import com.skyhawk.league.repository.PlayerRepository;
+import com.skyhawk.league.repository.PlayerStintRepository;
+import com.skyhawk.league.repository.RequestLoaders;
+import com.skyhawk.league.repository.SnowflakeIdGenerator;
+import com.skyhawk.league.repository.StatisticPartitions;
 import com.skyhawk.league.repository.StatisticRepository;
 import com.skyhawk.league.repository.StatisticTypeRepository;
+import com.skyhawk.league.repository.TeamRepository;
 import com.sun.net.httpserver.HttpExchange;
 
 @RestController
@@ -31,17 +57,50 @@ import com.sun.net.httpserver.HttpExchange;
 public class EventController {
 
 	private static final Logger log = LoggerFactory.getLogger(EventController.class);
+	private static final int GAME_LOCK_STRIPES = 256;
 	private final GameRepository gameRepository;
 	private final PlayerRepository playerRepository;
 	private final StatisticRepository statisticRepository;
+	private final EventRepository eventRepository;
+	private final PlayerStintRepository stintRepository;
 	private final StatisticTypeRepository statisiticTypeRepository;
-	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final TeamRepository teamRepository;
+	private final LiveGameFeed liveGameFeed;
+	private final ResponseCache responseCache;
+	private final LiveStatisticCounters liveCounters;
+	private final LeagueAnalytics leagueAnalytics;
+	private final GameTimelines timelines;
+	private final GameLineups lineups;
+	// Connections for the transactions of corrections and late events; null without a database
+	private final ConnectionProvider connectionProvider;
+	// Players never change team, so the team of cache invalidation and lineups is resolved once per player
+	private final Map<Long, Long> playerTeamIds = new ConcurrentHashMap<>();
+	// Events of one game are applied one at a time: counters, stints and recomputes read, then write.
+	// Striped by game id; ReentrantLock rather than synchronized so waiting virtual threads unmount
+	private final ReentrantLock[] gameLocks = new ReentrantLock[GAME_LOCK_STRIPES];
+	// JavaTimeModule for eventTime
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
 
-	public EventController(Connection connection) {
-		this.gameRepository = new GameRepository(connection);
-		this.statisticRepository = new StatisticRepository(connection);
-		this.statisiticTypeRepository = new StatisticTypeRepository(connection);
-		this.playerRepository = new PlayerRepository(connection);
+	public EventController(ConnectionRouter router, LiveGameFeed liveGameFeed, ResponseCache responseCache,
+			LiveStatisticCounters liveCounters, LeagueAnalytics leagueAnalytics, GameTimelines timelines,
+			GameLineups lineups, ConnectionProvider connectionProvider) {
+		this.gameRepository = new GameRepository(router);
+		this.statisticRepository = new StatisticRepository(router);
+		this.eventRepository = new EventRepository(router);
+		this.stintRepository = new PlayerStintRepository(router);
+		this.statisiticTypeRepository = new StatisticTypeRepository(router);
+		this.playerRepository = new PlayerRepository(router);
+		this.teamRepository = new TeamRepository(router);
+		this.liveGameFeed = liveGameFeed;
+		this.responseCache = responseCache;
+		this.liveCounters = liveCounters;
+		this.leagueAnalytics = leagueAnalytics;
+		this.timelines = timelines;
+		this.lineups = lineups;
+		this.connectionProvider = connectionProvider;
+		for (int i = 0; i < gameLocks.length; i++) {
+			gameLocks[i] = new ReentrantLock();
+		}
 	}
 
 	public void handle(HttpExchange exchange) {
@@ -65,18 +124,15 @@ public class EventController {
 		log.debug("Start processEvent: exchange={}", exchange);
 		try (InputStream is = exchange.getRequestBody()) {
 			Event event = objectMapper.readValue(is, Event.class);
-			Game game = gameRepository.getById(event.getGameId());
-			if (game == null)
-				throw new IllegalArgumentException("Game not found");
-
-			handleEvents(event);
-			if (event.getType() == Event.EventType.PLAYER_ACTION && event.getPlayerId() != null
-					&& event.getStatisticTypeId() != null) {
-				Statistic stat = new Statistic(event.getPlayerId(), game.getId(), event.getStatisticTypeId());
-				statisticRepository.saveIfNotExists(stat);
+			ReentrantLock gameLock = gameLocks[Math.floorMod(Long.hashCode(event.getGameId()), gameLocks.length)];
+			gameLock.lock();
+			try {
+				applyEvent(event);
+			} finally {
+				gameLock.unlock();
 			}
 
-			String response = "{\"id\": " + event.getId() + "}";
+			String response = "{\"id\": \"" + event.getId() + "\"}";
 			exchange.getResponseHeaders().add("Content-Type", "application/json");
 			exchange.sendResponseHeaders(200, response.getBytes(StandardCharsets.UTF_8).length);
 			try (OutputStream os = exchange.getResponseBody()) {
@@ -86,7 +142,204 @@ public class EventController {
 		log.debug("End processEvent: exchange={}", exchange);
 	}
 
-	private void handleEvents(Event event) throws SQLException {
+	// Called under the game's lock
+	private void applyEvent(Event event) throws Exception {
+		log.debug("Start applyEvent: event={}", event);
+		RequestLoaders loaders = new RequestLoaders(gameRepository, playerRepository, teamRepository,
+				statisiticTypeRepository);
+		Game game = loaders.getGames().load(event.getGameId());
+		if (game == null)
+			throw new IllegalArgumentException("Game not found");
+
+		if (event.getReplacesEventId() != null || event.getType() == EventType.RETRACTION) {
+			correctEvent(event, loaders);
+		} else if (isLate(event)) {
+			// A player event earlier than events already applied: its place in the history is by event time
+			recordAndRecompute(event, eventRepository.getByGameId(game.getId()), loaders);
+		} else {
+			// Recorded before it is applied: the history is what the replay engine rebuilds statistics from
+			event.setId(0);
+			eventRepository.saveIfNotExists(event);
+			handleEvents(event, loaders);
+			if (event.getType() == Event.EventType.PLAYER_ACTION && event.getPlayerId() != null
+					&& event.getStatisticTypeId() != null) {
+				Statistic stat = new Statistic(event.getPlayerId(), game.getId(), event.getStatisticTypeId());
+				statisticRepository.saveIfNotExists(stat);
+				leagueAnalytics.saveIfNotExists(game.getLeagueId(), stat);
+			}
+		}
+		log.debug("End applyEvent: event={}", event);
+	}
+
+	// Only player events are placed by their time: a game state event a little behind the last one (clock
+	// skew between scorers) must still change the game's state, end time and analytics like any other
+	private boolean isLate(Event event) throws SQLException {
+		switch (event.getType()) {
+		case PLAYER_ACTION:
+		case PLAYER_START:
+		case PLAYER_END:
+			break;
+		default:
+			return false;
+		}
+		LocalTime lastEventTime = eventRepository.getLastEventTime(event.getGameId());
+		return lastEventTime != null && event.getEventTime().isBefore(lastEventTime);
+	}
+
+	private void correctEvent(Event event, RequestLoaders loaders) throws SQLException {
+		log.debug("Start correctEvent: event={}", event);
+		if (event.getReplacesEventId() == null) {
+			throw new IllegalArgumentException("Retraction does not contain replacesEventId");
+		}
+		List<Event> history = eventRepository.getByGameId(event.getGameId());
+		Event replaced = null;
+		for (Event recorded : history) {
+			if (recorded.getId() == event.getReplacesEventId()) {
+				replaced = recorded;
+			}
+		}
+		if (replaced == null || replaced.getType() == EventType.RETRACTION) {
+			throw new IllegalArgumentException("Event to correct not found in game: " + event.getReplacesEventId());
+		}
+		recordAndRecompute(event, history, loaders);
+		log.debug("End correctEvent: event={}", event);
+	}
+
+	// Records the event, replays the game with and without it and rewrites only the players whose
+	// statistics changed; their season statistics are recomputed on the next read
+	private void recordAndRecompute(Event event, List<Event> history, RequestLoaders loaders) throws SQLException {
+		log.debug("Start recordAndRecompute: event={}", event);
+		// Its id places it in the history the replay orders, before the row is written
+		event.setId(SnowflakeIdGenerator.getInstance().nextId());
+		List<Event> updatedHistory = new ArrayList<>(history);
+		updatedHistory.add(event);
+		GameReplay before = replay(event.getGameId(), history, loaders);
+		GameReplay after = replay(event.getGameId(), updatedHistory, loaders);
+
+		Set<Long> changedPlayerIds = after.playersDifferingFrom(before);
+		List<Statistic> statistics = new ArrayList<>();
+		List<PlayerStint> stints = new ArrayList<>();
+		for (long playerId : changedPlayerIds) {
+			statistics.addAll(after.getStatistics(playerId).values());
+			stints.addAll(after.getStints(playerId));
+		}
+		writeRecompute(event, changedPlayerIds, statistics, stints);
+
+		// Committed: the in-memory copies follow
+		leagueAnalytics.replacePlayerStatistics(loaders.getGames().load(event.getGameId()).getLeagueId(), event.getGameId(),
+				changedPlayerIds, statistics);
+		// The counters no longer match the rewritten history; the timeline and the lineups are rebuilt from it
+		liveCounters.release(event.getGameId());
+		rebuildTimelineAndLineups(event.getGameId(), updatedHistory, loaders);
+		for (long playerId : changedPlayerIds) {
+			invalidateStatistic(playerId, event.getGameId());
+			publishCorrection(before.getStatistics(playerId), after.getStatistics(playerId));
+		}
+		log.debug("End recordAndRecompute: event={}, changedPlayers={}", event, changedPlayerIds.size());
+	}
+
+	// The event and the rewritten rows in one transaction, on a connection of its own so the shared
+	// connection's other requests are not part of it; without a database (storage backend) they are
+	// written one by one
+	private void writeRecompute(Event event, Set<Long> changedPlayerIds, List<Statistic> statistics,
+			List<PlayerStint> stints) throws SQLException {
+		if (connectionProvider == null) {
+			eventRepository.saveIfNotExists(event);
+			statisticRepository.replacePlayerStatistics(event.getGameId(), changedPlayerIds, statistics);
+			stintRepository.replaceStints(event.getGameId(), changedPlayerIds, stints);
+			return;
+		}
+		try (Connection connection = connectionProvider.getConnection()) {
+			// Partitions first, as the replay engine does: inside the transaction their DDL would hold
+			// statistic exclusively locked until the commit
+			StatisticPartitions partitions = new StatisticPartitions(connection);
+			partitions.ensure(partitions.forGame(event.getGameId()));
+			connection.setAutoCommit(false);
+			try {
+				new EventRepository(connection).saveIfNotExists(event);
+				new StatisticRepository(connection).replacePlayerStatistics(event.getGameId(), changedPlayerIds, statistics);
+				new PlayerStintRepository(connection).replaceStints(event.getGameId(), changedPlayerIds, stints);
+				connection.commit();
+			} catch (SQLException | RuntimeException e) {
+				connection.rollback();
+				throw e;
+			}
+		}
+	}
+
+	private GameReplay replay(long gameId, List<Event> history, RequestLoaders loaders) throws SQLException {
+		StatisticType playTimeStatisticType = statisiticTypeRepository.getByName("playTime");
+		List<Long> statisticTypeIds = new ArrayList<>();
+		for (Event event : history) {
+			if (event.getStatisticTypeId() != null) {
+				statisticTypeIds.add(event.getStatisticTypeId());
+			}
+		}
+		GameReplay replay = new GameReplay(gameId, playTimeStatisticType.getId(),
+				loaders.getStatisticTypes().loadAll(statisticTypeIds));
+		replay.applyAll(GameReplay.effectiveHistory(history));
+		return replay;
+	}
+
+	// Still under the game's lock, so no event of the game is counted between the rebuild and the replace
+	private void rebuildTimelineAndLineups(long gameId, List<Event> history, RequestLoaders loaders) throws SQLException {
+		if (!timelines.isEnabled() && !lineups.isEnabled()) {
+			return;
+		}
+		log.debug("Start rebuildTimelineAndLineups: gameId={}", gameId);
+		Game game = loaders.getGames().load(gameId);
+		List<Event> effectiveHistory = GameReplay.effectiveHistory(history);
+		Set<Long> playerIds = new HashSet<>();
+		List<Long> statisticTypeIds = new ArrayList<>();
+		for (Event event : effectiveHistory) {
+			if (event.getPlayerId() != null) {
+				playerIds.add(event.getPlayerId());
+			}
+			if (event.getStatisticTypeId() != null) {
+				statisticTypeIds.add(event.getStatisticTypeId());
+			}
+		}
+		// The players not resolved yet, in one batch
+		List<Long> unknownPlayerIds = new ArrayList<>();
+		for (long playerId : playerIds) {
+			if (!playerTeamIds.containsKey(playerId)) {
+				unknownPlayerIds.add(playerId);
+			}
+		}
+		for (Player player : loaders.getPlayers().loadAll(unknownPlayerIds).values()) {
+			playerTeamIds.putIfAbsent(player.getId(), player.getTeamId());
+		}
+		Map<Long, Long> teamIds = new HashMap<>();
+		for (long playerId : playerIds) {
+			Long teamId = playerTeamIds.get(playerId);
+			if (teamId != null) {
+				teamIds.put(playerId, teamId);
+			}
+		}
+		timelines.replace(GameTimeline.replay(gameId, game.getHomeTeamId(), game.getVisitorTeamId(),
+				effectiveHistory, teamIds));
+		lineups.replace(GameLineup.replay(gameId, game.getHomeTeamId(), game.getVisitorTeamId(), effectiveHistory,
+				teamIds, loaders.getStatisticTypes().loadAll(statisticTypeIds)));
+		log.debug("End rebuildTimelineAndLineups: gameId={}", gameId);
+	}
+
+	// Live subscribers get the corrected values; a row the correction removed is sent with zero values
+	private void publishCorrection(Map<Long, Statistic> before, Map<Long, Statistic> after) {
+		for (Statistic statistic : after.values()) {
+			Statistic previous = before.get(statistic.getStatisticTypeId());
+			long previousValue = previous != null ? previous.getNumberValue() : 0;
+			liveGameFeed.publishStatistic(statistic, statistic.getNumberValue() - previousValue);
+		}
+		for (Statistic previous : before.values()) {
+			if (!after.containsKey(previous.getStatisticTypeId())) {
+				Statistic removed = new Statistic(previous.getPlayerId(), previous.getGameId(),
+						previous.getStatisticTypeId());
+				liveGameFeed.publishStatistic(removed, -previous.getNumberValue());
+			}
+		}
+	}
+
+	private void handleEvents(Event event, RequestLoaders loaders) throws SQLException {
 		log.debug("Start handleEvents: event={}", event);
 		switch (event.getType()) {
 		case GAME_START:
@@ -95,12 +348,12 @@ public class EventController {
 		case INTERMISSION_END:
 		case TIMEOUT_START:
 		case TIMEOUT_END:
-			handleGameEvents(event);
+			handleGameEvents(event, loaders);
 			break;
 		case PLAYER_ACTION:
 		case PLAYER_START:
 		case PLAYER_END:
-			handlePlayerEvent(event);
+			handlePlayerEvent(event, loaders);
 			break;
 		default:
 			throw new IllegalArgumentException("Event action not supported: " + event);
@@ -108,32 +361,38 @@ public class EventController {
 		log.debug("End handleEvents: event={}", event);
 	}
 
-	private void handleGameEvents(Event event) throws SQLException {
+	private void handleGameEvents(Event event, RequestLoaders loaders) throws SQLException {
 		log.debug("Start handleGameEvents: event={}", event);
 		switch (event.getType()) {
 		case GAME_START:
 		case INTERMISSION_END:
 		case TIMEOUT_END:
-			handleGameStart(event);
+			handleGameStart(event, loaders);
 			break;
 		case GAME_END:
 		case INTERMISSION_START:
 		case TIMEOUT_START:
-			handleGameEnd(event);
+			handleGameEnd(event, loaders);
 			break;
 		default:
 		}
 		log.debug("Start handleGameEvents: event={}", event);
 	}
 
-	private void handleGameEnd(Event event) throws SQLException {
+	private void handleGameEnd(Event event, RequestLoaders loaders) throws SQLException {
 		log.debug("Start handleGameEnd: event={}", event);
-		stopPlayers(event);
+		stopPlayers(event, loaders);
 		String gameState = null;
 		switch (event.getType()) {
 		case GAME_END:
 			gameState = GameStateEnum.End.name();
 			gameRepository.updateEndTime(event.getGameId(), event.getEventTime());
+			liveCounters.release(event.getGameId());
+			// The game as loaded before this event: a repeated GAME_END is not counted twice
+			Game game = loaders.getGames().load(event.getGameId());
+			if (game.getGameState() != GameStateEnum.End) {
+				leagueAnalytics.endGame(game);
+			}
 			break;
 		case INTERMISSION_START:
 			gameState = GameStateEnum.Intermission.name();
@@ -145,41 +404,42 @@ public class EventController {
 		}
 		if (gameState != null) {
 			gameRepository.updateGameState(event.getGameId(), gameState);
+			responseCache.invalidate(ResponseCache.gameTag(event.getGameId()));
+			liveGameFeed.publishGameState(event.getGameId(), gameState, event.getEventTime());
 		}
 		log.debug("End handleGameEnd: event={}", event);
 	}
 
-	private void stopPlayers(Event event) throws SQLException {
+	private void stopPlayers(Event event, RequestLoaders loaders) throws SQLException {
 		log.debug("Start stopPlayers: event={}", event);
-		Game game = gameRepository.getById(event.getGameId());
+		Game game = loaders.getGames().load(event.getGameId());
 		if (game != null) {
-			StatisticType startTimeStatisticType = statisiticTypeRepository.getByName("startTime");
-			long homeTeamId = game.getHomeTeamId();
-			long visitorTeamId = game.getVisitorTeamId();
-			List<Player> players = playerRepository.getByTeamId(homeTeamId);
-			players.addAll(playerRepository.getByTeamId(visitorTeamId));
-			for (Player player : players) {
-				List<Statistic> statistics = statisticRepository.getByPlayerIdAndGameId(player.getId(), game.getId());
-				for (Statistic statistic : statistics) {
-					if (statistic.getStatisticTypeId() == startTimeStatisticType.getId()) {
-						handlePlayerEnd(event);
-					}
-				}
+			// Every open stint of the game is closed by one statement
+			for (PlayerStint stint : stintRepository.endAll(game.getId(), GameReplay.millisOfDay(event.getEventTime()))) {
+				publishPlayTime(stint);
 			}
+			lineups.endAll(game.getId(), GameReplay.millisOfDay(event.getEventTime()));
+			refreshPlayTime(game.getId(), loaders);
 		}
 		log.debug("End stopPlayers: event={}", event);
 	}
 
-	private void handleGameStart(Event event) throws SQLException {
+	private void handleGameStart(Event event, RequestLoaders loaders) throws SQLException {
 		log.debug("Start handleGameStart: event={}", event);
 		if (event.getType().equals(EventType.GAME_START) == true) {
 			gameRepository.updateStartTime(event.getGameId(), event.getEventTime());
+			Game game = loaders.getGames().load(event.getGameId());
+			timelines.start(game.getId(), game.getHomeTeamId(), game.getVisitorTeamId(),
+					GameReplay.millisOfDay(event.getEventTime()));
+			lineups.start(game.getId(), game.getHomeTeamId(), game.getVisitorTeamId());
 		}
 		gameRepository.updateGameState(event.getGameId(), GameStateEnum.Running.name());
+		responseCache.invalidate(ResponseCache.gameTag(event.getGameId()));
+		liveGameFeed.publishGameState(event.getGameId(), GameStateEnum.Running.name(), event.getEventTime());
 		log.debug("End handleGameStart: event={}", event);
 	}
 
-	private void handlePlayerEvent(Event event) throws SQLException {
+	private void handlePlayerEvent(Event event, RequestLoaders loaders) throws SQLException {
 		log.debug("Start handlePlayerEvent: event={}", event);
 		if (event.getPlayerId() != null) {
 			switch (event.getType()) {
@@ -190,7 +450,7 @@ public class EventController {
 				handlePlayerEnd(event);
 				break;
 			case PLAYER_ACTION:
-				handlePlayerAction(event);
+				handlePlayerAction(event, loaders);
 				break;
 			default:
 			}
@@ -200,30 +460,51 @@ public class EventController {
 		log.debug("End handlePlayerEvent: event={}", event);
 	}
 
-	private void handlePlayerAction(Event event) throws SQLException {
+	private void handlePlayerAction(Event event, RequestLoaders loaders) throws SQLException {
 		log.debug("Start handlePlayerAction: event={}", event);
-		Statistic currentStatistic = null;
-		List<Statistic> statistics = statisticRepository.getByPlayerIdAndGameId(event.getPlayerId(), event.getGameId());
-		for (Statistic statistic : statistics) {
-			if (statistic.getStatisticTypeId() == event.getStatisticTypeId()) {
-				currentStatistic = statistic;
+		long value = liveCounters.add(event.getGameId(), event.getPlayerId(), event.getStatisticTypeId(), 1);
+		if (value == LiveStatisticCounters.NOT_LOADED && liveCounters.isEnabled()) {
+			// First count of the player and type since the game's counters were created
+			long storedValue = 0;
+			List<Statistic> statistics = statisticRepository.getByPlayerIdAndGameId(event.getPlayerId(), event.getGameId());
+			for (Statistic statistic : statistics) {
+				if (statistic.getStatisticTypeId() == event.getStatisticTypeId()) {
+					storedValue = statistic.getNumberValue();
+				}
+			}
+			if (liveCounters.load(event.getGameId(), event.getPlayerId(), event.getStatisticTypeId(), storedValue)) {
+				value = liveCounters.add(event.getGameId(), event.getPlayerId(), event.getStatisticTypeId(), 1);
 			}
 		}
-		if (currentStatistic == null) {
-			Statistic statistic = new Statistic(event.getPlayerId(), event.getGameId(), event.getStatisticTypeId());
-			statistic.setNumberValue(1);
-			statisticRepository.saveIfNotExists(statistic);
-		} else {
-			StatisticType statisticType = statisiticTypeRepository.getById(event.getStatisticTypeId());
+		// Counted for the lineups on court before a limit below takes the player off
+		Long teamId = teamId(event.getPlayerId());
+		if (teamId != null) {
+			int eventMillis = GameReplay.millisOfDay(event.getEventTime());
+			timelines.add(event.getGameId(), teamId, event.getStatisticTypeId(), eventMillis);
+			lineups.add(event.getGameId(), teamId, event.getStatisticTypeId(), eventMillis);
+		}
+		long leagueId = loaders.getGames().load(event.getGameId()).getLeagueId();
+		// Both writes add to the stored value rather than set the counted one, so a write that lands
+		// after a later one (another instance, or a counter reloaded behind) cannot take the value back
+		long storedValue = statisticRepository.addNumberValue(event.getPlayerId(), event.getGameId(),
+				event.getStatisticTypeId(), 1);
+		leagueAnalytics.addNumberValue(leagueId, event.getPlayerId(), event.getGameId(), event.getStatisticTypeId(), 1);
+		if (value == LiveStatisticCounters.NOT_LOADED) {
+			// Counters disabled or the game's table is full
+			value = storedValue;
+		}
+		Statistic statistic = new Statistic(event.getPlayerId(), event.getGameId(), event.getStatisticTypeId());
+		statistic.setNumberValue(value);
+		invalidateStatistic(event.getPlayerId(), event.getGameId());
+		liveGameFeed.publishStatistic(statistic, 1);
+		if (value > 1) {
+			StatisticType statisticType = loaders.getStatisticTypes().load(event.getStatisticTypeId());
 			Integer maxRange = statisticType.getMaxValue();
 			Integer minRange = statisticType.getMinValue();
-			currentStatistic.setNumberValue(currentStatistic.getNumberValue() + 1);
-			statisticRepository.updateNumberValue(event.getPlayerId(), event.getGameId(), event.getStatisticTypeId(),
-					currentStatistic.getNumberValue());
-			if (maxRange != null && maxRange <= currentStatistic.getNumberValue()) {
+			if (maxRange != null && maxRange <= statistic.getNumberValue()) {
 				handlePlayerEnd(event);
 			}
-			if (minRange != null && minRange >= currentStatistic.getNumberValue()) {
+			if (minRange != null && minRange >= statistic.getNumberValue()) {
 				handlePlayerEnd(event);
 			}
 		}
@@ -231,74 +512,86 @@ public class EventController {
 	}
 
 	private void handlePlayerEnd(Event event) throws SQLException {
-		log.debug("Start handlePlayerStart: event={}", event);
-		Long playTimeStart = null;
-		Float playTime = 0.0f;
-		StatisticType startTimeStatisticType = statisiticTypeRepository.getByName("startTime");
-		StatisticType playTimeStatisticType = statisiticTypeRepository.getByName("playTime");
-		List<Statistic> statistics = statisticRepository.getByPlayerIdAndGameId(event.getPlayerId(), event.getGameId());
-		for (Statistic statistic : statistics) {
-			if (statistic.getStatisticTypeId() == startTimeStatisticType.getId()) {
-				playTimeStart = statistic.getNumberValue();
-			} else if (statistic.getStatisticTypeId() == playTimeStatisticType.getId()) {
-				playTime = statistic.getFloatValue();
-			}
-		}
-		if (playTimeStart != null) {
-			long playInSeconds = event.getEventTime().toSecondOfDay() - playTimeStart;
-			float currentPlayTime = mergeFloatTime(playTime, playInSeconds);
-			if (playTime == 0.0f) {
-				// player first statistic
-				Statistic statistic = new Statistic(event.getPlayerId(), event.getGameId(),
-						playTimeStatisticType.getId());
-				statistic.setFloatValue(currentPlayTime);
-				statisticRepository.saveIfNotExists(statistic);
-			} else {
-				statisticRepository.updateFloatValue(event.getPlayerId(), event.getGameId(),
-						playTimeStatisticType.getId(), currentPlayTime);
-			}
-			statisticRepository.removeIfExist(event.getPlayerId(), event.getGameId(), startTimeStatisticType.getId());
+		log.debug("Start handlePlayerEnd: event={}", event);
+		// One write: the open stint gets its end; playTime rows follow at the next stoppage
+		PlayerStint stint = stintRepository.end(event.getPlayerId(), event.getGameId(),
+				GameReplay.millisOfDay(event.getEventTime()));
+		if (stint != null) {
+			publishPlayTime(stint);
 		} else {
 			log.warn("Player not playing");
 		}
-		log.debug("End handlePlayerStart: event={}", event);
+		Long teamId = teamId(event.getPlayerId());
+		if (teamId != null) {
+			lineups.playerEnd(event.getGameId(), teamId, event.getPlayerId(), GameReplay.millisOfDay(event.getEventTime()));
+		}
+		log.debug("End handlePlayerEnd: event={}", event);
 	}
 
-	private float mergeFloatTime(float playTime, long playInSeconds) {
-		log.debug("Start mergeFloatTime: playTime={}, playInSeconds={}", playTime, playInSeconds);
-		// Split the float into minutes and seconds
-		int minutes = (int) playTime;
-		float fractional = playTime - minutes;
-		int seconds = Math.round(fractional * 100); // e.g., 0.30 -> 30 seconds
+	private void handlePlayerStart(Event event) throws SQLException {
+		log.debug("Start handlePlayerStart: event={}", event);
+		// One write: a stint is opened unless the player already has an open one
+		if (!stintRepository.start(event.getPlayerId(), event.getGameId(), GameReplay.millisOfDay(event.getEventTime()))) {
+			log.warn("Player already playing");
+		}
+		Long teamId = teamId(event.getPlayerId());
+		if (teamId != null) {
+			lineups.playerStart(event.getGameId(), teamId, event.getPlayerId(), GameReplay.millisOfDay(event.getEventTime()));
+		}
+		log.debug("End handlePlayerStart: event={}", event);
+	}
 
-		// Convert total to seconds and add
-		int totalSeconds = minutes * 60 + seconds + (int) playInSeconds;
+	private void publishPlayTime(PlayerStint stint) throws SQLException {
+		StatisticType playTimeStatisticType = statisiticTypeRepository.getByName("playTime");
+		Statistic statistic = new Statistic(stint.getPlayerId(), stint.getGameId(), playTimeStatisticType.getId());
+		statistic.setFloatValue(GameReplay.toFloatTime(stint.getPlayedMillis()));
+		liveGameFeed.publishStatistic(statistic, stint.getMillis() / 1000);
+	}
 
-		// Convert back to minutes and seconds
-		int resultMinutes = totalSeconds / 60;
-		int resultSeconds = totalSeconds % 60;
+	// Brings the game's playTime rows up to date with one aggregate query over the ledger and one batch
+	private void refreshPlayTime(long gameId, RequestLoaders loaders) throws SQLException {
+		log.debug("Start refreshPlayTime: gameId={}", gameId);
+		StatisticType playTimeStatisticType = statisiticTypeRepository.getByName("playTime");
+		Map<Long, Long> playTimeMillis = stintRepository.getPlayTimeMillis(gameId);
+		List<Statistic> statistics = new ArrayList<>();
+		for (Map.Entry<Long, Long> entry : playTimeMillis.entrySet()) {
+			Statistic statistic = new Statistic(entry.getKey(), gameId, playTimeStatisticType.getId());
+			statistic.setFloatValue(GameReplay.toFloatTime(entry.getValue()));
+			statistics.add(statistic);
+		}
+		statisticRepository.upsertAll(statistics);
+		leagueAnalytics.upsertAll(loaders.getGames().load(gameId).getLeagueId(), gameId, statistics);
+		for (Player player : loaders.getPlayers().loadAll(playTimeMillis.keySet()).values()) {
+			playerTeamIds.putIfAbsent(player.getId(), player.getTeamId());
+		}
+		for (long playerId : playTimeMillis.keySet()) {
+			invalidateStatistic(playerId, gameId);
+		}
+		log.debug("End refreshPlayTime: gameId={}, count={}", gameId, statistics.size());
+	}
 
-		// Reconstruct float: e.g., 1.30 = 1 min 30 sec
-		float newPlayTime = resultMinutes + resultSeconds / 100f;
-		log.debug("End mergeFloatTime: playTime={}, playInSeconds={}, return={}", playTime, playInSeconds, newPlayTime);
-		return newPlayTime;
+	private void invalidateStatistic(long playerId, long gameId) throws SQLException {
+		log.debug("Start invalidateStatistic: playerId={}, gameId={}", playerId, gameId);
+		Long teamId = teamId(playerId);
+		if (teamId != null) {
+			responseCache.invalidate(ResponseCache.playerTag(playerId), ResponseCache.teamTag(teamId),
+					ResponseCache.gameTag(gameId));
+		} else {
+			responseCache.invalidate(ResponseCache.playerTag(playerId), ResponseCache.gameTag(gameId));
+		}
+		log.debug("End invalidateStatistic: playerId={}, gameId={}", playerId, gameId);
 	}
 
-	private void handlePlayerStart(Event event) throws SQLException {
-		log.debug("Start handlePlayerStart: event={}", event);
-		Long playTimeStart = null;
-		StatisticType startTimeStatisticType = statisiticTypeRepository.getByName("startTime");
-		List<Statistic> statistics = statisticRepository.getByPlayerIdAndGameId(event.getPlayerId(), event.getGameId());
-		for (Statistic statistic : statistics) {
-			if (statistic.getStatisticTypeId() == startTimeStatisticType.getId()) {
-				playTimeStart = statistic.getNumberValue();
-				log.warn("Player already playing");
+	// null for an unknown player
+	private Long teamId(long playerId) throws SQLException {
+		Long teamId = playerTeamIds.get(playerId);
+		if (teamId == null) {
+			Player player = playerRepository.getById(playerId);
+			if (player != null) {
+				teamId = player.getTeamId();
+				playerTeamIds.put(playerId, teamId);
 			}
 		}
-		if (playTimeStart == null) {
-			statisticRepository.updateNumberValue(event.getPlayerId(), event.getGameId(),
-					startTimeStatisticType.getId(), event.getEventTime().toSecondOfDay());
-		}
-		log.debug("End handlePlayerStart: event={}", event);
+		return teamId;
 	}
 }
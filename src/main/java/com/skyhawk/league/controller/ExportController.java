@@ -0,0 +1,185 @@
+package com.skyhawk.league.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skyhawk.league.beans.ConnectionProvider;
+import com.skyhawk.league.model.League;
+import com.skyhawk.league.model.StatisticRecord;
+import com.skyhawk.league.repository.ConnectionRouter;
+import com.skyhawk.league.repository.LeagueRepository;
+import com.skyhawk.league.repository.StatisticRepository;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * GET /league/{leagueName}/statistics/export?format=csv|ndjson[&season=YYYY]
+ *
+ * Streams a league's statistics straight to the response. Each export gets its own connection from
+ * the ConnectionProvider, in a read-only transaction, so the server-side cursor does not interfere
+ * with the shared connection; rows are fetched fetchSize at a time and written as they arrive, so
+ * heap use does not depend on the size of the export. Concurrent exports are capped.
+ */
+public class ExportController {
+	private static final Logger log = LoggerFactory.getLogger(ExportController.class);
+
+    private final ConnectionProvider connectionProvider;
+    private final LeagueRepository leagueRepository;
+    private final int fetchSize;
+    private final Semaphore exports;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public ExportController(ConnectionRouter router, ConnectionProvider connectionProvider, int fetchSize, int maxConcurrentExports) {
+        this.connectionProvider = connectionProvider;
+        this.leagueRepository = new LeagueRepository(router);
+        this.fetchSize = fetchSize;
+        this.exports = new Semaphore(maxConcurrentExports);
+    }
+
+    public void handle(HttpExchange exchange) {
+		log.info("Start handle: exchange={}", exchange);
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            String[] segments = path.split("/");
+
+            if ("GET".equals(method) && segments.length == 5 && "league".equals(segments[1])
+                    && "statistics".equals(segments[3]) && "export".equals(segments[4])) {
+                exportStatistics(exchange, segments[2]);
+                return;
+            }
+            exchange.sendResponseHeaders(404, -1);
+        } catch (Exception e) {
+            log.error("Export failed: exchange={}", exchange, e);
+            try {
+                exchange.sendResponseHeaders(500, -1);
+            } catch (Exception ignored) {}
+        } finally {
+            exchange.close();
+        }
+		log.info("End handle: exchange={}", exchange);
+    }
+
+    private void exportStatistics(HttpExchange exchange, String leagueName) throws Exception {
+		log.debug("Start exportStatistics: exchange={}, leagueName={}", exchange, leagueName);
+        String format = queryParam(exchange, "format", "csv");
+        String seasonParam = queryParam(exchange, "season", null);
+        Integer season;
+        try {
+            season = seasonParam != null ? Integer.valueOf(seasonParam) : null;
+        } catch (NumberFormatException e) {
+            exchange.sendResponseHeaders(400, -1);
+            return;
+        }
+        if (!"csv".equals(format) && !"ndjson".equals(format)) {
+            exchange.sendResponseHeaders(400, -1);
+            return;
+        }
+        League league = leagueRepository.getByName(leagueName);
+        if (league == null) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        if (!exports.tryAcquire()) {
+            exchange.getResponseHeaders().add("Retry-After", "5");
+            exchange.sendResponseHeaders(503, -1);
+            return;
+        }
+
+        // No provider with an in-memory storage backend: the repository then streams from it
+        try (Connection connection = connectionProvider != null ? connectionProvider.getConnection() : null) {
+            if (connection != null) {
+                connection.setAutoCommit(false);
+                connection.setReadOnly(true);
+            }
+            String fileName = leagueName + (season != null ? "-" + season : "") + "-statistics." + format;
+            exchange.getResponseHeaders().add("Content-Type", "csv".equals(format) ? "text/csv; charset=utf-8" : "application/x-ndjson");
+            exchange.getResponseHeaders().add("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+            // Length 0: chunked transfer, the size is not known up front
+            exchange.sendResponseHeaders(200, 0);
+
+            StatisticRepository statisticRepository = new StatisticRepository(connection);
+            long rows;
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+                if ("csv".equals(format)) {
+                    writer.write("game,date,team,player,statistic_type,number_value,float_value\n");
+                    rows = statisticRepository.streamByLeague(league.getId(), season, fetchSize, record -> writeCsv(writer, record));
+                } else {
+                    JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+                    generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+                    rows = statisticRepository.streamByLeague(league.getId(), season, fetchSize, record -> writeJson(generator, record));
+                    generator.writeRaw('\n');
+                    generator.flush();
+                }
+            }
+            if (connection != null) {
+                connection.commit();
+            }
+            log.info("Exported statistics: league={}, season={}, format={}, rows={}", leagueName, season, format, rows);
+        } finally {
+            exports.release();
+        }
+		log.debug("End exportStatistics: exchange={}, leagueName={}", exchange, leagueName);
+    }
+
+    private static void writeCsv(Writer writer, StatisticRecord record) throws IOException {
+        writer.write(csv(record.getGameName()));
+        writer.write(',');
+        writer.write(record.getDate().toString());
+        writer.write(',');
+        writer.write(csv(record.getTeamName()));
+        writer.write(',');
+        writer.write(csv(record.getPlayerName()));
+        writer.write(',');
+        writer.write(csv(record.getStatisticTypeName()));
+        writer.write(',');
+        writer.write(Long.toString(record.getNumberValue()));
+        writer.write(',');
+        writer.write(Float.toString(record.getFloatValue()));
+        writer.write('\n');
+    }
+
+    private static void writeJson(JsonGenerator generator, StatisticRecord record) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("game", record.getGameName());
+        generator.writeStringField("date", record.getDate().toString());
+        generator.writeStringField("team", record.getTeamName());
+        generator.writeStringField("player", record.getPlayerName());
+        generator.writeStringField("statistic_type", record.getStatisticTypeName());
+        generator.writeNumberField("number_value", record.getNumberValue());
+        generator.writeNumberField("float_value", record.getFloatValue());
+        generator.writeEndObject();
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String queryParam(HttpExchange exchange, String name, String defaultValue) {
+        String query = exchange.getRequestURI().getQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                if (pair.startsWith(name + "=")) {
+                    return pair.substring(name.length() + 1);
+                }
+            }
+        }
+        return defaultValue;
+    }
+}
@@ -1,32 +1,76 @@
 package com.skyhawk.league.controller;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
-import java.sql.Connection;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skyhawk.league.cache.SerializedResponse;
+import com.skyhawk.league.live.GameLineup;
+import com.skyhawk.league.live.GameLineups;
+import com.skyhawk.league.live.GameTimeline;
+import com.skyhawk.league.live.GameTimelines;
+import com.skyhawk.league.live.LiveGameFeed;
+import com.skyhawk.league.live.LiveSubscriber;
+import com.skyhawk.league.model.Event;
 import com.skyhawk.league.model.Game;
 import com.skyhawk.league.model.League;
+import com.skyhawk.league.model.Player;
+import com.skyhawk.league.model.StatisticType;
+import com.skyhawk.league.model.Team;
+import com.skyhawk.league.replay.GameReplay;
+import com.skyhawk.league.repository.ConnectionRouter;
+import com.skyhawk.league.repository.EventRepository;
 import com.skyhawk.league.repository.GameRepository;
 import com.skyhawk.league.repository.LeagueRepository;
+import com.skyhawk.league.repository.PlayerRepository;
+import com.skyhawk.league.repository.StatisticTypeRepository;
+import com.skyhawk.league.repository.TeamRepository;
 import com.sun.net.httpserver.HttpExchange;
 
 public class GameController {
 	private static final Logger log = LoggerFactory.getLogger(EventController.class);
 
+	private static final long LIVE_HEARTBEAT_SECONDS = 15;
+
+    private final ConnectionRouter router;
     private final GameRepository gameRepository;
     private final LeagueRepository leagueRepository;
+    private final EventRepository eventRepository;
+    private final PlayerRepository playerRepository;
+    private final TeamRepository teamRepository;
+    private final StatisticTypeRepository statisticTypeRepository;
+    private final LiveGameFeed liveGameFeed;
+    private final GameTimelines timelines;
+    private final GameLineups lineups;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    public GameController(Connection connection) {
-        this.gameRepository = new GameRepository(connection);
-        this.leagueRepository = new LeagueRepository(connection);
+    public GameController(ConnectionRouter router, LiveGameFeed liveGameFeed, GameTimelines timelines,
+            GameLineups lineups) {
+        this.router = router;
+        this.gameRepository = new GameRepository(router);
+        this.leagueRepository = new LeagueRepository(router);
+        this.eventRepository = new EventRepository(router);
+        this.playerRepository = new PlayerRepository(router);
+        this.teamRepository = new TeamRepository(router);
+        this.statisticTypeRepository = new StatisticTypeRepository(router);
+        this.liveGameFeed = liveGameFeed;
+        this.timelines = timelines;
+        this.lineups = lineups;
     }
 
     public void handle(HttpExchange exchange) {
@@ -50,6 +94,15 @@ public class GameController {
                         String gameName = segments[4];
                         getGameByName(exchange, leagueName, gameName);
                         return;
+                    } else if ("GET".equals(method) && segments.length == 6 && "live".equals(segments[5])) {
+                        streamLiveGame(exchange, leagueName, segments[4]);
+                        return;
+                    } else if ("GET".equals(method) && segments.length == 6 && "timeline".equals(segments[5])) {
+                        getGameTimeline(exchange, leagueName, segments[4]);
+                        return;
+                    } else if ("GET".equals(method) && segments.length == 6 && "lineups".equals(segments[5])) {
+                        getGameLineups(exchange, leagueName, segments[4]);
+                        return;
                     }
                 }
             }
@@ -95,6 +148,193 @@ public class GameController {
 		log.debug("End getGameByName: exchange={}, leagueName={}, gameName={}", exchange, leagueName, gameName);
     }
 
+    // Per-minute action counts of both teams for every statistic type, from the game's timeline
+    private void getGameTimeline(HttpExchange exchange, String leagueName, String gameName) throws Exception {
+		log.debug("Start getGameTimeline: exchange={}, leagueName={}, gameName={}", exchange, leagueName, gameName);
+        League league = leagueRepository.getByName(leagueName);
+        Game game = gameRepository.getByName(gameName);
+        if (league == null || game == null || game.getLeagueId() != league.getId()) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        GameTimeline timeline = timelines.get(game.getId());
+        if (timeline == null) {
+            timeline = replayTimeline(game);
+        }
+        long[] statisticTypeIds = timeline.getStatisticTypeIds();
+        List<Long> typeIds = new ArrayList<>();
+        for (long statisticTypeId : statisticTypeIds) {
+            typeIds.add(statisticTypeId);
+        }
+        Map<Long, String> typeNames = new HashMap<>();
+        for (StatisticType type : statisticTypeRepository.getByIds(typeIds)) {
+            typeNames.put(type.getId(), type.getName());
+        }
+        Map<Long, String> teamNames = new HashMap<>();
+        for (Team team : teamRepository.getByIds(List.of(game.getHomeTeamId(), game.getVisitorTeamId()))) {
+            teamNames.put(team.getId(), team.getName());
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(body)) {
+            json.writeStartObject();
+            json.writeStringField("game", game.getName());
+            json.writeStringField("startTime", LocalTime.ofNanoOfDay(timeline.getStartMillis() * 1_000_000L).toString());
+            json.writeNumberField("minutes", timeline.getMinutes());
+            json.writeArrayFieldStart("teams");
+            for (long teamId : new long[] { game.getHomeTeamId(), game.getVisitorTeamId() }) {
+                json.writeStartObject();
+                json.writeStringField("team", teamNames.get(teamId));
+                json.writeObjectFieldStart("statistics");
+                for (long statisticTypeId : statisticTypeIds) {
+                    int[] series = timeline.getSeries(teamId, statisticTypeId);
+                    json.writeFieldName(typeNames.getOrDefault(statisticTypeId, String.valueOf(statisticTypeId)));
+                    json.writeArray(series, 0, series.length);
+                }
+                json.writeEndObject();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+        SerializedResponse.json(body.toByteArray()).send(exchange);
+		log.debug("End getGameTimeline: exchange={}, leagueName={}, gameName={}", exchange, leagueName, gameName);
+    }
+
+    // Rebuilds the timeline from the event log; kept once the game has ended, as it can no longer grow
+    private GameTimeline replayTimeline(Game game) throws Exception {
+        List<Event> history = GameReplay.effectiveHistory(eventRepository.getByGameId(game.getId()));
+        GameTimeline timeline = GameTimeline.replay(game.getId(), game.getHomeTeamId(), game.getVisitorTeamId(),
+                history, playerTeamIds(history));
+        if (game.getGameState() == Game.GameStateEnum.End) {
+            timelines.put(timeline);
+        }
+        return timeline;
+    }
+
+    // Every lineup of both teams with its time on court and the action counts for and against it, longest first
+    private void getGameLineups(HttpExchange exchange, String leagueName, String gameName) throws Exception {
+		log.debug("Start getGameLineups: exchange={}, leagueName={}, gameName={}", exchange, leagueName, gameName);
+        League league = leagueRepository.getByName(leagueName);
+        Game game = gameRepository.getByName(gameName);
+        if (league == null || game == null || game.getLeagueId() != league.getId()) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        GameLineup lineup = lineups.get(game.getId());
+        if (lineup == null) {
+            lineup = replayLineup(game);
+        }
+        long[] statisticTypeIds = lineup.getStatisticTypeIds();
+        Map<Long, List<GameLineup.Unit>> units = new HashMap<>();
+        List<Long> playerIds = new ArrayList<>();
+        for (long teamId : new long[] { game.getHomeTeamId(), game.getVisitorTeamId() }) {
+            List<GameLineup.Unit> teamUnits = new ArrayList<>(lineup.getUnits(teamId));
+            teamUnits.sort(Comparator.comparingLong(GameLineup.Unit::millis).reversed());
+            units.put(teamId, teamUnits);
+            for (GameLineup.Unit unit : teamUnits) {
+                for (long playerId : unit.playerIds()) {
+                    playerIds.add(playerId);
+                }
+            }
+        }
+        List<Long> typeIds = new ArrayList<>();
+        for (long statisticTypeId : statisticTypeIds) {
+            typeIds.add(statisticTypeId);
+        }
+        Map<Long, String> typeNames = new HashMap<>();
+        for (StatisticType type : statisticTypeRepository.getByIds(typeIds)) {
+            typeNames.put(type.getId(), type.getName());
+        }
+        Map<Long, String> teamNames = new HashMap<>();
+        for (Team team : teamRepository.getByIds(List.of(game.getHomeTeamId(), game.getVisitorTeamId()))) {
+            teamNames.put(team.getId(), team.getName());
+        }
+        Map<Long, String> playerNames = new HashMap<>();
+        for (Player player : playerRepository.getByIds(playerIds.stream().distinct().toList())) {
+            playerNames.put(player.getId(), player.getName());
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(body)) {
+            json.writeStartObject();
+            json.writeStringField("game", game.getName());
+            json.writeArrayFieldStart("teams");
+            for (long teamId : new long[] { game.getHomeTeamId(), game.getVisitorTeamId() }) {
+                json.writeStartObject();
+                json.writeStringField("team", teamNames.get(teamId));
+                json.writeArrayFieldStart("lineups");
+                for (GameLineup.Unit unit : units.get(teamId)) {
+                    json.writeStartObject();
+                    json.writeArrayFieldStart("players");
+                    for (long playerId : unit.playerIds()) {
+                        json.writeString(playerNames.getOrDefault(playerId, String.valueOf(playerId)));
+                    }
+                    json.writeEndArray();
+                    json.writeNumberField("seconds", unit.millis() / 1000);
+                    json.writeBooleanField("onCourt", unit.onCourt());
+                    json.writeObjectFieldStart("statistics");
+                    for (int code = 0; code < statisticTypeIds.length; code++) {
+                        int scored = unit.scored()[code];
+                        int conceded = unit.conceded()[code];
+                        if (scored == 0 && conceded == 0) {
+                            continue;
+                        }
+                        json.writeObjectFieldStart(typeNames.getOrDefault(statisticTypeIds[code],
+                                String.valueOf(statisticTypeIds[code])));
+                        json.writeNumberField("for", scored);
+                        json.writeNumberField("against", conceded);
+                        json.writeNumberField("net", scored - conceded);
+                        json.writeEndObject();
+                    }
+                    json.writeEndObject();
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+        SerializedResponse.json(body.toByteArray()).send(exchange);
+		log.debug("End getGameLineups: exchange={}, leagueName={}, gameName={}", exchange, leagueName, gameName);
+    }
+
+    // Rebuilds the lineups from the event log; kept once the game has ended, as they can no longer change
+    private GameLineup replayLineup(Game game) throws Exception {
+        List<Event> history = GameReplay.effectiveHistory(eventRepository.getByGameId(game.getId()));
+        List<Long> statisticTypeIds = new ArrayList<>();
+        for (Event event : history) {
+            if (event.getStatisticTypeId() != null) {
+                statisticTypeIds.add(event.getStatisticTypeId());
+            }
+        }
+        Map<Long, StatisticType> statisticTypes = new HashMap<>();
+        for (StatisticType type : statisticTypeRepository.getByIds(statisticTypeIds.stream().distinct().toList())) {
+            statisticTypes.put(type.getId(), type);
+        }
+        GameLineup lineup = GameLineup.replay(game.getId(), game.getHomeTeamId(), game.getVisitorTeamId(),
+                history, playerTeamIds(history), statisticTypes);
+        if (game.getGameState() == Game.GameStateEnum.End) {
+            lineups.put(lineup);
+        }
+        return lineup;
+    }
+
+    private Map<Long, Long> playerTeamIds(List<Event> history) throws Exception {
+        List<Long> playerIds = new ArrayList<>();
+        for (Event event : history) {
+            if (event.getPlayerId() != null) {
+                playerIds.add(event.getPlayerId());
+            }
+        }
+        Map<Long, Long> playerTeamIds = new HashMap<>();
+        for (Player player : playerRepository.getByIds(playerIds.stream().distinct().toList())) {
+            playerTeamIds.put(player.getId(), player.getTeamId());
+        }
+        return playerTeamIds;
+    }
+
     private void createGame(HttpExchange exchange, String leagueName) throws Exception {
 		log.debug("Start createGame: exchange={}, leagueName={}", exchange, leagueName);
         League league = leagueRepository.getByName(leagueName);
@@ -103,7 +343,7 @@ public class GameController {
             game.setId(0);
             game.setLeagueId(league.getId());
             long id = gameRepository.saveIfNotExists(game);
-            String response = "{\"id\": " + id + "}";
+            String response = "{\"id\": \"" + id + "\"}";
             exchange.getResponseHeaders().add("Content-Type", "application/json");
             exchange.sendResponseHeaders(201, response.getBytes(StandardCharsets.UTF_8).length);
             try (OutputStream os = exchange.getResponseBody()) {
@@ -112,4 +352,50 @@ public class GameController {
         }
 		log.debug("End createGame: exchange={}, leagueName={}", exchange, leagueName);
     }
+
+    private void streamLiveGame(HttpExchange exchange, String leagueName, String gameName) throws Exception {
+		log.debug("Start streamLiveGame: exchange={}, leagueName={}, gameName={}", exchange, leagueName, gameName);
+        League league = leagueRepository.getByName(leagueName);
+        Game game = gameRepository.getByName(gameName);
+        if (league == null || game == null || game.getLeagueId() != league.getId()) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+
+        LiveSubscriber subscriber = liveGameFeed.subscribe(game.getId());
+        // A slow subscriber is closed by the publisher, which must not wait on the stalled socket
+        subscriber.setCloseHandler(() -> Thread.ofVirtual().start(exchange::close));
+        try (OutputStream os = exchange.getResponseBody()) {
+            // Read after subscribing, and from the primary: a change published from here on is in the
+            // subscriber's buffer, so the snapshot is never followed by a gap
+            Game current = ConnectionRouter.withConsistency(ConnectionRouter.Consistency.PRIMARY,
+                    () -> gameRepository.getById(game.getId()));
+            Game snapshot = current != null ? current : game;
+            // The stream reads nothing more, so its connections go back for other requests now
+            router.endRequest();
+            String gameState = snapshot.getGameState() != null ? snapshot.getGameState().name() : null;
+            os.write(liveGameFeed.stateFrame(game.getId(), gameState, null));
+            os.flush();
+            while (!subscriber.isClosed()) {
+                byte[] frame = subscriber.poll(LIVE_HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+                if (frame == null) {
+                    frame = LiveGameFeed.HEARTBEAT_FRAME;
+                } else if (subscriber.isClosed()) {
+                    break;
+                }
+                os.write(frame);
+                os.flush();
+            }
+        } catch (IOException e) {
+            log.debug("Live stream closed: gameName={}, error={}", gameName, e.getMessage());
+        } finally {
+            // The stream is closed on this thread already, no abort needed
+            subscriber.setCloseHandler(null);
+            liveGameFeed.unsubscribe(subscriber);
+        }
+		log.debug("End streamLiveGame: exchange={}, leagueName={}, gameName={}", exchange, leagueName, gameName);
+    }
 }  
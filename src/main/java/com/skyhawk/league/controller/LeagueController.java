@@ -2,6 +2,7 @@ package com.skyhawk.league.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.skyhawk.league.model.League;
+import com.skyhawk.league.repository.ConnectionRouter;
 import com.skyhawk.league.repository.LeagueRepository;
 import com.sun.net.httpserver.HttpExchange;
 
@@ -9,7 +10,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
-import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
 
@@ -22,8 +22,8 @@ public class LeagueController {
     private final LeagueRepository leagueRepository;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    public LeagueController(Connection connection) {
-        this.leagueRepository = new LeagueRepository(connection);
+    public LeagueController(ConnectionRouter router) {
+        this.leagueRepository = new LeagueRepository(router);
     }
 
     public void handle(HttpExchange exchange) {
@@ -93,7 +93,7 @@ public class LeagueController {
         try (InputStream is = exchange.getRequestBody()) {
             League league = objectMapper.readValue(is, League.class);
             long id = leagueRepository.saveIfNotExists(league);
-            String response = "{\"id\": " + id + "}";
+            String response = "{\"id\": \"" + id + "\"}";
             exchange.getResponseHeaders().add("Content-Type", "application/json");
             exchange.sendResponseHeaders(201, response.getBytes(StandardCharsets.UTF_8).length);
             try (OutputStream os = exchange.getResponseBody()) {
@@ -1,39 +1,61 @@
 package com.skyhawk.league.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.skyhawk.league.model.Game;
+import com.skyhawk.league.analytics.LeagueAnalytics;
+import com.skyhawk.league.analytics.PlayerFeatures;
+import com.skyhawk.league.analytics.RollingWindows;
+import com.skyhawk.league.cache.RequestCoalescer;
+import com.skyhawk.league.cache.ResponseCache;
+import com.skyhawk.league.cache.SerializedResponse;
+import com.skyhawk.league.collections.LongDoubleSums;
+import com.skyhawk.league.live.LiveStatisticCounters;
+import com.skyhawk.league.model.League;
 import com.skyhawk.league.model.Player;
 import com.skyhawk.league.model.Statistic;
 import com.skyhawk.league.model.Team;
+import com.skyhawk.league.repository.ConnectionRouter;
 import com.skyhawk.league.repository.GameRepository;
 import com.skyhawk.league.repository.PlayerRepository;
 import com.skyhawk.league.repository.StatisticRepository;
 import com.skyhawk.league.repository.TeamRepository;
 import com.sun.net.httpserver.HttpExchange;
 
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
-import java.sql.Connection;
 import java.util.*;
+import java.util.concurrent.Callable;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class PlayerController {
 	private static final Logger log = LoggerFactory.getLogger(PlayerController.class);
+    private static final int DEFAULT_SIMILAR = 10;
+    private static final int MAX_SIMILAR = 100;
 
     private final PlayerRepository playerRepository;
     private final TeamRepository teamRepository;
     private final StatisticRepository statisticRepository;
     private final GameRepository gameRepository;
+    private final RequestCoalescer requestCoalescer;
+    private final ResponseCache responseCache;
+    private final LiveStatisticCounters liveCounters;
+    private final LeagueAnalytics leagueAnalytics;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    public PlayerController(Connection connection) {
-        this.playerRepository = new PlayerRepository(connection);
-        this.teamRepository = new TeamRepository(connection);
-        this.statisticRepository = new StatisticRepository(connection);
-        this.gameRepository = new GameRepository(connection);
+    public PlayerController(ConnectionRouter router, RequestCoalescer requestCoalescer, ResponseCache responseCache,
+            LiveStatisticCounters liveCounters, LeagueAnalytics leagueAnalytics) {
+        this.playerRepository = new PlayerRepository(router);
+        this.teamRepository = new TeamRepository(router);
+        this.statisticRepository = new StatisticRepository(router);
+        this.gameRepository = new GameRepository(router);
+        this.requestCoalescer = requestCoalescer;
+        this.responseCache = responseCache;
+        this.liveCounters = liveCounters;
+        this.leagueAnalytics = leagueAnalytics;
     }
 
     public void handle(HttpExchange exchange) {
@@ -56,10 +78,15 @@ public class PlayerController {
                         getPlayerByName(exchange, teamName, segments[6]);
                     } else if ("GET".equals(method) && segments.length == 8 && "season-statistics".equals(segments[7])) {
                         getPlayerSeasonStats(exchange, segments[6]);
+                    } else if ("GET".equals(method) && segments.length == 8 && "rolling-statistics".equals(segments[7])) {
+                        getPlayerRollingStats(exchange, leagueName, segments[6]);
+                    } else if ("GET".equals(method) && segments.length == 8 && "similar".equals(segments[7])) {
+                        getSimilarPlayers(exchange, leagueName, segments[6]);
+                    } else if (segments.length >= 9 && "games".equals(segments[7]) && "current".equals(segments[8])
+                            && (segments.length == 9 || (segments.length == 10 && "statistics".equals(segments[9])))) {
+                        getPlayerCurrentGameStatistics(exchange, segments[6]);
                     } else if (segments.length == 10 && "games".equals(segments[7]) && "statistics".equals(segments[9])) {
                         getPlayerGameStatistics(exchange, segments[6], segments[8]);
-                    } else if (segments.length == 9 && "games".equals(segments[7]) && "current".equals(segments[8])) {
-                        getPlayerCurrentGameStatistics(exchange, segments[6]);
                     }
                 }
             }
@@ -86,7 +113,8 @@ public class PlayerController {
 	            player.setId(0);
 	            player.setTeamId(team.getId());
 	            long id = playerRepository.saveIfNotExists(player);
-	            String response = "{\"id\": " + id + "}";
+	            responseCache.invalidate(ResponseCache.teamTag(team.getId()));
+	            String response = "{\"id\": \"" + id + "\"}";
 	            exchange.getResponseHeaders().add("Content-Type", "application/json");
 	            exchange.sendResponseHeaders(201, response.getBytes(StandardCharsets.UTF_8).length);
 	            try (OutputStream os = exchange.getResponseBody()) {
@@ -129,20 +157,159 @@ public class PlayerController {
 
     private void getPlayerSeasonStats(HttpExchange exchange, String playerName) throws Exception {
 		log.debug("Start getPlayerSeasonStats: exchange={}, playerName={}", exchange, playerName);
-        List<Statistic> stats = statisticRepository.getByPlayerName(playerName);
-        Map<String, Double> results = new HashMap<>();
+        String key = RequestCoalescer.key(exchange);
+        SerializedResponse response = responseCache.get(key);
+        if (response == null) {
+            Integer season;
+            try {
+                season = seasonParam(exchange);
+            } catch (NumberFormatException e) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            // Cached until the next invalidating write, so it must not be computed from a lagging replica
+            Callable<SerializedResponse> compute = () -> ConnectionRouter.withConsistency(
+                    ConnectionRouter.Consistency.READ_YOUR_WRITES, () -> computePlayerSeasonStats(key, playerName, season));
+            // A shared flight may have started, or its reused result completed, before this client's write
+            response = ConnectionRouter.getConsistency() == ConnectionRouter.Consistency.READ_YOUR_WRITES
+                    ? compute.call() : requestCoalescer.execute(key, compute);
+        }
+        response.send(exchange);
+		log.debug("End getPlayerSeasonStats: exchange={}, playerName={}", exchange, playerName);
+    }
+
+    // Per-game averages over the player's last finished games, from the league's rolling windows
+    private void getPlayerRollingStats(HttpExchange exchange, String leagueName, String playerName) throws Exception {
+		log.debug("Start getPlayerRollingStats: exchange={}, playerName={}", exchange, playerName);
+        League league = leagueAnalytics.league(leagueName);
+        Player player = playerRepository.getByName(playerName);
+        Team team = player != null ? leagueAnalytics.team(player.getTeamId()) : null;
+        if (!leagueAnalytics.isEnabled() || league == null || team == null || team.getLeagueId() != league.getId()) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        RollingWindows windows = leagueAnalytics.rollingWindows(league.getId());
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(body)) {
+            json.writeStartObject();
+            json.writeNumberField("window", windows.getGames());
+            json.writeNumberField("games", windows.getGames(player.getId()));
+            json.writeObjectFieldStart("statistics");
+            for (Map.Entry<Long, Double> average : windows.getAverages(player.getId()).entrySet()) {
+                json.writeNumberField(String.valueOf(average.getKey()), average.getValue());
+            }
+            json.writeEndObject();
+            json.writeEndObject();
+        }
+        SerializedResponse.json(body.toByteArray()).send(exchange);
+		log.debug("End getPlayerRollingStats: exchange={}, playerName={}", exchange, playerName);
+    }
+
+    /**
+     * The k players (?k=, default 10) of the league whose per-game profiles in the season (?season=,
+     * default the latest) are closest to the player's, by cosine similarity of standardized averages
+     */
+    private void getSimilarPlayers(HttpExchange exchange, String leagueName, String playerName) throws Exception {
+		log.debug("Start getSimilarPlayers: exchange={}, playerName={}", exchange, playerName);
+        League league = leagueAnalytics.league(leagueName);
+        Player player = playerRepository.getByName(playerName);
+        Team team = player != null ? leagueAnalytics.team(player.getTeamId()) : null;
+        if (!leagueAnalytics.isEnabled() || league == null || team == null || team.getLeagueId() != league.getId()) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        Integer season;
+        int k;
+        try {
+            season = seasonParam(exchange);
+            k = Math.min(MAX_SIMILAR, Math.max(1, kParam(exchange)));
+        } catch (NumberFormatException e) {
+            exchange.sendResponseHeaders(400, -1);
+            return;
+        }
+        if (season == null) {
+            season = leagueAnalytics.columns(league.getId()).latestSeason();
+        }
+        PlayerFeatures features = leagueAnalytics.playerFeatures(league.getId(), season);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(body)) {
+            json.writeStartObject();
+            json.writeNumberField("season", season);
+            json.writeArrayFieldStart("statisticTypes");
+            for (long statisticTypeId : features.getStatisticTypeIds()) {
+                json.writeString(String.valueOf(statisticTypeId));
+            }
+            json.writeEndArray();
+            json.writeArrayFieldStart("similar");
+            for (PlayerFeatures.Similar similar : features.nearest(player.getId(), k)) {
+                Player other = leagueAnalytics.player(similar.playerId());
+                Team otherTeam = other != null ? leagueAnalytics.team(other.getTeamId()) : null;
+                json.writeStartObject();
+                json.writeStringField("playerId", String.valueOf(similar.playerId()));
+                json.writeStringField("player", other != null ? other.getName() : null);
+                json.writeStringField("team", otherTeam != null ? otherTeam.getName() : null);
+                json.writeNumberField("score", similar.score());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+        SerializedResponse.json(body.toByteArray()).send(exchange);
+		log.debug("End getSimilarPlayers: exchange={}, playerName={}", exchange, playerName);
+    }
+
+    private static int kParam(HttpExchange exchange) {
+        String query = exchange.getRequestURI().getQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                if (pair.startsWith("k=")) {
+                    return Integer.parseInt(pair.substring("k=".length()));
+                }
+            }
+        }
+        return DEFAULT_SIMILAR;
+    }
+
+    // Optional ?season=YYYY restricts the aggregation to a single season partition
+    private static Integer seasonParam(HttpExchange exchange) {
+        String query = exchange.getRequestURI().getQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                if (pair.startsWith("season=")) {
+                    return Integer.valueOf(pair.substring("season=".length()));
+                }
+            }
+        }
+        return null;
+    }
+
+    private SerializedResponse computePlayerSeasonStats(String cacheKey, String playerName, Integer season) throws Exception {
+		log.debug("Start computePlayerSeasonStats: playerName={}, season={}", playerName, season);
+        long stamp = responseCache.stamp();
+        Player player = playerRepository.getByName(playerName);
+        List<Statistic> stats = player == null ? new ArrayList<>()
+                : season != null ? statisticRepository.getByPlayerIdAndSeason(player.getId(), season)
+                : statisticRepository.getByPlayerId(player.getId());
+        LongDoubleSums results = new LongDoubleSums();
         for (Statistic stat : stats) {
-            String key = String.valueOf(stat.getStatisticTypeId());
-            double value = stat.getNumberValue() + stat.getFloatValue();
-            results.put(key, results.getOrDefault(key, 0.0) + value);
+            results.add(stat.getStatisticTypeId(), stat.getNumberValue() + stat.getFloatValue());
         }
-        String response = objectMapper.writeValueAsString(results);
-        exchange.getResponseHeaders().add("Content-Type", "application/json");
-        exchange.sendResponseHeaders(200, response.getBytes(StandardCharsets.UTF_8).length);
-        try (OutputStream os = exchange.getResponseBody()) {
-            os.write(response.getBytes(StandardCharsets.UTF_8));
+        // Written from the sums: statistic type id -> season total
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(body)) {
+            json.writeStartObject();
+            for (int type = 0; type < results.size(); type++) {
+                json.writeFieldName(Long.toString(results.key(type)));
+                json.writeNumber(results.sum(type));
+            }
+            json.writeEndObject();
         }
-		log.debug("End getPlayerSeasonStats: exchange={}, playerName={}", exchange, playerName);
+        SerializedResponse response = SerializedResponse.json(body.toByteArray());
+        if (player != null) {
+            responseCache.put(cacheKey, response, stamp, ResponseCache.playerTag(player.getId()));
+        }
+		log.debug("End computePlayerSeasonStats: playerName={}, return={}", playerName, response);
+        return response;
     }
 
     private void getPlayerGameStatistics(HttpExchange exchange, String playerName, String gameName) throws Exception {
@@ -159,13 +326,13 @@ public class PlayerController {
 
     private void getPlayerCurrentGameStatistics(HttpExchange exchange, String playerName) throws Exception {
 		log.debug("Start getPlayerCurrentGameStatistics: exchange={}, playerName={}", exchange, playerName);
-        List<Statistic> allStats = statisticRepository.getByPlayerName(playerName);
+        // Resolve through the partial index of active games: cost depends on running games, not career length
+        Player player = playerRepository.getByName(playerName);
         List<Statistic> currentStats = new ArrayList<>();
-        for (Statistic stat : allStats) {
-            Game game = gameRepository.getById(stat.getGameId());
-            if (game != null && game.getGameState() != null && !game.getGameState().equals(Game.GameStateEnum.End)) {
-                currentStats.add(stat);
-            }
+        if (player != null) {
+            Set<Long> activeGameIds = gameRepository.getActiveGameIds();
+            currentStats.addAll(statisticRepository.getByPlayerIdAndGameIds(player.getId(), activeGameIds));
+            overlayLiveCounters(player.getId(), activeGameIds, currentStats);
         }
         String response = objectMapper.writeValueAsString(currentStats);
         exchange.getResponseHeaders().add("Content-Type", "application/json");
@@ -175,4 +342,27 @@ public class PlayerController {
         }
 		log.debug("End getPlayerCurrentGameStatistics: exchange={}, playerName={}", exchange, playerName);
     }
-}  
+
+    // Number values from a snapshot of the live counters, which are ahead of a lagging replica
+    private void overlayLiveCounters(long playerId, Set<Long> activeGameIds, List<Statistic> currentStats) {
+        for (long gameId : activeGameIds) {
+            Map<Long, Long> values = liveCounters.snapshot(gameId, playerId);
+            if (values.isEmpty()) {
+                continue;
+            }
+            for (Statistic statistic : currentStats) {
+                if (statistic.getGameId() == gameId) {
+                    Long value = values.remove(statistic.getStatisticTypeId());
+                    if (value != null) {
+                        statistic.setNumberValue(value);
+                    }
+                }
+            }
+            for (Map.Entry<Long, Long> entry : values.entrySet()) {
+                Statistic statistic = new Statistic(playerId, gameId, entry.getKey());
+                statistic.setNumberValue(entry.getValue());
+                currentStats.add(statistic);
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.skyhawk.league.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.skyhawk.league.model.League;
 import com.skyhawk.league.model.StatisticType;
+import com.skyhawk.league.repository.ConnectionRouter;
 import com.skyhawk.league.repository.LeagueRepository;
 import com.skyhawk.league.repository.StatisticTypeRepository;
 import com.sun.net.httpserver.HttpExchange;
@@ -10,7 +11,6 @@ import com.sun.net.httpserver.HttpExchange;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
-import java.sql.Connection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -24,9 +24,9 @@ public class StatisticTypeController {
     private final LeagueRepository leagueRepository;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    public StatisticTypeController(Connection connection) {
-        this.statisticTypeRepository = new StatisticTypeRepository(connection);
-        this.leagueRepository = new LeagueRepository(connection);
+    public StatisticTypeController(ConnectionRouter router) {
+        this.statisticTypeRepository = new StatisticTypeRepository(router);
+        this.leagueRepository = new LeagueRepository(router);
     }
 
     public void handle(HttpExchange exchange) {
@@ -103,7 +103,7 @@ public class StatisticTypeController {
             type.setId(0);
             type.setLeagueId(league.getId());
             long id = statisticTypeRepository.saveIfNotExists(type);
-            String response = "{\"id\": " + id + "}";
+            String response = "{\"id\": \"" + id + "\"}";
             exchange.getResponseHeaders().add("Content-Type", "application/json");
             exchange.sendResponseHeaders(201, response.getBytes(StandardCharsets.UTF_8).length);
             try (OutputStream os = exchange.getResponseBody()) {
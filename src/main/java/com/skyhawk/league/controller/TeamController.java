@@ -1,15 +1,22 @@
 package com.skyhawk.league.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skyhawk.league.cache.RequestCoalescer;
+import com.skyhawk.league.cache.ResponseCache;
+import com.skyhawk.league.cache.SerializedResponse;
+import com.skyhawk.league.collections.LongIndex;
+import com.skyhawk.league.collections.LongStatisticSums;
 import com.skyhawk.league.model.*;
 import com.skyhawk.league.repository.*;
 import com.sun.net.httpserver.HttpExchange;
 
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
-import java.sql.Connection;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -23,14 +30,18 @@ public class TeamController {
     private final PlayerRepository playerRepository;
     private final StatisticRepository statisticRepository;
     private final GameRepository gameRepository;
+    private final RequestCoalescer requestCoalescer;
+    private final ResponseCache responseCache;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    public TeamController(Connection connection) {
-        this.teamRepository = new TeamRepository(connection);
-        this.leagueRepository = new LeagueRepository(connection);
-        this.playerRepository = new PlayerRepository(connection);
-        this.statisticRepository = new StatisticRepository(connection);
-        this.gameRepository = new GameRepository(connection);
+    public TeamController(ConnectionRouter router, RequestCoalescer requestCoalescer, ResponseCache responseCache) {
+        this.teamRepository = new TeamRepository(router);
+        this.leagueRepository = new LeagueRepository(router);
+        this.playerRepository = new PlayerRepository(router);
+        this.statisticRepository = new StatisticRepository(router);
+        this.gameRepository = new GameRepository(router);
+        this.requestCoalescer = requestCoalescer;
+        this.responseCache = responseCache;
     }
 
     public void handle(HttpExchange exchange) {
@@ -109,7 +120,7 @@ public class TeamController {
             team.setId(0);
             team.setLeagueId(league.getId());
             long id = teamRepository.saveIfNotExists(team);
-            String response = "{\"id\": " + id + "}";
+            String response = "{\"id\": \"" + id + "\"}";
             exchange.getResponseHeaders().add("Content-Type", "application/json");
             exchange.sendResponseHeaders(201, response.getBytes(StandardCharsets.UTF_8).length);
             try (OutputStream os = exchange.getResponseBody()) {
@@ -121,55 +132,72 @@ public class TeamController {
 
     private void getTeamSeasonStatistics(HttpExchange exchange, String leagueName, String teamName) throws Exception {
 		log.debug("Start getTeamSeasonStatistics: exchange={}, leagueName={}, teamName={}", exchange, leagueName, teamName);
+        String key = RequestCoalescer.key(exchange);
+        SerializedResponse response = responseCache.get(key);
+        if (response == null) {
+            // Cached until the next invalidating write, so it must not be computed from a lagging replica
+            Callable<SerializedResponse> compute = () -> ConnectionRouter.withConsistency(
+                    ConnectionRouter.Consistency.READ_YOUR_WRITES, () -> computeTeamSeasonStatistics(key, leagueName, teamName));
+            // A shared flight may have started, or its reused result completed, before this client's write
+            response = ConnectionRouter.getConsistency() == ConnectionRouter.Consistency.READ_YOUR_WRITES
+                    ? compute.call() : requestCoalescer.execute(key, compute);
+        }
+        response.send(exchange);
+		log.debug("End getTeamSeasonStatistics: exchange={}, leagueName={}, teamName={}", exchange, leagueName, teamName);
+    }
+
+    private SerializedResponse computeTeamSeasonStatistics(String cacheKey, String leagueName, String teamName) throws Exception {
+		log.debug("Start computeTeamSeasonStatistics: leagueName={}, teamName={}", leagueName, teamName);
+        long stamp = responseCache.stamp();
         League league = leagueRepository.getByName(leagueName);
         Team team = teamRepository.getByName(teamName);
+        SerializedResponse response;
 
-        if (team == null || team.getLeagueId() != league.getId()) {
-            exchange.sendResponseHeaders(404, -1);
+        if (league == null || team == null || team.getLeagueId() != league.getId()) {
+            response = SerializedResponse.status(404);
         }
         else {
 	        List<Game> games = gameRepository.getByTeamId(team.getId());
-	        Map<Object, Map<Object, Number>> statisticsMap = new HashMap<>();
-	
 	        List<Player> players = playerRepository.getByTeamId(team.getId());
+	        // One query for every (player, game) pair instead of one per pair
+	        List<Long> playerIds = players.stream().map(Player::getId).collect(Collectors.toList());
+	        List<Long> gameIds = games.stream().map(Game::getId).collect(Collectors.toList());
+	        // Per player, by position in players: sums by statistic type and the games with a row
+	        LongIndex playerIndex = new LongIndex(players.size());
+	        LongStatisticSums[] playerSums = new LongStatisticSums[players.size()];
+	        LongIndex[] gamesPlayed = new LongIndex[players.size()];
 	        for (Player player : players) {
-	            int gamesPlayed = 0;
-	            Map<Object, Number> playerStatistics = new HashMap<>();
-	            statisticsMap.put(player.getName(), playerStatistics);
-	            for (Game game : games) {
-	                List<Statistic> statistics = statisticRepository.getByPlayerIdAndGameId(player.getId(), game.getId());
-	                if (!statistics.isEmpty()) {
-	                    gamesPlayed++;
-	                    for (Statistic stat : statistics) {
-	                        String key = String.valueOf(stat.getStatisticTypeId());
-	                        Number playerStatistic = playerStatistics.get(key);
-	                        if (stat.getFloatValue() != 0.0f) {
-	                            playerStatistic = playerStatistic == null ? 0.0f : playerStatistic.floatValue();
-	                            playerStatistic = playerStatistic.floatValue() + stat.getFloatValue();
-	                        }
-	                        if (stat.getNumberValue() != 0) {
-	                            playerStatistic = playerStatistic == null ? 0 : playerStatistic.longValue();
-	                            playerStatistic = playerStatistic.longValue() + stat.getNumberValue();
-	                        }
-	                        playerStatistics.put(key, playerStatistic);
-	                    }
-	                }
+	            int ordinal = playerIndex.add(player.getId());
+	            playerSums[ordinal] = new LongStatisticSums();
+	            gamesPlayed[ordinal] = new LongIndex();
+	        }
+	        for (Statistic stat : statisticRepository.getByPlayerIdsAndGameIds(playerIds, gameIds)) {
+	            int ordinal = playerIndex.indexOf(stat.getPlayerId());
+	            if (ordinal >= 0) {
+	                playerSums[ordinal].add(stat.getStatisticTypeId(), stat.getNumberValue(), stat.getFloatValue());
+	                gamesPlayed[ordinal].add(stat.getGameId());
 	            }
-	            if (gamesPlayed > 0) {
-	                for (Map.Entry<Object, Number> entry : playerStatistics.entrySet()) {
-	                    float value = entry.getValue().floatValue();
-	                    entry.setValue(value / gamesPlayed);
+	        }
+
+	        // Written from the sums: player name -> statistic type id -> average per game played
+	        ByteArrayOutputStream body = new ByteArrayOutputStream();
+	        try (JsonGenerator json = objectMapper.getFactory().createGenerator(body)) {
+	            json.writeStartObject();
+	            for (int ordinal = 0; ordinal < playerIndex.size(); ordinal++) {
+	                LongStatisticSums sums = playerSums[ordinal];
+	                json.writeObjectFieldStart(players.get(ordinal).getName());
+	                for (int type = 0; type < sums.size(); type++) {
+	                    json.writeFieldName(Long.toString(sums.key(type)));
+	                    json.writeNumber(((float) sums.numberSum(type) + sums.floatSum(type)) / gamesPlayed[ordinal].size());
 	                }
+	                json.writeEndObject();
 	            }
+	            json.writeEndObject();
 	        }
-	
-	        String response = objectMapper.writeValueAsString(statisticsMap);
-	        exchange.getResponseHeaders().add("Content-Type", "application/json");
-	        exchange.sendResponseHeaders(200, response.getBytes(StandardCharsets.UTF_8).length);
-	        try (OutputStream os = exchange.getResponseBody()) {
-	            os.write(response.getBytes(StandardCharsets.UTF_8));
-	        }
+	        response = SerializedResponse.json(body.toByteArray());
+	        responseCache.put(cacheKey, response, stamp, ResponseCache.teamTag(team.getId()));
         }
-		log.debug("End getTeamSeasonStatistics: exchange={}, leagueName={}, teamName={}", exchange, leagueName, teamName);
+		log.debug("End computeTeamSeasonStatistics: leagueName={}, teamName={}, return={}", leagueName, teamName, response);
+        return response;
     }
 }  
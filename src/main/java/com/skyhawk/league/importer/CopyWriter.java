@@ -0,0 +1,68 @@
+package com.skyhawk.league.importer;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+/**
+ * Streams rows into a COPY ... FROM STDIN (FORMAT csv) through pgjdbc's CopyManager. Rows are
+ * encoded into a small buffer that is sent every FLUSH_CHARS characters, so memory stays flat
+ * however many rows are written.
+ */
+public class CopyWriter implements AutoCloseable {
+    private static final int FLUSH_CHARS = 64 * 1024;
+
+    private final CopyIn copyIn;
+    private final StringBuilder buffer = new StringBuilder(FLUSH_CHARS + 1024);
+    private long rows;
+
+    public CopyWriter(Connection connection, String copySql) throws SQLException {
+        this.copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql);
+    }
+
+    // A null value is written as SQL NULL
+    public void writeRow(Object... values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                buffer.append(',');
+            }
+            if (values[i] != null) {
+                buffer.append('"').append(values[i].toString().replace("\"", "\"\"")).append('"');
+            }
+        }
+        buffer.append('\n');
+        rows++;
+        if (buffer.length() >= FLUSH_CHARS) {
+            flush();
+        }
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    // Sends the remaining rows and completes the COPY; returns the rows the server stored
+    public long finish() throws SQLException {
+        flush();
+        return copyIn.endCopy();
+    }
+
+    private void flush() throws SQLException {
+        if (buffer.length() > 0) {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+
+    // Abandons a COPY that was not finished, e.g. after a parse error
+    @Override
+    public void close() throws SQLException {
+        if (copyIn.isActive()) {
+            copyIn.cancelCopy();
+        }
+    }
+}
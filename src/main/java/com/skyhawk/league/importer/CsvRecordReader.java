@@ -0,0 +1,68 @@
+package com.skyhawk.league.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// CSV with a header line; fields may be quoted with "" as the escaped quote. Records are single lines.
+public class CsvRecordReader extends RecordReader {
+    private final List<String> header;
+
+    public CsvRecordReader(BufferedReader reader) throws IOException {
+        super(reader);
+        String line = reader.readLine();
+        if (line == null) {
+            throw new IOException("CSV file has no header line");
+        }
+        this.header = split(line.startsWith("\uFEFF") ? line.substring(1) : line);
+    }
+
+    @Override
+    public Map<String, String> next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        List<String> values = split(line);
+        Map<String, String> record = new HashMap<>();
+        for (int i = 0; i < header.size() && i < values.size(); i++) {
+            record.put(header.get(i).trim(), values.get(i));
+        }
+        return record;
+    }
+
+    static List<String> split(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
@@ -0,0 +1,38 @@
+package com.skyhawk.league.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// One JSON object per line; scalar fields are read as text
+public class NdjsonRecordReader extends RecordReader {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public NdjsonRecordReader(BufferedReader reader) {
+        super(reader);
+    }
+
+    @Override
+    public Map<String, String> next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        JsonNode node = objectMapper.readTree(line);
+        Map<String, String> record = new HashMap<>();
+        for (Map.Entry<String, JsonNode> field : node.properties()) {
+            if (!field.getValue().isNull()) {
+                record.put(field.getKey(), field.getValue().asText());
+            }
+        }
+        return record;
+    }
+}
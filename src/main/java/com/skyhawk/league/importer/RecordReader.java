@@ -0,0 +1,39 @@
+package com.skyhawk.league.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+// Streams the records of an import file one line at a time, as column name -> value
+public abstract class RecordReader implements AutoCloseable {
+    protected final BufferedReader reader;
+
+    protected RecordReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    // Picks the format from the file extension: .csv with a header line, or .ndjson / .jsonl
+    public static RecordReader open(Path file) throws IOException {
+        BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        String name = file.getFileName().toString();
+        if (name.endsWith(".csv")) {
+            return new CsvRecordReader(reader);
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return new NdjsonRecordReader(reader);
+        }
+        reader.close();
+        throw new IllegalArgumentException("Unsupported import file: " + file);
+    }
+
+    // Next record, or null at the end of the file; blank lines are skipped
+    public abstract Map<String, String> next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
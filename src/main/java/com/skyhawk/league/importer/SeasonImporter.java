@@ -0,0 +1,381 @@
+package com.skyhawk.league.importer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.skyhawk.league.repository.SnowflakeIdGenerator;
+import com.skyhawk.league.repository.StatisticLayout;
+import com.skyhawk.league.repository.StatisticPartitions;
+import com.skyhawk.league.repository.StatisticPartitions.PartitionKey;
+import com.skyhawk.league.repository.StatisticRepository;
+
+/**
+ * Bulk import of past seasons through PostgreSQL COPY, instead of replaying them through
+ * POST /events.
+ *
+ * Reads, from one directory, any of leagues, teams, players, statistic_types, games and statistics
+ * as .csv (with a header line) or .ndjson/.jsonl, in that order. Rows refer to each other by name;
+ * names are resolved in memory against maps preloaded from the database and extended with every
+ * imported row, and ids are assigned up front by SnowflakeIdGenerator so COPY never has to return
+ * them. Files are streamed record by record into COPY, so memory is bounded by the number of named
+ * entities, not by the number of statistics.
+ *
+ * Columns:
+ *   leagues          name, description
+ *   teams            league, name, description
+ *   players          league, team, name, description
+ *   statistic_types  league, name, description, type (NUMBER|FLOAT), min_value, max_value
+ *   games            league, name, description, home_team, visitor_team, date, start_time, end_time, game_state
+ *   statistics       league, game, team, player, statistic_type, number_value, float_value
+ *
+ * Rows already in the database are skipped, so an import can be re-run. Statistics go through a
+ * temporary staging table and INSERT ... ON CONFLICT DO NOTHING for the same reason; with the wide
+ * layout they are merged from the staging table into the statistic_line rows of their games instead.
+ */
+public class SeasonImporter {
+    private static final Logger log = LoggerFactory.getLogger(SeasonImporter.class);
+
+    private static final List<String> EXTENSIONS = List.of(".csv", ".ndjson", ".jsonl");
+    private static final int MAX_LOGGED_SKIPS = 10;
+
+    @FunctionalInterface
+    private interface RowMapper {
+        // The COPY row for the record, or null to skip it
+        Object[] map(Map<String, String> record) throws SQLException;
+    }
+
+    private final Connection connection;
+    private final SnowflakeIdGenerator idGenerator = SnowflakeIdGenerator.getInstance();
+    private final StatisticPartitions partitions;
+
+    // Name -> id; keys are "name", "leagueId/name" or "teamId/name" like the unique constraints
+    private final Map<String, Long> leagues = new HashMap<>();
+    private final Map<String, Long> teams = new HashMap<>();
+    private final Map<String, Long> players = new HashMap<>();
+    private final Map<String, Long> statisticTypes = new HashMap<>();
+    private final Map<String, Long> games = new HashMap<>();
+    private final Set<PartitionKey> seasons = new HashSet<>();
+
+    private int skipped;
+    private Map<String, String> lastSkipped;
+
+    public SeasonImporter(Connection connection) {
+        this.connection = connection;
+        this.partitions = new StatisticPartitions(connection);
+    }
+
+    public void importDirectory(Path directory) throws SQLException, IOException {
+        log.info("Start importDirectory: directory={}", directory);
+        preload();
+        long start = System.nanoTime();
+        long total = 0;
+
+        total += importFile(directory, "leagues", "COPY league (id, name, description) FROM STDIN (FORMAT csv)",
+                this::leagueRow);
+        total += importFile(directory, "teams", "COPY team (id, league_id, name, description) FROM STDIN (FORMAT csv)",
+                this::teamRow);
+        total += importFile(directory, "players", "COPY player (id, team_id, name, description) FROM STDIN (FORMAT csv)",
+                this::playerRow);
+        total += importFile(directory, "statistic_types",
+                "COPY statistic_type (id, league_id, name, description, type, min_value, max_value) FROM STDIN (FORMAT csv)",
+                this::statisticTypeRow);
+        total += importFile(directory, "games",
+                "COPY game (id, league_id, name, description, home_team_id, visitor_team_id, date, start_time, end_time, game_state) "
+                        + "FROM STDIN (FORMAT csv)",
+                this::gameRow);
+        total += importStatistics(directory);
+
+        report("total", total, System.nanoTime() - start);
+        if (skipped > 0) {
+            System.out.println("⚠️ " + skipped + " records skipped, see the log for the first " + MAX_LOGGED_SKIPS);
+        }
+        log.info("End importDirectory: rows={}, skipped={}", total, skipped);
+    }
+
+    private void preload() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT id, name FROM league")) {
+                while (rs.next()) {
+                    leagues.put(rs.getString("name"), rs.getLong("id"));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT id, league_id, name FROM team")) {
+                while (rs.next()) {
+                    teams.put(rs.getLong("league_id") + "/" + rs.getString("name"), rs.getLong("id"));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT id, team_id, name FROM player")) {
+                while (rs.next()) {
+                    players.put(rs.getLong("team_id") + "/" + rs.getString("name"), rs.getLong("id"));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT id, league_id, name FROM statistic_type")) {
+                while (rs.next()) {
+                    statisticTypes.put(rs.getLong("league_id") + "/" + rs.getString("name"), rs.getLong("id"));
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT id, league_id, name, date FROM game")) {
+                while (rs.next()) {
+                    games.put(rs.getLong("league_id") + "/" + rs.getString("name"), rs.getLong("id"));
+                    remember(rs.getLong("id"), rs.getLong("league_id"), rs.getDate("date").toLocalDate());
+                }
+            }
+        }
+        log.info("Preloaded: leagues={}, teams={}, players={}, statisticTypes={}, games={}",
+                leagues.size(), teams.size(), players.size(), statisticTypes.size(), games.size());
+    }
+
+    private long importFile(Path directory, String name, String copySql, RowMapper mapper) throws SQLException, IOException {
+        Path file = find(directory, name);
+        if (file == null) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        long rows;
+        try (RecordReader reader = RecordReader.open(file);
+             CopyWriter writer = new CopyWriter(connection, copySql)) {
+            Map<String, String> record;
+            while ((record = reader.next()) != null) {
+                Object[] row = mapper.map(record);
+                if (row != null) {
+                    writer.writeRow(row);
+                }
+            }
+            rows = writer.finish();
+        }
+        report(name, rows, System.nanoTime() - start);
+        return rows;
+    }
+
+    private long importStatistics(Path directory) throws SQLException, IOException {
+        Path file = find(directory, "statistics");
+        if (file == null) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("""
+                CREATE TEMP TABLE IF NOT EXISTS statistic_import (
+                    id BIGINT, league_id BIGINT, season INTEGER, player_id BIGINT, game_id BIGINT,
+                    statistic_type_id BIGINT, number_value BIGINT, float_value REAL
+                )
+            """);
+            stmt.execute("TRUNCATE statistic_import");
+        }
+        // No other statement can run on the connection while the COPY is open
+        for (PartitionKey key : seasons) {
+            partitions.ensure(key);
+        }
+
+        long staged;
+        try (RecordReader reader = RecordReader.open(file);
+             CopyWriter writer = new CopyWriter(connection, "COPY statistic_import (id, league_id, season, player_id, game_id, "
+                     + "statistic_type_id, number_value, float_value) FROM STDIN (FORMAT csv)")) {
+            Map<String, String> record;
+            while ((record = reader.next()) != null) {
+                Object[] row = statisticRow(record);
+                if (row != null) {
+                    writer.writeRow(row);
+                }
+            }
+            staged = writer.finish();
+        }
+
+        int rows;
+        try (Statement stmt = connection.createStatement()) {
+            if (StatisticRepository.getLayout() == StatisticLayout.WIDE) {
+                rows = mergeIntoWide(stmt, staged);
+            } else {
+                rows = stmt.executeUpdate("""
+                    INSERT INTO statistic (id, league_id, season, player_id, game_id, statistic_type_id, number_value, float_value)
+                    SELECT id, league_id, season, player_id, game_id, statistic_type_id, number_value, float_value
+                    FROM statistic_import
+                    ON CONFLICT DO NOTHING
+                """);
+            }
+            stmt.execute("TRUNCATE statistic_import");
+        }
+        if (rows < staged) {
+            log.info("Statistics already present: {}", staged - rows);
+        }
+        report("statistics", rows, System.nanoTime() - start);
+        return rows;
+    }
+
+    // The wide layout's counterpart of the narrow INSERT: the staged rows are grouped into one entry map
+    // per (player, game) and merged into those rows of statistic_line only, existing entries winning
+    // like ON CONFLICT DO NOTHING. Returns the number of entries added
+    private int mergeIntoWide(Statement stmt, long staged) throws SQLException {
+        long present;
+        try (ResultSet rs = stmt.executeQuery("""
+                SELECT count(*) FROM statistic_import i
+                JOIN statistic_line l ON l.player_id = i.player_id AND l.game_id = i.game_id
+                WHERE l.stats -> i.statistic_type_id::text IS NOT NULL
+            """)) {
+            rs.next();
+            present = rs.getLong(1);
+        }
+        stmt.executeUpdate("""
+            INSERT INTO statistic_line AS l (player_id, game_id, league_id, season, stats)
+            SELECT player_id, game_id, league_id, season,
+                   jsonb_object_agg(statistic_type_id::text, jsonb_build_array(number_value, float_value, id))
+            FROM statistic_import
+            GROUP BY player_id, game_id, league_id, season
+            ON CONFLICT (player_id, game_id) DO UPDATE SET stats = EXCLUDED.stats || l.stats
+        """);
+        return (int) (staged - present);
+    }
+
+    private Object[] leagueRow(Map<String, String> record) {
+        String name = required(record, "name");
+        if (name == null || leagues.containsKey(name)) {
+            return null;
+        }
+        long id = idGenerator.nextId();
+        leagues.put(name, id);
+        return new Object[] { id, name, record.get("description") };
+    }
+
+    private Object[] teamRow(Map<String, String> record) {
+        Long leagueId = resolve(leagues, record, "league", record.get("league"));
+        String name = required(record, "name");
+        if (leagueId == null || name == null || teams.containsKey(leagueId + "/" + name)) {
+            return null;
+        }
+        long id = idGenerator.nextId();
+        teams.put(leagueId + "/" + name, id);
+        return new Object[] { id, leagueId, name, record.get("description") };
+    }
+
+    private Object[] playerRow(Map<String, String> record) {
+        Long teamId = resolveTeam(record, "team");
+        String name = required(record, "name");
+        if (teamId == null || name == null || players.containsKey(teamId + "/" + name)) {
+            return null;
+        }
+        long id = idGenerator.nextId();
+        players.put(teamId + "/" + name, id);
+        return new Object[] { id, teamId, name, record.get("description") };
+    }
+
+    private Object[] statisticTypeRow(Map<String, String> record) {
+        Long leagueId = resolve(leagues, record, "league", record.get("league"));
+        String name = required(record, "name");
+        if (leagueId == null || name == null || statisticTypes.containsKey(leagueId + "/" + name)) {
+            return null;
+        }
+        long id = idGenerator.nextId();
+        statisticTypes.put(leagueId + "/" + name, id);
+        String type = record.getOrDefault("type", "NUMBER").toUpperCase();
+        return new Object[] { id, leagueId, name, record.get("description"), type,
+                blankToNull(record.get("min_value")), blankToNull(record.get("max_value")) };
+    }
+
+    private Object[] gameRow(Map<String, String> record) {
+        Long leagueId = resolve(leagues, record, "league", record.get("league"));
+        String name = required(record, "name");
+        Long homeTeamId = resolveTeam(record, "home_team");
+        Long visitorTeamId = resolveTeam(record, "visitor_team");
+        String date = required(record, "date");
+        if (leagueId == null || name == null || homeTeamId == null || visitorTeamId == null || date == null
+                || games.containsKey(leagueId + "/" + name)) {
+            return null;
+        }
+        long id = idGenerator.nextId();
+        games.put(leagueId + "/" + name, id);
+        remember(id, leagueId, LocalDate.parse(date));
+        return new Object[] { id, leagueId, name, record.get("description"), homeTeamId, visitorTeamId, date,
+                blankToNull(record.get("start_time")), blankToNull(record.get("end_time")),
+                record.getOrDefault("game_state", "End") };
+    }
+
+    private Object[] statisticRow(Map<String, String> record) throws SQLException {
+        Long leagueId = resolve(leagues, record, "league", record.get("league"));
+        if (leagueId == null) {
+            return null;
+        }
+        Long gameId = resolve(games, record, "game", leagueId + "/" + record.get("game"));
+        Long teamId = resolveTeam(record, "team");
+        Long playerId = teamId == null ? null : resolve(players, record, "player", teamId + "/" + record.get("player"));
+        Long typeId = resolve(statisticTypes, record, "statistic_type", leagueId + "/" + record.get("statistic_type"));
+        if (gameId == null || playerId == null || typeId == null) {
+            return null;
+        }
+        PartitionKey key = partitions.forGame(gameId);
+        String numberValue = blankToNull(record.get("number_value"));
+        String floatValue = blankToNull(record.get("float_value"));
+        return new Object[] { idGenerator.nextId(), key.getLeagueId(), key.getSeason(), playerId, gameId, typeId,
+                numberValue != null ? numberValue : "0", floatValue != null ? floatValue : "0" };
+    }
+
+    // Partition keys of every known game are cached, so statistic rows never query during the COPY
+    private void remember(long gameId, long leagueId, LocalDate date) {
+        partitions.remember(gameId, leagueId, date);
+        seasons.add(new PartitionKey(leagueId, StatisticPartitions.seasonOf(date)));
+    }
+
+    private Long resolveTeam(Map<String, String> record, String column) {
+        Long leagueId = resolve(leagues, record, "league", record.get("league"));
+        return leagueId == null ? null : resolve(teams, record, column, leagueId + "/" + record.get(column));
+    }
+
+    private Long resolve(Map<String, Long> ids, Map<String, String> record, String column, String key) {
+        Long id = ids.get(key);
+        if (id == null) {
+            skip(record, "unknown " + column);
+        }
+        return id;
+    }
+
+    private String required(Map<String, String> record, String column) {
+        String value = blankToNull(record.get(column));
+        if (value == null) {
+            skip(record, "missing " + column);
+        }
+        return value;
+    }
+
+    private void skip(Map<String, String> record, String reason) {
+        // A record with several unresolved names is counted once
+        if (record == lastSkipped) {
+            return;
+        }
+        lastSkipped = record;
+        if (++skipped <= MAX_LOGGED_SKIPS) {
+            log.warn("Skipping record ({}): {}", reason, record);
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static Path find(Path directory, String name) {
+        for (String extension : EXTENSIONS) {
+            Path file = directory.resolve(name + extension);
+            if (Files.isRegularFile(file)) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    private static void report(String name, long rows, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-16s %10d rows in %7.2fs (%.0f rows/s)%n", name, rows, seconds, rows / Math.max(seconds, 1e-9));
+    }
+}
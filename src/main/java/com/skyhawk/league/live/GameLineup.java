@@ -0,0 +1,239 @@
+package com.skyhawk.league.live;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.skyhawk.league.collections.LongIndex;
+import com.skyhawk.league.model.Event;
+import com.skyhawk.league.model.StatisticType;
+import com.skyhawk.league.replay.GameReplay;
+
+/**
+ * Lineups of one game: each team's players on court as a bitset over roster slots, a slot per player
+ * in the order they first came on, and per lineup (the packed bitset) its time on court and the
+ * PLAYER_ACTION counts of both teams while it was on. An action counts for the acting player's unit
+ * and against the opponent's unit on court, so for minus against is the unit's plus/minus of that
+ * statistic type. A team has at most 64 slots; players beyond them are not tracked.
+ */
+public final class GameLineup {
+    private static final int MAX_SLOTS = Long.SIZE;
+
+    /**
+     * A lineup of a team: its players, time on court (the current lineup up to the last event) and the
+     * counts for and against it per statistic type, in {@link #getStatisticTypeIds()} order.
+     */
+    public record Unit(long[] playerIds, long millis, boolean onCourt, int[] scored, int[] conceded) {
+    }
+
+    private final long gameId;
+    private final long homeTeamId;
+    private final long visitorTeamId;
+    // Per team (0 home, 1 visitor): player id -> roster slot
+    private final LongIndex[] rosters = { new LongIndex(16), new LongIndex(16) };
+    // Per team: bit per slot of the players on court, and since when that lineup is on
+    private final long[] onCourt = new long[2];
+    private final int[] sinceMillis = new int[2];
+    // Per team: lineup bitset -> ordinal of the arrays below
+    private final LongIndex[] lineups = { new LongIndex(), new LongIndex() };
+    private final long[][] lineupMillis = { new long[8], new long[8] };
+    // Per team and lineup: statistic type code * 2 -> count for, code * 2 + 1 -> count against
+    private final int[][][] lineupCounts = { new int[8][], new int[8][] };
+    // Statistic type id -> code
+    private final LongIndex statisticTypes = new LongIndex();
+    private int lastMillis;
+
+    public GameLineup(long gameId, long homeTeamId, long visitorTeamId) {
+        this.gameId = gameId;
+        this.homeTeamId = homeTeamId;
+        this.visitorTeamId = visitorTeamId;
+    }
+
+    /**
+     * Lineups of a game from its history as {@link GameReplay#effectiveHistory} returns it, the players
+     * mapped to their teams. Like the replay, a player whose count reaches a limit of its statistic type
+     * leaves the court.
+     */
+    public static GameLineup replay(long gameId, long homeTeamId, long visitorTeamId, List<Event> history,
+            Map<Long, Long> playerTeamIds, Map<Long, StatisticType> statisticTypes) {
+        GameLineup lineup = new GameLineup(gameId, homeTeamId, visitorTeamId);
+        // Player id -> statistic type id -> count, for the limits
+        Map<Long, Map<Long, Integer>> counts = new HashMap<>();
+        for (Event event : history) {
+            int eventMillis = GameReplay.millisOfDay(event.getEventTime());
+            switch (event.getType()) {
+                case GAME_END, INTERMISSION_START, TIMEOUT_START -> lineup.endAll(eventMillis);
+                case PLAYER_START, PLAYER_END, PLAYER_ACTION -> {
+                    Long teamId = event.getPlayerId() != null ? playerTeamIds.get(event.getPlayerId()) : null;
+                    if (teamId == null) {
+                        continue;
+                    }
+                    if (event.getType() == Event.EventType.PLAYER_START) {
+                        lineup.start(teamId, event.getPlayerId(), eventMillis);
+                    } else if (event.getType() == Event.EventType.PLAYER_END) {
+                        lineup.end(teamId, event.getPlayerId(), eventMillis);
+                    } else if (event.getStatisticTypeId() != null) {
+                        lineup.add(teamId, event.getStatisticTypeId(), eventMillis);
+                        int count = counts.computeIfAbsent(event.getPlayerId(), id -> new HashMap<>())
+                                .merge(event.getStatisticTypeId(), 1, Integer::sum);
+                        StatisticType type = statisticTypes.get(event.getStatisticTypeId());
+                        // The first count of a type never ends a stint, as in the replay
+                        if (type != null && count > 1
+                                && ((type.getMaxValue() != null && type.getMaxValue() <= count)
+                                        || (type.getMinValue() != null && type.getMinValue() >= count))) {
+                            lineup.end(teamId, event.getPlayerId(), eventMillis);
+                        }
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return lineup;
+    }
+
+    // The player comes on court; teams not playing the game, and players beyond the slots, are ignored
+    public synchronized void start(long teamId, long playerId, int eventMillis) {
+        int team = team(teamId);
+        if (team < 0) {
+            return;
+        }
+        int slot = rosters[team].indexOf(playerId);
+        if (slot < 0) {
+            if (rosters[team].size() == MAX_SLOTS) {
+                return;
+            }
+            slot = rosters[team].add(playerId);
+        }
+        long bit = 1L << slot;
+        if ((onCourt[team] & bit) == 0) {
+            change(team, onCourt[team] | bit, eventMillis);
+        }
+    }
+
+    public synchronized void end(long teamId, long playerId, int eventMillis) {
+        int team = team(teamId);
+        int slot = team < 0 ? -1 : rosters[team].indexOf(playerId);
+        if (slot < 0) {
+            return;
+        }
+        long bit = 1L << slot;
+        if ((onCourt[team] & bit) != 0) {
+            change(team, onCourt[team] & ~bit, eventMillis);
+        }
+    }
+
+    // A stoppage: every player leaves the court, as their stints end
+    public synchronized void endAll(int eventMillis) {
+        change(0, 0, eventMillis);
+        change(1, 0, eventMillis);
+    }
+
+    // Counts one action of a player of the team for its lineup on court and against the opponent's
+    public synchronized void add(long teamId, long statisticTypeId, int eventMillis) {
+        int team = team(teamId);
+        if (team < 0) {
+            return;
+        }
+        lastMillis = Math.max(lastMillis, eventMillis);
+        int code = statisticTypes.add(statisticTypeId);
+        count(team, code * 2);
+        count(1 - team, code * 2 + 1);
+    }
+
+    public long getGameId() {
+        return gameId;
+    }
+
+    public long getHomeTeamId() {
+        return homeTeamId;
+    }
+
+    public long getVisitorTeamId() {
+        return visitorTeamId;
+    }
+
+    // Statistic types with at least one action, in first-seen order
+    public synchronized long[] getStatisticTypeIds() {
+        long[] ids = new long[statisticTypes.size()];
+        for (int code = 0; code < ids.length; code++) {
+            ids[code] = statisticTypes.key(code);
+        }
+        return ids;
+    }
+
+    // The team's lineups in the order they first came on; empty for a team not playing the game
+    public synchronized List<Unit> getUnits(long teamId) {
+        int team = team(teamId);
+        List<Unit> units = new ArrayList<>();
+        if (team < 0) {
+            return units;
+        }
+        int types = statisticTypes.size();
+        for (int ordinal = 0; ordinal < lineups[team].size(); ordinal++) {
+            long lineup = lineups[team].key(ordinal);
+            long[] playerIds = new long[Long.bitCount(lineup)];
+            int n = 0;
+            for (long bits = lineup; bits != 0; bits &= bits - 1) {
+                playerIds[n++] = rosters[team].key(Long.numberOfTrailingZeros(bits));
+            }
+            boolean current = lineup == onCourt[team];
+            long millis = lineupMillis[team][ordinal] + (current ? Math.max(0, lastMillis - sinceMillis[team]) : 0);
+            int[] counts = lineupCounts[team][ordinal];
+            int[] scored = new int[types];
+            int[] conceded = new int[types];
+            for (int code = 0; counts != null && code < types && code * 2 < counts.length; code++) {
+                scored[code] = counts[code * 2];
+                conceded[code] = code * 2 + 1 < counts.length ? counts[code * 2 + 1] : 0;
+            }
+            units.add(new Unit(playerIds, millis, current, scored, conceded));
+        }
+        return units;
+    }
+
+    private int team(long teamId) {
+        return teamId == homeTeamId ? 0 : teamId == visitorTeamId ? 1 : -1;
+    }
+
+    // Closes the team's lineup on court at eventMillis and puts the next one on
+    private void change(int team, long next, int eventMillis) {
+        lastMillis = Math.max(lastMillis, eventMillis);
+        if (onCourt[team] != 0) {
+            int ordinal = lineup(team, onCourt[team]);
+            lineupMillis[team][ordinal] += Math.max(0, eventMillis - sinceMillis[team]);
+        }
+        onCourt[team] = next;
+        sinceMillis[team] = eventMillis;
+        if (next != 0) {
+            lineup(team, next);
+        }
+    }
+
+    private void count(int team, int index) {
+        if (onCourt[team] == 0) {
+            return;
+        }
+        int ordinal = lineup(team, onCourt[team]);
+        int[] counts = lineupCounts[team][ordinal];
+        if (counts == null) {
+            counts = new int[Math.max(index + 1, 16)];
+            lineupCounts[team][ordinal] = counts;
+        } else if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+            lineupCounts[team][ordinal] = counts;
+        }
+        counts[index]++;
+    }
+
+    // Ordinal of the team's lineup, added when it is new
+    private int lineup(int team, long lineup) {
+        int ordinal = lineups[team].add(lineup);
+        if (ordinal == lineupMillis[team].length) {
+            lineupMillis[team] = Arrays.copyOf(lineupMillis[team], ordinal * 2);
+            lineupCounts[team] = Arrays.copyOf(lineupCounts[team], ordinal * 2);
+        }
+        return ordinal;
+    }
+}
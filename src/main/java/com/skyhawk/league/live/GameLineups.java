@@ -0,0 +1,88 @@
+package com.skyhawk.league.live;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Lineups of the most recently active games, tracked as their PLAYER_START, PLAYER_END, PLAYER_ACTION
+ * and stoppage events arrive. A game gets its lineups at GAME_START; a game without them (started
+ * before this node did, or evicted as the least recently used beyond maxGames) is rebuilt from the
+ * event log when it is read. A correction that rewrites the game's history replaces its lineups with
+ * ones rebuilt from it.
+ */
+public class GameLineups {
+    private final int maxGames;
+    private final Map<Long, GameLineup> lineups;
+
+    // 0 keeps no lineups: every read rebuilds from the event log
+    public GameLineups(int maxGames) {
+        this.maxGames = maxGames;
+        this.lineups = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, GameLineup> eldest) {
+                return size() > GameLineups.this.maxGames;
+            }
+        });
+    }
+
+    public boolean isEnabled() {
+        return maxGames > 0;
+    }
+
+    // Starts tracking the game; a game that already has lineups keeps them
+    public void start(long gameId, long homeTeamId, long visitorTeamId) {
+        if (isEnabled()) {
+            lineups.putIfAbsent(gameId, new GameLineup(gameId, homeTeamId, visitorTeamId));
+        }
+    }
+
+    public void playerStart(long gameId, long teamId, long playerId, int eventMillis) {
+        GameLineup lineup = lineups.get(gameId);
+        if (lineup != null) {
+            lineup.start(teamId, playerId, eventMillis);
+        }
+    }
+
+    public void playerEnd(long gameId, long teamId, long playerId, int eventMillis) {
+        GameLineup lineup = lineups.get(gameId);
+        if (lineup != null) {
+            lineup.end(teamId, playerId, eventMillis);
+        }
+    }
+
+    // A stoppage of the game: its lineups leave the court
+    public void endAll(long gameId, int eventMillis) {
+        GameLineup lineup = lineups.get(gameId);
+        if (lineup != null) {
+            lineup.endAll(eventMillis);
+        }
+    }
+
+    // Counts the action for and against the lineups on court, if the game has lineups
+    public void add(long gameId, long teamId, long statisticTypeId, int eventMillis) {
+        GameLineup lineup = lineups.get(gameId);
+        if (lineup != null) {
+            lineup.add(teamId, statisticTypeId, eventMillis);
+        }
+    }
+
+    // null when the game has no lineups here
+    public GameLineup get(long gameId) {
+        return lineups.get(gameId);
+    }
+
+    // Keeps lineups rebuilt from the event log, unless tracking started meanwhile
+    public void put(GameLineup lineup) {
+        if (isEnabled()) {
+            lineups.putIfAbsent(lineup.getGameId(), lineup);
+        }
+    }
+
+    // Takes the place of the game's lineups with ones rebuilt from its corrected history
+    public void replace(GameLineup lineup) {
+        if (isEnabled()) {
+            lineups.put(lineup.getGameId(), lineup);
+        }
+    }
+}
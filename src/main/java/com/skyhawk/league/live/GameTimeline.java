@@ -0,0 +1,124 @@
+package com.skyhawk.league.live;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.skyhawk.league.collections.LongIndex;
+import com.skyhawk.league.model.Event;
+import com.skyhawk.league.replay.GameReplay;
+
+/**
+ * PLAYER_ACTION counts of one game per team, statistic type and minute since the game started. A
+ * series is an int array indexed by minute, so a whole game is a few hundred ints per type and team.
+ * Minutes are wall-clock minutes from GAME_START, stoppages included; actions before the start count
+ * in minute 0.
+ */
+public final class GameTimeline {
+    private static final int MILLIS_PER_MINUTE = 60_000;
+
+    private final long gameId;
+    private final long homeTeamId;
+    private final long visitorTeamId;
+    private final int startMillis;
+    // Statistic type id -> code
+    private final LongIndex statisticTypes = new LongIndex();
+    // Code * 2 + team (0 home, 1 visitor) -> count per minute
+    private int[][] series = new int[16][];
+    private int minutes;
+
+    public GameTimeline(long gameId, long homeTeamId, long visitorTeamId, int startMillis) {
+        this.gameId = gameId;
+        this.homeTeamId = homeTeamId;
+        this.visitorTeamId = visitorTeamId;
+        this.startMillis = startMillis;
+    }
+
+    /**
+     * Timeline of a game from its history as {@link GameReplay#effectiveHistory} returns it, the
+     * players mapped to their teams. Starts at the first GAME_START, or at the first event when the
+     * history has none.
+     */
+    public static GameTimeline replay(long gameId, long homeTeamId, long visitorTeamId, List<Event> history,
+            Map<Long, Long> playerTeamIds) {
+        int startMillis = history.isEmpty() ? 0 : GameReplay.millisOfDay(history.get(0).getEventTime());
+        for (Event event : history) {
+            if (event.getType() == Event.EventType.GAME_START) {
+                startMillis = GameReplay.millisOfDay(event.getEventTime());
+                break;
+            }
+        }
+        GameTimeline timeline = new GameTimeline(gameId, homeTeamId, visitorTeamId, startMillis);
+        for (Event event : history) {
+            if (event.getType() == Event.EventType.PLAYER_ACTION && event.getPlayerId() != null
+                    && event.getStatisticTypeId() != null) {
+                Long teamId = playerTeamIds.get(event.getPlayerId());
+                if (teamId != null) {
+                    timeline.add(teamId, event.getStatisticTypeId(), GameReplay.millisOfDay(event.getEventTime()));
+                }
+            }
+        }
+        return timeline;
+    }
+
+    // Counts one action of a player of the team; teams not playing the game are ignored
+    public synchronized void add(long teamId, long statisticTypeId, int eventMillis) {
+        int team = teamId == homeTeamId ? 0 : teamId == visitorTeamId ? 1 : -1;
+        if (team < 0) {
+            return;
+        }
+        int minute = Math.max(0, eventMillis - startMillis) / MILLIS_PER_MINUTE;
+        int index = statisticTypes.add(statisticTypeId) * 2 + team;
+        if (index >= series.length) {
+            series = Arrays.copyOf(series, Math.max(index + 1, series.length * 2));
+        }
+        int[] counts = series[index];
+        if (counts == null) {
+            counts = new int[Math.max(minute + 1, 64)];
+            series[index] = counts;
+        } else if (minute >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(minute + 1, counts.length * 2));
+            series[index] = counts;
+        }
+        counts[minute]++;
+        minutes = Math.max(minutes, minute + 1);
+    }
+
+    public long getGameId() {
+        return gameId;
+    }
+
+    public long getHomeTeamId() {
+        return homeTeamId;
+    }
+
+    public long getVisitorTeamId() {
+        return visitorTeamId;
+    }
+
+    public int getStartMillis() {
+        return startMillis;
+    }
+
+    // Minutes up to the last one with an action
+    public synchronized int getMinutes() {
+        return minutes;
+    }
+
+    // Statistic types with at least one action, in first-seen order
+    public synchronized long[] getStatisticTypeIds() {
+        long[] ids = new long[statisticTypes.size()];
+        for (int code = 0; code < ids.length; code++) {
+            ids[code] = statisticTypes.key(code);
+        }
+        return ids;
+    }
+
+    // Counts per minute of the team's players, getMinutes() long; all zero for a type or team without actions
+    public synchronized int[] getSeries(long teamId, long statisticTypeId) {
+        int team = teamId == homeTeamId ? 0 : teamId == visitorTeamId ? 1 : -1;
+        int code = statisticTypes.indexOf(statisticTypeId);
+        int[] counts = team < 0 || code < 0 ? null : series[code * 2 + team];
+        return counts == null ? new int[minutes] : Arrays.copyOf(counts, minutes);
+    }
+}
@@ -0,0 +1,65 @@
+package com.skyhawk.league.live;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-minute timelines of the most recently active games, counted as their PLAYER_ACTION events
+ * arrive. A game gets a timeline at GAME_START; a game without one (started before this node did, or
+ * evicted as the least recently used beyond maxGames) is rebuilt from the event log when it is read.
+ * A correction that rewrites the game's history replaces its timeline with one rebuilt from it.
+ */
+public class GameTimelines {
+    private final int maxGames;
+    private final Map<Long, GameTimeline> timelines;
+
+    // 0 keeps no timelines: every read rebuilds from the event log
+    public GameTimelines(int maxGames) {
+        this.maxGames = maxGames;
+        this.timelines = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, GameTimeline> eldest) {
+                return size() > GameTimelines.this.maxGames;
+            }
+        });
+    }
+
+    public boolean isEnabled() {
+        return maxGames > 0;
+    }
+
+    // Starts counting the game; a game that already has a timeline keeps it
+    public void start(long gameId, long homeTeamId, long visitorTeamId, int startMillis) {
+        if (isEnabled()) {
+            timelines.putIfAbsent(gameId, new GameTimeline(gameId, homeTeamId, visitorTeamId, startMillis));
+        }
+    }
+
+    // Counts the action in the game's timeline, if it has one
+    public void add(long gameId, long teamId, long statisticTypeId, int eventMillis) {
+        GameTimeline timeline = timelines.get(gameId);
+        if (timeline != null) {
+            timeline.add(teamId, statisticTypeId, eventMillis);
+        }
+    }
+
+    // null when the game has no timeline here
+    public GameTimeline get(long gameId) {
+        return timelines.get(gameId);
+    }
+
+    // Keeps a timeline rebuilt from the event log, unless one was started meanwhile
+    public void put(GameTimeline timeline) {
+        if (isEnabled()) {
+            timelines.putIfAbsent(timeline.getGameId(), timeline);
+        }
+    }
+
+    // Takes the place of the game's timeline with one rebuilt from its corrected history
+    public void replace(GameTimeline timeline) {
+        if (isEnabled()) {
+            timelines.put(timeline.getGameId(), timeline);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.skyhawk.league.live;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skyhawk.league.model.Statistic;
+
+/**
+ * Fan-out hub for live game updates. Each game has a single channel; a published
+ * update is serialized once and offered to every subscriber's bounded buffer.
+ * Subscribers whose buffer is full are disconnected instead of slowing the publisher.
+ */
+public class LiveGameFeed {
+    private static final Logger log = LoggerFactory.getLogger(LiveGameFeed.class);
+
+    public static final byte[] HEARTBEAT_FRAME = ": keep-alive\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final Map<Long, Set<LiveSubscriber>> channels = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int bufferSize;
+
+    public LiveGameFeed(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public LiveSubscriber subscribe(long gameId) {
+        log.info("Start subscribe: gameId={}", gameId);
+        LiveSubscriber subscriber = new LiveSubscriber(gameId, bufferSize);
+        // Added inside compute so a concurrent unsubscribe cannot drop the set it lands in
+        channels.compute(gameId, (id, subscribers) -> {
+            Set<LiveSubscriber> channel = subscribers != null ? subscribers : new CopyOnWriteArraySet<>();
+            channel.add(subscriber);
+            return channel;
+        });
+        log.info("End subscribe: gameId={}, subscribers={}", gameId, subscriberCount(gameId));
+        return subscriber;
+    }
+
+    public void unsubscribe(LiveSubscriber subscriber) {
+        log.info("Start unsubscribe: subscriber={}", subscriber);
+        subscriber.close();
+        channels.computeIfPresent(subscriber.getGameId(), (id, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+        log.info("End unsubscribe: gameId={}, subscribers={}", subscriber.getGameId(), subscriberCount(subscriber.getGameId()));
+    }
+
+    public int subscriberCount(long gameId) {
+        Set<LiveSubscriber> subscribers = channels.get(gameId);
+        return subscribers == null ? 0 : subscribers.size();
+    }
+
+    public void publishStatistic(Statistic statistic, Number delta) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("gameId", String.valueOf(statistic.getGameId()));
+        payload.put("playerId", String.valueOf(statistic.getPlayerId()));
+        payload.put("statisticTypeId", String.valueOf(statistic.getStatisticTypeId()));
+        payload.put("delta", delta);
+        payload.put("numberValue", statistic.getNumberValue());
+        payload.put("floatValue", statistic.getFloatValue());
+        publish(statistic.getGameId(), "statistic", payload);
+    }
+
+    public void publishGameState(long gameId, String gameState, LocalTime eventTime) {
+        publish(gameId, "state", statePayload(gameId, gameState, eventTime));
+    }
+
+    // The state frame a new subscriber starts with
+    public byte[] stateFrame(long gameId, String gameState, LocalTime eventTime) {
+        return frame("state", statePayload(gameId, gameState, eventTime));
+    }
+
+    private static Map<String, Object> statePayload(long gameId, String gameState, LocalTime eventTime) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("gameId", String.valueOf(gameId));
+        payload.put("gameState", gameState);
+        payload.put("eventTime", eventTime != null ? eventTime.toString() : null);
+        return payload;
+    }
+
+    private void publish(long gameId, String eventName, Object payload) {
+        Set<LiveSubscriber> subscribers = channels.get(gameId);
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        byte[] frame = frame(eventName, payload);
+        if (frame == null) {
+            return;
+        }
+        for (LiveSubscriber subscriber : subscribers) {
+            if (!subscriber.offer(frame)) {
+                log.warn("Disconnecting slow subscriber: {}", subscriber);
+                unsubscribe(subscriber);
+            }
+        }
+        log.debug("Published {} to {} subscribers: gameId={}", eventName, subscribers.size(), gameId);
+    }
+
+    private byte[] frame(String eventName, Object payload) {
+        try {
+            String data = objectMapper.writeValueAsString(payload);
+            return ("event: " + eventName + "\ndata: " + data + "\n\n").getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize live update: event={}, error={}", eventName, e.getMessage());
+            return null;
+        }
+    }
+}
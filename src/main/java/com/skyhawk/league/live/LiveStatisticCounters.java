@@ -0,0 +1,164 @@
+package com.skyhawk.league.live;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Number values of the statistics of running games, kept off the Java heap.
+ *
+ * Each game has an open-addressing table in a MemorySegment: a slot is a packed key (player and
+ * statistic type ordinals) followed by the value. Slots are claimed with a compare-and-set on the
+ * key and values change with compare-and-set, so increments never lock and never allocate. A
+ * counter is loaded from its stored row the first time the game counts it; until then, and when
+ * the game's table is full, callers keep reading the repository. Tables are dropped at the end of
+ * the game and whenever the game's rows are rewritten, and their memory is freed once unreachable.
+ */
+public class LiveStatisticCounters {
+    public static final long NOT_LOADED = Long.MIN_VALUE;
+
+    private static final long SLOT_BYTES = 16;
+    private static final long VALUE_OFFSET = 8;
+    // (MemorySegment, long offset) coordinates
+    private static final VarHandle LONG = ValueLayout.JAVA_LONG.varHandle();
+
+    private final int slotBits;
+    private final Map<Long, Table> tables = new ConcurrentHashMap<>();
+    // Ids to the dense ordinals packed into keys; an ordinal is never 0, so a 0 key is a free slot
+    private final Map<Long, Integer> playerOrdinals = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> statisticTypeOrdinals = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> statisticTypeIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextPlayerOrdinal = new AtomicInteger();
+    private final AtomicInteger nextStatisticTypeOrdinal = new AtomicInteger();
+
+    // slotsPerGame is rounded up to a power of two; 0 disables the counters
+    public LiveStatisticCounters(int slotsPerGame) {
+        this.slotBits = slotsPerGame > 0 ? 32 - Integer.numberOfLeadingZeros(Math.max(2, slotsPerGame) - 1) : 0;
+    }
+
+    public boolean isEnabled() {
+        return slotBits > 0;
+    }
+
+    // Adds delta and returns the new value, or NOT_LOADED when the counter has not been loaded
+    public long add(long gameId, long playerId, long statisticTypeId, long delta) {
+        Table table = tables.get(gameId);
+        if (table == null) {
+            return NOT_LOADED;
+        }
+        long offset = table.find(key(playerId, statisticTypeId), false);
+        if (offset < 0) {
+            return NOT_LOADED;
+        }
+        long valueOffset = offset + VALUE_OFFSET;
+        while (true) {
+            long value = (long) LONG.getVolatile(table.slots, valueOffset);
+            if (value == NOT_LOADED) {
+                return NOT_LOADED;
+            }
+            if (LONG.compareAndSet(table.slots, valueOffset, value, value + delta)) {
+                return value + delta;
+            }
+        }
+    }
+
+    // Loads the stored value of a counter; a counter already loaded is left as it is.
+    // False when the counters are disabled or the game's table is full.
+    public boolean load(long gameId, long playerId, long statisticTypeId, long value) {
+        if (!isEnabled()) {
+            return false;
+        }
+        Table table = tables.computeIfAbsent(gameId, id -> new Table(slotBits));
+        long offset = table.find(key(playerId, statisticTypeId), true);
+        if (offset < 0) {
+            return false;
+        }
+        LONG.compareAndSet(table.slots, offset + VALUE_OFFSET, NOT_LOADED, value);
+        return true;
+    }
+
+    // Loaded counters of one player in a game, by statistic type id
+    public Map<Long, Long> snapshot(long gameId, long playerId) {
+        Map<Long, Long> values = new HashMap<>();
+        Table table = tables.get(gameId);
+        Integer playerOrdinal = playerOrdinals.get(playerId);
+        if (table == null || playerOrdinal == null) {
+            return values;
+        }
+        long capacity = 1L << slotBits;
+        for (long slot = 0; slot < capacity; slot++) {
+            long offset = slot * SLOT_BYTES;
+            long key = (long) LONG.getAcquire(table.slots, offset);
+            if (key == 0 || (int) (key >>> 32) != playerOrdinal) {
+                continue;
+            }
+            long value = (long) LONG.getAcquire(table.slots, offset + VALUE_OFFSET);
+            if (value != NOT_LOADED) {
+                values.put(statisticTypeIds.get((int) key), value);
+            }
+        }
+        return values;
+    }
+
+    // Drops the game's counters; they are loaded again from the repository on the next action
+    public void release(long gameId) {
+        tables.remove(gameId);
+    }
+
+    public int gameCount() {
+        return tables.size();
+    }
+
+    private long key(long playerId, long statisticTypeId) {
+        int playerOrdinal = playerOrdinals.computeIfAbsent(playerId, id -> nextPlayerOrdinal.incrementAndGet());
+        int statisticTypeOrdinal = statisticTypeOrdinals.computeIfAbsent(statisticTypeId, id -> {
+            int ordinal = nextStatisticTypeOrdinal.incrementAndGet();
+            statisticTypeIds.put(ordinal, id);
+            return ordinal;
+        });
+        return ((long) playerOrdinal << 32) | (statisticTypeOrdinal & 0xFFFFFFFFL);
+    }
+
+    private static final class Table {
+        private final MemorySegment slots;
+        private final int mask;
+        private final int shift;
+
+        Table(int slotBits) {
+            // Automatic arena: the memory is released when the table is no longer reachable, so a
+            // request still holding a dropped table never touches freed memory
+            this.slots = Arena.ofAuto().allocate(SLOT_BYTES << slotBits, SLOT_BYTES);
+            this.mask = (1 << slotBits) - 1;
+            this.shift = 64 - slotBits;
+            for (long offset = VALUE_OFFSET; offset < slots.byteSize(); offset += SLOT_BYTES) {
+                slots.set(ValueLayout.JAVA_LONG, offset, NOT_LOADED);
+            }
+        }
+
+        // Byte offset of the key's slot, claiming a free one when claim is set; -1 when absent or full
+        long find(long key, boolean claim) {
+            int start = (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+            for (int probe = 0; probe <= mask; probe++) {
+                long offset = (long) ((start + probe) & mask) * SLOT_BYTES;
+                long current = (long) LONG.getAcquire(slots, offset);
+                if (current == key) {
+                    return offset;
+                }
+                if (current == 0) {
+                    if (!claim) {
+                        return -1;
+                    }
+                    if (LONG.compareAndSet(slots, offset, 0L, key) || (long) LONG.getAcquire(slots, offset) == key) {
+                        return offset;
+                    }
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.skyhawk.league.live;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class LiveSubscriber {
+    private static final Logger log = LoggerFactory.getLogger(LiveSubscriber.class);
+
+    // Pushed into the buffer on close so a waiting writer wakes up immediately
+    static final byte[] CLOSED_FRAME = new byte[0];
+
+    private final long gameId;
+    private final ArrayBlockingQueue<byte[]> buffer;
+    private volatile boolean closed;
+    private volatile Runnable closeHandler;
+
+    LiveSubscriber(long gameId, int bufferSize) {
+        this.gameId = gameId;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+    public long getGameId() {
+        return gameId;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // Invoked once when the subscriber is closed, possibly on the publishing thread under the game's lock,
+    // so it must not block: e.g. hand the abort of a write stalled on the client to another thread
+    public void setCloseHandler(Runnable closeHandler) {
+        this.closeHandler = closeHandler;
+    }
+
+    // Never blocks the publisher: returns false when the buffer is full
+    boolean offer(byte[] frame) {
+        return !closed && buffer.offer(frame);
+    }
+
+    public byte[] poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return buffer.poll(timeout, unit);
+    }
+
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        buffer.clear();
+        buffer.offer(CLOSED_FRAME);
+        Runnable handler = closeHandler;
+        if (handler != null) {
+            try {
+                handler.run();
+            } catch (Exception e) {
+                log.debug("Close handler failed: gameId={}, error={}", gameId, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LiveSubscriber [gameId=" + gameId + ", buffered=" + buffer.size() + ", closed=" + closed + "]";
+    }
+}
@@ -2,22 +2,36 @@ package com.skyhawk.league.model;
 
 import java.time.LocalTime;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
 public class Event {
 
 	public enum EventType {
 		GAME_START, GAME_END, TIMEOUT_START, TIMEOUT_END, INTERMISSION_START, INTERMISSION_END, PLAYER_START,
-		PLAYER_END, PLAYER_ACTION
+		PLAYER_END, PLAYER_ACTION, RETRACTION
 	}
 
+	@JsonSerialize(using = ToStringSerializer.class)
 	private long id;
+	@JsonSerialize(using = ToStringSerializer.class)
 	private long leagueId;
+	@JsonSerialize(using = ToStringSerializer.class)
 	private long gameId;
+	@JsonSerialize(using = ToStringSerializer.class)
 	private Long playerId; // Nullable
+	@JsonSerialize(using = ToStringSerializer.class)
 	private Long statisticTypeId; // Only set for PLAYER_ACTION
 	private EventType type;
 	private LocalTime eventTime;
+	@JsonSerialize(using = ToStringSerializer.class)
+	private Long replacesEventId; // Set on corrections and retractions: the earlier event of the game they change
 
 	// Constructors
+	// For Jackson: POST /events bodies are bound field by field
+	public Event() {
+	}
+
 	public Event(long leagueId, long gameId, EventType type, LocalTime eventTime) {
 		this.leagueId = leagueId;
 		this.gameId = gameId;
@@ -68,9 +82,17 @@ public class Event {
 		return eventTime;
 	}
 
+	public Long getReplacesEventId() {
+		return replacesEventId;
+	}
+
+	public void setReplacesEventId(Long replacesEventId) {
+		this.replacesEventId = replacesEventId;
+	}
+
 	@Override
 	public String toString() {
 		return "Event [id=" + id + ", gameId=" + gameId + ", playerId=" + playerId + ", statisticTypeId="
-				+ statisticTypeId + ", type=" + type + ", eventTime=" + eventTime + "]";
+				+ statisticTypeId + ", type=" + type + ", eventTime=" + eventTime + ", replacesEventId=" + replacesEventId + "]";
 	}
 }
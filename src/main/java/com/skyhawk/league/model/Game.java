@@ -3,16 +3,23 @@ package com.skyhawk.league.model;
 import java.time.LocalDate;
 import java.time.LocalTime;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
 public class Game {
 	private String name;
 	private String description;
+	@JsonSerialize(using = ToStringSerializer.class)
 	private long leagueId;
+	@JsonSerialize(using = ToStringSerializer.class)
 	private long homeTeamId;
+	@JsonSerialize(using = ToStringSerializer.class)
 	private long visitorTeamId;
     private LocalDate date;
     private LocalTime startTime;
     private LocalTime endTime;
 	private GameStateEnum gameState;
+	@JsonSerialize(using = ToStringSerializer.class)
 	private long id;
 	
 	public enum GameStateEnum {
@@ -1,8 +1,12 @@
 package com.skyhawk.league.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
 public class League {
 	private String name;
 	private String description;
+	@JsonSerialize(using = ToStringSerializer.class)
 	private long id;
 
 	public League(String name, String description) {
@@ -1,9 +1,14 @@
 package com.skyhawk.league.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
 public class Player {
+	@JsonSerialize(using = ToStringSerializer.class)
 	private long teamId;
 	private String name;
 	private String description;
+	@JsonSerialize(using = ToStringSerializer.class)
 	private long id;
 
 	public Player(long teamId, String name, String description) {
@@ -0,0 +1,73 @@
+package com.skyhawk.league.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+// One spell on court: start and end are milliseconds of the day of the PLAYER_START and PLAYER_END events
+public class PlayerStint {
+
+	@JsonSerialize(using = ToStringSerializer.class)
+	private long id;
+	@JsonSerialize(using = ToStringSerializer.class)
+	private long playerId;
+	@JsonSerialize(using = ToStringSerializer.class)
+	private long gameId;
+	private int startMillis;
+	private Integer endMillis; // Null while the player is on court
+	private long playedMillis; // The player's play time in the game once this stint ended, set when it is closed
+
+	public PlayerStint(long playerId, long gameId, int startMillis) {
+		this.playerId = playerId;
+		this.gameId = gameId;
+		this.startMillis = startMillis;
+	}
+
+	// Getters
+	public long getId() {
+		return id;
+	}
+
+	public long getPlayerId() {
+		return playerId;
+	}
+
+	public long getGameId() {
+		return gameId;
+	}
+
+	public int getStartMillis() {
+		return startMillis;
+	}
+
+	public Integer getEndMillis() {
+		return endMillis;
+	}
+
+	public long getPlayedMillis() {
+		return playedMillis;
+	}
+
+	// Length of a closed stint
+	public long getMillis() {
+		return endMillis != null ? endMillis - startMillis : 0;
+	}
+
+	// Setters
+	public void setId(long id) {
+		this.id = id;
+	}
+
+	public void setEndMillis(Integer endMillis) {
+		this.endMillis = endMillis;
+	}
+
+	public void setPlayedMillis(long playedMillis) {
+		this.playedMillis = playedMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "PlayerStint [id=" + id + ", playerId=" + playerId + ", gameId=" + gameId + ", startMillis=" + startMillis
+				+ ", endMillis=" + endMillis + "]";
+	}
+}
@@ -1,12 +1,19 @@
 package com.skyhawk.league.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
 public class Statistic {
 
+	@JsonSerialize(using = ToStringSerializer.class)
 	private long playerId;
+	@JsonSerialize(using = ToStringSerializer.class)
 	private long gameId;
+	@JsonSerialize(using = ToStringSerializer.class)
 	private long statisticTypeId;
 	private long  numberValue;
 	private float floatValue;
+	@JsonSerialize(using = ToStringSerializer.class)
 	private long id;
 	
 	public Statistic(long playerId, long gameId, long statisticTypeId) {
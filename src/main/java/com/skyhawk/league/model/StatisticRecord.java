@@ -0,0 +1,62 @@
+package com.skyhawk.league.model;
+
+import java.time.LocalDate;
+
+// A statistic with its names resolved, as exported to analysts
+public class StatisticRecord {
+
+	private final String gameName;
+	private final LocalDate date;
+	private final String teamName;
+	private final String playerName;
+	private final String statisticTypeName;
+	private final long numberValue;
+	private final float floatValue;
+
+	public StatisticRecord(String gameName, LocalDate date, String teamName, String playerName,
+			String statisticTypeName, long numberValue, float floatValue) {
+		this.gameName = gameName;
+		this.date = date;
+		this.teamName = teamName;
+		this.playerName = playerName;
+		this.statisticTypeName = statisticTypeName;
+		this.numberValue = numberValue;
+		this.floatValue = floatValue;
+	}
+
+	// Getters
+	public String getGameName() {
+		return gameName;
+	}
+
+	public LocalDate getDate() {
+		return date;
+	}
+
+	public String getTeamName() {
+		return teamName;
+	}
+
+	public String getPlayerName() {
+		return playerName;
+	}
+
+	public String getStatisticTypeName() {
+		return statisticTypeName;
+	}
+
+	public long getNumberValue() {
+		return numberValue;
+	}
+
+	public float getFloatValue() {
+		return floatValue;
+	}
+
+	@Override
+	public String toString() {
+		return "StatisticRecord [gameName=" + gameName + ", date=" + date + ", teamName=" + teamName
+				+ ", playerName=" + playerName + ", statisticTypeName=" + statisticTypeName
+				+ ", numberValue=" + numberValue + ", floatValue=" + floatValue + "]";
+	}
+}
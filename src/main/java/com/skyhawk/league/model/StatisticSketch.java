@@ -0,0 +1,67 @@
+package com.skyhawk.league.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+// Serialized quantile sketch of the per-game values of one statistic type, for one team's players in one season
+public class StatisticSketch {
+
+	@JsonSerialize(using = ToStringSerializer.class)
+	private long id;
+	@JsonSerialize(using = ToStringSerializer.class)
+	private long leagueId;
+	@JsonSerialize(using = ToStringSerializer.class)
+	private long statisticTypeId;
+	private int season;
+	@JsonSerialize(using = ToStringSerializer.class)
+	private long teamId;
+	private byte[] sketch;
+
+	public StatisticSketch(long leagueId, long statisticTypeId, int season, long teamId, byte[] sketch) {
+		this.leagueId = leagueId;
+		this.statisticTypeId = statisticTypeId;
+		this.season = season;
+		this.teamId = teamId;
+		this.sketch = sketch;
+	}
+
+	// Getters
+	public long getId() {
+		return id;
+	}
+
+	public long getLeagueId() {
+		return leagueId;
+	}
+
+	public long getStatisticTypeId() {
+		return statisticTypeId;
+	}
+
+	public int getSeason() {
+		return season;
+	}
+
+	public long getTeamId() {
+		return teamId;
+	}
+
+	public byte[] getSketch() {
+		return sketch;
+	}
+
+	// Setters
+	public void setId(long id) {
+		this.id = id;
+	}
+
+	public void setSketch(byte[] sketch) {
+		this.sketch = sketch;
+	}
+
+	@Override
+	public String toString() {
+		return "StatisticSketch [id=" + id + ", leagueId=" + leagueId + ", statisticTypeId=" + statisticTypeId
+				+ ", season=" + season + ", teamId=" + teamId + ", bytes=" + (sketch != null ? sketch.length : 0) + "]";
+	}
+}
@@ -1,12 +1,17 @@
 package com.skyhawk.league.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
 public class StatisticType {
+	@JsonSerialize(using = ToStringSerializer.class)
 	private long leagueId;
 	private String name;
 	private String description;
 	private StatTypeEnum type;
 	private Integer minValue;
 	private Integer maxValue;
+	@JsonSerialize(using = ToStringSerializer.class)
 	private long id;
 	
 	public enum StatTypeEnum {
@@ -1,9 +1,14 @@
 package com.skyhawk.league.model;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
 public class Team {
+	@JsonSerialize(using = ToStringSerializer.class)
 	private long leagueId;
 	private String name;
 	private String description;
+	@JsonSerialize(using = ToStringSerializer.class)
 	private long id;
 
 	public Team(long leagueId, String name, String description) {
@@ -0,0 +1,270 @@
+package com.skyhawk.league.replay;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.skyhawk.league.model.Event;
+import com.skyhawk.league.model.PlayerStint;
+import com.skyhawk.league.model.Statistic;
+import com.skyhawk.league.model.StatisticType;
+
+/**
+ * The statistics state machine of EventController, applied in memory to one game's event history.
+ *
+ * - PLAYER_START opens a stint at the millisecond of day the player went on court
+ * - PLAYER_END closes it, and playTime (minutes.seconds) is set from the exact total of the
+ *   player's closed stints
+ * - PLAYER_ACTION counts one more of the statistic type, and ends the player's stint when the
+ *   type's max or min value is reached
+ * - GAME_END, INTERMISSION_START and TIMEOUT_START end every open stint
+ *
+ * Events the live path rejects (player events without a player, actions without a type) are
+ * skipped and counted. Corrections and retractions are resolved by {@link #effectiveHistory}
+ * before the events are applied. Not thread-safe: one instance per game.
+ */
+public class GameReplay {
+    private final long gameId;
+    private final long playTimeTypeId;
+    private final Map<Long, StatisticType> statisticTypes;
+    // playerId -> statisticTypeId -> statistic, in first-seen order
+    private final Map<Long, Map<Long, Statistic>> statistics = new LinkedHashMap<>();
+    private final List<PlayerStint> stints = new ArrayList<>();
+    private final Map<Long, PlayerStint> openStints = new LinkedHashMap<>();
+    private final Map<Long, Long> playedMillis = new HashMap<>();
+    private int applied;
+    private int skipped;
+
+    public GameReplay(long gameId, long playTimeTypeId, Map<Long, StatisticType> statisticTypes) {
+        this.gameId = gameId;
+        this.playTimeTypeId = playTimeTypeId;
+        this.statisticTypes = statisticTypes;
+    }
+
+    public void apply(Event event) {
+        switch (event.getType()) {
+            case GAME_END, INTERMISSION_START, TIMEOUT_START -> endAllPlayers(event.getEventTime());
+            case GAME_START, INTERMISSION_END, TIMEOUT_END -> {
+                // Game state only, no statistics
+            }
+            case RETRACTION -> {
+                // Already taken out of the history by effectiveHistory
+                skipped++;
+                return;
+            }
+            case PLAYER_START, PLAYER_END, PLAYER_ACTION -> {
+                if (event.getPlayerId() == null
+                        || (event.getType() == Event.EventType.PLAYER_ACTION && event.getStatisticTypeId() == null)) {
+                    skipped++;
+                    return;
+                }
+                switch (event.getType()) {
+                    case PLAYER_START -> startPlayer(event.getPlayerId(), event.getEventTime());
+                    case PLAYER_END -> endPlayer(event.getPlayerId(), event.getEventTime());
+                    default -> playerAction(event.getPlayerId(), event.getStatisticTypeId(), event.getEventTime());
+                }
+            }
+        }
+        applied++;
+    }
+
+    public void applyAll(List<Event> events) {
+        for (Event event : events) {
+            apply(event);
+        }
+    }
+
+    // The rebuilt rows of the game
+    public List<Statistic> getStatistics() {
+        List<Statistic> result = new ArrayList<>();
+        for (Map<Long, Statistic> byType : statistics.values()) {
+            result.addAll(byType.values());
+        }
+        return result;
+    }
+
+    // The rebuilt rows of one player, by statistic type id
+    public Map<Long, Statistic> getStatistics(long playerId) {
+        return statistics.getOrDefault(playerId, Map.of());
+    }
+
+    // The rebuilt stint ledger of the game, open stints of players still on court included
+    public List<PlayerStint> getStints() {
+        return stints;
+    }
+
+    public List<PlayerStint> getStints(long playerId) {
+        List<PlayerStint> result = new ArrayList<>();
+        for (PlayerStint stint : stints) {
+            if (stint.getPlayerId() == playerId) {
+                result.add(stint);
+            }
+        }
+        return result;
+    }
+
+    // Players whose rebuilt rows or stints differ from the other replay of the same game
+    public Set<Long> playersDifferingFrom(GameReplay other) {
+        Set<Long> players = new LinkedHashSet<>(statistics.keySet());
+        players.addAll(other.statistics.keySet());
+        for (PlayerStint stint : stints) {
+            players.add(stint.getPlayerId());
+        }
+        for (PlayerStint stint : other.stints) {
+            players.add(stint.getPlayerId());
+        }
+        players.removeIf(playerId -> sameValues(getStatistics(playerId), other.getStatistics(playerId))
+                && sameStints(getStints(playerId), other.getStints(playerId)));
+        return players;
+    }
+
+    private static boolean sameStints(List<PlayerStint> stints, List<PlayerStint> others) {
+        if (stints.size() != others.size()) {
+            return false;
+        }
+        for (int i = 0; i < stints.size(); i++) {
+            PlayerStint stint = stints.get(i);
+            PlayerStint other = others.get(i);
+            if (stint.getStartMillis() != other.getStartMillis()
+                    || !Objects.equals(stint.getEndMillis(), other.getEndMillis())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameValues(Map<Long, Statistic> statistics, Map<Long, Statistic> others) {
+        if (!statistics.keySet().equals(others.keySet())) {
+            return false;
+        }
+        for (Statistic statistic : statistics.values()) {
+            Statistic other = others.get(statistic.getStatisticTypeId());
+            if (statistic.getNumberValue() != other.getNumberValue()
+                    || Float.compare(statistic.getFloatValue(), other.getFloatValue()) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The events a game's statistics are computed from, given its recorded history in id order.
+     * A correction takes the place of the event it replaces (correcting a correction replaces it
+     * again), a retraction drops it, and the result is in event time order so an event posted late,
+     * e.g. a forgotten PLAYER_END, is applied where it happened. Ties keep the order of receipt.
+     */
+    public static List<Event> effectiveHistory(List<Event> recorded) {
+        // Position (id of the original event) -> the event now in it
+        Map<Long, Event> positions = new HashMap<>();
+        Map<Long, Long> positionOf = new HashMap<>();
+        for (Event event : recorded) {
+            Long replaces = event.getReplacesEventId();
+            if (replaces == null) {
+                if (event.getType() != Event.EventType.RETRACTION) {
+                    positions.put(event.getId(), event);
+                    positionOf.put(event.getId(), event.getId());
+                }
+                continue;
+            }
+            Long position = positionOf.get(replaces);
+            if (position == null || !positions.containsKey(position)) {
+                // Not an event of this game, or already retracted
+                continue;
+            }
+            if (event.getType() == Event.EventType.RETRACTION) {
+                positions.remove(position);
+            } else {
+                positions.put(position, event);
+                positionOf.put(event.getId(), position);
+            }
+        }
+        List<Map.Entry<Long, Event>> ordered = new ArrayList<>(positions.entrySet());
+        ordered.sort(Comparator.comparing((Map.Entry<Long, Event> entry) -> entry.getValue().getEventTime())
+                .thenComparing(Map.Entry::getKey));
+        List<Event> events = new ArrayList<>(ordered.size());
+        for (Map.Entry<Long, Event> entry : ordered) {
+            events.add(entry.getValue());
+        }
+        return events;
+    }
+
+    public int getApplied() {
+        return applied;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    private void startPlayer(long playerId, LocalTime eventTime) {
+        if (!openStints.containsKey(playerId)) {
+            PlayerStint stint = new PlayerStint(playerId, gameId, millisOfDay(eventTime));
+            openStints.put(playerId, stint);
+            stints.add(stint);
+        }
+    }
+
+    private void endPlayer(long playerId, LocalTime eventTime) {
+        PlayerStint stint = openStints.remove(playerId);
+        if (stint == null) {
+            return;
+        }
+        // Same as the ledger: a stint never ends before it started
+        stint.setEndMillis(Math.max(millisOfDay(eventTime), stint.getStartMillis()));
+        long played = playedMillis.merge(playerId, stint.getMillis(), Long::sum);
+        stint.setPlayedMillis(played);
+        Statistic playTime = player(playerId).computeIfAbsent(playTimeTypeId, id -> new Statistic(playerId, gameId, id));
+        playTime.setFloatValue(toFloatTime(played));
+    }
+
+    private void endAllPlayers(LocalTime eventTime) {
+        for (long playerId : new ArrayList<>(openStints.keySet())) {
+            endPlayer(playerId, eventTime);
+        }
+    }
+
+    private void playerAction(long playerId, long statisticTypeId, LocalTime eventTime) {
+        Map<Long, Statistic> byType = player(playerId);
+        Statistic statistic = byType.get(statisticTypeId);
+        if (statistic == null) {
+            statistic = new Statistic(playerId, gameId, statisticTypeId);
+            statistic.setNumberValue(1);
+            byType.put(statisticTypeId, statistic);
+            return;
+        }
+        statistic.setNumberValue(statistic.getNumberValue() + 1);
+        StatisticType statisticType = statisticTypes.get(statisticTypeId);
+        if (statisticType == null) {
+            return;
+        }
+        Integer maxRange = statisticType.getMaxValue();
+        Integer minRange = statisticType.getMinValue();
+        if (maxRange != null && maxRange <= statistic.getNumberValue()) {
+            endPlayer(playerId, eventTime);
+        }
+        if (minRange != null && minRange >= statistic.getNumberValue()) {
+            endPlayer(playerId, eventTime);
+        }
+    }
+
+    private Map<Long, Statistic> player(long playerId) {
+        return statistics.computeIfAbsent(playerId, id -> new HashMap<>());
+    }
+
+    public static int millisOfDay(LocalTime time) {
+        return (int) (time.toNanoOfDay() / 1_000_000);
+    }
+
+    // The playTime statistic format, minutes.seconds: 135500 ms = 2.15 (2 min 15 s)
+    public static float toFloatTime(long millis) {
+        long seconds = millis / 1000;
+        return seconds / 60 + (seconds % 60) / 100f;
+    }
+}
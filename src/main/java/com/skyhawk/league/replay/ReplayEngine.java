@@ -0,0 +1,261 @@
+package com.skyhawk.league.replay;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.skyhawk.league.beans.ConnectionProvider;
+import com.skyhawk.league.model.Event;
+import com.skyhawk.league.model.Statistic;
+import com.skyhawk.league.model.StatisticType;
+import com.skyhawk.league.repository.EventRepository;
+import com.skyhawk.league.repository.GameRepository;
+import com.skyhawk.league.repository.PlayerStintRepository;
+import com.skyhawk.league.repository.StatisticPartitions;
+import com.skyhawk.league.repository.StatisticPartitions.PartitionKey;
+import com.skyhawk.league.repository.StatisticRepository;
+import com.skyhawk.league.repository.StatisticTypeRepository;
+
+/**
+ * Rebuilds the statistic rows of a game, a season or a league from the event history.
+ *
+ * Games are independent, so the list of games is split across a fork/join pool down to one game
+ * per task. Each worker thread has its own connection; a game is read, replayed in memory by
+ * {@link GameReplay} and its statistics and stint ledger are written back with batched upserts in
+ * one transaction, so a failure leaves that game as it was and the others are still rebuilt. Partitions are created up front, on the
+ * planning connection, so workers never run DDL concurrently.
+ */
+public class ReplayEngine {
+    private static final Logger log = LoggerFactory.getLogger(ReplayEngine.class);
+
+    private final Connection connection;
+    private final ConnectionProvider connectionProvider;
+    private final int parallelism;
+
+    public ReplayEngine(Connection connection, ConnectionProvider connectionProvider, int parallelism) {
+        this.connection = connection;
+        this.connectionProvider = connectionProvider;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public Result replayGame(long gameId) throws SQLException {
+        return replay(List.of(gameId));
+    }
+
+    // All games of the league, or of one season when season is not null
+    public Result replayLeague(long leagueId, Integer season) throws SQLException {
+        return replay(new GameRepository(connection).getIdsByLeagueId(leagueId, season));
+    }
+
+    public Result replay(List<Long> gameIds) throws SQLException {
+        log.info("Start replay: games={}, parallelism={}", gameIds.size(), parallelism);
+        StatisticTypeRepository statisticTypeRepository = new StatisticTypeRepository(connection);
+        StatisticType playTime = statisticTypeRepository.getByName("playTime");
+        if (playTime == null) {
+            throw new SQLException("Statistic type playTime is required to replay play time");
+        }
+        Map<Long, StatisticType> statisticTypes = new HashMap<>();
+        for (StatisticType type : statisticTypeRepository.getAll()) {
+            statisticTypes.put(type.getId(), type);
+        }
+        StatisticPartitions partitions = new StatisticPartitions(connection);
+        for (PartitionKey key : new HashSet<>(partitions.forGames(gameIds).values())) {
+            partitions.ensure(key);
+        }
+
+        Run run = new Run(gameIds, playTime.getId(), statisticTypes);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(run.new GamesTask(0, gameIds.size()));
+        } finally {
+            pool.shutdown();
+            run.closeConnections();
+        }
+        Result result = run.result();
+        log.info("End replay: {}", result);
+        return result;
+    }
+
+    // State of one replay() call, shared by its tasks
+    private class Run {
+        private final List<Long> gameIds;
+        private final long playTimeTypeId;
+        private final Map<Long, StatisticType> statisticTypes;
+        private final long start = System.nanoTime();
+        private final int progressStep;
+        private final AtomicInteger done = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger withoutHistory = new AtomicInteger();
+        private final AtomicLong events = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong rows = new AtomicLong();
+        private final ThreadLocal<Connection> workerConnection = new ThreadLocal<>();
+        private final Queue<Connection> openConnections = new ConcurrentLinkedQueue<>();
+
+        Run(List<Long> gameIds, long playTimeTypeId, Map<Long, StatisticType> statisticTypes) {
+            this.gameIds = gameIds;
+            this.playTimeTypeId = playTimeTypeId;
+            this.statisticTypes = statisticTypes;
+            this.progressStep = Math.max(1, gameIds.size() / 20);
+        }
+
+        // Splits the range in halves until a single game is left
+        class GamesTask extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final int from;
+            private final int to;
+
+            GamesTask(int from, int to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from <= 1) {
+                    if (to > from) {
+                        replayOne(gameIds.get(from));
+                    }
+                    return;
+                }
+                int middle = (from + to) >>> 1;
+                invokeAll(new GamesTask(from, middle), new GamesTask(middle, to));
+            }
+        }
+
+        private void replayOne(long gameId) {
+            Connection workerConnection = null;
+            try {
+                workerConnection = connection();
+                List<Event> history = new EventRepository(workerConnection).getByGameId(gameId);
+                if (history.isEmpty()) {
+                    // Played before the event log existed: nothing to rebuild from, keep its rows
+                    workerConnection.commit();
+                    withoutHistory.incrementAndGet();
+                    progress();
+                    return;
+                }
+                GameReplay replay = new GameReplay(gameId, playTimeTypeId, statisticTypes);
+                replay.applyAll(GameReplay.effectiveHistory(history));
+                List<Statistic> statistics = replay.getStatistics();
+                new StatisticRepository(workerConnection).replaceGameStatistics(gameId, statistics);
+                new PlayerStintRepository(workerConnection).replaceStints(gameId, null, replay.getStints());
+                workerConnection.commit();
+                events.addAndGet(replay.getApplied());
+                skipped.addAndGet(replay.getSkipped());
+                rows.addAndGet(statistics.size());
+            } catch (SQLException | RuntimeException e) {
+                log.error("Replay failed: gameId={}", gameId, e);
+                failed.incrementAndGet();
+                if (workerConnection != null) {
+                    try {
+                        workerConnection.rollback();
+                    } catch (SQLException ignored) {}
+                }
+            }
+            progress();
+        }
+
+        private void progress() {
+            int n = done.incrementAndGet();
+            if (n % progressStep == 0 || n == gameIds.size()) {
+                System.out.printf("replay %6d/%d games, %d events, %d failed, %.1fs%n",
+                        n, gameIds.size(), events.get(), failed.get(), (System.nanoTime() - start) / 1e9);
+            }
+        }
+
+        private Connection connection() throws SQLException {
+            Connection workerConnection = this.workerConnection.get();
+            if (workerConnection == null) {
+                workerConnection = connectionProvider.getConnection();
+                workerConnection.setAutoCommit(false);
+                this.workerConnection.set(workerConnection);
+                openConnections.add(workerConnection);
+            }
+            return workerConnection;
+        }
+
+        void closeConnections() {
+            for (Connection workerConnection : openConnections) {
+                try {
+                    workerConnection.close();
+                } catch (SQLException e) {
+                    log.warn("Closing worker connection failed", e);
+                }
+            }
+        }
+
+        Result result() {
+            return new Result(gameIds.size(), failed.get(), withoutHistory.get(), events.get(), skipped.get(), rows.get(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    public static final class Result {
+        private final int games;
+        private final int failed;
+        private final int withoutHistory;
+        private final long events;
+        private final long skipped;
+        private final long rows;
+        private final long millis;
+
+        Result(int games, int failed, int withoutHistory, long events, long skipped, long rows, long millis) {
+            this.games = games;
+            this.failed = failed;
+            this.withoutHistory = withoutHistory;
+            this.events = events;
+            this.skipped = skipped;
+            this.rows = rows;
+            this.millis = millis;
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        // Games with no recorded events, left untouched
+        public int getWithoutHistory() {
+            return withoutHistory;
+        }
+
+        public long getEvents() {
+            return events;
+        }
+
+        public long getSkipped() {
+            return skipped;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        @Override
+        public String toString() {
+            return games + " games (" + failed + " failed, " + withoutHistory + " without history), " + events + " events applied, " + skipped
+                    + " skipped, " + rows + " statistics written in " + millis + " ms";
+        }
+    }
+}
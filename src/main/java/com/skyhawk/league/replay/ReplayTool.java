@@ -0,0 +1,47 @@
+package com.skyhawk.league.replay;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import com.skyhawk.league.beans.ConnectionProvider;
+
+/**
+ * Command line rebuild of statistics from the event history, run as
+ * {@code java -jar league-app.jar replay <command>}:
+ *
+ *   game <gameId>               one game
+ *   season <leagueId> <season>  every game of a league season
+ *   league <leagueId>           every game of a league
+ *
+ * Games without recorded events are left as they are. Response caches of running servers are not
+ * invalidated; restart them, or replay before they start.
+ */
+public class ReplayTool {
+
+    private ReplayTool() {
+    }
+
+    public static void run(Connection connection, ConnectionProvider connectionProvider, int parallelism, String[] args)
+            throws SQLException {
+        ReplayEngine engine = new ReplayEngine(connection, connectionProvider, parallelism);
+        String command = args.length > 1 ? args[1] : "";
+        ReplayEngine.Result result;
+        switch (command) {
+            case "game" -> result = engine.replayGame(longArg(args, 2));
+            case "season" -> result = engine.replayLeague(longArg(args, 2), (int) longArg(args, 3));
+            case "league" -> result = engine.replayLeague(longArg(args, 2), null);
+            default -> {
+                System.err.println("Usage: replay game <gameId> | season <leagueId> <season> | league <leagueId>");
+                return;
+            }
+        }
+        System.out.println((result.getFailed() == 0 ? "✅ " : "⚠️ ") + "replayed " + result);
+    }
+
+    private static long longArg(String[] args, int index) {
+        if (args.length <= index) {
+            throw new IllegalArgumentException("Missing argument " + index + " of replay " + args[1]);
+        }
+        return Long.parseLong(args[index]);
+    }
+}
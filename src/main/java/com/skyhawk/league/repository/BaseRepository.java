@@ -1,17 +1,26 @@
 package com.skyhawk.league.repository;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 
 public interface BaseRepository<T> {
 
     void createTable() throws SQLException;
 
+    // Inserts the entity with an id from SnowflakeIdGenerator unless a row with its unique key exists,
+    // and returns the id of the stored row
     long saveIfNotExists(T entity) throws SQLException;
 
+    // One batched INSERT with ids assigned up front by SnowflakeIdGenerator; rows that already exist
+    // are skipped by the insert, keep their stored id and have it looked up afterwards
+    void saveAll(List<T> entities) throws SQLException;
+
     List<T> getAll() throws SQLException;
 
     T getById(long id) throws SQLException;
 
+    List<T> getByIds(Collection<Long> ids) throws SQLException;
+
     T getByName(String name) throws SQLException;
 }
@@ -0,0 +1,94 @@
+package com.skyhawk.league.repository;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Request-scoped, DataLoader-style loader. Ids are queued with {@link #request(long)} while a
+ * handler walks its data; the first {@link #load(long)} of an unresolved id resolves every queued
+ * id with a single {@code getByIds} query. Results, including misses, are memoized for the rest of
+ * the request. Not thread-safe: create one per request.
+ */
+public class BatchLoader<T> {
+    private static final Logger log = LoggerFactory.getLogger(BatchLoader.class);
+
+    private final BaseRepository<T> repository;
+    private final ToLongFunction<T> idOf;
+    private final Map<Long, T> loaded = new HashMap<>();
+    private final Set<Long> pending = new LinkedHashSet<>();
+    private int batches;
+
+    public BatchLoader(BaseRepository<T> repository, ToLongFunction<T> idOf) {
+        this.repository = repository;
+        this.idOf = idOf;
+    }
+
+    public void request(long id) {
+        if (!loaded.containsKey(id)) {
+            pending.add(id);
+        }
+    }
+
+    public void requestAll(Collection<Long> ids) {
+        for (long id : ids) {
+            request(id);
+        }
+    }
+
+    public T load(long id) throws SQLException {
+        if (!loaded.containsKey(id)) {
+            pending.add(id);
+            dispatch();
+        }
+        return loaded.get(id);
+    }
+
+    public Map<Long, T> loadAll(Collection<Long> ids) throws SQLException {
+        requestAll(ids);
+        dispatch();
+        Map<Long, T> result = new HashMap<>();
+        for (long id : ids) {
+            T entity = loaded.get(id);
+            if (entity != null) {
+                result.put(id, entity);
+            }
+        }
+        return result;
+    }
+
+    public void prime(T entity) {
+        long id = idOf.applyAsLong(entity);
+        loaded.put(id, entity);
+        pending.remove(id);
+    }
+
+    public void dispatch() throws SQLException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(pending);
+        pending.clear();
+        for (T entity : repository.getByIds(ids)) {
+            loaded.put(idOf.applyAsLong(entity), entity);
+        }
+        for (long id : ids) {
+            loaded.putIfAbsent(id, null);
+        }
+        batches++;
+        log.debug("Dispatched batch: ids={}, batches={}", ids.size(), batches);
+    }
+
+    public int getBatchCount() {
+        return batches;
+    }
+}
@@ -0,0 +1,317 @@
+package com.skyhawk.league.repository;
+
+import com.skyhawk.league.beans.ConnectionProvider;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Chooses the connection a repository read runs on. Writes always use the primary; reads use the
+ * replica when the current thread's {@link Consistency} allows it and the replica is healthy:
+ *
+ * - PRIMARY: every read goes to the primary. The default, so startup, maintenance tools and write
+ *   requests (which read before they write) never see stale rows.
+ * - REPLICA: reads go to the replica unless its replay lag exceeds maxLagMillis. Lag is measured
+ *   at most once per LAG_CHECK_MILLIS and cached.
+ * - READ_YOUR_WRITES: reads go to the replica only if it has replayed everything the primary had
+ *   written when the request made its first read; otherwise they fall back to the primary. The
+ *   primary's WAL position is read and the replica checked once per request (between
+ *   setConsistency and clearConsistency, or within withConsistency); later reads reuse the result.
+ *
+ * Without a replica every read goes to the primary. A replica that is not a streaming standby
+ * (e.g. a second local Postgres fed some other way) cannot report lag: it is used for REPLICA
+ * reads and never for READ_YOUR_WRITES reads.
+ *
+ * Requests run concurrently, and a JDBC connection serves one statement at a time, so between
+ * beginRequest and endRequest a thread gets connections of its own from the providers, taken on
+ * first use and kept for later requests when it ends. Other threads (startup, maintenance tools)
+ * use the primary connection the router was created with.
+ */
+public class ConnectionRouter {
+    private static final Logger log = LoggerFactory.getLogger(ConnectionRouter.class);
+    private static final long LAG_CHECK_MILLIS = 1000;
+    private static final int MAX_IDLE_CONNECTIONS = 16;
+
+    public enum Consistency {
+        PRIMARY, REPLICA, READ_YOUR_WRITES
+    }
+
+    private static final ThreadLocal<Consistency> consistency = ThreadLocal.withInitial(() -> Consistency.PRIMARY);
+
+    // The READ_YOUR_WRITES check of the current request: the router that made it and the replica,
+    // or null when reads go to the primary
+    private record CaughtUp(ConnectionRouter router, Connection replica) {
+    }
+
+    private static final ThreadLocal<CaughtUp> caughtUp = new ThreadLocal<>();
+
+    // The connections of the request the current thread serves, null until it first reads or writes
+    private static final class RequestConnections {
+        private Connection primary;
+        private Connection replica;
+    }
+
+    private final ThreadLocal<RequestConnections> request = new ThreadLocal<>();
+    private final Queue<Connection> idlePrimaries = new ConcurrentLinkedQueue<>();
+    private final Queue<Connection> idleReplicas = new ConcurrentLinkedQueue<>();
+
+    private final Connection primary;
+    private final ConnectionProvider primaryProvider;
+    private final ConnectionProvider replicaProvider;
+    private final long maxLagMillis;
+    private volatile Connection replica;
+    // The replica while its lag is within maxLagMillis, otherwise null
+    private volatile Connection replicaWithinLag;
+    private volatile long lagCheckedAt;
+
+    // Primary only: every read and write uses this connection
+    public ConnectionRouter(Connection primary) {
+        this(primary, null, null, 0);
+    }
+
+    public ConnectionRouter(Connection primary, ConnectionProvider primaryProvider, ConnectionProvider replicaProvider,
+            long maxLagMillis) {
+        this.primary = primary;
+        this.primaryProvider = primaryProvider;
+        this.replicaProvider = replicaProvider;
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    // Sets the read consistency of the current thread, e.g. for the request it is serving
+    public static void setConsistency(Consistency value) {
+        consistency.set(value);
+        caughtUp.remove();
+    }
+
+    public static Consistency getConsistency() {
+        return consistency.get();
+    }
+
+    public static void clearConsistency() {
+        consistency.remove();
+        caughtUp.remove();
+    }
+
+    // Runs the loader with the given consistency, then restores the thread's previous one
+    public static <T> T withConsistency(Consistency value, Callable<T> loader) throws Exception {
+        Consistency previous = consistency.get();
+        CaughtUp previousCaughtUp = caughtUp.get();
+        consistency.set(value);
+        caughtUp.remove();
+        try {
+            return loader.call();
+        } finally {
+            consistency.set(previous);
+            caughtUp.set(previousCaughtUp);
+        }
+    }
+
+    // Connections of the current thread's own until endRequest; without a primary provider it keeps
+    // using the primary connection
+    public void beginRequest() {
+        if (primaryProvider != null) {
+            request.set(new RequestConnections());
+        }
+    }
+
+    public void endRequest() {
+        RequestConnections connections = request.get();
+        request.remove();
+        if (connections != null) {
+            release(connections.primary, idlePrimaries);
+            release(connections.replica, idleReplicas);
+        }
+    }
+
+    public Connection forWrite() throws SQLException {
+        RequestConnections connections = request.get();
+        if (connections == null) {
+            return primary;
+        }
+        if (connections.primary == null) {
+            connections.primary = acquire(primaryProvider, idlePrimaries);
+        }
+        return connections.primary;
+    }
+
+    public Connection forRead() throws SQLException {
+        if (replicaProvider == null) {
+            return forWrite();
+        }
+        Connection connection = switch (consistency.get()) {
+            case PRIMARY -> null;
+            case REPLICA -> replicaWithinLag() != null ? replicaForRequest() : null;
+            case READ_YOUR_WRITES -> replicaCaughtUpForRequest();
+        };
+        return connection != null ? connection : forWrite();
+    }
+
+    // The request's replica connection, or the shared one outside a request; null if it cannot connect
+    private Connection replicaForRequest() {
+        RequestConnections connections = request.get();
+        try {
+            if (connections == null) {
+                return replica();
+            }
+            if (connections.replica == null) {
+                connections.replica = acquire(replicaProvider, idleReplicas);
+                connections.replica.setReadOnly(true);
+            }
+            return connections.replica;
+        } catch (SQLException e) {
+            log.warn("Replica connection failed; reading from the primary", e);
+            return null;
+        }
+    }
+
+    private static Connection acquire(ConnectionProvider provider, Queue<Connection> idle) throws SQLException {
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            if (!connection.isClosed()) {
+                return connection;
+            }
+        }
+        return provider.getConnection();
+    }
+
+    // Kept for another request unless it was left in a transaction or enough are idle already
+    private static void release(Connection connection, Queue<Connection> idle) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            if (!connection.isClosed() && connection.getAutoCommit() && idle.size() < MAX_IDLE_CONNECTIONS) {
+                idle.add(connection);
+            } else {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {}
+        }
+    }
+
+    private Connection replicaWithinLag() {
+        if (System.currentTimeMillis() - lagCheckedAt >= LAG_CHECK_MILLIS) {
+            checkLag();
+        }
+        return replicaWithinLag;
+    }
+
+    private synchronized void checkLag() {
+        if (System.currentTimeMillis() - lagCheckedAt < LAG_CHECK_MILLIS) {
+            return;
+        }
+        Connection usable = null;
+        try {
+            Connection connection = replica();
+            Long lag = lagMillis(connection);
+            if (lag == null || lag <= maxLagMillis) {
+                usable = connection;
+            } else {
+                log.warn("Replica lag {} ms exceeds {} ms; reading from the primary", lag, maxLagMillis);
+            }
+        } catch (SQLException e) {
+            log.warn("Replica lag check failed; reading from the primary", e);
+            dropReplica();
+        }
+        replicaWithinLag = usable;
+        lagCheckedAt = System.currentTimeMillis();
+    }
+
+    // Null when the replica is not a standby in recovery and so has no replay position to report
+    private static Long lagMillis(Connection connection) throws SQLException {
+        String sql = """
+            SELECT pg_is_in_recovery(),
+                   CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE (EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000)::bigint END
+        """;
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            if (!rs.getBoolean(1)) {
+                return null;
+            }
+            long lag = rs.getLong(2);
+            return rs.wasNull() ? Long.MAX_VALUE : lag;
+        }
+    }
+
+    // replicaCaughtUp, checked on the request's first read; checked again if the shared replica was
+    // dropped since
+    private Connection replicaCaughtUpForRequest() {
+        CaughtUp checked = caughtUp.get();
+        if (checked == null || checked.router() != this
+                || (checked.replica() != null && request.get() == null && checked.replica() != replica)) {
+            checked = new CaughtUp(this, replicaCaughtUp());
+            caughtUp.set(checked);
+        }
+        return checked.replica();
+    }
+
+    // The replica if it has replayed the primary's current WAL position, otherwise null
+    private Connection replicaCaughtUp() {
+        try {
+            String primaryLsn;
+            try (Statement stmt = forWrite().createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT pg_current_wal_lsn()::text")) {
+                rs.next();
+                primaryLsn = rs.getString(1);
+            }
+            Connection connection = replicaForRequest();
+            if (connection == null) {
+                return null;
+            }
+            String sql = "SELECT pg_is_in_recovery() AND pg_last_wal_replay_lsn() >= ?::pg_lsn";
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, primaryLsn);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    rs.next();
+                    return rs.getBoolean(1) ? connection : null;
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Replica position check failed; reading from the primary", e);
+            RequestConnections connections = request.get();
+            if (connections != null && connections.replica != null) {
+                try {
+                    connections.replica.close();
+                } catch (SQLException ignored) {}
+                connections.replica = null;
+            } else {
+                dropReplica();
+            }
+            return null;
+        }
+    }
+
+    // Connects on first use and again after a failed check
+    private synchronized Connection replica() throws SQLException {
+        if (replica == null) {
+            replica = replicaProvider.getConnection();
+            replica.setReadOnly(true);
+            log.info("Connected to replica");
+        }
+        return replica;
+    }
+
+    private synchronized void dropReplica() {
+        if (replica != null) {
+            try {
+                replica.close();
+            } catch (SQLException ignored) {}
+            replica = null;
+        }
+        replicaWithinLag = null;
+    }
+}
@@ -0,0 +1,263 @@
+package com.skyhawk.league.repository;
+
+import com.skyhawk.league.model.Event;
+import com.skyhawk.league.model.Event.EventType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Append-only history of the events posted to /events, the source the replay engine rebuilds statistics from.
+// Event ids come from SnowflakeIdGenerator, so ordering by id is the order the events were received in.
+public class EventRepository implements EventStore {
+
+    private static final Logger log = LoggerFactory.getLogger(EventRepository.class);
+    private static final String INSERT = """
+        INSERT INTO event (id, league_id, game_id, player_id, statistic_type_id, type, event_time, replaces_event_id)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (id) DO NOTHING
+    """;
+    private final ConnectionRouter router;
+    // Set when a storage backend is installed; every call then goes to it
+    private final EventStore backend;
+    private final SnowflakeIdGenerator idGenerator = SnowflakeIdGenerator.getInstance();
+
+    public EventRepository(Connection connection) {
+        this(new ConnectionRouter(connection));
+    }
+
+    // Reads go through router.forRead(), writes to the primary
+    public EventRepository(ConnectionRouter router) {
+        this.router = router;
+        StorageBackend storage = Storage.getBackend();
+        this.backend = storage != null ? storage.events() : null;
+    }
+
+    @Override
+    public void createTable() throws SQLException {
+        if (backend != null) {
+            backend.createTable();
+            return;
+        }
+        log.info("Start createTable for event");
+        Connection connection = router.forWrite();
+        String sql = """
+            CREATE TABLE IF NOT EXISTS event (
+                id BIGINT PRIMARY KEY,
+                league_id BIGINT NOT NULL,
+                game_id BIGINT NOT NULL,
+                player_id BIGINT,
+                statistic_type_id BIGINT,
+                type TEXT NOT NULL,
+                event_time TIME NOT NULL,
+                recorded_at TIMESTAMPTZ NOT NULL DEFAULT now()
+            );
+            CREATE INDEX IF NOT EXISTS idx_event_game_id ON event (game_id, id);
+        """;
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+        }
+
+        log.info("End createTable for event");
+    }
+
+    // Events are never updated: an event already stored under the same id is left as it is
+    @Override
+    public long saveIfNotExists(Event event) throws SQLException {
+        if (backend != null) {
+            return backend.saveIfNotExists(event);
+        }
+        log.info("Start saveIfNotExists: event={}", event);
+        Connection connection = router.forWrite();
+        if (event.getId() == 0) {
+            event.setId(idGenerator.nextId());
+        }
+        try (PreparedStatement stmt = connection.prepareStatement(INSERT)) {
+            bind(stmt, event);
+            stmt.executeUpdate();
+        }
+        log.info("End saveIfNotExists: return={}", event.getId());
+        return event.getId();
+    }
+
+    @Override
+    public void saveAll(List<Event> events) throws SQLException {
+        if (backend != null) {
+            backend.saveAll(events);
+            return;
+        }
+        log.info("Start saveAll: count={}", events.size());
+        Connection connection = router.forWrite();
+        if (events.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement stmt = connection.prepareStatement(INSERT)) {
+            for (Event event : events) {
+                if (event.getId() == 0) {
+                    event.setId(idGenerator.nextId());
+                }
+                bind(stmt, event);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+        log.info("End saveAll: count={}", events.size());
+    }
+
+    private static void bind(PreparedStatement stmt, Event event) throws SQLException {
+        stmt.setLong(1, event.getId());
+        stmt.setLong(2, event.getLeagueId());
+        stmt.setLong(3, event.getGameId());
+        stmt.setObject(4, event.getPlayerId(), Types.BIGINT);
+        stmt.setObject(5, event.getStatisticTypeId(), Types.BIGINT);
+        stmt.setString(6, event.getType().name());
+        // As LocalTime: java.sql.Time would drop the milliseconds stints are measured in
+        stmt.setObject(7, event.getEventTime());
+        stmt.setObject(8, event.getReplacesEventId(), Types.BIGINT);
+    }
+
+    @Override
+    public List<Event> getAll() throws SQLException {
+        if (backend != null) {
+            return backend.getAll();
+        }
+        log.info("Start getAll for events");
+        Connection reader = router.forRead();
+        List<Event> events = new ArrayList<>();
+        try (Statement stmt = reader.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM event ORDER BY id")) {
+            while (rs.next()) {
+                events.add(extractEventFromResultSet(rs));
+            }
+        }
+        log.info("End getAll: count={}", events.size());
+        return events;
+    }
+
+    @Override
+    public Event getById(long id) throws SQLException {
+        if (backend != null) {
+            return backend.getById(id);
+        }
+        log.info("Start getById: id={}", id);
+        Connection reader = router.forRead();
+        Event event = null;
+        try (PreparedStatement stmt = reader.prepareStatement("SELECT * FROM event WHERE id = ?")) {
+            stmt.setLong(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    event = extractEventFromResultSet(rs);
+                }
+            }
+        }
+        log.info("End getById: id={}, return={}", id, event);
+        return event;
+    }
+
+    @Override
+    public List<Event> getByIds(Collection<Long> ids) throws SQLException {
+        if (backend != null) {
+            return backend.getByIds(ids);
+        }
+        log.info("Start getByIds: count={}", ids.size());
+        Connection reader = router.forRead();
+        List<Event> result = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        try (PreparedStatement stmt = reader.prepareStatement("SELECT * FROM event WHERE id = ANY(?) ORDER BY id")) {
+            stmt.setArray(1, reader.createArrayOf("bigint", ids.toArray()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    result.add(extractEventFromResultSet(rs));
+                }
+            }
+        }
+        log.info("End getByIds: count={}", result.size());
+        return result;
+    }
+
+    @Override
+    public Event getByName(String name) throws SQLException {
+        log.info("getByName is not supported for Event");
+        throw new UnsupportedOperationException("Event does not support getByName()");
+    }
+
+    // A game's history in the order it was received
+    public List<Event> getByGameId(long gameId) throws SQLException {
+        if (backend != null) {
+            return backend.getByGameId(gameId);
+        }
+        log.info("Start getByGameId: gameId={}", gameId);
+        Connection reader = router.forRead();
+        List<Event> events = new ArrayList<>();
+        try (PreparedStatement stmt = reader.prepareStatement("SELECT * FROM event WHERE game_id = ? ORDER BY id")) {
+            stmt.setLong(1, gameId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    events.add(extractEventFromResultSet(rs));
+                }
+            }
+        }
+        log.info("End getByGameId: gameId={}, count={}", gameId, events.size());
+        return events;
+    }
+
+    // Latest event time recorded for the game, null when it has no history
+    public LocalTime getLastEventTime(long gameId) throws SQLException {
+        if (backend != null) {
+            return backend.getLastEventTime(gameId);
+        }
+        log.info("Start getLastEventTime: gameId={}", gameId);
+        Connection reader = router.forRead();
+        LocalTime lastEventTime = null;
+        try (PreparedStatement stmt = reader.prepareStatement("SELECT max(event_time) FROM event WHERE game_id = ?")) {
+            stmt.setLong(1, gameId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next() && rs.getTime(1) != null) {
+                    lastEventTime = rs.getTime(1).toLocalTime();
+                }
+            }
+        }
+        log.info("End getLastEventTime: gameId={}, return={}", gameId, lastEventTime);
+        return lastEventTime;
+    }
+
+    // Corrections and retractions, added in migration 7
+    public static void addCorrections(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("ALTER TABLE event ADD COLUMN IF NOT EXISTS replaces_event_id BIGINT");
+        }
+    }
+
+    private Event extractEventFromResultSet(ResultSet rs) throws SQLException {
+        EventType type = EventType.valueOf(rs.getString("type"));
+        long leagueId = rs.getLong("league_id");
+        long gameId = rs.getLong("game_id");
+        long playerId = rs.getLong("player_id");
+        boolean hasPlayer = !rs.wasNull();
+        long statisticTypeId = rs.getLong("statistic_type_id");
+        boolean hasStatisticType = !rs.wasNull();
+        LocalTime eventTime = rs.getObject("event_time", LocalTime.class);
+
+        Event event;
+        if (type == EventType.PLAYER_ACTION && hasPlayer && hasStatisticType) {
+            event = new Event(leagueId, gameId, playerId, statisticTypeId, eventTime);
+        } else if (hasPlayer) {
+            event = new Event(leagueId, gameId, playerId, type, eventTime);
+        } else {
+            event = new Event(leagueId, gameId, type, eventTime);
+        }
+        event.setId(rs.getLong("id"));
+        long replacesEventId = rs.getLong("replaces_event_id");
+        if (!rs.wasNull()) {
+            event.setReplacesEventId(replacesEventId);
+        }
+        return event;
+    }
+}
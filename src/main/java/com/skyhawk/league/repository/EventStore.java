@@ -0,0 +1,17 @@
+package com.skyhawk.league.repository;
+
+import java.sql.SQLException;
+import java.time.LocalTime;
+import java.util.List;
+
+import com.skyhawk.league.model.Event;
+
+// Storage of the event log; see StorageBackend
+public interface EventStore extends BaseRepository<Event> {
+
+    // A game's history in id order, which is the order it was received in
+    List<Event> getByGameId(long gameId) throws SQLException;
+
+    // Latest event time recorded for the game, null when it has no history
+    LocalTime getLastEventTime(long gameId) throws SQLException;
+}
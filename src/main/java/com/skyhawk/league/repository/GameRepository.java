@@ -8,22 +8,41 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
-public class GameRepository implements BaseRepository<Game>{
+public class GameRepository implements GameStore {
 
     private static final Logger log = LoggerFactory.getLogger(GameRepository.class);
-    private final Connection connection;
+    private final ConnectionRouter router;
+    // Set when a storage backend is installed; every call then goes to it
+    private final GameStore backend;
+    private final SnowflakeIdGenerator idGenerator = SnowflakeIdGenerator.getInstance();
 
     public GameRepository(Connection connection) {
-        this.connection = connection;
+        this(new ConnectionRouter(connection));
+    }
+
+    // Reads go through router.forRead(), writes to the primary
+    public GameRepository(ConnectionRouter router) {
+        this.router = router;
+        StorageBackend storage = Storage.getBackend();
+        this.backend = storage != null ? storage.games() : null;
     }
 
     @Override
     public void createTable() throws SQLException {
+        if (backend != null) {
+            backend.createTable();
+            return;
+        }
         log.info("Start createTable");
+        Connection connection = router.forWrite();
 
         String sql = """
             CREATE TABLE IF NOT EXISTS game (
@@ -46,7 +65,6 @@ public class GameRepository implements BaseRepository<Game>{
 
         try (Statement stmt = connection.createStatement()) {
             stmt.execute(sql);
-            stmt.execute("CREATE UNIQUE INDEX idx_game_id ON game (id);");
         }
 
         log.info("End createTable");
@@ -54,60 +72,119 @@ public class GameRepository implements BaseRepository<Game>{
 
     @Override
     public long saveIfNotExists(Game game) throws SQLException {
+        if (backend != null) {
+            return backend.saveIfNotExists(game);
+        }
         log.info("Start saveIfNotExists: game={}", game.getName());
-        Long generatedId = null;
+        Connection connection = router.forWrite();
+        if (game.getId() == 0) {
+            game.setId(idGenerator.nextId());
+        }
+        String insertSql = """
+            INSERT INTO game (id, league_id, name, description, home_team_id, visitor_team_id, date, start_time, game_state)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING
+        """;
+        int inserted;
+        try (PreparedStatement insertStmt = connection.prepareStatement(insertSql)) {
+            insertStmt.setLong(1, game.getId());
+            insertStmt.setLong(2, game.getLeagueId());
+            insertStmt.setString(3, game.getName());
+            insertStmt.setString(4, game.getDescription());
+            insertStmt.setLong(5, game.getHomeTeamId());
+            insertStmt.setLong(6, game.getVisitorTeamId());
+            insertStmt.setDate(7, Date.valueOf(game.getDate()));
+            insertStmt.setTime(8, game.getStartTime() != null ? Time.valueOf(game.getStartTime()) : null);
+            insertStmt.setString(9, game.getGameState() != null ? game.getGameState().name() : null);
+            inserted = insertStmt.executeUpdate();
+        }
+
+        if (inserted == 0) {
+            game.setId(existingId(game));
+            log.trace("Game already exists with ID: {}", game.getId());
+        } else {
+            // Create the statistic partitions now so the game's first events do not wait on DDL
+            StatisticPartitions partitions = new StatisticPartitions(connection);
+            partitions.remember(game.getId(), game.getLeagueId(), game.getDate());
+            partitions.ensure(partitions.forGame(game.getId()));
+        }
+
+        log.info("End saveIfNotExists: game={}, return={}", game.getName(), game.getId());
+        return game.getId();
+    }
 
+    // Id of the stored game with the same league and name
+    private long existingId(Game game) throws SQLException {
+        Connection connection = router.forWrite();
         String selectSql = "SELECT id FROM game WHERE league_id = ? AND name = ?";
         try (PreparedStatement selectStmt = connection.prepareStatement(selectSql)) {
             selectStmt.setLong(1, game.getLeagueId());
             selectStmt.setString(2, game.getName());
-
             try (ResultSet rs = selectStmt.executeQuery()) {
                 if (rs.next()) {
-                    generatedId = rs.getLong("id");
-                    log.trace("Game already exists with ID: {}", generatedId);
+                    return rs.getLong("id");
                 }
             }
         }
+        throw new SQLException("Failed to insert game, no ID found: " + game.getName());
+    }
 
-        if (generatedId == null) {
-            String insertSql = """
-                INSERT INTO game (league_id, name, description, home_team_id, visitor_team_id, date, start_time, game_state)
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?) RETURNING id;
-            """;
-
-            try (PreparedStatement insertStmt = connection.prepareStatement(insertSql)) {
-                insertStmt.setLong(1, game.getLeagueId());
-                insertStmt.setString(2, game.getName());
-                insertStmt.setString(3, game.getDescription());
-                insertStmt.setLong(4, game.getHomeTeamId());
-                insertStmt.setLong(5, game.getVisitorTeamId());
-                insertStmt.setDate(6, Date.valueOf(game.getDate()));
-                insertStmt.setTime(7, game.getStartTime() != null ? Time.valueOf(game.getStartTime()) : null);
-                insertStmt.setString(8, game.getGameState() != null ? game.getGameState().name() : null);
-
-                try (ResultSet rs = insertStmt.executeQuery()) {
-                    if (rs.next()) {
-                        generatedId = rs.getLong(1);
-                        game.setId(generatedId);
-                    } else {
-                        throw new SQLException("Failed to insert game, no ID returned.");
-                    }
+    @Override
+    public void saveAll(List<Game> games) throws SQLException {
+        if (backend != null) {
+            backend.saveAll(games);
+            return;
+        }
+        log.info("Start saveAll: count={}", games.size());
+        Connection connection = router.forWrite();
+        if (games.isEmpty()) {
+            return;
+        }
+        StatisticPartitions partitions = new StatisticPartitions(connection);
+        String sql = "INSERT INTO game (id, league_id, name, description, home_team_id, visitor_team_id, date, start_time, game_state) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+        int[] counts;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (Game game : games) {
+                if (game.getId() == 0) {
+                    game.setId(idGenerator.nextId());
                 }
+                stmt.setLong(1, game.getId());
+                stmt.setLong(2, game.getLeagueId());
+                stmt.setString(3, game.getName());
+                stmt.setString(4, game.getDescription());
+                stmt.setLong(5, game.getHomeTeamId());
+                stmt.setLong(6, game.getVisitorTeamId());
+                stmt.setDate(7, Date.valueOf(game.getDate()));
+                stmt.setTime(8, game.getStartTime() != null ? Time.valueOf(game.getStartTime()) : null);
+                stmt.setString(9, game.getGameState() != null ? game.getGameState().name() : null);
+                stmt.addBatch();
             }
+            counts = stmt.executeBatch();
         }
-
-        log.info("End saveIfNotExists: game={}, return={}", game.getName(), generatedId);
-        return generatedId;
+        int existing = 0;
+        for (int i = 0; i < counts.length; i++) {
+            Game game = games.get(i);
+            if (counts[i] == 0) {
+                game.setId(existingId(game));
+                existing++;
+            } else {
+                partitions.remember(game.getId(), game.getLeagueId(), game.getDate());
+                partitions.ensure(partitions.forGame(game.getId()));
+            }
+        }
+        log.info("End saveAll: count={}, existing={}", games.size(), existing);
     }
 
     @Override
     public List<Game> getAll() throws SQLException {
+        if (backend != null) {
+            return backend.getAll();
+        }
         log.info("Start getAll");
+        Connection reader = router.forRead();
         String sql = "SELECT * FROM game";
         List<Game> games = new ArrayList<>();
 
-        try (Statement stmt = connection.createStatement();
+        try (Statement stmt = reader.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
@@ -123,11 +200,15 @@ public class GameRepository implements BaseRepository<Game>{
 
     @Override
     public Game getById(long id) throws SQLException {
+        if (backend != null) {
+            return backend.getById(id);
+        }
         log.info("Start getById: id={}", id);
+        Connection reader = router.forRead();
         Game game = null;
 
         String sql = "SELECT * FROM game WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
             stmt.setLong(1, id);
 
             try (ResultSet rs = stmt.executeQuery()) {
@@ -141,13 +222,44 @@ public class GameRepository implements BaseRepository<Game>{
         return game;
     }
 
+    @Override
+    public List<Game> getByIds(Collection<Long> ids) throws SQLException {
+        if (backend != null) {
+            return backend.getByIds(ids);
+        }
+        log.info("Start getByIds: count={}", ids.size());
+        Connection reader = router.forRead();
+        List<Game> result = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        String sql = "SELECT * FROM game WHERE id = ANY(?)";
+
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
+            stmt.setArray(1, reader.createArrayOf("bigint", ids.toArray()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Game game = extractGameFromResultSet(rs);
+                    result.add(game);
+                }
+            }
+        }
+
+        log.info("End getByIds: count={}", result.size());
+        return result;
+    }
+
     @Override
     public Game getByName(String name) throws SQLException {
+        if (backend != null) {
+            return backend.getByName(name);
+        }
         log.info("Start getByName: name={}", name);
+        Connection reader = router.forRead();
         Game game = null;
 
         String sql = "SELECT * FROM game WHERE name = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
             stmt.setString(1, name);
 
             try (ResultSet rs = stmt.executeQuery()) {
@@ -163,11 +275,15 @@ public class GameRepository implements BaseRepository<Game>{
     }
 
     public List<Game> getByTeamId(long teamId) throws SQLException {
+        if (backend != null) {
+            return backend.getByTeamId(teamId);
+        }
         log.info("Start getByTeamId: teamId={}", teamId);
+        Connection reader = router.forRead();
         List<Game> result = new ArrayList<>();
         String sql = "SELECT * FROM game WHERE home_team_id = ? OR visitor_team_id = ?";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
             stmt.setLong(1, teamId);
             stmt.setLong(2, teamId);
             try (ResultSet rs = stmt.executeQuery()) {
@@ -193,9 +309,79 @@ public class GameRepository implements BaseRepository<Game>{
         return result;
     }
 
+    // Ids of a league's games, optionally of one season (the year of the game date)
+    public List<Long> getIdsByLeagueId(long leagueId, Integer season) throws SQLException {
+        if (backend != null) {
+            return backend.getIdsByLeagueId(leagueId, season);
+        }
+        log.info("Start getIdsByLeagueId: leagueId={}, season={}", leagueId, season);
+        Connection reader = router.forRead();
+        List<Long> result = new ArrayList<>();
+        String sql = "SELECT id FROM game WHERE league_id = ?" + (season != null ? " AND date >= ? AND date < ?" : "") + " ORDER BY id";
+
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
+            stmt.setLong(1, leagueId);
+            if (season != null) {
+                stmt.setDate(2, Date.valueOf(LocalDate.of(season, 1, 1)));
+                stmt.setDate(3, Date.valueOf(LocalDate.of(season + 1, 1, 1)));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    result.add(rs.getLong(1));
+                }
+            }
+        }
+
+        log.info("End getIdsByLeagueId: count={}", result.size());
+        return result;
+    }
+
+    // Running, paused or intermission games; served by the partial index idx_game_active
+    public List<Game> getActiveGames() throws SQLException {
+        if (backend != null) {
+            return backend.getActiveGames();
+        }
+        log.info("Start getActiveGames");
+        Connection connection = router.forWrite();
+        List<Game> games = new ArrayList<>();
+        String sql = "SELECT * FROM game WHERE game_state <> 'End'";
+
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                games.add(extractGameFromResultSet(rs));
+            }
+        }
+
+        log.info("End getActiveGames: count={}", games.size());
+        return games;
+    }
+
+    // Ids of games that have not ended, read through idx_game_active on every call so games started
+    // by other nodes, imports or inserts with a running state are seen as well
+    public Set<Long> getActiveGameIds() throws SQLException {
+        if (backend != null) {
+            return backend.getActiveGameIds();
+        }
+        log.info("Start getActiveGameIds");
+        Connection reader = router.forRead();
+        Set<Long> ids = new HashSet<>();
+        String sql = "SELECT id FROM game WHERE game_state <> 'End'";
+
+        try (Statement stmt = reader.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+        }
+
+        log.info("End getActiveGameIds: count={}", ids.size());
+        return ids;
+    }
+
     public List<Game> getByTeamName(String teamName) throws SQLException {
         log.info("Start getByTeamName: teamName={}", teamName);
-        TeamRepository teamRepo = new TeamRepository(connection);
+        TeamRepository teamRepo = new TeamRepository(router);
         Team team = teamRepo.getByName(teamName);
         if (team != null) {
             return getByTeamId(team.getId());
@@ -231,7 +417,12 @@ public class GameRepository implements BaseRepository<Game>{
     }
 
     public void updateGameState(long gameId, String gameState) throws SQLException {
+        if (backend != null) {
+            backend.updateGameState(gameId, gameState);
+            return;
+        }
         log.info("Start updateGameState: gameId={},  state={}", gameId, gameState);
+        Connection connection = router.forWrite();
 
         String updateSql = "UPDATE game SET game_state = ? WHERE id = ?";
         try (PreparedStatement stmt = connection.prepareStatement(updateSql)) {
@@ -243,7 +434,12 @@ public class GameRepository implements BaseRepository<Game>{
     }
 
     public void updateEndTime(long gameId, LocalTime endTime) throws SQLException {
+        if (backend != null) {
+            backend.updateEndTime(gameId, endTime);
+            return;
+        }
         log.info("Start updateEndTime: gameId={}, endTime={}", gameId, endTime);
+        Connection connection = router.forWrite();
 
         String updateSql = "UPDATE game SET end_time = ? WHERE id = ?";
         try (PreparedStatement stmt = connection.prepareStatement(updateSql)) {
@@ -255,7 +451,12 @@ public class GameRepository implements BaseRepository<Game>{
     }
     
     public void updateStartTime(long gameId, LocalTime startTime) throws SQLException {
+        if (backend != null) {
+            backend.updateStartTime(gameId, startTime);
+            return;
+        }
         log.info("Start updateStartTime: gameId={}, startTime={}", gameId, startTime);
+        Connection connection = router.forWrite();
 
         String updateSql = "UPDATE game SET start_time = ? WHERE id = ?";
         try (PreparedStatement stmt = connection.prepareStatement(updateSql)) {
@@ -0,0 +1,28 @@
+package com.skyhawk.league.repository;
+
+import java.sql.SQLException;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+
+import com.skyhawk.league.model.Game;
+
+// Storage of games; see StorageBackend
+public interface GameStore extends BaseRepository<Game> {
+
+    List<Game> getByTeamId(long teamId) throws SQLException;
+
+    // Ids of a league's games in id order, optionally of one season (the year of the game date)
+    List<Long> getIdsByLeagueId(long leagueId, Integer season) throws SQLException;
+
+    // Games that have a state and have not ended
+    List<Game> getActiveGames() throws SQLException;
+
+    Set<Long> getActiveGameIds() throws SQLException;
+
+    void updateGameState(long gameId, String gameState) throws SQLException;
+
+    void updateEndTime(long gameId, LocalTime endTime) throws SQLException;
+
+    void updateStartTime(long gameId, LocalTime startTime) throws SQLException;
+}
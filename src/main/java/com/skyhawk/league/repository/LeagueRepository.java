@@ -6,6 +6,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -13,18 +14,33 @@ import org.slf4j.LoggerFactory;
 
 import com.skyhawk.league.model.League;
 
-public class LeagueRepository implements BaseRepository<League> {
+public class LeagueRepository implements LeagueStore {
     private static final Logger log = LoggerFactory.getLogger(LeagueRepository.class);
 
-    private final Connection connection;
+    private final ConnectionRouter router;
+    // Set when a storage backend is installed; every call then goes to it
+    private final LeagueStore backend;
+    private final SnowflakeIdGenerator idGenerator = SnowflakeIdGenerator.getInstance();
 
     public LeagueRepository(Connection connection) {
-        this.connection = connection;
+        this(new ConnectionRouter(connection));
+    }
+
+    // Reads go through router.forRead(), writes to the primary
+    public LeagueRepository(ConnectionRouter router) {
+        this.router = router;
+        StorageBackend storage = Storage.getBackend();
+        this.backend = storage != null ? storage.leagues() : null;
     }
 
     // Create the league table if it doesn't exist
     public void createTable() throws SQLException {
+        if (backend != null) {
+            backend.createTable();
+            return;
+        }
     	log.info("Start createTable");
+        Connection connection = router.forWrite();
         String sql = """
             CREATE TABLE IF NOT EXISTS league (
                 id SERIAL PRIMARY KEY,
@@ -40,49 +56,95 @@ public class LeagueRepository implements BaseRepository<League> {
     }
 
     public long saveIfNotExists(League league) throws SQLException {
+        if (backend != null) {
+            return backend.saveIfNotExists(league);
+        }
         log.info("Starting saveIfNotExists: league={}", league.getName());
-        Long generatedId = null;
-        // First, check if the league already exists by name
+        Connection connection = router.forWrite();
+        if (league.getId() == 0) {
+            league.setId(idGenerator.nextId());
+        }
+        // Insert the league unless one with the name exists
+        String insertSql = "INSERT INTO league (id, name, description) VALUES (?, ?, ?) ON CONFLICT DO NOTHING";
+        int inserted;
+        try (PreparedStatement insertStmt = connection.prepareStatement(insertSql)) {
+            insertStmt.setLong(1, league.getId());
+            insertStmt.setString(2, league.getName());
+            insertStmt.setString(3, league.getDescription());
+            inserted = insertStmt.executeUpdate();
+        }
+        if (inserted == 0) {
+            // Already exists, return existing id
+            league.setId(existingId(league));
+            log.trace("League already exists with ID: {}", league.getId());
+        }
+        log.info("End saveIfNotExists: league={}, return={}", league.getName(), league.getId());
+        return league.getId();
+    }
+
+    // Id of the stored league with the same name
+    private long existingId(League league) throws SQLException {
+        Connection connection = router.forWrite();
         String selectSql = "SELECT id FROM league WHERE name = ?";
         try (PreparedStatement selectStmt = connection.prepareStatement(selectSql)) {
             selectStmt.setString(1, league.getName());
             try (ResultSet rs = selectStmt.executeQuery()) {
                 if (rs.next()) {
-                    // Already exists, return existing id
-                	generatedId = rs.getLong("id");
-                    log.trace("League already exists with ID: {}", generatedId);
+                    return rs.getLong("id");
                 }
             }
         }
+        throw new SQLException("Failed to insert league, no ID found: " + league.getName());
+    }
 
-        if (generatedId == null) {
-	        // Insert new league if not exists
-	        String insertSql = "INSERT INTO league (name, description) VALUES (?, ?) RETURNING id";
-	        try (PreparedStatement insertStmt = connection.prepareStatement(insertSql)) {
-	            insertStmt.setString(1, league.getName());
-	            insertStmt.setString(2, league.getDescription());
-	            try (ResultSet rs = insertStmt.executeQuery()) {
-	                if (rs.next()) {
-	                    generatedId = rs.getLong(1);
-	                    league.setId(generatedId);
-	                } else {
-	                    throw new SQLException("Failed to insert league, no ID returned.");
-	                }
-	            }
-	        }
-        }
-        log.info("End saveIfNotExists: league={}, return={}", league.getName(), generatedId);
-        return generatedId;
+    @Override
+    public void saveAll(List<League> leagues) throws SQLException {
+        if (backend != null) {
+            backend.saveAll(leagues);
+            return;
+        }
+        log.info("Start saveAll: count={}", leagues.size());
+        Connection connection = router.forWrite();
+        if (leagues.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO league (id, name, description) VALUES (?, ?, ?) ON CONFLICT DO NOTHING";
+        int[] counts;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (League league : leagues) {
+                if (league.getId() == 0) {
+                    league.setId(idGenerator.nextId());
+                }
+                stmt.setLong(1, league.getId());
+                stmt.setString(2, league.getName());
+                stmt.setString(3, league.getDescription());
+                stmt.addBatch();
+            }
+            counts = stmt.executeBatch();
+        }
+        int existing = 0;
+        for (int i = 0; i < counts.length; i++) {
+            League league = leagues.get(i);
+            if (counts[i] == 0) {
+                league.setId(existingId(league));
+                existing++;
+            }
+        }
+        log.info("End saveAll: count={}, existing={}", leagues.size(), existing);
     }
     
     // Get all
     public List<League> getAll() throws SQLException {
+        if (backend != null) {
+            return backend.getAll();
+        }
         log.info("Start getAll");
+        Connection reader = router.forRead();
 
         String sql = "SELECT id, name, description FROM league";
         List<League> leagues = new ArrayList<>();
 
-        try (Statement stmt = connection.createStatement();
+        try (Statement stmt = reader.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
@@ -99,10 +161,14 @@ public class LeagueRepository implements BaseRepository<League> {
 
     // Get by name
     public League getByName(String name) throws SQLException {
+        if (backend != null) {
+            return backend.getByName(name);
+        }
         log.info("Start getByName: name={}", name);
+        Connection reader = router.forRead();
         League league = null;
         String sql = "SELECT id, name, description FROM league WHERE name = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
             stmt.setString(1, name);
 
             try (ResultSet rs = stmt.executeQuery()) {
@@ -117,12 +183,43 @@ public class LeagueRepository implements BaseRepository<League> {
         return league;
     }
 
+    // Get by IDs in one round trip
+    public List<League> getByIds(Collection<Long> ids) throws SQLException {
+        if (backend != null) {
+            return backend.getByIds(ids);
+        }
+        log.info("Start getByIds: count={}", ids.size());
+        Connection reader = router.forRead();
+        List<League> leagues = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return leagues;
+        }
+        String sql = "SELECT id, name, description FROM league WHERE id = ANY(?)";
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
+            stmt.setArray(1, reader.createArrayOf("bigint", ids.toArray()));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    League league = new League(rs.getString("name"), rs.getString("description"));
+                    league.setId(rs.getLong("id"));
+                    leagues.add(league);
+                }
+            }
+        }
+        log.info("End getByIds: count={}", leagues.size());
+        return leagues;
+    }
+
     // Get by ID
     public League getById(long id) throws SQLException {
+        if (backend != null) {
+            return backend.getById(id);
+        }
         log.info("Start getById: id={}", id);
+        Connection reader = router.forRead();
         League league = null;
         String sql = "SELECT id, name, description FROM league WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
             stmt.setLong(1, id);
 
             try (ResultSet rs = stmt.executeQuery()) {
@@ -0,0 +1,7 @@
+package com.skyhawk.league.repository;
+
+import com.skyhawk.league.model.League;
+
+// Storage of leagues; see StorageBackend
+public interface LeagueStore extends BaseRepository<League> {
+}
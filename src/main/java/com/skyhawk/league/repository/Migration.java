@@ -0,0 +1,46 @@
+package com.skyhawk.league.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+public class Migration {
+
+    @FunctionalInterface
+    public interface Step {
+        void apply(Connection connection) throws SQLException;
+    }
+
+    private final int version;
+    private final String description;
+    // Non-transactional migrations run in autocommit mode, e.g. CREATE INDEX CONCURRENTLY
+    private final boolean transactional;
+    private final Step step;
+
+    public Migration(int version, String description, boolean transactional, Step step) {
+        this.version = version;
+        this.description = description;
+        this.transactional = transactional;
+        this.step = step;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public boolean isTransactional() {
+        return transactional;
+    }
+
+    public Step getStep() {
+        return step;
+    }
+
+    @Override
+    public String toString() {
+        return "Migration [version=" + version + ", description=" + description + ", transactional=" + transactional + "]";
+    }
+}
@@ -0,0 +1,57 @@
+package com.skyhawk.league.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import com.skyhawk.league.repository.StatisticPartitions.PartitionKey;
+
+/**
+ * Command line maintenance of statistic partitions, run as
+ * {@code java -jar league-app.jar partitions <command>}:
+ *
+ *   list                       season partitions, attached or detached
+ *   ensure <leagueId> <season> create the partitions for a league season
+ *   detach <leagueId> <season> detach a season (DETACH ... CONCURRENTLY, no blocking)
+ *   attach <leagueId> <season> attach a previously detached season
+ *   convert [batchRows]        copy an unpartitioned statistic table into partitions, online
+ *
+ * convert runs against the database of the previous version while it keeps serving; starting this
+ * version afterwards swaps the copy in. Without it, a statistic table with rows stops startup.
+ *
+ * A detach interrupted half way leaves the partition pending; finish it with
+ * ALTER TABLE statistic_l{league} DETACH PARTITION statistic_l{league}_s{season} FINALIZE.
+ */
+public class PartitionTool {
+    private static final int DEFAULT_BATCH_ROWS = 50_000;
+
+    private PartitionTool() {
+    }
+
+    public static void run(Connection connection, String[] args) throws SQLException {
+        StatisticPartitions partitions = new StatisticPartitions(connection);
+        String command = args.length > 1 ? args[1] : "list";
+        switch (command) {
+            case "list" -> partitions.listSeasonPartitions().forEach(System.out::println);
+            case "ensure" -> partitions.ensure(new PartitionKey(leagueId(args), season(args)));
+            case "detach" -> partitions.detachSeason(leagueId(args), season(args));
+            case "attach" -> partitions.attachSeason(leagueId(args), season(args));
+            case "convert" -> partitions.copyToPartitioned(args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_BATCH_ROWS);
+            default -> {
+                System.err.println("Usage: partitions [list | ensure|detach|attach <leagueId> <season> | convert [batchRows]]");
+                return;
+            }
+        }
+        System.out.println("✅ partitions " + command + " done");
+    }
+
+    private static long leagueId(String[] args) {
+        if (args.length < 4) {
+            throw new IllegalArgumentException("Missing <leagueId> <season>");
+        }
+        return Long.parseLong(args[2]);
+    }
+
+    private static int season(String[] args) {
+        return Integer.parseInt(args[3]);
+    }
+}
@@ -8,20 +8,36 @@ import org.slf4j.LoggerFactory;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
-public class PlayerRepository implements BaseRepository<Player> {
+public class PlayerRepository implements PlayerStore {
 
     private static final Logger log = LoggerFactory.getLogger(PlayerRepository.class);
-    private final Connection connection;
+    private final ConnectionRouter router;
+    // Set when a storage backend is installed; every call then goes to it
+    private final PlayerStore backend;
+    private final SnowflakeIdGenerator idGenerator = SnowflakeIdGenerator.getInstance();
 
     public PlayerRepository(Connection connection) {
-        this.connection = connection;
+        this(new ConnectionRouter(connection));
+    }
+
+    // Reads go through router.forRead(), writes to the primary
+    public PlayerRepository(ConnectionRouter router) {
+        this.router = router;
+        StorageBackend storage = Storage.getBackend();
+        this.backend = storage != null ? storage.players() : null;
     }
 
     @Override
     public void createTable() throws SQLException {
+        if (backend != null) {
+            backend.createTable();
+            return;
+        }
         log.info("Start createTable for player");
+        Connection connection = router.forWrite();
         String sql = """
             CREATE TABLE IF NOT EXISTS player (
                 id SERIAL PRIMARY KEY,
@@ -35,7 +51,6 @@ public class PlayerRepository implements BaseRepository<Player> {
 
         try (Statement stmt = connection.createStatement()) {
             stmt.execute(sql);
-            stmt.execute("CREATE UNIQUE INDEX idx_player_team_name ON player (team_id, name);");
         }
 
         log.info("End createTable for player");
@@ -43,50 +58,96 @@ public class PlayerRepository implements BaseRepository<Player> {
 
     @Override
     public long saveIfNotExists(Player player) throws SQLException {
+        if (backend != null) {
+            return backend.saveIfNotExists(player);
+        }
         log.info("Start saveIfNotExists: player={}", player.getName());
-        Long generatedId = null;
+        Connection connection = router.forWrite();
+        if (player.getId() == 0) {
+            player.setId(idGenerator.nextId());
+        }
+        String insertSql = "INSERT INTO player (id, team_id, name, description) VALUES (?, ?, ?, ?) ON CONFLICT DO NOTHING";
+        int inserted;
+        try (PreparedStatement insertStmt = connection.prepareStatement(insertSql)) {
+            insertStmt.setLong(1, player.getId());
+            insertStmt.setLong(2, player.getTeamId());
+            insertStmt.setString(3, player.getName());
+            insertStmt.setString(4, player.getDescription());
+            inserted = insertStmt.executeUpdate();
+        }
+        if (inserted == 0) {
+            player.setId(existingId(player));
+            log.trace("Player already exists with ID: {}", player.getId());
+        }
+
+        log.info("End saveIfNotExists: player={}, return={}", player.getName(), player.getId());
+        return player.getId();
+    }
 
+    // Id of the stored player with the same team and name
+    private long existingId(Player player) throws SQLException {
+        Connection connection = router.forWrite();
         String selectSql = "SELECT id FROM player WHERE team_id = ? AND name = ?";
         try (PreparedStatement selectStmt = connection.prepareStatement(selectSql)) {
             selectStmt.setLong(1, player.getTeamId());
             selectStmt.setString(2, player.getName());
             try (ResultSet rs = selectStmt.executeQuery()) {
                 if (rs.next()) {
-                    generatedId = rs.getLong("id");
-                    log.trace("Player already exists with ID: {}", generatedId);
+                    return rs.getLong("id");
                 }
             }
         }
+        throw new SQLException("Failed to insert player, no ID found: " + player.getName());
+    }
 
-        if (generatedId == null) {
-            String insertSql = "INSERT INTO player (team_id, name, description) VALUES (?, ?, ?) RETURNING id";
-            try (PreparedStatement insertStmt = connection.prepareStatement(insertSql)) {
-                insertStmt.setLong(1, player.getTeamId());
-                insertStmt.setString(2, player.getName());
-                insertStmt.setString(3, player.getDescription());
-
-                try (ResultSet rs = insertStmt.executeQuery()) {
-                    if (rs.next()) {
-                        generatedId = rs.getLong(1);
-                        player.setId(generatedId);
-                    } else {
-                        throw new SQLException("Failed to insert player, no ID returned.");
-                    }
+    @Override
+    public void saveAll(List<Player> players) throws SQLException {
+        if (backend != null) {
+            backend.saveAll(players);
+            return;
+        }
+        log.info("Start saveAll: count={}", players.size());
+        Connection connection = router.forWrite();
+        if (players.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO player (id, team_id, name, description) VALUES (?, ?, ?, ?) ON CONFLICT DO NOTHING";
+        int[] counts;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (Player player : players) {
+                if (player.getId() == 0) {
+                    player.setId(idGenerator.nextId());
                 }
+                stmt.setLong(1, player.getId());
+                stmt.setLong(2, player.getTeamId());
+                stmt.setString(3, player.getName());
+                stmt.setString(4, player.getDescription());
+                stmt.addBatch();
             }
+            counts = stmt.executeBatch();
         }
-
-        log.info("End saveIfNotExists: player={}, return={}", player.getName(), generatedId);
-        return generatedId;
+        int existing = 0;
+        for (int i = 0; i < counts.length; i++) {
+            Player player = players.get(i);
+            if (counts[i] == 0) {
+                player.setId(existingId(player));
+                existing++;
+            }
+        }
+        log.info("End saveAll: count={}, existing={}", players.size(), existing);
     }
 
     @Override
     public List<Player> getAll() throws SQLException {
+        if (backend != null) {
+            return backend.getAll();
+        }
         log.info("Start getAll for players");
+        Connection reader = router.forRead();
         List<Player> players = new ArrayList<>();
         String sql = "SELECT * FROM player";
 
-        try (Statement stmt = connection.createStatement();
+        try (Statement stmt = reader.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
@@ -107,11 +168,15 @@ public class PlayerRepository implements BaseRepository<Player> {
 
     @Override
     public Player getById(long id) throws SQLException {
+        if (backend != null) {
+            return backend.getById(id);
+        }
         log.info("Start getById: id={}", id);
+        Connection reader = router.forRead();
         Player player = null;
         String sql = "SELECT * FROM player WHERE id = ?";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
             stmt.setLong(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -129,13 +194,49 @@ public class PlayerRepository implements BaseRepository<Player> {
         return player;
     }
 
+    @Override
+    public List<Player> getByIds(Collection<Long> ids) throws SQLException {
+        if (backend != null) {
+            return backend.getByIds(ids);
+        }
+        log.info("Start getByIds: count={}", ids.size());
+        Connection reader = router.forRead();
+        List<Player> result = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        String sql = "SELECT * FROM player WHERE id = ANY(?)";
+
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
+            stmt.setArray(1, reader.createArrayOf("bigint", ids.toArray()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Player player = new Player(
+                            rs.getLong("team_id"),
+                            rs.getString("name"),
+                            rs.getString("description")
+                    );
+                    player.setId(rs.getLong("id"));
+                    result.add(player);
+                }
+            }
+        }
+
+        log.info("End getByIds: count={}", result.size());
+        return result;
+    }
+
     @Override
     public Player getByName(String name) throws SQLException {
+        if (backend != null) {
+            return backend.getByName(name);
+        }
         log.info("Start getByName: name={}", name);
+        Connection reader = router.forRead();
         Player player = null;
         String sql = "SELECT * FROM player WHERE name = ?";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
             stmt.setString(1, name);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -155,11 +256,15 @@ public class PlayerRepository implements BaseRepository<Player> {
     }
 
     public List<Player> getByTeamId(long teamId) throws SQLException {
+        if (backend != null) {
+            return backend.getByTeamId(teamId);
+        }
         log.info("Start getByTeamId: teamId={}", teamId);
+        Connection reader = router.forRead();
         List<Player> players = new ArrayList<>();
         String sql = "SELECT * FROM player WHERE team_id = ?";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
             stmt.setLong(1, teamId);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -181,7 +286,7 @@ public class PlayerRepository implements BaseRepository<Player> {
     public List<Player> getByTeamName(String teamName) throws SQLException {
         log.info("Start getByTeamName: teamName={}", teamName);
         List<Player> result = new ArrayList<>();
-        TeamRepository teamRepository = new TeamRepository(connection);
+        TeamRepository teamRepository = new TeamRepository(router);
         Team team = teamRepository.getByName(teamName);
         if (team != null) {
             result = getByTeamId(team.getId());
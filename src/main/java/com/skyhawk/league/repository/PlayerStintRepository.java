@@ -0,0 +1,353 @@
+package com.skyhawk.league.repository;
+
+import com.skyhawk.league.model.PlayerStint;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Ledger of the stints players spend on court, the source of exact play time. PLAYER_START is one
+// INSERT and PLAYER_END one UPDATE of end_ms; end_ms is in no index and the table keeps free space in
+// every page (fillfactor 90), so closing a stint is a HOT update that leaves no index entries behind.
+public class PlayerStintRepository implements PlayerStintStore {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerStintRepository.class);
+    private static final String INSERT = """
+        INSERT INTO player_stint (id, player_id, game_id, start_ms, end_ms)
+        VALUES (?, ?, ?, ?, ?) ON CONFLICT (id) DO NOTHING
+    """;
+    // The closed stint and the player's play time in the game including it; the subquery sees the row
+    // as it was before the update, so the stint is added to it
+    private static final String RETURNING_PLAYED = """
+        RETURNING id, player_id, start_ms, end_ms,
+                  (SELECT coalesce(sum(s.end_ms - s.start_ms), 0) FROM player_stint s
+                   WHERE s.game_id = player_stint.game_id AND s.player_id = player_stint.player_id
+                     AND s.end_ms IS NOT NULL) + end_ms - start_ms AS played_ms
+    """;
+    private final ConnectionRouter router;
+    // Set when a storage backend is installed; every call then goes to it
+    private final PlayerStintStore backend;
+    private final SnowflakeIdGenerator idGenerator = SnowflakeIdGenerator.getInstance();
+
+    public PlayerStintRepository(Connection connection) {
+        this(new ConnectionRouter(connection));
+    }
+
+    // Reads go through router.forRead(), writes to the primary
+    public PlayerStintRepository(ConnectionRouter router) {
+        this.router = router;
+        StorageBackend storage = Storage.getBackend();
+        this.backend = storage != null ? storage.stints() : null;
+    }
+
+    @Override
+    public void createTable() throws SQLException {
+        if (backend != null) {
+            backend.createTable();
+            return;
+        }
+        log.info("Start createTable for player_stint");
+        Connection connection = router.forWrite();
+        String sql = """
+            CREATE TABLE IF NOT EXISTS player_stint (
+                id BIGINT PRIMARY KEY,
+                player_id BIGINT NOT NULL,
+                game_id BIGINT NOT NULL,
+                start_ms INTEGER NOT NULL,
+                end_ms INTEGER,
+                FOREIGN KEY (player_id) REFERENCES player(id) ON DELETE CASCADE,
+                FOREIGN KEY (game_id) REFERENCES game(id) ON DELETE CASCADE
+            ) WITH (fillfactor = 90);
+            CREATE INDEX IF NOT EXISTS idx_player_stint_game_player ON player_stint (game_id, player_id);
+        """;
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+        }
+
+        log.info("End createTable for player_stint");
+    }
+
+    @Override
+    public long saveIfNotExists(PlayerStint stint) throws SQLException {
+        if (backend != null) {
+            return backend.saveIfNotExists(stint);
+        }
+        log.info("Start saveIfNotExists: stint={}", stint);
+        Connection connection = router.forWrite();
+        if (stint.getId() == 0) {
+            stint.setId(idGenerator.nextId());
+        }
+        try (PreparedStatement stmt = connection.prepareStatement(INSERT)) {
+            bind(stmt, stint);
+            stmt.executeUpdate();
+        }
+        log.info("End saveIfNotExists: return={}", stint.getId());
+        return stint.getId();
+    }
+
+    @Override
+    public void saveAll(List<PlayerStint> stints) throws SQLException {
+        if (backend != null) {
+            backend.saveAll(stints);
+            return;
+        }
+        log.info("Start saveAll: count={}", stints.size());
+        Connection connection = router.forWrite();
+        if (stints.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement stmt = connection.prepareStatement(INSERT)) {
+            for (PlayerStint stint : stints) {
+                if (stint.getId() == 0) {
+                    stint.setId(idGenerator.nextId());
+                }
+                bind(stmt, stint);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+        log.info("End saveAll: count={}", stints.size());
+    }
+
+    private static void bind(PreparedStatement stmt, PlayerStint stint) throws SQLException {
+        stmt.setLong(1, stint.getId());
+        stmt.setLong(2, stint.getPlayerId());
+        stmt.setLong(3, stint.getGameId());
+        stmt.setInt(4, stint.getStartMillis());
+        stmt.setObject(5, stint.getEndMillis(), Types.INTEGER);
+    }
+
+    // Opens a stint unless the player already has an open one in the game; false if they had
+    public boolean start(long playerId, long gameId, int startMillis) throws SQLException {
+        if (backend != null) {
+            return backend.start(playerId, gameId, startMillis);
+        }
+        log.info("Start start: playerId={}, gameId={}, startMillis={}", playerId, gameId, startMillis);
+        Connection connection = router.forWrite();
+        String sql = """
+            INSERT INTO player_stint (id, player_id, game_id, start_ms)
+            SELECT ?, ?, ?, ?
+            WHERE NOT EXISTS (SELECT 1 FROM player_stint WHERE game_id = ? AND player_id = ? AND end_ms IS NULL)
+        """;
+        boolean started;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, idGenerator.nextId());
+            stmt.setLong(2, playerId);
+            stmt.setLong(3, gameId);
+            stmt.setInt(4, startMillis);
+            stmt.setLong(5, gameId);
+            stmt.setLong(6, playerId);
+            started = stmt.executeUpdate() > 0;
+        }
+        log.info("End start: playerId={}, gameId={}, return={}", playerId, gameId, started);
+        return started;
+    }
+
+    // Closes the player's open stint; null if the player was not on court
+    public PlayerStint end(long playerId, long gameId, int endMillis) throws SQLException {
+        if (backend != null) {
+            return backend.end(playerId, gameId, endMillis);
+        }
+        log.info("Start end: playerId={}, gameId={}, endMillis={}", playerId, gameId, endMillis);
+        Connection connection = router.forWrite();
+        String sql = """
+            UPDATE player_stint SET end_ms = GREATEST(?, start_ms)
+            WHERE game_id = ? AND player_id = ? AND end_ms IS NULL
+        """ + RETURNING_PLAYED;
+        List<PlayerStint> closed;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, endMillis);
+            stmt.setLong(2, gameId);
+            stmt.setLong(3, playerId);
+            closed = readClosed(stmt, gameId);
+        }
+        PlayerStint stint = closed.isEmpty() ? null : closed.get(0);
+        log.info("End end: playerId={}, gameId={}, return={}", playerId, gameId, stint);
+        return stint;
+    }
+
+    // Closes every open stint of the game with one statement
+    public List<PlayerStint> endAll(long gameId, int endMillis) throws SQLException {
+        if (backend != null) {
+            return backend.endAll(gameId, endMillis);
+        }
+        log.info("Start endAll: gameId={}, endMillis={}", gameId, endMillis);
+        Connection connection = router.forWrite();
+        String sql = """
+            UPDATE player_stint SET end_ms = GREATEST(?, start_ms)
+            WHERE game_id = ? AND end_ms IS NULL
+        """ + RETURNING_PLAYED;
+        List<PlayerStint> closed;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, endMillis);
+            stmt.setLong(2, gameId);
+            closed = readClosed(stmt, gameId);
+        }
+        log.info("End endAll: gameId={}, count={}", gameId, closed.size());
+        return closed;
+    }
+
+    private static List<PlayerStint> readClosed(PreparedStatement stmt, long gameId) throws SQLException {
+        List<PlayerStint> closed = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                PlayerStint stint = new PlayerStint(rs.getLong("player_id"), gameId, rs.getInt("start_ms"));
+                stint.setId(rs.getLong("id"));
+                stint.setEndMillis(rs.getInt("end_ms"));
+                stint.setPlayedMillis(rs.getLong("played_ms"));
+                closed.add(stint);
+            }
+        }
+        return closed;
+    }
+
+    // Exact play time of each player of the game, in milliseconds, from the closed stints
+    public Map<Long, Long> getPlayTimeMillis(long gameId) throws SQLException {
+        if (backend != null) {
+            return backend.getPlayTimeMillis(gameId);
+        }
+        log.info("Start getPlayTimeMillis: gameId={}", gameId);
+        Connection reader = router.forRead();
+        Map<Long, Long> result = new LinkedHashMap<>();
+        String sql = """
+            SELECT player_id, sum(end_ms - start_ms) AS played_ms FROM player_stint
+            WHERE game_id = ? AND end_ms IS NOT NULL
+            GROUP BY player_id ORDER BY player_id
+        """;
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
+            stmt.setLong(1, gameId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    result.put(rs.getLong("player_id"), rs.getLong("played_ms"));
+                }
+            }
+        }
+        log.info("End getPlayTimeMillis: gameId={}, count={}", gameId, result.size());
+        return result;
+    }
+
+    // Makes the given stints the game's complete ledger, of all players or only of playerIds
+    public void replaceStints(long gameId, Collection<Long> playerIds, List<PlayerStint> stints) throws SQLException {
+        if (backend != null) {
+            backend.replaceStints(gameId, playerIds, stints);
+            return;
+        }
+        log.info("Start replaceStints: gameId={}, count={}", gameId, stints.size());
+        Connection connection = router.forWrite();
+        String sql = "DELETE FROM player_stint WHERE game_id = ?" + (playerIds != null ? " AND player_id = ANY(?)" : "");
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, gameId);
+            if (playerIds != null) {
+                stmt.setArray(2, connection.createArrayOf("bigint", playerIds.toArray()));
+            }
+            stmt.executeUpdate();
+        }
+        saveAll(stints);
+        log.info("End replaceStints: gameId={}, count={}", gameId, stints.size());
+    }
+
+    @Override
+    public List<PlayerStint> getAll() throws SQLException {
+        if (backend != null) {
+            return backend.getAll();
+        }
+        log.info("Start getAll for player stints");
+        Connection reader = router.forRead();
+        List<PlayerStint> stints = new ArrayList<>();
+        try (Statement stmt = reader.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM player_stint ORDER BY id")) {
+            while (rs.next()) {
+                stints.add(extractStintFromResultSet(rs));
+            }
+        }
+        log.info("End getAll: count={}", stints.size());
+        return stints;
+    }
+
+    @Override
+    public PlayerStint getById(long id) throws SQLException {
+        if (backend != null) {
+            return backend.getById(id);
+        }
+        log.info("Start getById: id={}", id);
+        Connection reader = router.forRead();
+        PlayerStint stint = null;
+        try (PreparedStatement stmt = reader.prepareStatement("SELECT * FROM player_stint WHERE id = ?")) {
+            stmt.setLong(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    stint = extractStintFromResultSet(rs);
+                }
+            }
+        }
+        log.info("End getById: id={}, return={}", id, stint);
+        return stint;
+    }
+
+    @Override
+    public List<PlayerStint> getByIds(Collection<Long> ids) throws SQLException {
+        if (backend != null) {
+            return backend.getByIds(ids);
+        }
+        log.info("Start getByIds: count={}", ids.size());
+        Connection reader = router.forRead();
+        List<PlayerStint> result = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        try (PreparedStatement stmt = reader.prepareStatement("SELECT * FROM player_stint WHERE id = ANY(?) ORDER BY id")) {
+            stmt.setArray(1, reader.createArrayOf("bigint", ids.toArray()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    result.add(extractStintFromResultSet(rs));
+                }
+            }
+        }
+        log.info("End getByIds: count={}", result.size());
+        return result;
+    }
+
+    @Override
+    public PlayerStint getByName(String name) throws SQLException {
+        log.info("getByName is not supported for PlayerStint");
+        throw new UnsupportedOperationException("PlayerStint does not support getByName()");
+    }
+
+    // The game's stints, open ones included, in the order they started
+    public List<PlayerStint> getByGameId(long gameId) throws SQLException {
+        if (backend != null) {
+            return backend.getByGameId(gameId);
+        }
+        log.info("Start getByGameId: gameId={}", gameId);
+        Connection reader = router.forRead();
+        List<PlayerStint> stints = new ArrayList<>();
+        try (PreparedStatement stmt = reader.prepareStatement(
+                "SELECT * FROM player_stint WHERE game_id = ? ORDER BY start_ms, id")) {
+            stmt.setLong(1, gameId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    stints.add(extractStintFromResultSet(rs));
+                }
+            }
+        }
+        log.info("End getByGameId: gameId={}, count={}", gameId, stints.size());
+        return stints;
+    }
+
+    private PlayerStint extractStintFromResultSet(ResultSet rs) throws SQLException {
+        PlayerStint stint = new PlayerStint(rs.getLong("player_id"), rs.getLong("game_id"), rs.getInt("start_ms"));
+        stint.setId(rs.getLong("id"));
+        int endMillis = rs.getInt("end_ms");
+        if (!rs.wasNull()) {
+            stint.setEndMillis(endMillis);
+        }
+        return stint;
+    }
+}
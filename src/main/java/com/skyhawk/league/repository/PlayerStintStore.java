@@ -0,0 +1,29 @@
+package com.skyhawk.league.repository;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.skyhawk.league.model.PlayerStint;
+
+// Storage of the stint ledger; see StorageBackend and PlayerStintRepository for the semantics
+public interface PlayerStintStore extends BaseRepository<PlayerStint> {
+
+    // Opens a stint unless the player already has an open one in the game; false if they had
+    boolean start(long playerId, long gameId, int startMillis) throws SQLException;
+
+    // Closes the player's open stint, with its played millis set; null if the player was not on court
+    PlayerStint end(long playerId, long gameId, int endMillis) throws SQLException;
+
+    // Closes every open stint of the game
+    List<PlayerStint> endAll(long gameId, int endMillis) throws SQLException;
+
+    // Exact play time of each player of the game, in milliseconds, from the closed stints
+    Map<Long, Long> getPlayTimeMillis(long gameId) throws SQLException;
+
+    // Makes the given stints the game's complete ledger, of all players or only of playerIds
+    void replaceStints(long gameId, Collection<Long> playerIds, List<PlayerStint> stints) throws SQLException;
+
+    List<PlayerStint> getByGameId(long gameId) throws SQLException;
+}
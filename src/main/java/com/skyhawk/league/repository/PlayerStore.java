@@ -0,0 +1,12 @@
+package com.skyhawk.league.repository;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import com.skyhawk.league.model.Player;
+
+// Storage of players; see StorageBackend
+public interface PlayerStore extends BaseRepository<Player> {
+
+    List<Player> getByTeamId(long teamId) throws SQLException;
+}
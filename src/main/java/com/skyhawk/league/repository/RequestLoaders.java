@@ -0,0 +1,38 @@
+package com.skyhawk.league.repository;
+
+import com.skyhawk.league.model.Game;
+import com.skyhawk.league.model.Player;
+import com.skyhawk.league.model.StatisticType;
+import com.skyhawk.league.model.Team;
+
+// One set of batch loaders per request; see BatchLoader
+public class RequestLoaders {
+    private final BatchLoader<Game> games;
+    private final BatchLoader<Player> players;
+    private final BatchLoader<Team> teams;
+    private final BatchLoader<StatisticType> statisticTypes;
+
+    public RequestLoaders(GameRepository gameRepository, PlayerRepository playerRepository,
+            TeamRepository teamRepository, StatisticTypeRepository statisticTypeRepository) {
+        this.games = new BatchLoader<>(gameRepository, Game::getId);
+        this.players = new BatchLoader<>(playerRepository, Player::getId);
+        this.teams = new BatchLoader<>(teamRepository, Team::getId);
+        this.statisticTypes = new BatchLoader<>(statisticTypeRepository, StatisticType::getId);
+    }
+
+    public BatchLoader<Game> getGames() {
+        return games;
+    }
+
+    public BatchLoader<Player> getPlayers() {
+        return players;
+    }
+
+    public BatchLoader<Team> getTeams() {
+        return teams;
+    }
+
+    public BatchLoader<StatisticType> getStatisticTypes() {
+        return statisticTypes;
+    }
+}
@@ -0,0 +1,279 @@
+package com.skyhawk.league.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Versioned schema migrations recorded in the schema_version table.
+ *
+ * A warm restart costs a single query: if the recorded version is the latest one nothing else
+ * runs. Otherwise pending migrations are applied in order under an advisory lock, so several
+ * application nodes starting together do not race. Indexes are built CONCURRENTLY, outside a
+ * transaction, so live tables are never locked against writes. The one exception is widening the
+ * 32-bit ids of tables that already have rows (migration 5), which rewrites them under an exclusive
+ * lock; the migration refuses to, and leaves it to the "ids widen" maintenance command.
+ */
+public class SchemaManager {
+    private static final Logger log = LoggerFactory.getLogger(SchemaManager.class);
+
+    private static final long MIGRATION_LOCK_KEY = 0x5C7A_4A11_0000_0001L;
+    private static final String UNDEFINED_TABLE = "42P01";
+    private static final List<String> ID_TABLES = List.of("league", "team", "player", "game", "statistic_type");
+
+    private final Connection connection;
+    private final List<Migration> migrations;
+
+    public SchemaManager(Connection connection) {
+        this.connection = connection;
+        this.migrations = List.of(
+                new Migration(1, "Base tables", true, this::createBaseTables),
+                new Migration(2, "Lookup indexes", false, this::createLookupIndexes),
+                new Migration(3, "Partition statistic by league and season", true,
+                        StatisticPartitions::convertToPartitioned),
+                new Migration(4, "Wide statistic rows", true, WideStatisticStore::createTable),
+                new Migration(5, "64-bit ids", true, this::widenIds),
+                new Migration(6, "Event log", true, this::createEventLog),
+                new Migration(7, "Event corrections", true, EventRepository::addCorrections),
+                new Migration(8, "Player stint ledger", true, this::createStintLedger),
+                new Migration(9, "Statistic sketches", true, this::createStatisticSketches)
+        );
+    }
+
+    public int getLatestVersion() {
+        return migrations.get(migrations.size() - 1).getVersion();
+    }
+
+    public int migrate() throws SQLException {
+        log.info("Start migrate");
+        int latest = getLatestVersion();
+        int current = getCurrentVersion();
+        if (current >= latest) {
+            log.info("End migrate: schema is current, version={}", current);
+            return current;
+        }
+
+        lock();
+        try {
+            // Another node may have migrated while we waited for the lock
+            current = getCurrentVersion();
+            if (current < 0) {
+                createVersionTable();
+                current = 0;
+            }
+            for (Migration migration : migrations) {
+                if (migration.getVersion() > current) {
+                    apply(migration);
+                    current = migration.getVersion();
+                }
+            }
+        } finally {
+            unlock();
+        }
+
+        log.info("End migrate: version={}", current);
+        return current;
+    }
+
+    // -1 when the schema_version table does not exist yet
+    public int getCurrentVersion() throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            rs.next();
+            return rs.getInt(1);
+        } catch (SQLException e) {
+            if (UNDEFINED_TABLE.equals(e.getSQLState())) {
+                return -1;
+            }
+            throw e;
+        }
+    }
+
+    private void apply(Migration migration) throws SQLException {
+        log.info("Start apply: migration={}", migration);
+        long start = System.currentTimeMillis();
+        boolean autoCommit = connection.getAutoCommit();
+        try {
+            connection.setAutoCommit(!migration.isTransactional());
+            migration.getStep().apply(connection);
+            recordVersion(migration);
+            if (migration.isTransactional()) {
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            if (migration.isTransactional()) {
+                connection.rollback();
+            }
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        log.info("End apply: migration={}, took={}ms", migration, System.currentTimeMillis() - start);
+    }
+
+    private void createVersionTable() throws SQLException {
+        String sql = """
+            CREATE TABLE IF NOT EXISTS schema_version (
+                version INTEGER PRIMARY KEY,
+                description TEXT NOT NULL,
+                applied_at TIMESTAMPTZ NOT NULL DEFAULT now()
+            );
+        """;
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private void recordVersion(Migration migration) throws SQLException {
+        String sql = "INSERT INTO schema_version (version, description) VALUES (?, ?) ON CONFLICT (version) DO NOTHING";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, migration.getVersion());
+            stmt.setString(2, migration.getDescription());
+            stmt.executeUpdate();
+        }
+    }
+
+    private void lock() throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT pg_advisory_lock(?)")) {
+            stmt.setLong(1, MIGRATION_LOCK_KEY);
+            stmt.execute();
+        }
+    }
+
+    private void unlock() throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            stmt.setLong(1, MIGRATION_LOCK_KEY);
+            stmt.execute();
+        }
+    }
+
+    // Builds an index without blocking writes. A previous interrupted CONCURRENTLY build leaves an
+    // invalid index behind that IF NOT EXISTS would skip, so such an index is dropped first. A valid
+    // existing index is left alone; it may be on a partitioned table, where CONCURRENTLY is rejected.
+    public static void createIndexConcurrently(Connection connection, String name, boolean unique, String target)
+            throws SQLException {
+        log.info("Start createIndexConcurrently: name={}", name);
+        String existingSql = """
+            SELECT i.indisvalid FROM pg_class c JOIN pg_index i ON i.indexrelid = c.oid
+            WHERE c.relname = ?
+        """;
+        boolean invalid = false;
+        try (PreparedStatement stmt = connection.prepareStatement(existingSql)) {
+            stmt.setString(1, name);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    if (rs.getBoolean(1)) {
+                        log.info("End createIndexConcurrently: name={} already exists", name);
+                        return;
+                    }
+                    invalid = true;
+                }
+            }
+        }
+        try (Statement stmt = connection.createStatement()) {
+            if (invalid) {
+                log.warn("Dropping invalid index: name={}", name);
+                stmt.execute("DROP INDEX CONCURRENTLY IF EXISTS " + name);
+            }
+            stmt.execute("CREATE " + (unique ? "UNIQUE " : "") + "INDEX CONCURRENTLY IF NOT EXISTS " + name + " ON " + target);
+        }
+        log.info("End createIndexConcurrently: name={}", name);
+    }
+
+    private void createBaseTables(Connection connection) throws SQLException {
+        new LeagueRepository(connection).createTable();
+        new TeamRepository(connection).createTable();
+        new PlayerRepository(connection).createTable();
+        new GameRepository(connection).createTable();
+        new StatisticTypeRepository(connection).createTable();
+        new StatisticRepository(connection).createTable();
+    }
+
+    private void createEventLog(Connection connection) throws SQLException {
+        new EventRepository(connection).createTable();
+    }
+
+    private void createStintLedger(Connection connection) throws SQLException {
+        new PlayerStintRepository(connection).createTable();
+    }
+
+    private void createStatisticSketches(Connection connection) throws SQLException {
+        new StatisticSketchRepository(connection).createTable();
+    }
+
+    // SERIAL ids are 32-bit; application-assigned SnowflakeIdGenerator ids need BIGINT. Changing the type
+    // of a column rewrites the table and its indexes under an ACCESS EXCLUSIVE lock, blocking reads and
+    // writes for as long as that takes, so the migration only does it while the tables are empty. Tables
+    // with rows stop startup until "ids widen" has been run in a maintenance window.
+    private void widenIds(Connection connection) throws SQLException {
+        List<String> narrow = narrowIdTables(connection);
+        try (Statement stmt = connection.createStatement()) {
+            for (String table : narrow) {
+                try (ResultSet rs = stmt.executeQuery("SELECT EXISTS (SELECT 1 FROM " + table + ")")) {
+                    rs.next();
+                    if (rs.getBoolean(1)) {
+                        throw new SQLException("ids of " + narrow + " are 32-bit and " + table + " has rows: run "
+                                + "'ids widen' in a maintenance window (it locks these tables) before starting this version");
+                    }
+                }
+            }
+        }
+        widenIdColumns(connection);
+    }
+
+    /**
+     * Maintenance command ("ids widen"): changes the 32-bit id columns and their sequences to BIGINT.
+     * Each table is rewritten under an ACCESS EXCLUSIVE lock, so reads and writes of it wait until its
+     * rewrite is done; run it while the application is stopped. Columns already widened are skipped,
+     * so it is safe to run again after an interruption.
+     */
+    public static void widenIdColumns(Connection connection) throws SQLException {
+        log.info("Start widenIdColumns");
+        List<String> narrow = narrowIdTables(connection);
+        try (Statement stmt = connection.createStatement()) {
+            for (String table : narrow) {
+                stmt.execute("ALTER TABLE " + table + " ALTER COLUMN id TYPE BIGINT");
+            }
+            for (String table : ID_TABLES) {
+                stmt.execute("ALTER SEQUENCE " + table + "_id_seq AS BIGINT");
+            }
+            stmt.execute("ALTER SEQUENCE statistic_id_seq AS BIGINT");
+        }
+        log.info("End widenIdColumns: widened={}", narrow);
+    }
+
+    private static List<String> narrowIdTables(Connection connection) throws SQLException {
+        String sql = """
+            SELECT table_name FROM information_schema.columns
+            WHERE table_schema = current_schema() AND table_name = ANY(?) AND column_name = 'id'
+              AND data_type = 'integer'
+        """;
+        List<String> narrow = new ArrayList<>();
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setArray(1, connection.createArrayOf("text", ID_TABLES.toArray()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    narrow.add(rs.getString(1));
+                }
+            }
+        }
+        return narrow;
+    }
+
+    private void createLookupIndexes(Connection connection) throws SQLException {
+        createIndexConcurrently(connection, "idx_game_id", true, "game (id)");
+        createIndexConcurrently(connection, "idx_game_active", false, "game (game_state) WHERE game_state <> 'End'");
+        createIndexConcurrently(connection, "idx_player_team_name", true, "player (team_id, name)");
+        createIndexConcurrently(connection, "idx_statistic_composite", true,
+                "statistic (player_id, game_id, statistic_type_id)");
+        createIndexConcurrently(connection, "idx_statistic_player_id", false, "statistic (player_id)");
+        createIndexConcurrently(connection, "idx_statistic_type_id", false, "statistic (statistic_type_id)");
+    }
+}
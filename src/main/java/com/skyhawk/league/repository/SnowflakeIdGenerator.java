@@ -0,0 +1,76 @@
+package com.skyhawk.league.repository;
+
+/**
+ * Time-ordered, node-unique 64-bit ids assigned by the application, so rows can be inserted in a
+ * batch without a round trip per row to learn their id.
+ *
+ * Layout: 41 bits of milliseconds since EPOCH_MILLIS, 10 bits of node id, 12 bits of sequence,
+ * i.e. 4096 ids per millisecond per node for about 69 years. Ids are far above any value the
+ * legacy id sequences hand out, so both kinds coexist in the same tables.
+ *
+ * If the clock steps back, or more than 4096 ids are requested within a millisecond, the generator
+ * keeps counting from the last millisecond it used instead of waiting, so ids stay unique and
+ * increasing.
+ *
+ * Ids exceed the 2^53 that JavaScript clients represent exactly, so they are written to JSON as
+ * strings; Jackson binds both strings and numbers back to long on input.
+ */
+public class SnowflakeIdGenerator {
+    // 2025-01-01T00:00:00Z
+    public static final long EPOCH_MILLIS = 1_735_689_600_000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static volatile SnowflakeIdGenerator instance = new SnowflakeIdGenerator(0);
+
+    private final long nodeId;
+    private long lastMillis = -1;
+    private long sequence;
+
+    public SnowflakeIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+    }
+
+    // Shared generator used by the repositories
+    public static SnowflakeIdGenerator getInstance() {
+        return instance;
+    }
+
+    // Every application node must use a distinct node id; set once at startup
+    public static void configure(int nodeId) {
+        instance = new SnowflakeIdGenerator(nodeId);
+    }
+
+    public synchronized long nextId() {
+        long now = Math.max(System.currentTimeMillis(), lastMillis);
+        if (now == lastMillis) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                // Sequence exhausted: borrow the next millisecond
+                now++;
+            }
+        } else {
+            sequence = 0;
+        }
+        lastMillis = now;
+        return ((now - EPOCH_MILLIS) << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    public static int nodeOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE_ID);
+    }
+
+    public int getNodeId() {
+        return (int) nodeId;
+    }
+}
@@ -0,0 +1,9 @@
+package com.skyhawk.league.repository;
+
+// Storage format of statistics behind StatisticRepository
+public enum StatisticLayout {
+    // One statistic row per (player, game, type), partitioned by league and season
+    NARROW,
+    // One statistic_line row per (player, game) with a JSONB map of types, see WideStatisticStore
+    WIDE
+}
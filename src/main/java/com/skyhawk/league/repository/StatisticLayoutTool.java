@@ -0,0 +1,221 @@
+package com.skyhawk.league.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.skyhawk.league.model.Game;
+import com.skyhawk.league.model.Statistic;
+import com.skyhawk.league.repository.memory.MemoryStorage;
+
+/**
+ * Command line maintenance of the statistic storage layout, run as
+ * {@code java -jar league-app.jar statistics <command>}:
+ *
+ *   to-wide                   copy the narrow rows into statistic_line before switching to WIDE
+ *   to-narrow                 copy statistic_line into the narrow table before switching to NARROW
+ *   benchmark [players] [games] [types] [updates]
+ *                             compare both layouts on temporary tables: rows, table and index size,
+ *                             single-statistic and whole-box-score update throughput, with the
+ *                             in-memory storage engine as a baseline without the database
+ */
+public class StatisticLayoutTool {
+
+    private StatisticLayoutTool() {
+    }
+
+    public static void run(Connection connection, String[] args) throws SQLException {
+        String command = args.length > 1 ? args[1] : "benchmark";
+        switch (command) {
+            case "to-wide" -> System.out.println("✅ " + WideStatisticStore.copyNarrowToWide(connection) + " wide rows written");
+            case "to-narrow" -> System.out.println("✅ " + WideStatisticStore.copyWideToNarrow(connection) + " narrow rows written");
+            case "benchmark" -> benchmark(connection, intArg(args, 2, 200), intArg(args, 3, 100), intArg(args, 4, 20),
+                    intArg(args, 5, 20000));
+            default -> System.err.println("Usage: statistics [to-wide | to-narrow | benchmark [players] [games] [types] [updates]]");
+        }
+    }
+
+    private static void benchmark(Connection connection, int players, int games, int types, int updates) throws SQLException {
+        System.out.printf("Benchmark: players=%d, games=%d, types=%d, updates=%d%n", players, games, types, updates);
+        try (Statement stmt = connection.createStatement()) {
+            // Same shape and indexes as the live tables, without foreign keys
+            stmt.execute("""
+                CREATE TEMP TABLE bench_narrow (
+                    id BIGSERIAL PRIMARY KEY,
+                    player_id BIGINT NOT NULL,
+                    game_id BIGINT NOT NULL,
+                    statistic_type_id BIGINT NOT NULL,
+                    number_value BIGINT DEFAULT 0,
+                    float_value REAL DEFAULT 0.0
+                );
+                CREATE UNIQUE INDEX ON bench_narrow (player_id, game_id, statistic_type_id);
+                CREATE INDEX ON bench_narrow (player_id);
+                CREATE INDEX ON bench_narrow (statistic_type_id);
+                CREATE TEMP TABLE bench_wide (
+                    player_id BIGINT NOT NULL,
+                    game_id BIGINT NOT NULL,
+                    stats JSONB NOT NULL DEFAULT '{}',
+                    PRIMARY KEY (player_id, game_id)
+                );
+                CREATE INDEX ON bench_wide (game_id);
+            """);
+            try (PreparedStatement fill = connection.prepareStatement("""
+                    INSERT INTO bench_narrow (player_id, game_id, statistic_type_id, number_value)
+                    SELECT p, g, t, 0 FROM generate_series(1, ?) p, generate_series(1, ?) g, generate_series(1, ?) t
+                    """)) {
+                fill.setInt(1, players);
+                fill.setInt(2, games);
+                fill.setInt(3, types);
+                fill.executeUpdate();
+            }
+            stmt.execute("""
+                INSERT INTO bench_wide (player_id, game_id, stats)
+                SELECT player_id, game_id, jsonb_object_agg(statistic_type_id::text, jsonb_build_array(number_value, float_value, id))
+                FROM bench_narrow GROUP BY player_id, game_id
+            """);
+            stmt.execute("ANALYZE bench_narrow");
+            stmt.execute("ANALYZE bench_wide");
+
+            report(connection, "narrow", "bench_narrow");
+            report(connection, "wide", "bench_wide");
+
+            String narrowSql = "UPDATE bench_narrow SET number_value = number_value + 1 WHERE player_id = ? AND game_id = ? AND statistic_type_id = ?";
+            String wideSql = """
+                UPDATE bench_wide SET stats = jsonb_set(stats, ARRAY[?::text, '0'], to_jsonb((stats->?::text->>0)::bigint + 1), false)
+                WHERE player_id = ? AND game_id = ?
+            """;
+            try (PreparedStatement narrow = connection.prepareStatement(narrowSql);
+                 PreparedStatement wide = connection.prepareStatement(wideSql)) {
+                long start = System.nanoTime();
+                for (int i = 0; i < updates; i++) {
+                    long[] cell = randomCell(players, games, types);
+                    narrow.setLong(1, cell[0]);
+                    narrow.setLong(2, cell[1]);
+                    narrow.setLong(3, cell[2]);
+                    narrow.executeUpdate();
+                }
+                printRate("narrow single-stat updates", updates, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                for (int i = 0; i < updates; i++) {
+                    long[] cell = randomCell(players, games, types);
+                    wide.setString(1, String.valueOf(cell[2]));
+                    wide.setString(2, String.valueOf(cell[2]));
+                    wide.setLong(3, cell[0]);
+                    wide.setLong(4, cell[1]);
+                    wide.executeUpdate();
+                }
+                printRate("wide single-stat updates", updates, System.nanoTime() - start);
+
+                // A whole box score: every type of one (player, game)
+                int boxScores = Math.max(1, updates / types);
+                start = System.nanoTime();
+                for (int i = 0; i < boxScores; i++) {
+                    long[] cell = randomCell(players, games, types);
+                    for (int type = 1; type <= types; type++) {
+                        narrow.setLong(1, cell[0]);
+                        narrow.setLong(2, cell[1]);
+                        narrow.setLong(3, type);
+                        narrow.executeUpdate();
+                    }
+                }
+                printRate("narrow box-score writes", boxScores, System.nanoTime() - start);
+            }
+            String wideBoxSql = """
+                UPDATE bench_wide SET stats = (
+                    SELECT jsonb_object_agg(e.key, jsonb_build_array((e.value->>0)::bigint + 1, e.value->1, e.value->2))
+                    FROM jsonb_each(stats) e)
+                WHERE player_id = ? AND game_id = ?
+            """;
+            try (PreparedStatement wideBox = connection.prepareStatement(wideBoxSql)) {
+                int boxScores = Math.max(1, updates / types);
+                long start = System.nanoTime();
+                for (int i = 0; i < boxScores; i++) {
+                    long[] cell = randomCell(players, games, types);
+                    wideBox.setLong(1, cell[0]);
+                    wideBox.setLong(2, cell[1]);
+                    wideBox.executeUpdate();
+                }
+                printRate("wide box-score writes", boxScores, System.nanoTime() - start);
+            }
+            stmt.execute("DROP TABLE bench_narrow, bench_wide");
+        }
+        benchmarkMemory(players, games, types, updates);
+    }
+
+    // The same writes through the in-memory engine's statistic store
+    private static void benchmarkMemory(int players, int games, int types, int updates) throws SQLException {
+        MemoryStorage memory = new MemoryStorage();
+        List<Game> gameRows = new ArrayList<>();
+        for (int game = 1; game <= games; game++) {
+            Game row = new Game(1, "bench" + game, null, 1, 2, LocalDate.now());
+            row.setId(game);
+            gameRows.add(row);
+        }
+        memory.games().saveAll(gameRows);
+        List<Statistic> rows = new ArrayList<>();
+        for (int player = 1; player <= players; player++) {
+            for (int game = 1; game <= games; game++) {
+                for (int type = 1; type <= types; type++) {
+                    rows.add(new Statistic(player, game, type));
+                }
+            }
+        }
+        long start = System.nanoTime();
+        memory.statistics().saveAll(rows);
+        printRate("memory inserts", rows.size(), System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < updates; i++) {
+            long[] cell = randomCell(players, games, types);
+            memory.statistics().updateNumberValue(cell[0], cell[1], cell[2], i);
+        }
+        printRate("memory single-stat updates", updates, System.nanoTime() - start);
+
+        int boxScores = Math.max(1, updates / types);
+        start = System.nanoTime();
+        for (int i = 0; i < boxScores; i++) {
+            long[] cell = randomCell(players, games, types);
+            List<Statistic> boxScore = new ArrayList<>(types);
+            for (int type = 1; type <= types; type++) {
+                Statistic stat = new Statistic(cell[0], cell[1], type);
+                stat.setNumberValue(i);
+                boxScore.add(stat);
+            }
+            memory.statistics().upsertAll(boxScore);
+        }
+        printRate("memory box-score writes", boxScores, System.nanoTime() - start);
+    }
+
+    private static void report(Connection connection, String label, String table) throws SQLException {
+        String sql = "SELECT (SELECT count(*) FROM " + table + "), pg_table_size(?::regclass), pg_indexes_size(?::regclass)";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, table);
+            stmt.setString(2, table);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                System.out.printf("%-7s rows=%d table=%dkB indexes=%dkB%n", label, rs.getLong(1),
+                        rs.getLong(2) / 1024, rs.getLong(3) / 1024);
+            }
+        }
+    }
+
+    private static long[] randomCell(int players, int games, int types) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new long[] { random.nextInt(players) + 1, random.nextInt(games) + 1, random.nextInt(types) + 1 };
+    }
+
+    private static void printRate(String label, int count, long nanos) {
+        System.out.printf("%-28s %8.0f/s (%d in %d ms)%n", label, count * 1e9 / nanos, count, nanos / 1_000_000);
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
@@ -0,0 +1,471 @@
+package com.skyhawk.league.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Partitioning of the statistic table: LIST by league_id, each league sub-partitioned LIST by
+ * season (the calendar year of the game date). Partition names are statistic_l{league} and
+ * statistic_l{league}_s{season}.
+ *
+ * A game's league and season and a player's league never change, so they are resolved once and
+ * cached for the life of the process; StatisticRepository uses them to add partition keys to every
+ * query so the planner prunes to the partitions involved.
+ */
+public class StatisticPartitions {
+    private static final Logger log = LoggerFactory.getLogger(StatisticPartitions.class);
+
+    private static final String DUPLICATE_TABLE = "42P07";
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    // Online conversion of the unpartitioned heap: the partitioned copy, the trigger mirroring writes
+    // into it, and the table comment marking a finished copy
+    private static final String COPY_TABLE = "statistic_partitioned";
+    private static final String COPY_TRIGGER = "statistic_to_partitioned";
+    private static final String COPY_COMPLETE = "statistic copy complete";
+    private static final String BATCH_PARTITION_KEYS = "SELECT DISTINCT g.league_id, EXTRACT(YEAR FROM g.date)::int AS season "
+            + "FROM statistic s JOIN game g ON g.id = s.game_id WHERE s.id >= ? AND s.id < ?";
+    private static final String COPY_FUNCTION = """
+        CREATE OR REPLACE FUNCTION statistic_to_partitioned() RETURNS trigger AS $$
+        DECLARE
+            league BIGINT;
+            year INTEGER;
+        BEGIN
+            IF TG_OP <> 'INSERT' THEN
+                DELETE FROM statistic_partitioned WHERE id = OLD.id;
+            END IF;
+            IF TG_OP <> 'DELETE' THEN
+                SELECT g.league_id, EXTRACT(YEAR FROM g.date)::int INTO league, year FROM game g WHERE g.id = NEW.game_id;
+                IF to_regclass('statistic_l' || league || '_s' || year) IS NULL THEN
+                    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF statistic_partitioned '
+                            || 'FOR VALUES IN (%s) PARTITION BY LIST (season)', 'statistic_l' || league, league);
+                    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF %I FOR VALUES IN (%s)',
+                            'statistic_l' || league || '_s' || year, 'statistic_l' || league, year);
+                END IF;
+                INSERT INTO statistic_partitioned (id, league_id, season, player_id, game_id, statistic_type_id,
+                        number_value, float_value)
+                VALUES (NEW.id, league, year, NEW.player_id, NEW.game_id, NEW.statistic_type_id,
+                        NEW.number_value, NEW.float_value)
+                ON CONFLICT (league_id, season, player_id, game_id, statistic_type_id)
+                DO UPDATE SET number_value = EXCLUDED.number_value, float_value = EXCLUDED.float_value;
+            END IF;
+            RETURN NULL;
+        END
+        $$ LANGUAGE plpgsql
+    """;
+
+    private static final Map<Long, PartitionKey> gameKeys = new ConcurrentHashMap<>();
+    private static final Map<Long, Long> playerLeagues = new ConcurrentHashMap<>();
+    private static final Set<PartitionKey> knownPartitions = ConcurrentHashMap.newKeySet();
+
+    private final ConnectionRouter router;
+
+    public StatisticPartitions(Connection connection) {
+        this(new ConnectionRouter(connection));
+    }
+
+    // Lookups and partition DDL run on the router's primary connection of the current request
+    public StatisticPartitions(ConnectionRouter router) {
+        this.router = router;
+    }
+
+    public static final class PartitionKey {
+        private final long leagueId;
+        private final int season;
+
+        public PartitionKey(long leagueId, int season) {
+            this.leagueId = leagueId;
+            this.season = season;
+        }
+
+        public long getLeagueId() {
+            return leagueId;
+        }
+
+        public int getSeason() {
+            return season;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof PartitionKey other && leagueId == other.leagueId && season == other.season;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(leagueId, season);
+        }
+
+        @Override
+        public String toString() {
+            return "PartitionKey [leagueId=" + leagueId + ", season=" + season + "]";
+        }
+    }
+
+    public static int seasonOf(LocalDate date) {
+        return date.getYear();
+    }
+
+    public static String leaguePartition(long leagueId) {
+        return "statistic_l" + leagueId;
+    }
+
+    public static String seasonPartition(long leagueId, int season) {
+        return "statistic_l" + leagueId + "_s" + season;
+    }
+
+    public PartitionKey forGame(long gameId) throws SQLException {
+        PartitionKey key = gameKeys.get(gameId);
+        if (key == null) {
+            key = forGames(List.of(gameId)).get(gameId);
+            if (key == null) {
+                throw new SQLException("Game not found: " + gameId);
+            }
+        }
+        return key;
+    }
+
+    public Map<Long, PartitionKey> forGames(Collection<Long> gameIds) throws SQLException {
+        Map<Long, PartitionKey> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (long gameId : gameIds) {
+            PartitionKey key = gameKeys.get(gameId);
+            if (key != null) {
+                result.put(gameId, key);
+            } else {
+                missing.add(gameId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Connection connection = router.forWrite();
+            String sql = "SELECT id, league_id, EXTRACT(YEAR FROM date)::int AS season FROM game WHERE id = ANY(?)";
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setArray(1, connection.createArrayOf("bigint", missing.toArray()));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        PartitionKey key = new PartitionKey(rs.getLong("league_id"), rs.getInt("season"));
+                        gameKeys.put(rs.getLong("id"), key);
+                        result.put(rs.getLong("id"), key);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // League of the player's team, or null for an unknown player
+    public Long leagueOfPlayer(long playerId) throws SQLException {
+        Long leagueId = playerLeagues.get(playerId);
+        if (leagueId == null) {
+            Connection connection = router.forWrite();
+            String sql = "SELECT t.league_id FROM player p JOIN team t ON t.id = p.team_id WHERE p.id = ?";
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setLong(1, playerId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        leagueId = rs.getLong(1);
+                        playerLeagues.put(playerId, leagueId);
+                    }
+                }
+            }
+        }
+        return leagueId;
+    }
+
+    public void remember(long gameId, long leagueId, LocalDate date) {
+        gameKeys.put(gameId, new PartitionKey(leagueId, seasonOf(date)));
+    }
+
+    // Creates the league and season partitions if they do not exist yet; a no-op once seen
+    public void ensure(PartitionKey key) throws SQLException {
+        if (knownPartitions.contains(key)) {
+            return;
+        }
+        log.info("Start ensure: key={}", key);
+        long leagueId = key.getLeagueId();
+        int season = key.getSeason();
+        createIfNotExists("CREATE TABLE IF NOT EXISTS " + leaguePartition(leagueId)
+                + " PARTITION OF statistic FOR VALUES IN (" + leagueId + ") PARTITION BY LIST (season)");
+        createIfNotExists("CREATE TABLE IF NOT EXISTS " + seasonPartition(leagueId, season)
+                + " PARTITION OF " + leaguePartition(leagueId) + " FOR VALUES IN (" + season + ")");
+        knownPartitions.add(key);
+        log.info("End ensure: key={}", key);
+    }
+
+    // Removes a season from the live table without blocking readers or writers; the detached
+    // table keeps its rows and can be archived, dropped or attached again
+    public void detachSeason(long leagueId, int season) throws SQLException {
+        log.info("Start detachSeason: leagueId={}, season={}", leagueId, season);
+        Connection connection = router.forWrite();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("ALTER TABLE " + leaguePartition(leagueId) + " DETACH PARTITION "
+                    + seasonPartition(leagueId, season) + " CONCURRENTLY");
+        }
+        knownPartitions.remove(new PartitionKey(leagueId, season));
+        log.info("End detachSeason: leagueId={}, season={}", leagueId, season);
+    }
+
+    // Re-attaches a detached season. The CHECK constraint matching the partition bound lets
+    // ATTACH skip its validation scan, so the parent is only briefly share-locked.
+    public void attachSeason(long leagueId, int season) throws SQLException {
+        log.info("Start attachSeason: leagueId={}, season={}", leagueId, season);
+        Connection connection = router.forWrite();
+        String partition = seasonPartition(leagueId, season);
+        String constraint = partition + "_bound";
+        boolean autoCommit = connection.getAutoCommit();
+        createIfNotExists("CREATE TABLE IF NOT EXISTS " + leaguePartition(leagueId)
+                + " PARTITION OF statistic FOR VALUES IN (" + leagueId + ") PARTITION BY LIST (season)");
+        try (Statement stmt = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            stmt.execute("ALTER TABLE " + partition + " ADD CONSTRAINT " + constraint
+                    + " CHECK (league_id = " + leagueId + " AND season = " + season + ")");
+            stmt.execute("ALTER TABLE " + leaguePartition(leagueId) + " ATTACH PARTITION " + partition
+                    + " FOR VALUES IN (" + season + ")");
+            stmt.execute("ALTER TABLE " + partition + " DROP CONSTRAINT " + constraint);
+            connection.commit();
+        } catch (SQLException e) {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        knownPartitions.add(new PartitionKey(leagueId, season));
+        log.info("End attachSeason: leagueId={}, season={}", leagueId, season);
+    }
+
+    // Season partitions with their attach state and approximate row count
+    public List<String> listSeasonPartitions() throws SQLException {
+        Connection connection = router.forWrite();
+        List<String> result = new ArrayList<>();
+        String sql = """
+            SELECT c.relname, c.relispartition, c.reltuples::bigint AS rows
+            FROM pg_class c
+            WHERE c.relkind = 'r' AND c.relname ~ '^statistic_l[0-9]+_s[0-9]+$'
+            ORDER BY c.relname
+        """;
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                result.add(rs.getString("relname") + (rs.getBoolean("relispartition") ? " attached" : " detached")
+                        + " rows~" + Math.max(rs.getLong("rows"), 0));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Schema migration: puts the partitioned layout in place of the single statistic heap without
+     * copying rows. An empty heap is replaced directly; otherwise its rows must already have been
+     * copied online by {@link #copyToPartitioned}, and the copy is swapped in by renames under a
+     * brief exclusive lock. A heap with rows and no finished copy stops the migration.
+     */
+    static void convertToPartitioned(Connection connection) throws SQLException {
+        log.info("Start convertToPartitioned");
+        try (Statement stmt = connection.createStatement()) {
+            if (isPartitioned(stmt, "statistic")) {
+                log.info("End convertToPartitioned: already partitioned");
+                return;
+            }
+            boolean empty;
+            try (ResultSet rs = stmt.executeQuery("SELECT NOT EXISTS (SELECT 1 FROM statistic)")) {
+                rs.next();
+                empty = rs.getBoolean(1);
+            }
+            if (empty) {
+                stmt.execute("DROP TABLE IF EXISTS " + COPY_TABLE);
+                createCopyTable(stmt);
+            } else if (!isCopyComplete(stmt)) {
+                throw new SQLException("statistic has rows and is not partitioned yet: copy it online with "
+                        + "'partitions convert' before starting this version");
+            }
+            // Writers of the heap are drained by the lock; the trigger has mirrored every row they wrote
+            stmt.execute("LOCK TABLE statistic IN ACCESS EXCLUSIVE MODE");
+            stmt.execute("DROP TRIGGER IF EXISTS " + COPY_TRIGGER + " ON statistic");
+            stmt.execute("DROP FUNCTION IF EXISTS " + COPY_TRIGGER + "()");
+            stmt.execute("ALTER TABLE statistic RENAME TO statistic_unpartitioned");
+            stmt.execute("ALTER TABLE statistic_unpartitioned RENAME CONSTRAINT statistic_pkey TO statistic_unpartitioned_pkey");
+            for (String index : new String[] { "composite", "player_id", "type_id" }) {
+                stmt.execute("ALTER INDEX IF EXISTS idx_statistic_" + index + " RENAME TO idx_statistic_unpartitioned_" + index);
+            }
+            stmt.execute("ALTER SEQUENCE statistic_id_seq OWNED BY NONE");
+            stmt.execute("ALTER TABLE " + COPY_TABLE + " RENAME TO statistic");
+            stmt.execute("ALTER TABLE statistic RENAME CONSTRAINT " + COPY_TABLE + "_pkey TO statistic_pkey");
+            for (String index : new String[] { "composite", "player_id", "type_id", "id" }) {
+                stmt.execute("ALTER INDEX idx_" + COPY_TABLE + "_" + index + " RENAME TO idx_statistic_" + index);
+            }
+            stmt.execute("ALTER SEQUENCE statistic_id_seq OWNED BY statistic.id");
+            stmt.execute("COMMENT ON TABLE statistic IS NULL");
+            if (empty) {
+                stmt.execute("DROP TABLE statistic_unpartitioned");
+            }
+            log.info("End convertToPartitioned: swapped, empty={}", empty);
+        }
+    }
+
+    /**
+     * Copies the unpartitioned statistic heap into a partitioned copy while the previous version keeps
+     * serving. A trigger on the heap mirrors every write made during the copy; existing rows are
+     * copied in id ranges of batchRows, one short transaction each, locking only the rows of the
+     * batch. Safe to run again after an interruption. Once it is done, starting this version swaps
+     * the copy in (migration 3).
+     */
+    public void copyToPartitioned(int batchRows) throws SQLException {
+        log.info("Start copyToPartitioned: batchRows={}", batchRows);
+        Connection connection = router.forWrite();
+        boolean autoCommit = connection.getAutoCommit();
+        try (Statement stmt = connection.createStatement()) {
+            if (isPartitioned(stmt, "statistic")) {
+                log.info("End copyToPartitioned: already partitioned");
+                return;
+            }
+            // The partitions of every game so far are created before writers reach the copy through the
+            // trigger: creating a partition while they write to its parent can deadlock with them
+            createCopyTable(stmt);
+            ensureCopyPartitions("SELECT DISTINCT league_id, EXTRACT(YEAR FROM date)::int AS season FROM game");
+            connection.setAutoCommit(false);
+            stmt.execute(COPY_FUNCTION);
+            stmt.execute("DROP TRIGGER IF EXISTS " + COPY_TRIGGER + " ON statistic");
+            stmt.execute("CREATE TRIGGER " + COPY_TRIGGER + " AFTER INSERT OR UPDATE OR DELETE ON statistic "
+                    + "FOR EACH ROW EXECUTE FUNCTION " + COPY_TRIGGER + "()");
+            connection.commit();
+            connection.setAutoCommit(true);
+
+            // Taking the trigger's lock waited for earlier writers, so every row without the trigger is <= max
+            long minId;
+            long maxId;
+            try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MIN(id), 0), COALESCE(MAX(id), -1) FROM statistic")) {
+                rs.next();
+                minId = rs.getLong(1);
+                maxId = rs.getLong(2);
+            }
+            // FOR SHARE re-reads rows changed since the statement began and skips deleted ones,
+            // so a batch never copies a row after the trigger has deleted or updated it
+            String sql = "INSERT INTO " + COPY_TABLE + " (id, league_id, season, player_id, game_id, statistic_type_id, "
+                    + "number_value, float_value) "
+                    + "SELECT s.id, g.league_id, EXTRACT(YEAR FROM g.date)::int, s.player_id, s.game_id, "
+                    + "s.statistic_type_id, s.number_value, s.float_value "
+                    + "FROM statistic s JOIN game g ON g.id = s.game_id WHERE s.id >= ? AND s.id < ? "
+                    + "FOR SHARE OF s ON CONFLICT DO NOTHING";
+            long copied = 0;
+            try (PreparedStatement copy = connection.prepareStatement(sql)) {
+                for (long from = minId; from <= maxId; from += batchRows) {
+                    ensureCopyPartitions(BATCH_PARTITION_KEYS, from, from + batchRows);
+                    copy.setLong(1, from);
+                    copy.setLong(2, from + batchRows);
+                    copied += copy.executeUpdate();
+                    log.info("Copied statistic rows: upTo={}, maxId={}, copied={}", from + batchRows, maxId, copied);
+                }
+            }
+            stmt.execute("COMMENT ON TABLE " + COPY_TABLE + " IS '" + COPY_COMPLETE + "'");
+            log.info("End copyToPartitioned: copied={}", copied);
+        } catch (SQLException e) {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    // Partitions of the copy for the keys the query returns; a game created during the copy gets its
+    // partitions from the trigger or, at the latest, before the batch copying its rows
+    private void ensureCopyPartitions(String keysSql, long... params) throws SQLException {
+        Connection connection = router.forWrite();
+        List<PartitionKey> keys = new ArrayList<>();
+        try (PreparedStatement stmt = connection.prepareStatement(keysSql)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setLong(i + 1, params[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    keys.add(new PartitionKey(rs.getLong("league_id"), rs.getInt("season")));
+                }
+            }
+        }
+        for (PartitionKey key : keys) {
+            createIfNotExists("CREATE TABLE IF NOT EXISTS " + leaguePartition(key.getLeagueId()) + " PARTITION OF "
+                    + COPY_TABLE + " FOR VALUES IN (" + key.getLeagueId() + ") PARTITION BY LIST (season)");
+            createIfNotExists("CREATE TABLE IF NOT EXISTS " + seasonPartition(key.getLeagueId(), key.getSeason())
+                    + " PARTITION OF " + leaguePartition(key.getLeagueId()) + " FOR VALUES IN (" + key.getSeason() + ")");
+        }
+    }
+
+    private static boolean isPartitioned(Statement stmt, String table) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT relkind FROM pg_class WHERE relname = '" + table + "'")) {
+            return rs.next() && "p".equals(rs.getString(1));
+        }
+    }
+
+    private static boolean isCopyComplete(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("SELECT obj_description(to_regclass('" + COPY_TABLE + "'), 'pg_class')")) {
+            return rs.next() && COPY_COMPLETE.equals(rs.getString(1));
+        }
+    }
+
+    // The partitioned parent, empty; its partitions get their final names, its indexes are renamed at the swap
+    private static void createCopyTable(Statement stmt) throws SQLException {
+        stmt.execute("CREATE TABLE IF NOT EXISTS " + COPY_TABLE + """
+             (
+                id BIGINT NOT NULL DEFAULT nextval('statistic_id_seq'),
+                league_id BIGINT NOT NULL,
+                season INTEGER NOT NULL,
+                player_id BIGINT NOT NULL,
+                game_id BIGINT NOT NULL,
+                statistic_type_id BIGINT NOT NULL,
+                number_value BIGINT DEFAULT 0,
+                float_value REAL DEFAULT 0.0,
+                PRIMARY KEY (league_id, season, id),
+                FOREIGN KEY (player_id) REFERENCES player(id) ON DELETE CASCADE,
+                FOREIGN KEY (game_id) REFERENCES game(id) ON DELETE CASCADE,
+                FOREIGN KEY (statistic_type_id) REFERENCES statistic_type(id) ON DELETE CASCADE
+            ) PARTITION BY LIST (league_id)
+        """);
+        // Unique keys of a partitioned table must include the partition keys
+        stmt.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_" + COPY_TABLE + "_composite ON " + COPY_TABLE
+                + " (league_id, season, player_id, game_id, statistic_type_id)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_" + COPY_TABLE + "_player_id ON " + COPY_TABLE + " (player_id)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_" + COPY_TABLE + "_type_id ON " + COPY_TABLE + " (statistic_type_id)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_" + COPY_TABLE + "_id ON " + COPY_TABLE + " (id)");
+    }
+
+    // Concurrent creators can both pass IF NOT EXISTS; the loser's error is harmless. Inside a
+    // transaction the statement runs under a savepoint, so that error does not abort the transaction.
+    private void createIfNotExists(String sql) throws SQLException {
+        Connection connection = router.forWrite();
+        Savepoint savepoint = connection.getAutoCommit() ? null : connection.setSavepoint();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+        } catch (SQLException e) {
+            if (savepoint != null) {
+                connection.rollback(savepoint);
+            }
+            if (!DUPLICATE_TABLE.equals(e.getSQLState()) && !UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                throw e;
+            }
+            log.debug("Partition created concurrently: sql={}", sql);
+            return;
+        }
+        if (savepoint != null) {
+            connection.releaseSavepoint(savepoint);
+        }
+    }
+}
@@ -3,25 +3,68 @@ package com.skyhawk.league.repository;
 import com.skyhawk.league.model.Game;
 import com.skyhawk.league.model.Player;
 import com.skyhawk.league.model.Statistic;
+import com.skyhawk.league.model.StatisticRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
-public class StatisticRepository implements BaseRepository<Statistic> {
+import com.skyhawk.league.repository.StatisticPartitions.PartitionKey;
+
+public class StatisticRepository implements StatisticStore {
 
     private static final Logger log = LoggerFactory.getLogger(StatisticRepository.class);
-    private final Connection connection;
+    private static volatile StatisticLayout layout = StatisticLayout.NARROW;
+
+    private final ConnectionRouter router;
+    // Set when a storage backend is installed; every call then goes to it
+    private final StatisticStore backend;
+    private final SnowflakeIdGenerator idGenerator = SnowflakeIdGenerator.getInstance();
+    private final StatisticPartitions partitions;
+    // Set when the wide layout is active; every statistic read and write then goes to it
+    private final WideStatisticStore wide;
 
     public StatisticRepository(Connection connection) {
-        this.connection = connection;
+        this(new ConnectionRouter(connection));
+    }
+
+    // Reads go through router.forRead(), writes to the primary
+    public StatisticRepository(ConnectionRouter router) {
+        this.router = router;
+        this.partitions = new StatisticPartitions(router);
+        StorageBackend storage = Storage.getBackend();
+        this.backend = storage != null ? storage.statistics() : null;
+        this.wide = backend == null && layout == StatisticLayout.WIDE ? new WideStatisticStore(router, partitions) : null;
+    }
+
+    public static StatisticLayout getLayout() {
+        return layout;
+    }
+
+    // Applies to repositories created afterwards; set once at startup
+    public static void setLayout(StatisticLayout newLayout) {
+        layout = newLayout;
     }
 
+    // Initial single-table layout; schema migration 3 converts it to the league/season partitioned
+    // layout, see StatisticPartitions. Every query below carries league_id and season where the
+    // caller's arguments determine them, so only the partitions involved are scanned.
     @Override
     public void createTable() throws SQLException {
+        if (backend != null) {
+            backend.createTable();
+            return;
+        }
         log.info("Start createTable for statistic");
+        Connection connection = router.forWrite();
         String sql = """
             CREATE TABLE IF NOT EXISTS statistic (
                 id SERIAL PRIMARY KEY,
@@ -38,9 +81,6 @@ public class StatisticRepository implements BaseRepository<Statistic> {
 
         try (Statement stmt = connection.createStatement()) {
             stmt.execute(sql);
-            stmt.execute("CREATE UNIQUE INDEX idx_statistic_composite ON statistic (player_id, game_id, statistic_type_id);");
-            stmt.execute("CREATE INDEX idx_statistic_player_id ON statistic (player_id);");
-            stmt.execute("CREATE INDEX idx_statistic_type_id ON statistic (statistic_type_id);");        
         }
 
         log.info("End createTable for statistic");
@@ -48,56 +88,254 @@ public class StatisticRepository implements BaseRepository<Statistic> {
 
     @Override
     public long saveIfNotExists(Statistic stat) throws SQLException {
+        if (backend != null) {
+            return backend.saveIfNotExists(stat);
+        }
+        if (wide != null) {
+            return wide.saveIfNotExists(stat);
+        }
         log.info("Start saveIfNotExists: playerId={}, gameId={}, typeId={}", stat.getPlayerId(), stat.getGameId(), stat.getStatisticTypeId());
-        Long generatedId = null;
+        Connection connection = router.forWrite();
+        PartitionKey key = partitions.forGame(stat.getGameId());
+        partitions.ensure(key);
+        if (stat.getId() == 0) {
+            stat.setId(idGenerator.nextId());
+        }
 
-        String selectSql = "SELECT id FROM statistic WHERE player_id = ? AND game_id = ? AND statistic_type_id = ?";
+        String insertSql = """
+            INSERT INTO statistic (id, league_id, season, player_id, game_id, statistic_type_id, number_value, float_value)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING
+        """;
+        int inserted;
+        try (PreparedStatement insertStmt = connection.prepareStatement(insertSql)) {
+            insertStmt.setLong(1, stat.getId());
+            insertStmt.setLong(2, key.getLeagueId());
+            insertStmt.setInt(3, key.getSeason());
+            insertStmt.setLong(4, stat.getPlayerId());
+            insertStmt.setLong(5, stat.getGameId());
+            insertStmt.setLong(6, stat.getStatisticTypeId());
+            insertStmt.setLong(7, stat.getNumberValue());
+            insertStmt.setFloat(8, stat.getFloatValue());
+            inserted = insertStmt.executeUpdate();
+        }
+        if (inserted == 0) {
+            stat.setId(existingId(stat, key));
+            log.trace("Statistic already exists with ID: {}", stat.getId());
+        }
+
+        log.info("End saveIfNotExists: return={}", stat.getId());
+        return stat.getId();
+    }
+
+    // Id of the stored statistic of the same player, game and type
+    private long existingId(Statistic stat, PartitionKey key) throws SQLException {
+        Connection connection = router.forWrite();
+        String selectSql = """
+            SELECT id FROM statistic
+            WHERE league_id = ? AND season = ? AND player_id = ? AND game_id = ? AND statistic_type_id = ?
+        """;
         try (PreparedStatement selectStmt = connection.prepareStatement(selectSql)) {
-            selectStmt.setLong(1, stat.getPlayerId());
-            selectStmt.setLong(2, stat.getGameId());
-            selectStmt.setLong(3, stat.getStatisticTypeId());
+            selectStmt.setLong(1, key.getLeagueId());
+            selectStmt.setInt(2, key.getSeason());
+            selectStmt.setLong(3, stat.getPlayerId());
+            selectStmt.setLong(4, stat.getGameId());
+            selectStmt.setLong(5, stat.getStatisticTypeId());
             try (ResultSet rs = selectStmt.executeQuery()) {
                 if (rs.next()) {
-                    generatedId = rs.getLong("id");
-                    log.trace("Statistic already exists with ID: {}", generatedId);
+                    return rs.getLong("id");
                 }
             }
         }
+        throw new SQLException("Failed to insert statistic, no ID found: " + stat);
+    }
 
-        if (generatedId == null) {
-            String insertSql = """
-                INSERT INTO statistic (player_id, game_id, statistic_type_id, number_value, float_value)
-                VALUES (?, ?, ?, ?, ?) RETURNING id
-            """;
-            try (PreparedStatement insertStmt = connection.prepareStatement(insertSql)) {
-                insertStmt.setLong(1, stat.getPlayerId());
-                insertStmt.setLong(2, stat.getGameId());
-                insertStmt.setLong(3, stat.getStatisticTypeId());
-                insertStmt.setLong(4, stat.getNumberValue());
-                insertStmt.setFloat(5, stat.getFloatValue());
-
-                try (ResultSet rs = insertStmt.executeQuery()) {
-                    if (rs.next()) {
-                        generatedId = rs.getLong(1);
-                        stat.setId(generatedId);
-                    } else {
-                        throw new SQLException("Failed to insert statistic, no ID returned.");
-                    }
+    @Override
+    public void saveAll(List<Statistic> stats) throws SQLException {
+        if (backend != null) {
+            backend.saveAll(stats);
+            return;
+        }
+        if (wide != null) {
+            wide.saveAll(stats);
+            return;
+        }
+        log.info("Start saveAll: count={}", stats.size());
+        Connection connection = router.forWrite();
+        if (stats.isEmpty()) {
+            return;
+        }
+        Set<Long> gameIds = new TreeSet<>();
+        for (Statistic stat : stats) {
+            gameIds.add(stat.getGameId());
+        }
+        Map<Long, PartitionKey> keys = partitions.forGames(gameIds);
+        for (PartitionKey key : new HashSet<>(keys.values())) {
+            partitions.ensure(key);
+        }
+        String sql = """
+            INSERT INTO statistic (id, league_id, season, player_id, game_id, statistic_type_id, number_value, float_value)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING
+        """;
+        int[] counts;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (Statistic stat : stats) {
+                PartitionKey key = keys.get(stat.getGameId());
+                if (key == null) {
+                    throw new SQLException("Game not found: " + stat.getGameId());
                 }
+                if (stat.getId() == 0) {
+                    stat.setId(idGenerator.nextId());
+                }
+                stmt.setLong(1, stat.getId());
+                stmt.setLong(2, key.getLeagueId());
+                stmt.setInt(3, key.getSeason());
+                stmt.setLong(4, stat.getPlayerId());
+                stmt.setLong(5, stat.getGameId());
+                stmt.setLong(6, stat.getStatisticTypeId());
+                stmt.setLong(7, stat.getNumberValue());
+                stmt.setFloat(8, stat.getFloatValue());
+                stmt.addBatch();
+            }
+            counts = stmt.executeBatch();
+        }
+        int existing = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                stats.get(i).setId(existingId(stats.get(i), keys.get(stats.get(i).getGameId())));
+                existing++;
             }
         }
+        log.info("End saveAll: count={}, existing={}", stats.size(), existing);
+    }
 
-        log.info("End saveIfNotExists: return={}", generatedId);
-        return generatedId;
+    // Makes the given rows the game's complete set of statistics: rows not in the list are deleted and
+    // the rest are written with one batch of upserts. Run it in a transaction so readers never see the
+    // game half rebuilt.
+    public void replaceGameStatistics(long gameId, List<Statistic> stats) throws SQLException {
+        if (backend != null) {
+            backend.replaceGameStatistics(gameId, stats);
+            return;
+        }
+        if (wide != null) {
+            wide.replaceGameStatistics(gameId, stats);
+            return;
+        }
+        log.info("Start replaceGameStatistics: gameId={}, count={}", gameId, stats.size());
+        int deleted = replaceRows(gameId, null, stats);
+        log.info("End replaceGameStatistics: gameId={}, count={}, deleted={}", gameId, stats.size(), deleted);
+    }
+
+    // Like replaceGameStatistics, for the given players only: other players' rows of the game are kept
+    public void replacePlayerStatistics(long gameId, Collection<Long> playerIds, List<Statistic> stats) throws SQLException {
+        if (backend != null) {
+            backend.replacePlayerStatistics(gameId, playerIds, stats);
+            return;
+        }
+        if (playerIds.isEmpty()) {
+            return;
+        }
+        if (wide != null) {
+            wide.replacePlayerStatistics(gameId, playerIds, stats);
+            return;
+        }
+        log.info("Start replacePlayerStatistics: gameId={}, players={}, count={}", gameId, playerIds.size(), stats.size());
+        int deleted = replaceRows(gameId, playerIds, stats);
+        log.info("End replacePlayerStatistics: gameId={}, players={}, count={}, deleted={}", gameId, playerIds.size(),
+                stats.size(), deleted);
+    }
+
+    // Deletes the game's rows missing from the list, of all players or only of playerIds, and upserts the list
+    private int replaceRows(long gameId, Collection<Long> playerIds, List<Statistic> stats) throws SQLException {
+        Connection connection = router.forWrite();
+        PartitionKey key = partitions.forGame(gameId);
+        partitions.ensure(key);
+        String deleteSql = """
+            DELETE FROM statistic
+            WHERE league_id = ? AND season = ? AND game_id = ?
+              AND (player_id, statistic_type_id) NOT IN (SELECT * FROM unnest(?::bigint[], ?::bigint[]))
+        """ + (playerIds != null ? "  AND player_id = ANY(?)" : "");
+        int deleted;
+        try (PreparedStatement stmt = connection.prepareStatement(deleteSql)) {
+            stmt.setLong(1, key.getLeagueId());
+            stmt.setInt(2, key.getSeason());
+            stmt.setLong(3, gameId);
+            stmt.setArray(4, connection.createArrayOf("bigint", stats.stream().map(Statistic::getPlayerId).toArray()));
+            stmt.setArray(5, connection.createArrayOf("bigint", stats.stream().map(Statistic::getStatisticTypeId).toArray()));
+            if (playerIds != null) {
+                stmt.setArray(6, connection.createArrayOf("bigint", playerIds.toArray()));
+            }
+            deleted = stmt.executeUpdate();
+        }
+        upsert(stats, Map.of(gameId, key));
+        return deleted;
+    }
+
+    // Writes the rows with one batch, overwriting the values of rows that already exist; rows whose
+    // values are unchanged are not rewritten
+    public void upsertAll(List<Statistic> stats) throws SQLException {
+        if (backend != null) {
+            backend.upsertAll(stats);
+            return;
+        }
+        if (wide != null) {
+            wide.upsertAll(stats);
+            return;
+        }
+        log.info("Start upsertAll: count={}", stats.size());
+        if (stats.isEmpty()) {
+            return;
+        }
+        Map<Long, PartitionKey> keys = partitions.forGames(stats.stream().map(Statistic::getGameId).distinct().toList());
+        for (PartitionKey key : new HashSet<>(keys.values())) {
+            partitions.ensure(key);
+        }
+        upsert(stats, keys);
+        log.info("End upsertAll: count={}", stats.size());
+    }
+
+    private void upsert(List<Statistic> stats, Map<Long, PartitionKey> keys) throws SQLException {
+        Connection connection = router.forWrite();
+        String upsertSql = """
+            INSERT INTO statistic (id, league_id, season, player_id, game_id, statistic_type_id, number_value, float_value)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (league_id, season, player_id, game_id, statistic_type_id)
+            DO UPDATE SET number_value = EXCLUDED.number_value, float_value = EXCLUDED.float_value
+            WHERE (statistic.number_value, statistic.float_value) IS DISTINCT FROM (EXCLUDED.number_value, EXCLUDED.float_value)
+        """;
+        try (PreparedStatement stmt = connection.prepareStatement(upsertSql)) {
+            for (Statistic stat : stats) {
+                PartitionKey key = keys.get(stat.getGameId());
+                if (key == null) {
+                    throw new SQLException("Game not found: " + stat.getGameId());
+                }
+                stmt.setLong(1, idGenerator.nextId());
+                stmt.setLong(2, key.getLeagueId());
+                stmt.setInt(3, key.getSeason());
+                stmt.setLong(4, stat.getPlayerId());
+                stmt.setLong(5, stat.getGameId());
+                stmt.setLong(6, stat.getStatisticTypeId());
+                stmt.setLong(7, stat.getNumberValue());
+                stmt.setFloat(8, stat.getFloatValue());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
     }
 
     @Override
     public Statistic getById(long id) throws SQLException {
+        if (backend != null) {
+            return backend.getById(id);
+        }
+        if (wide != null) {
+            return wide.getById(id);
+        }
         log.info("Start getById: id={}", id);
+        Connection reader = router.forRead();
         Statistic stat = null;
         String sql = "SELECT * FROM statistic WHERE id = ?";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
             stmt.setLong(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -117,13 +355,57 @@ public class StatisticRepository implements BaseRepository<Statistic> {
         return stat;
     }
 
+    @Override
+    public List<Statistic> getByIds(Collection<Long> ids) throws SQLException {
+        if (backend != null) {
+            return backend.getByIds(ids);
+        }
+        if (wide != null) {
+            return wide.getByIds(ids);
+        }
+        log.info("Start getByIds: count={}", ids.size());
+        Connection reader = router.forRead();
+        List<Statistic> result = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        String sql = "SELECT * FROM statistic WHERE id = ANY(?)";
+
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
+            stmt.setArray(1, reader.createArrayOf("bigint", ids.toArray()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Statistic stat = new Statistic(
+                            rs.getLong("player_id"),
+                            rs.getLong("game_id"),
+                            rs.getLong("statistic_type_id")
+                    );
+                    stat.setId(rs.getLong("id"));
+                    stat.setNumberValue(rs.getLong("number_value"));
+                    stat.setFloatValue(rs.getFloat("float_value"));
+                    result.add(stat);
+                }
+            }
+        }
+
+        log.info("End getByIds: count={}", result.size());
+        return result;
+    }
+
     @Override
     public List<Statistic> getAll() throws SQLException {
+        if (backend != null) {
+            return backend.getAll();
+        }
+        if (wide != null) {
+            return wide.getAll();
+        }
         log.info("Start getAll");
+        Connection reader = router.forRead();
         List<Statistic> result = new ArrayList<>();
         String sql = "SELECT * FROM statistic";
 
-        try (Statement stmt = connection.createStatement();
+        try (Statement stmt = reader.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
                 Statistic stat = new Statistic(
@@ -149,12 +431,24 @@ public class StatisticRepository implements BaseRepository<Statistic> {
     }
 
      public List<Statistic> getByPlayerId(long playerId) throws SQLException {
+        if (backend != null) {
+            return backend.getByPlayerId(playerId);
+        }
+        if (wide != null) {
+            return wide.getByPlayerId(playerId);
+        }
         log.info("Start getByPlayerId: playerId={}", playerId);
+        Connection reader = router.forRead();
         List<Statistic> result = new ArrayList<>();
-        String sql = "SELECT * FROM statistic WHERE player_id = ?";
+        Long leagueId = partitions.leagueOfPlayer(playerId);
+        if (leagueId == null) {
+            return result;
+        }
+        String sql = "SELECT * FROM statistic WHERE league_id = ? AND player_id = ?";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setLong(1, playerId);
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
+            stmt.setLong(1, leagueId);
+            stmt.setLong(2, playerId);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
                     Statistic stat = new Statistic(
@@ -174,21 +468,71 @@ public class StatisticRepository implements BaseRepository<Statistic> {
         return result;
     }
 
+    // Statistics of a player in one season; scans a single partition
+    public List<Statistic> getByPlayerIdAndSeason(long playerId, int season) throws SQLException {
+        if (backend != null) {
+            return backend.getByPlayerIdAndSeason(playerId, season);
+        }
+        if (wide != null) {
+            return wide.getByPlayerIdAndSeason(playerId, season);
+        }
+        log.info("Start getByPlayerIdAndSeason: playerId={}, season={}", playerId, season);
+        Connection reader = router.forRead();
+        List<Statistic> result = new ArrayList<>();
+        Long leagueId = partitions.leagueOfPlayer(playerId);
+        if (leagueId == null) {
+            return result;
+        }
+        String sql = "SELECT * FROM statistic WHERE league_id = ? AND season = ? AND player_id = ?";
+
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
+            stmt.setLong(1, leagueId);
+            stmt.setInt(2, season);
+            stmt.setLong(3, playerId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Statistic stat = new Statistic(
+                            rs.getLong("player_id"),
+                            rs.getLong("game_id"),
+                            rs.getLong("statistic_type_id")
+                    );
+                    stat.setId(rs.getLong("id"));
+                    stat.setNumberValue(rs.getLong("number_value"));
+                    stat.setFloatValue(rs.getFloat("float_value"));
+                    result.add(stat);
+                }
+            }
+        }
+
+        log.info("End getByPlayerIdAndSeason: count={}", result.size());
+        return result;
+    }
+
     public List<Statistic> getByPlayerName(String playerName) throws SQLException {
         log.info("Start getByPlayerName: name={}", playerName);
-        PlayerRepository playerRepo = new PlayerRepository(connection);
+        PlayerRepository playerRepo = new PlayerRepository(router);
         Player player = playerRepo.getByName(playerName);
         return player != null ? getByPlayerId(player.getId()) : new ArrayList<>();
     }
 
     public List<Statistic> getByPlayerIdAndGameId(long playerId, long gameId) throws SQLException {
+        if (backend != null) {
+            return backend.getByPlayerIdAndGameId(playerId, gameId);
+        }
+        if (wide != null) {
+            return wide.getByPlayerIdAndGameId(playerId, gameId);
+        }
         log.info("Start getByPlayerIdAndGameId: playerId={}, gameId={}", playerId, gameId);
+        Connection reader = router.forRead();
         List<Statistic> result = new ArrayList<>();
-        String sql = "SELECT * FROM statistic WHERE player_id = ? AND game_id = ?";
-
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setLong(1, playerId);
-            stmt.setLong(2, gameId);
+        PartitionKey key = partitions.forGame(gameId);
+        String sql = "SELECT * FROM statistic WHERE league_id = ? AND season = ? AND player_id = ? AND game_id = ?";
+
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
+            stmt.setLong(1, key.getLeagueId());
+            stmt.setInt(2, key.getSeason());
+            stmt.setLong(3, playerId);
+            stmt.setLong(4, gameId);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
                     Statistic stat = new Statistic(
@@ -208,24 +552,140 @@ public class StatisticRepository implements BaseRepository<Statistic> {
         return result;
     }
 
+    // All statistics of the given players in the given games, in one round trip
+    public List<Statistic> getByPlayerIdsAndGameIds(Collection<Long> playerIds, Collection<Long> gameIds) throws SQLException {
+        if (backend != null) {
+            return backend.getByPlayerIdsAndGameIds(playerIds, gameIds);
+        }
+        log.info("Start getByPlayerIdsAndGameIds: players={}, games={}", playerIds.size(), gameIds.size());
+        Connection reader = router.forRead();
+        List<Statistic> result = new ArrayList<>();
+        if (playerIds.isEmpty() || gameIds.isEmpty()) {
+            return result;
+        }
+        if (wide != null) {
+            return wide.getByPlayerIdsAndGameIds(playerIds, gameIds);
+        }
+        Collection<PartitionKey> keys = partitions.forGames(gameIds).values();
+        String sql = "SELECT * FROM statistic WHERE league_id = ANY(?) AND season = ANY(?) AND player_id = ANY(?) AND game_id = ANY(?)";
+
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
+            setPartitionKeys(stmt, 1, keys);
+            stmt.setArray(3, reader.createArrayOf("bigint", playerIds.toArray()));
+            stmt.setArray(4, reader.createArrayOf("bigint", gameIds.toArray()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Statistic stat = new Statistic(
+                            rs.getLong("player_id"),
+                            rs.getLong("game_id"),
+                            rs.getLong("statistic_type_id")
+                    );
+                    stat.setId(rs.getLong("id"));
+                    stat.setNumberValue(rs.getLong("number_value"));
+                    stat.setFloatValue(rs.getFloat("float_value"));
+                    result.add(stat);
+                }
+            }
+        }
+
+        log.info("End getByPlayerIdsAndGameIds: count={}", result.size());
+        return result;
+    }
+
+    public List<Statistic> getByPlayerIdAndGameIds(long playerId, Collection<Long> gameIds) throws SQLException {
+        if (backend != null) {
+            return backend.getByPlayerIdAndGameIds(playerId, gameIds);
+        }
+        log.info("Start getByPlayerIdAndGameIds: playerId={}, games={}", playerId, gameIds.size());
+        Connection reader = router.forRead();
+        List<Statistic> result = new ArrayList<>();
+        if (gameIds.isEmpty()) {
+            return result;
+        }
+        if (wide != null) {
+            return wide.getByPlayerIdAndGameIds(playerId, gameIds);
+        }
+        Collection<PartitionKey> keys = partitions.forGames(gameIds).values();
+        String sql = "SELECT * FROM statistic WHERE league_id = ANY(?) AND season = ANY(?) AND player_id = ? AND game_id = ANY(?)";
+
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
+            setPartitionKeys(stmt, 1, keys);
+            stmt.setLong(3, playerId);
+            stmt.setArray(4, reader.createArrayOf("bigint", gameIds.toArray()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Statistic stat = new Statistic(
+                            rs.getLong("player_id"),
+                            rs.getLong("game_id"),
+                            rs.getLong("statistic_type_id")
+                    );
+                    stat.setId(rs.getLong("id"));
+                    stat.setNumberValue(rs.getLong("number_value"));
+                    stat.setFloatValue(rs.getFloat("float_value"));
+                    result.add(stat);
+                }
+            }
+        }
+
+        log.info("End getByPlayerIdAndGameIds: count={}", result.size());
+        return result;
+    }
+
+    public List<Statistic> getByGameIdAndTypeId(long gameId, long statisticTypeId) throws SQLException {
+        if (backend != null) {
+            return backend.getByGameIdAndTypeId(gameId, statisticTypeId);
+        }
+        if (wide != null) {
+            return wide.getByGameIdAndTypeId(gameId, statisticTypeId);
+        }
+        log.info("Start getByGameIdAndTypeId: gameId={}, typeId={}", gameId, statisticTypeId);
+        Connection reader = router.forRead();
+        List<Statistic> result = new ArrayList<>();
+        PartitionKey key = partitions.forGame(gameId);
+        String sql = "SELECT * FROM statistic WHERE league_id = ? AND season = ? AND game_id = ? AND statistic_type_id = ?";
+
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
+            stmt.setLong(1, key.getLeagueId());
+            stmt.setInt(2, key.getSeason());
+            stmt.setLong(3, gameId);
+            stmt.setLong(4, statisticTypeId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Statistic stat = new Statistic(
+                            rs.getLong("player_id"),
+                            rs.getLong("game_id"),
+                            rs.getLong("statistic_type_id")
+                    );
+                    stat.setId(rs.getLong("id"));
+                    stat.setNumberValue(rs.getLong("number_value"));
+                    stat.setFloatValue(rs.getFloat("float_value"));
+                    result.add(stat);
+                }
+            }
+        }
+
+        log.info("End getByGameIdAndTypeId: count={}", result.size());
+        return result;
+    }
+
     public List<Statistic> getByPlayerNameAndGameId(String playerName, long gameId) throws SQLException {
         log.info("Start getByPlayerNameAndGameId: playerName={}, gameId={}", playerName, gameId);
-        PlayerRepository playerRepo = new PlayerRepository(connection);
+        PlayerRepository playerRepo = new PlayerRepository(router);
         Player player = playerRepo.getByName(playerName);
         return player != null ? getByPlayerIdAndGameId(player.getId(), gameId) : new ArrayList<>();
     }
 
     public List<Statistic> getByPlayerIdAndGameName(long playerId, String gameName) throws SQLException {
         log.info("Start getByPlayerIdAndGameName: playerId={}, gameName={}", playerId, gameName);
-        GameRepository gameRepo = new GameRepository(connection);
+        GameRepository gameRepo = new GameRepository(router);
         Game game = gameRepo.getByName(gameName);
         return game != null ? getByPlayerIdAndGameId(playerId, game.getId()) : new ArrayList<>();
     }
 
     public List<Statistic> getByPlayerNameAndGameName(String playerName, String gameName) throws SQLException {
         log.info("Start getByPlayerNameAndGameName: playerName={}, gameName={}", playerName, gameName);
-        PlayerRepository playerRepo = new PlayerRepository(connection);
-        GameRepository gameRepo = new GameRepository(connection);
+        PlayerRepository playerRepo = new PlayerRepository(router);
+        GameRepository gameRepo = new GameRepository(router);
         Player player = playerRepo.getByName(playerName);
         Game game = gameRepo.getByName(gameName);
         return (player != null && game != null)
@@ -234,41 +694,183 @@ public class StatisticRepository implements BaseRepository<Statistic> {
     }
     
     public void updateNumberValue(long playerId, long gameId, long statisticTypeId, long newValue) throws SQLException {
+        if (backend != null) {
+            backend.updateNumberValue(playerId, gameId, statisticTypeId, newValue);
+            return;
+        }
+        if (wide != null) {
+            wide.updateNumberValue(playerId, gameId, statisticTypeId, newValue);
+            return;
+        }
         log.info("Start updateNumberValue: playerId={}, gameId={}, statTypeId={}, newValue={}", playerId, gameId, statisticTypeId, newValue);
-        String sql = "UPDATE statistic SET number_value = ? WHERE player_id = ? AND game_id = ? AND statistic_type_id = ?";
+        Connection connection = router.forWrite();
+        PartitionKey key = partitions.forGame(gameId);
+        String sql = """
+            UPDATE statistic SET number_value = ?
+            WHERE league_id = ? AND season = ? AND player_id = ? AND game_id = ? AND statistic_type_id = ?
+        """;
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, newValue);
-            stmt.setLong(2, playerId);
-            stmt.setLong(3, gameId);
-            stmt.setLong(4, statisticTypeId);
+            stmt.setLong(2, key.getLeagueId());
+            stmt.setInt(3, key.getSeason());
+            stmt.setLong(4, playerId);
+            stmt.setLong(5, gameId);
+            stmt.setLong(6, statisticTypeId);
             stmt.executeUpdate();
         }
         log.info("End updateNumberValue");
     }
 
+    @Override
+    public long addNumberValue(long playerId, long gameId, long statisticTypeId, long delta) throws SQLException {
+        if (backend != null) {
+            return backend.addNumberValue(playerId, gameId, statisticTypeId, delta);
+        }
+        if (wide != null) {
+            return wide.addNumberValue(playerId, gameId, statisticTypeId, delta);
+        }
+        log.info("Start addNumberValue: playerId={}, gameId={}, statTypeId={}, delta={}", playerId, gameId, statisticTypeId, delta);
+        Connection connection = router.forWrite();
+        PartitionKey key = partitions.forGame(gameId);
+        partitions.ensure(key);
+        // Relative to the stored value, so concurrent adds are not lost
+        String sql = """
+            INSERT INTO statistic (id, league_id, season, player_id, game_id, statistic_type_id, number_value, float_value)
+            VALUES (?, ?, ?, ?, ?, ?, ?, 0)
+            ON CONFLICT (league_id, season, player_id, game_id, statistic_type_id)
+            DO UPDATE SET number_value = statistic.number_value + EXCLUDED.number_value
+            RETURNING number_value
+        """;
+        long value;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, idGenerator.nextId());
+            stmt.setLong(2, key.getLeagueId());
+            stmt.setInt(3, key.getSeason());
+            stmt.setLong(4, playerId);
+            stmt.setLong(5, gameId);
+            stmt.setLong(6, statisticTypeId);
+            stmt.setLong(7, delta);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                value = rs.getLong(1);
+            }
+        }
+        log.info("End addNumberValue: value={}", value);
+        return value;
+    }
+
     public void updateFloatValue(long playerId, long gameId, long statisticTypeId, float newValue) throws SQLException {
+        if (backend != null) {
+            backend.updateFloatValue(playerId, gameId, statisticTypeId, newValue);
+            return;
+        }
+        if (wide != null) {
+            wide.updateFloatValue(playerId, gameId, statisticTypeId, newValue);
+            return;
+        }
         log.info("Start updateFloatValue: playerId={}, gameId={}, statTypeId={}, newValue={}", playerId, gameId, statisticTypeId, newValue);
-        String sql = "UPDATE statistic SET float_value = ? WHERE player_id = ? AND game_id = ? AND statistic_type_id = ?";
+        Connection connection = router.forWrite();
+        PartitionKey key = partitions.forGame(gameId);
+        String sql = """
+            UPDATE statistic SET float_value = ?
+            WHERE league_id = ? AND season = ? AND player_id = ? AND game_id = ? AND statistic_type_id = ?
+        """;
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setFloat(1, newValue);
-            stmt.setLong(2, playerId);
-            stmt.setLong(3, gameId);
-            stmt.setLong(4, statisticTypeId);
+            stmt.setLong(2, key.getLeagueId());
+            stmt.setInt(3, key.getSeason());
+            stmt.setLong(4, playerId);
+            stmt.setLong(5, gameId);
+            stmt.setLong(6, statisticTypeId);
             stmt.executeUpdate();
         }
         log.info("End updateFloatValue");
     }
 
     public void removeIfExist(long playerId, long gameId, long statisticTypeId) throws SQLException {
+        if (backend != null) {
+            backend.removeIfExist(playerId, gameId, statisticTypeId);
+            return;
+        }
+        if (wide != null) {
+            wide.removeIfExist(playerId, gameId, statisticTypeId);
+            return;
+        }
         log.info("Start deleteByPlayerGameAndType: playerId={}, gameId={}, typeId={}", playerId, gameId, statisticTypeId);
-        String sql = "DELETE FROM statistic WHERE player_id = ? AND game_id = ? AND statistic_type_id = ?";
+        Connection connection = router.forWrite();
+        PartitionKey key = partitions.forGame(gameId);
+        String sql = "DELETE FROM statistic WHERE league_id = ? AND season = ? AND player_id = ? AND game_id = ? AND statistic_type_id = ?";
 
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setLong(1, playerId);
-            stmt.setLong(2, gameId);
-            stmt.setLong(3, statisticTypeId);
+            stmt.setLong(1, key.getLeagueId());
+            stmt.setInt(2, key.getSeason());
+            stmt.setLong(3, playerId);
+            stmt.setLong(4, gameId);
+            stmt.setLong(5, statisticTypeId);
             stmt.executeUpdate();
         }
 
         log.info("End deleteByPlayerGameAndType");
-    }}
+    }
+
+    // Streams a league's statistics, optionally of one season, with names resolved. Rows are read
+    // through a server-side cursor fetchSize at a time, which pgjdbc only does when the connection
+    // is not in autocommit mode, so the caller runs this inside a (read-only) transaction.
+    public long streamByLeague(long leagueId, Integer season, int fetchSize, RecordHandler handler)
+            throws SQLException, IOException {
+        if (backend != null) {
+            return backend.streamByLeague(leagueId, season, fetchSize, handler);
+        }
+        log.info("Start streamByLeague: leagueId={}, season={}", leagueId, season);
+        Connection connection = router.forWrite();
+        String source = wide != null ? WideStatisticStore.ENTRY_ROWS : "statistic";
+        String sql = """
+            SELECT g.name AS game_name, g.date, t.name AS team_name, p.name AS player_name,
+                   st.name AS statistic_type_name, s.number_value, s.float_value
+            FROM %s s
+            JOIN game g ON g.id = s.game_id
+            JOIN player p ON p.id = s.player_id
+            JOIN team t ON t.id = p.team_id
+            JOIN statistic_type st ON st.id = s.statistic_type_id
+            WHERE s.league_id = ?
+        """.formatted(source) + (season != null ? " AND s.season = ?" : "");
+        long count = 0;
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setFetchSize(fetchSize);
+            stmt.setLong(1, leagueId);
+            if (season != null) {
+                stmt.setInt(2, season);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.accept(new StatisticRecord(
+                            rs.getString("game_name"),
+                            rs.getDate("date").toLocalDate(),
+                            rs.getString("team_name"),
+                            rs.getString("player_name"),
+                            rs.getString("statistic_type_name"),
+                            rs.getLong("number_value"),
+                            rs.getFloat("float_value")
+                    ));
+                    count++;
+                }
+            }
+        }
+
+        log.info("End streamByLeague: count={}", count);
+        return count;
+    }
+
+    // Binds the distinct leagues and seasons of the given keys as two arrays starting at index
+    private void setPartitionKeys(PreparedStatement stmt, int index, Collection<PartitionKey> keys) throws SQLException {
+        Set<Long> leagueIds = new TreeSet<>();
+        Set<Integer> seasons = new TreeSet<>();
+        for (PartitionKey key : keys) {
+            leagueIds.add(key.getLeagueId());
+            seasons.add(key.getSeason());
+        }
+        stmt.setArray(index, stmt.getConnection().createArrayOf("bigint", leagueIds.toArray()));
+        stmt.setArray(index + 1, stmt.getConnection().createArrayOf("integer", seasons.toArray()));
+    }
+}
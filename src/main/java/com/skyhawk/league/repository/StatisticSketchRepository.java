@@ -0,0 +1,237 @@
+package com.skyhawk.league.repository;
+
+import com.skyhawk.league.model.StatisticSketch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Quantile sketches of per-game statistic values as compact blobs, one row per league, statistic type,
+// season and team. A row is rewritten whole when games of its team finish; the unique key leads with
+// league_id, so a league's sketches are one index range.
+public class StatisticSketchRepository implements StatisticSketchStore {
+
+    private static final Logger log = LoggerFactory.getLogger(StatisticSketchRepository.class);
+    private final ConnectionRouter router;
+    // Set when a storage backend is installed; every call then goes to it
+    private final StatisticSketchStore backend;
+    private final SnowflakeIdGenerator idGenerator = SnowflakeIdGenerator.getInstance();
+
+    public StatisticSketchRepository(Connection connection) {
+        this(new ConnectionRouter(connection));
+    }
+
+    // Reads go through router.forRead(), writes to the primary
+    public StatisticSketchRepository(ConnectionRouter router) {
+        this.router = router;
+        StorageBackend storage = Storage.getBackend();
+        this.backend = storage != null ? storage.sketches() : null;
+    }
+
+    @Override
+    public void createTable() throws SQLException {
+        if (backend != null) {
+            backend.createTable();
+            return;
+        }
+        log.info("Start createTable for statistic_sketch");
+        Connection connection = router.forWrite();
+        String sql = """
+            CREATE TABLE IF NOT EXISTS statistic_sketch (
+                id BIGINT PRIMARY KEY,
+                league_id BIGINT NOT NULL,
+                statistic_type_id BIGINT NOT NULL,
+                season INTEGER NOT NULL,
+                team_id BIGINT NOT NULL,
+                sketch BYTEA NOT NULL,
+                UNIQUE (league_id, statistic_type_id, season, team_id),
+                FOREIGN KEY (league_id) REFERENCES league(id) ON DELETE CASCADE,
+                FOREIGN KEY (statistic_type_id) REFERENCES statistic_type(id) ON DELETE CASCADE,
+                FOREIGN KEY (team_id) REFERENCES team(id) ON DELETE CASCADE
+            );
+        """;
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+        }
+
+        log.info("End createTable for statistic_sketch");
+    }
+
+    @Override
+    public long saveIfNotExists(StatisticSketch sketch) throws SQLException {
+        if (backend != null) {
+            return backend.saveIfNotExists(sketch);
+        }
+        log.info("Start saveIfNotExists: sketch={}", sketch);
+        Connection connection = router.forWrite();
+        if (sketch.getId() == 0) {
+            sketch.setId(idGenerator.nextId());
+        }
+        String sql = """
+            INSERT INTO statistic_sketch (id, league_id, statistic_type_id, season, team_id, sketch)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (league_id, statistic_type_id, season, team_id) DO UPDATE SET league_id = EXCLUDED.league_id
+            RETURNING id
+        """;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            bind(stmt, sketch);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    sketch.setId(rs.getLong(1));
+                }
+            }
+        }
+        log.info("End saveIfNotExists: return={}", sketch.getId());
+        return sketch.getId();
+    }
+
+    @Override
+    public void saveAll(List<StatisticSketch> sketches) throws SQLException {
+        if (backend != null) {
+            backend.saveAll(sketches);
+            return;
+        }
+        log.info("Start saveAll: count={}", sketches.size());
+        for (StatisticSketch sketch : sketches) {
+            saveIfNotExists(sketch);
+        }
+        log.info("End saveAll: count={}", sketches.size());
+    }
+
+    // One batch; the stored row of a taken key keeps its id and gets the new blob
+    @Override
+    public void upsertAll(List<StatisticSketch> sketches) throws SQLException {
+        if (backend != null) {
+            backend.upsertAll(sketches);
+            return;
+        }
+        log.info("Start upsertAll: count={}", sketches.size());
+        Connection connection = router.forWrite();
+        if (sketches.isEmpty()) {
+            return;
+        }
+        String sql = """
+            INSERT INTO statistic_sketch (id, league_id, statistic_type_id, season, team_id, sketch)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (league_id, statistic_type_id, season, team_id) DO UPDATE SET sketch = EXCLUDED.sketch
+        """;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (StatisticSketch sketch : sketches) {
+                if (sketch.getId() == 0) {
+                    sketch.setId(idGenerator.nextId());
+                }
+                bind(stmt, sketch);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+        log.info("End upsertAll: count={}", sketches.size());
+    }
+
+    private static void bind(PreparedStatement stmt, StatisticSketch sketch) throws SQLException {
+        stmt.setLong(1, sketch.getId());
+        stmt.setLong(2, sketch.getLeagueId());
+        stmt.setLong(3, sketch.getStatisticTypeId());
+        stmt.setInt(4, sketch.getSeason());
+        stmt.setLong(5, sketch.getTeamId());
+        stmt.setBytes(6, sketch.getSketch());
+    }
+
+    public List<StatisticSketch> getByLeagueId(long leagueId) throws SQLException {
+        if (backend != null) {
+            return backend.getByLeagueId(leagueId);
+        }
+        log.info("Start getByLeagueId: leagueId={}", leagueId);
+        Connection reader = router.forRead();
+        List<StatisticSketch> sketches = new ArrayList<>();
+        try (PreparedStatement stmt = reader.prepareStatement("SELECT * FROM statistic_sketch WHERE league_id = ?")) {
+            stmt.setLong(1, leagueId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    sketches.add(extractSketchFromResultSet(rs));
+                }
+            }
+        }
+        log.info("End getByLeagueId: leagueId={}, count={}", leagueId, sketches.size());
+        return sketches;
+    }
+
+    @Override
+    public List<StatisticSketch> getAll() throws SQLException {
+        if (backend != null) {
+            return backend.getAll();
+        }
+        log.info("Start getAll for statistic sketches");
+        Connection reader = router.forRead();
+        List<StatisticSketch> sketches = new ArrayList<>();
+        try (Statement stmt = reader.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM statistic_sketch ORDER BY id")) {
+            while (rs.next()) {
+                sketches.add(extractSketchFromResultSet(rs));
+            }
+        }
+        log.info("End getAll: count={}", sketches.size());
+        return sketches;
+    }
+
+    @Override
+    public StatisticSketch getById(long id) throws SQLException {
+        if (backend != null) {
+            return backend.getById(id);
+        }
+        log.info("Start getById: id={}", id);
+        Connection reader = router.forRead();
+        StatisticSketch sketch = null;
+        try (PreparedStatement stmt = reader.prepareStatement("SELECT * FROM statistic_sketch WHERE id = ?")) {
+            stmt.setLong(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    sketch = extractSketchFromResultSet(rs);
+                }
+            }
+        }
+        log.info("End getById: id={}, return={}", id, sketch);
+        return sketch;
+    }
+
+    @Override
+    public List<StatisticSketch> getByIds(Collection<Long> ids) throws SQLException {
+        if (backend != null) {
+            return backend.getByIds(ids);
+        }
+        log.info("Start getByIds: count={}", ids.size());
+        Connection reader = router.forRead();
+        List<StatisticSketch> result = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        try (PreparedStatement stmt = reader.prepareStatement("SELECT * FROM statistic_sketch WHERE id = ANY(?) ORDER BY id")) {
+            stmt.setArray(1, reader.createArrayOf("bigint", ids.toArray()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    result.add(extractSketchFromResultSet(rs));
+                }
+            }
+        }
+        log.info("End getByIds: count={}", result.size());
+        return result;
+    }
+
+    @Override
+    public StatisticSketch getByName(String name) throws SQLException {
+        log.info("getByName is not supported for StatisticSketch");
+        throw new UnsupportedOperationException("StatisticSketch does not support getByName()");
+    }
+
+    private StatisticSketch extractSketchFromResultSet(ResultSet rs) throws SQLException {
+        StatisticSketch sketch = new StatisticSketch(rs.getLong("league_id"), rs.getLong("statistic_type_id"),
+                rs.getInt("season"), rs.getLong("team_id"), rs.getBytes("sketch"));
+        sketch.setId(rs.getLong("id"));
+        return sketch;
+    }
+}
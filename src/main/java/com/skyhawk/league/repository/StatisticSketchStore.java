@@ -0,0 +1,15 @@
+package com.skyhawk.league.repository;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import com.skyhawk.league.model.StatisticSketch;
+
+// Storage of the statistic sketches; see StorageBackend and StatisticSketchRepository for the semantics
+public interface StatisticSketchStore extends BaseRepository<StatisticSketch> {
+
+    // Inserts each sketch or replaces the stored blob of its (league, type, season, team)
+    void upsertAll(List<StatisticSketch> sketches) throws SQLException;
+
+    List<StatisticSketch> getByLeagueId(long leagueId) throws SQLException;
+}
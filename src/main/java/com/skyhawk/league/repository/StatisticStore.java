@@ -0,0 +1,53 @@
+package com.skyhawk.league.repository;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+import com.skyhawk.league.model.Statistic;
+import com.skyhawk.league.model.StatisticRecord;
+
+// Storage of statistic rows, unique by player, game and statistic type; see StorageBackend
+public interface StatisticStore extends BaseRepository<Statistic> {
+
+    @FunctionalInterface
+    interface RecordHandler {
+        void accept(StatisticRecord record) throws IOException;
+    }
+
+    // Makes the given rows the game's complete set of statistics
+    void replaceGameStatistics(long gameId, List<Statistic> stats) throws SQLException;
+
+    // Like replaceGameStatistics, for the given players only: other players' rows of the game are kept
+    void replacePlayerStatistics(long gameId, Collection<Long> playerIds, List<Statistic> stats) throws SQLException;
+
+    // Writes the rows, overwriting the values of rows that already exist
+    void upsertAll(List<Statistic> stats) throws SQLException;
+
+    List<Statistic> getByPlayerId(long playerId) throws SQLException;
+
+    List<Statistic> getByPlayerIdAndSeason(long playerId, int season) throws SQLException;
+
+    List<Statistic> getByPlayerIdAndGameId(long playerId, long gameId) throws SQLException;
+
+    List<Statistic> getByPlayerIdsAndGameIds(Collection<Long> playerIds, Collection<Long> gameIds) throws SQLException;
+
+    List<Statistic> getByPlayerIdAndGameIds(long playerId, Collection<Long> gameIds) throws SQLException;
+
+    List<Statistic> getByGameIdAndTypeId(long gameId, long statisticTypeId) throws SQLException;
+
+    void updateNumberValue(long playerId, long gameId, long statisticTypeId, long newValue) throws SQLException;
+
+    // Adds delta to the number value, inserting the row at delta when there is none; returns the new value
+    long addNumberValue(long playerId, long gameId, long statisticTypeId, long delta) throws SQLException;
+
+    void updateFloatValue(long playerId, long gameId, long statisticTypeId, float newValue) throws SQLException;
+
+    void removeIfExist(long playerId, long gameId, long statisticTypeId) throws SQLException;
+
+    // Streams a league's statistics, optionally of one season, with names resolved; fetchSize is a
+    // hint for backends that read in batches
+    long streamByLeague(long leagueId, Integer season, int fetchSize, RecordHandler handler)
+            throws SQLException, IOException;
+}
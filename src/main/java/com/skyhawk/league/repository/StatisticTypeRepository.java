@@ -7,6 +7,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -15,18 +16,33 @@ import org.slf4j.LoggerFactory;
 import com.skyhawk.league.model.StatisticType;
 import com.skyhawk.league.model.StatisticType.StatTypeEnum;
 
-public class StatisticTypeRepository implements BaseRepository<StatisticType> {
+public class StatisticTypeRepository implements StatisticTypeStore {
 
     private static final Logger log = LoggerFactory.getLogger(StatisticTypeRepository.class);
-    private final Connection connection;
+    private final ConnectionRouter router;
+    // Set when a storage backend is installed; every call then goes to it
+    private final StatisticTypeStore backend;
+    private final SnowflakeIdGenerator idGenerator = SnowflakeIdGenerator.getInstance();
 
     public StatisticTypeRepository(Connection connection) {
-        this.connection = connection;
+        this(new ConnectionRouter(connection));
+    }
+
+    // Reads go through router.forRead(), writes to the primary
+    public StatisticTypeRepository(ConnectionRouter router) {
+        this.router = router;
+        StorageBackend storage = Storage.getBackend();
+        this.backend = storage != null ? storage.statisticTypes() : null;
     }
 
     @Override
     public void createTable() throws SQLException {
+        if (backend != null) {
+            backend.createTable();
+            return;
+        }
         log.info("Start createTable for statistic_type");
+        Connection connection = router.forWrite();
         String sql = """
             CREATE TABLE IF NOT EXISTS statistic_type (
                 id SERIAL PRIMARY KEY,
@@ -50,65 +66,121 @@ public class StatisticTypeRepository implements BaseRepository<StatisticType> {
 
     @Override
     public long saveIfNotExists(StatisticType type) throws SQLException {
+        if (backend != null) {
+            return backend.saveIfNotExists(type);
+        }
         log.info("Start saveIfNotExists: leagueId={}, name={}", type.getLeagueId(), type.getName());
-        Long generatedId = null;
+        Connection connection = router.forWrite();
+        if (type.getId() == 0) {
+            type.setId(idGenerator.nextId());
+        }
+        String insertSql = """
+            INSERT INTO statistic_type (id, league_id, name, description, type, min_value, max_value)
+            VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING
+        """;
+        int inserted;
+        try (PreparedStatement insertStmt = connection.prepareStatement(insertSql)) {
+            insertStmt.setLong(1, type.getId());
+            insertStmt.setLong(2, type.getLeagueId());
+            insertStmt.setString(3, type.getName());
+            insertStmt.setString(4, type.getDescription());
+            insertStmt.setString(5, type.getType().name());
+            if (type.getMinValue() != null) {
+                insertStmt.setInt(6, type.getMinValue());
+            } else {
+                insertStmt.setNull(6, Types.INTEGER);
+            }
+            if (type.getMaxValue() != null) {
+                insertStmt.setInt(7, type.getMaxValue());
+            } else {
+                insertStmt.setNull(7, Types.INTEGER);
+            }
+            inserted = insertStmt.executeUpdate();
+        }
+        if (inserted == 0) {
+            type.setId(existingId(type));
+            log.trace("StatisticType already exists with ID: {}", type.getId());
+        }
+
+        log.info("End saveIfNotExists: name={}, return={}", type.getName(), type.getId());
+        return type.getId();
+    }
 
+    // Id of the stored statistic type with the same league and name
+    private long existingId(StatisticType type) throws SQLException {
+        Connection connection = router.forWrite();
         String selectSql = "SELECT id FROM statistic_type WHERE league_id = ? AND name = ?";
         try (PreparedStatement selectStmt = connection.prepareStatement(selectSql)) {
             selectStmt.setLong(1, type.getLeagueId());
             selectStmt.setString(2, type.getName());
             try (ResultSet rs = selectStmt.executeQuery()) {
                 if (rs.next()) {
-                    generatedId = rs.getLong("id");
-                    log.trace("StatisticType already exists with ID: {}", generatedId);
+                    return rs.getLong("id");
                 }
             }
         }
+        throw new SQLException("Failed to insert statistic_type, no ID found: " + type.getName());
+    }
 
-        if (generatedId == null) {
-            String insertSql = """
-                INSERT INTO statistic_type (league_id, name, description, type, min_value, max_value)
-                VALUES (?, ?, ?, ?, ?, ?) RETURNING id
-            """;
-
-            try (PreparedStatement insertStmt = connection.prepareStatement(insertSql)) {
-                insertStmt.setLong(1, type.getLeagueId());
-                insertStmt.setString(2, type.getName());
-                insertStmt.setString(3, type.getDescription());
-                insertStmt.setString(4, type.getType().name());
+    @Override
+    public void saveAll(List<StatisticType> types) throws SQLException {
+        if (backend != null) {
+            backend.saveAll(types);
+            return;
+        }
+        log.info("Start saveAll: count={}", types.size());
+        Connection connection = router.forWrite();
+        if (types.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO statistic_type (id, league_id, name, description, type, min_value, max_value) VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+        int[] counts;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (StatisticType type : types) {
+                if (type.getId() == 0) {
+                    type.setId(idGenerator.nextId());
+                }
+                stmt.setLong(1, type.getId());
+                stmt.setLong(2, type.getLeagueId());
+                stmt.setString(3, type.getName());
+                stmt.setString(4, type.getDescription());
+                stmt.setString(5, type.getType().name());
                 if (type.getMinValue() != null) {
-                    insertStmt.setInt(5, type.getMinValue());
+                    stmt.setInt(6, type.getMinValue());
                 } else {
-                    insertStmt.setNull(5, Types.INTEGER);
+                    stmt.setNull(6, Types.INTEGER);
                 }
                 if (type.getMaxValue() != null) {
-                    insertStmt.setInt(6, type.getMaxValue());
+                    stmt.setInt(7, type.getMaxValue());
                 } else {
-                    insertStmt.setNull(6, Types.INTEGER);
-                }
-
-                try (ResultSet rs = insertStmt.executeQuery()) {
-                    if (rs.next()) {
-                        generatedId = rs.getLong(1);
-                        type.setId(generatedId);
-                    } else {
-                        throw new SQLException("Failed to insert statistic_type, no ID returned.");
-                    }
+                    stmt.setNull(7, Types.INTEGER);
                 }
+                stmt.addBatch();
             }
+            counts = stmt.executeBatch();
         }
-
-        log.info("End saveIfNotExists: name={}, return={}", type.getName(), generatedId);
-        return generatedId;
+        int existing = 0;
+        for (int i = 0; i < counts.length; i++) {
+            StatisticType type = types.get(i);
+            if (counts[i] == 0) {
+                type.setId(existingId(type));
+                existing++;
+            }
+        }
+        log.info("End saveAll: count={}, existing={}", types.size(), existing);
     }
 
     @Override
     public List<StatisticType> getAll() throws SQLException {
+        if (backend != null) {
+            return backend.getAll();
+        }
         log.info("Start getAll for statistic_type");
+        Connection reader = router.forRead();
         List<StatisticType> types = new ArrayList<>();
         String sql = "SELECT * FROM statistic_type";
 
-        try (Statement stmt = connection.createStatement();
+        try (Statement stmt = reader.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
@@ -132,11 +204,15 @@ public class StatisticTypeRepository implements BaseRepository<StatisticType> {
 
     @Override
     public StatisticType getById(long id) throws SQLException {
+        if (backend != null) {
+            return backend.getById(id);
+        }
         log.info("Start getById: id={}", id);
+        Connection reader = router.forRead();
         StatisticType type = null;
         String sql = "SELECT * FROM statistic_type WHERE id = ?";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
             stmt.setLong(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -157,13 +233,52 @@ public class StatisticTypeRepository implements BaseRepository<StatisticType> {
         return type;
     }
 
+    @Override
+    public List<StatisticType> getByIds(Collection<Long> ids) throws SQLException {
+        if (backend != null) {
+            return backend.getByIds(ids);
+        }
+        log.info("Start getByIds: count={}", ids.size());
+        Connection reader = router.forRead();
+        List<StatisticType> result = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        String sql = "SELECT * FROM statistic_type WHERE id = ANY(?)";
+
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
+            stmt.setArray(1, reader.createArrayOf("bigint", ids.toArray()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    StatisticType type = new StatisticType(
+                            rs.getLong("league_id"),
+                            rs.getString("name"),
+                            rs.getString("description"),
+                            StatTypeEnum.valueOf(rs.getString("type")),
+                            rs.getObject("min_value", Integer.class),
+                            rs.getObject("max_value", Integer.class)
+                    );
+                    type.setId(rs.getLong("id"));
+                    result.add(type);
+                }
+            }
+        }
+
+        log.info("End getByIds: count={}", result.size());
+        return result;
+    }
+
     @Override
     public StatisticType getByName(String name) throws SQLException {
+        if (backend != null) {
+            return backend.getByName(name);
+        }
         log.info("Start getByName: name={}", name);
+        Connection reader = router.forRead();
         StatisticType type = null;
         String sql = "SELECT * FROM statistic_type WHERE name = ?";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
             stmt.setString(1, name);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -183,4 +298,36 @@ public class StatisticTypeRepository implements BaseRepository<StatisticType> {
         log.info("End getByName: name={}, return={}", name, type);
         return type;
     }
+
+    @Override
+    public StatisticType getByLeagueIdAndName(long leagueId, String name) throws SQLException {
+        if (backend != null) {
+            return backend.getByLeagueIdAndName(leagueId, name);
+        }
+        log.info("Start getByLeagueIdAndName: leagueId={}, name={}", leagueId, name);
+        Connection reader = router.forRead();
+        StatisticType type = null;
+        String sql = "SELECT * FROM statistic_type WHERE league_id = ? AND name = ?";
+
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
+            stmt.setLong(1, leagueId);
+            stmt.setString(2, name);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    type = new StatisticType(
+                            rs.getLong("league_id"),
+                            rs.getString("name"),
+                            rs.getString("description"),
+                            StatTypeEnum.valueOf(rs.getString("type")),
+                            rs.getObject("min_value", Integer.class),
+                            rs.getObject("max_value", Integer.class)
+                    );
+                    type.setId(rs.getLong("id"));
+                }
+            }
+        }
+
+        log.info("End getByLeagueIdAndName: leagueId={}, name={}, return={}", leagueId, name, type);
+        return type;
+    }
 }
@@ -0,0 +1,12 @@
+package com.skyhawk.league.repository;
+
+import java.sql.SQLException;
+
+import com.skyhawk.league.model.StatisticType;
+
+// Storage of statistic types; see StorageBackend
+public interface StatisticTypeStore extends BaseRepository<StatisticType> {
+
+    // Names are unique per league only; null when the league has no such type
+    StatisticType getByLeagueIdAndName(long leagueId, String name) throws SQLException;
+}
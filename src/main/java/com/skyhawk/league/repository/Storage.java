@@ -0,0 +1,18 @@
+package com.skyhawk.league.repository;
+
+// The storage backend the repositories hand their calls to; null, the default, is PostgreSQL
+public final class Storage {
+    private static volatile StorageBackend backend;
+
+    private Storage() {
+    }
+
+    public static StorageBackend getBackend() {
+        return backend;
+    }
+
+    // Applies to repositories created afterwards; set once at startup
+    public static void setBackend(StorageBackend newBackend) {
+        backend = newBackend;
+    }
+}
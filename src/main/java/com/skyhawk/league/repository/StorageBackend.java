@@ -0,0 +1,32 @@
+package com.skyhawk.league.repository;
+
+/**
+ * A storage engine behind the repositories. Without an installed backend the repositories run
+ * their SQL against PostgreSQL; once one is installed with {@link Storage#setBackend}, every repository
+ * created afterwards hands each call to the backend's store of its entity instead, so controllers
+ * and the event pipeline work unchanged on top of it. Stores follow the contracts of the JDBC
+ * repositories, including the unique keys their saveIfNotExists and saveAll rely on.
+ *
+ * Maintenance tools (partitions, statistic layout, import, replay) work on the database directly
+ * and are PostgreSQL only.
+ */
+public interface StorageBackend {
+
+    LeagueStore leagues();
+
+    TeamStore teams();
+
+    PlayerStore players();
+
+    GameStore games();
+
+    StatisticTypeStore statisticTypes();
+
+    StatisticStore statistics();
+
+    EventStore events();
+
+    PlayerStintStore stints();
+
+    StatisticSketchStore sketches();
+}
@@ -6,6 +6,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -13,18 +14,33 @@ import org.slf4j.LoggerFactory;
 
 import com.skyhawk.league.model.Team;
 
-public class TeamRepository implements BaseRepository<Team> {
+public class TeamRepository implements TeamStore {
     private static final Logger log = LoggerFactory.getLogger(TeamRepository.class);
 
-    private final Connection connection;
+    private final ConnectionRouter router;
+    // Set when a storage backend is installed; every call then goes to it
+    private final TeamStore backend;
+    private final SnowflakeIdGenerator idGenerator = SnowflakeIdGenerator.getInstance();
 
     public TeamRepository(Connection connection) {
-        this.connection = connection;
+        this(new ConnectionRouter(connection));
+    }
+
+    // Reads go through router.forRead(), writes to the primary
+    public TeamRepository(ConnectionRouter router) {
+        this.router = router;
+        StorageBackend storage = Storage.getBackend();
+        this.backend = storage != null ? storage.teams() : null;
     }
 
     @Override
     public void createTable() throws SQLException {
+        if (backend != null) {
+            backend.createTable();
+            return;
+        }
         log.info("Start createTable for team");
+        Connection connection = router.forWrite();
         String sql = """
             CREATE TABLE IF NOT EXISTS team (
                 id SERIAL PRIMARY KEY,
@@ -45,50 +61,96 @@ public class TeamRepository implements BaseRepository<Team> {
 
     @Override
     public long saveIfNotExists(Team team) throws SQLException {
+        if (backend != null) {
+            return backend.saveIfNotExists(team);
+        }
         log.info("Start saveIfNotExists: leagueId={}, name={}", team.getLeagueId(), team.getName());
-        Long generatedId = null;
+        Connection connection = router.forWrite();
+        if (team.getId() == 0) {
+            team.setId(idGenerator.nextId());
+        }
+        String insertSql = "INSERT INTO team (id, league_id, name, description) VALUES (?, ?, ?, ?) ON CONFLICT DO NOTHING";
+        int inserted;
+        try (PreparedStatement insertStmt = connection.prepareStatement(insertSql)) {
+            insertStmt.setLong(1, team.getId());
+            insertStmt.setLong(2, team.getLeagueId());
+            insertStmt.setString(3, team.getName());
+            insertStmt.setString(4, team.getDescription());
+            inserted = insertStmt.executeUpdate();
+        }
+        if (inserted == 0) {
+            team.setId(existingId(team));
+            log.trace("Team already exists with ID: {}", team.getId());
+        }
 
+        log.info("End saveIfNotExists: name={}, return={}", team.getName(), team.getId());
+        return team.getId();
+    }
+
+    // Id of the stored team with the same league and name
+    private long existingId(Team team) throws SQLException {
+        Connection connection = router.forWrite();
         String selectSql = "SELECT id FROM team WHERE league_id = ? AND name = ?";
         try (PreparedStatement selectStmt = connection.prepareStatement(selectSql)) {
             selectStmt.setLong(1, team.getLeagueId());
             selectStmt.setString(2, team.getName());
             try (ResultSet rs = selectStmt.executeQuery()) {
                 if (rs.next()) {
-                    generatedId = rs.getLong("id");
-                    log.trace("Team already exists with ID: {}", generatedId);
+                    return rs.getLong("id");
                 }
             }
         }
+        throw new SQLException("Failed to insert team, no ID found: " + team.getName());
+    }
 
-        if (generatedId == null) {
-            String insertSql = "INSERT INTO team (league_id, name, description) VALUES (?, ?, ?) RETURNING id";
-            try (PreparedStatement insertStmt = connection.prepareStatement(insertSql)) {
-                insertStmt.setLong(1, team.getLeagueId());
-                insertStmt.setString(2, team.getName());
-                insertStmt.setString(3, team.getDescription());
-
-                try (ResultSet rs = insertStmt.executeQuery()) {
-                    if (rs.next()) {
-                        generatedId = rs.getLong(1);
-                        team.setId(generatedId);
-                    } else {
-                        throw new SQLException("Failed to insert team, no ID returned.");
-                    }
+    @Override
+    public void saveAll(List<Team> teams) throws SQLException {
+        if (backend != null) {
+            backend.saveAll(teams);
+            return;
+        }
+        log.info("Start saveAll: count={}", teams.size());
+        Connection connection = router.forWrite();
+        if (teams.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO team (id, league_id, name, description) VALUES (?, ?, ?, ?) ON CONFLICT DO NOTHING";
+        int[] counts;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (Team team : teams) {
+                if (team.getId() == 0) {
+                    team.setId(idGenerator.nextId());
                 }
+                stmt.setLong(1, team.getId());
+                stmt.setLong(2, team.getLeagueId());
+                stmt.setString(3, team.getName());
+                stmt.setString(4, team.getDescription());
+                stmt.addBatch();
             }
+            counts = stmt.executeBatch();
         }
-
-        log.info("End saveIfNotExists: name={}, return={}", team.getName(), generatedId);
-        return generatedId;
+        int existing = 0;
+        for (int i = 0; i < counts.length; i++) {
+            Team team = teams.get(i);
+            if (counts[i] == 0) {
+                team.setId(existingId(team));
+                existing++;
+            }
+        }
+        log.info("End saveAll: count={}, existing={}", teams.size(), existing);
     }
 
     @Override
     public List<Team> getAll() throws SQLException {
+        if (backend != null) {
+            return backend.getAll();
+        }
         log.info("Start getAll for team");
+        Connection reader = router.forRead();
         List<Team> teams = new ArrayList<>();
         String sql = "SELECT * FROM team";
 
-        try (Statement stmt = connection.createStatement();
+        try (Statement stmt = reader.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
             while (rs.next()) {
@@ -109,11 +171,15 @@ public class TeamRepository implements BaseRepository<Team> {
 
     @Override
     public Team getById(long id) throws SQLException {
+        if (backend != null) {
+            return backend.getById(id);
+        }
         log.info("Start getById: id={}", id);
+        Connection reader = router.forRead();
         Team team = null;
         String sql = "SELECT * FROM team WHERE id = ?";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
             stmt.setLong(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -131,13 +197,49 @@ public class TeamRepository implements BaseRepository<Team> {
         return team;
     }
 
+    @Override
+    public List<Team> getByIds(Collection<Long> ids) throws SQLException {
+        if (backend != null) {
+            return backend.getByIds(ids);
+        }
+        log.info("Start getByIds: count={}", ids.size());
+        Connection reader = router.forRead();
+        List<Team> result = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        String sql = "SELECT * FROM team WHERE id = ANY(?)";
+
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
+            stmt.setArray(1, reader.createArrayOf("bigint", ids.toArray()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Team team = new Team(
+                            rs.getLong("league_id"),
+                            rs.getString("name"),
+                            rs.getString("description")
+                    );
+                    team.setId(rs.getLong("id"));
+                    result.add(team);
+                }
+            }
+        }
+
+        log.info("End getByIds: count={}", result.size());
+        return result;
+    }
+
     @Override
     public Team getByName(String name) throws SQLException {
+        if (backend != null) {
+            return backend.getByName(name);
+        }
         log.info("Start getByName: name={}", name);
+        Connection reader = router.forRead();
         Team team = null;
         String sql = "SELECT * FROM team WHERE name = ?";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement stmt = reader.prepareStatement(sql)) {
             stmt.setString(1, name);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -0,0 +1,7 @@
+package com.skyhawk.league.repository;
+
+import com.skyhawk.league.model.Team;
+
+// Storage of teams; see StorageBackend
+public interface TeamStore extends BaseRepository<Team> {
+}
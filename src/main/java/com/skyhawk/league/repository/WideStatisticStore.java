@@ -0,0 +1,512 @@
+package com.skyhawk.league.repository;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.skyhawk.league.model.Statistic;
+import com.skyhawk.league.repository.StatisticPartitions.PartitionKey;
+
+/**
+ * Wide statistic layout: one statistic_line row per (player, game) holding every statistic of the
+ * box score in a JSONB map keyed by statistic type id, each value a [number_value, float_value, id]
+ * triple. A box score of 20 types is one row and one index entry, and each write updates that row in
+ * place with jsonb_set.
+ *
+ * Used by StatisticRepository when the layout is StatisticLayout.WIDE. Each entry keeps the id it was
+ * given when first written (from SnowflakeIdGenerator, or the narrow row's id when copied), so
+ * statistics keep their ids across layouts. Ids are not indexed: looking an entry up by id scans
+ * statistic_line, which nothing on the request path does.
+ */
+public class WideStatisticStore {
+    private static final Logger log = LoggerFactory.getLogger(WideStatisticStore.class);
+
+    private static final String SELECT_ENTRIES = """
+        SELECT l.player_id, l.game_id, e.key::bigint AS statistic_type_id,
+               (e.value->>0)::bigint AS number_value, (e.value->>1)::real AS float_value,
+               (e.value->>2)::bigint AS id
+        FROM statistic_line l CROSS JOIN LATERAL jsonb_each(l.stats) e
+    """;
+
+    // The entries as narrow statistic rows, for queries written against the narrow layout
+    static final String ENTRY_ROWS = """
+        (SELECT l.league_id, l.season, l.player_id, l.game_id, e.key::bigint AS statistic_type_id,
+                (e.value->>0)::bigint AS number_value, (e.value->>1)::real AS float_value
+         FROM statistic_line l CROSS JOIN LATERAL jsonb_each(l.stats) e)
+    """;
+
+    // Adds the entry unless the row already has one for the type; the existing value and id win.
+    // Returns the entry's id when it was added
+    private static final String UPSERT_ENTRY = """
+        INSERT INTO statistic_line (player_id, game_id, league_id, season, stats)
+        VALUES (?, ?, ?, ?, jsonb_build_object(?::text, jsonb_build_array(?::bigint, ?::real, ?::bigint)))
+        ON CONFLICT (player_id, game_id) DO UPDATE SET stats = EXCLUDED.stats || statistic_line.stats
+        WHERE NOT statistic_line.stats ?? ?::text
+        RETURNING (stats->?::text->>2)::bigint
+    """;
+
+    // Adds the entry or overwrites the value of the existing one, which keeps its id; the row is left
+    // alone when the value is the same
+    private static final String REPLACE_ENTRY = """
+        INSERT INTO statistic_line AS l (player_id, game_id, league_id, season, stats)
+        VALUES (?, ?, ?, ?, jsonb_build_object(?::text, jsonb_build_array(?::bigint, ?::real, ?::bigint)))
+        ON CONFLICT (player_id, game_id) DO UPDATE SET stats = l.stats || jsonb_build_object(?::text,
+            jsonb_build_array(EXCLUDED.stats->?::text->0, EXCLUDED.stats->?::text->1,
+                              COALESCE(l.stats->?::text->2, EXCLUDED.stats->?::text->2)))
+        WHERE (l.stats->?::text->0, l.stats->?::text->1)
+            IS DISTINCT FROM (EXCLUDED.stats->?::text->0, EXCLUDED.stats->?::text->1)
+    """;
+
+    private final SnowflakeIdGenerator idGenerator = SnowflakeIdGenerator.getInstance();
+
+    private final ConnectionRouter router;
+    private final StatisticPartitions partitions;
+
+    public WideStatisticStore(ConnectionRouter router, StatisticPartitions partitions) {
+        this.router = router;
+        this.partitions = partitions;
+    }
+
+    public static void createTable(Connection connection) throws SQLException {
+        log.info("Start createTable for statistic_line");
+        String sql = """
+            CREATE TABLE IF NOT EXISTS statistic_line (
+                player_id BIGINT NOT NULL,
+                game_id BIGINT NOT NULL,
+                league_id BIGINT NOT NULL,
+                season INTEGER NOT NULL,
+                stats JSONB NOT NULL DEFAULT '{}',
+                PRIMARY KEY (player_id, game_id),
+                FOREIGN KEY (player_id) REFERENCES player(id) ON DELETE CASCADE,
+                FOREIGN KEY (game_id) REFERENCES game(id) ON DELETE CASCADE
+            );
+            CREATE INDEX IF NOT EXISTS idx_statistic_line_game_id ON statistic_line (game_id);
+        """;
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+        }
+        log.info("End createTable for statistic_line");
+    }
+
+    // Upserts every narrow statistic into its wide row; only run by "statistics to-wide" when switching
+    // to the wide layout, since it overwrites whatever the wide rows hold
+    public static int copyNarrowToWide(Connection connection) throws SQLException {
+        log.info("Start copyNarrowToWide");
+        String sql = """
+            INSERT INTO statistic_line (player_id, game_id, league_id, season, stats)
+            SELECT player_id, game_id, league_id, season,
+                   jsonb_object_agg(statistic_type_id::text, jsonb_build_array(number_value, float_value, id))
+            FROM statistic
+            GROUP BY player_id, game_id, league_id, season
+            ON CONFLICT (player_id, game_id) DO UPDATE SET stats = EXCLUDED.stats
+        """;
+        int rows;
+        try (Statement stmt = connection.createStatement()) {
+            rows = stmt.executeUpdate(sql);
+        }
+        log.info("End copyNarrowToWide: rows={}", rows);
+        return rows;
+    }
+
+    // Upserts every wide entry into the narrow table; used when switching back to the narrow layout
+    public static int copyWideToNarrow(Connection connection) throws SQLException {
+        log.info("Start copyWideToNarrow");
+        String sql = """
+            INSERT INTO statistic (id, league_id, season, player_id, game_id, statistic_type_id, number_value, float_value)
+            SELECT COALESCE((e.value->>2)::bigint, nextval('statistic_id_seq')), l.league_id, l.season, l.player_id,
+                   l.game_id, e.key::bigint, (e.value->>0)::bigint, (e.value->>1)::real
+            FROM statistic_line l CROSS JOIN LATERAL jsonb_each(l.stats) e
+            ON CONFLICT (league_id, season, player_id, game_id, statistic_type_id)
+            DO UPDATE SET number_value = EXCLUDED.number_value, float_value = EXCLUDED.float_value
+        """;
+        int rows;
+        try (Statement stmt = connection.createStatement()) {
+            rows = stmt.executeUpdate(sql);
+        }
+        log.info("End copyWideToNarrow: rows={}", rows);
+        return rows;
+    }
+
+    // The id of the entry, added with a new id unless the row already has one for the type
+    public long saveIfNotExists(Statistic stat) throws SQLException {
+        log.info("Start saveIfNotExists: playerId={}, gameId={}, typeId={}", stat.getPlayerId(), stat.getGameId(), stat.getStatisticTypeId());
+        Connection connection = router.forWrite();
+        PartitionKey key = partitions.forGame(stat.getGameId());
+        long id = 0;
+        boolean added = false;
+        try (PreparedStatement stmt = connection.prepareStatement(UPSERT_ENTRY)) {
+            bindEntry(stmt, stat, key, idGenerator.nextId());
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    id = rs.getLong(1);
+                    added = true;
+                }
+            }
+        }
+        if (!added) {
+            String sql = "SELECT (stats->?::text->>2)::bigint FROM statistic_line WHERE player_id = ? AND game_id = ?";
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                stmt.setString(1, String.valueOf(stat.getStatisticTypeId()));
+                stmt.setLong(2, stat.getPlayerId());
+                stmt.setLong(3, stat.getGameId());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        id = rs.getLong(1);
+                    }
+                }
+            }
+        }
+        stat.setId(id);
+        log.info("End saveIfNotExists: id={}", id);
+        return id;
+    }
+
+    // The saveIfNotExists upsert for every statistic, sent as one batch
+    public void saveAll(List<Statistic> stats) throws SQLException {
+        log.info("Start saveAll: count={}", stats.size());
+        Connection connection = router.forWrite();
+        Map<Long, PartitionKey> keys = partitions.forGames(stats.stream().map(Statistic::getGameId).distinct().toList());
+        try (PreparedStatement stmt = connection.prepareStatement(UPSERT_ENTRY)) {
+            for (Statistic stat : stats) {
+                PartitionKey key = keys.get(stat.getGameId());
+                if (key == null) {
+                    throw new SQLException("Game not found: " + stat.getGameId());
+                }
+                if (stat.getId() == 0) {
+                    stat.setId(idGenerator.nextId());
+                }
+                bindEntry(stmt, stat, key, stat.getId());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+        log.info("End saveAll: count={}", stats.size());
+    }
+
+    public void upsertAll(List<Statistic> stats) throws SQLException {
+        log.info("Start upsertAll: count={}", stats.size());
+        Connection connection = router.forWrite();
+        Map<Long, PartitionKey> keys = partitions.forGames(stats.stream().map(Statistic::getGameId).distinct().toList());
+        try (PreparedStatement stmt = connection.prepareStatement(REPLACE_ENTRY)) {
+            for (Statistic stat : stats) {
+                PartitionKey key = keys.get(stat.getGameId());
+                if (key == null) {
+                    throw new SQLException("Game not found: " + stat.getGameId());
+                }
+                String type = String.valueOf(stat.getStatisticTypeId());
+                stmt.setLong(1, stat.getPlayerId());
+                stmt.setLong(2, stat.getGameId());
+                stmt.setLong(3, key.getLeagueId());
+                stmt.setInt(4, key.getSeason());
+                stmt.setString(5, type);
+                stmt.setLong(6, stat.getNumberValue());
+                stmt.setFloat(7, stat.getFloatValue());
+                stmt.setLong(8, idGenerator.nextId());
+                for (int i = 9; i <= 17; i++) {
+                    stmt.setString(i, type);
+                }
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+        log.info("End upsertAll: count={}", stats.size());
+    }
+
+    // The game's entries missing from the list are removed and the list is upserted, so entries that
+    // stay keep their ids; see StatisticRepository
+    public void replaceGameStatistics(long gameId, List<Statistic> stats) throws SQLException {
+        log.info("Start replaceGameStatistics: gameId={}, count={}", gameId, stats.size());
+        int removed = replaceEntries(gameId, null, stats);
+        log.info("End replaceGameStatistics: gameId={}, count={}, removed={}", gameId, stats.size(), removed);
+    }
+
+    public void replacePlayerStatistics(long gameId, Collection<Long> playerIds, List<Statistic> stats) throws SQLException {
+        log.info("Start replacePlayerStatistics: gameId={}, players={}, count={}", gameId, playerIds.size(), stats.size());
+        int removed = replaceEntries(gameId, playerIds, stats);
+        log.info("End replacePlayerStatistics: gameId={}, players={}, count={}, removed={}", gameId, playerIds.size(),
+                stats.size(), removed);
+    }
+
+    // Removes the game's entries missing from the list, of all players or only of playerIds, drops the
+    // rows left empty and upserts the list with REPLACE_ENTRY, which keeps the ids of existing entries
+    private int replaceEntries(long gameId, Collection<Long> playerIds, List<Statistic> stats) throws SQLException {
+        Connection connection = router.forWrite();
+        String players = playerIds != null ? "  AND player_id = ANY(?)" : "";
+        String removeSql = """
+            UPDATE statistic_line l SET stats = COALESCE((
+                SELECT jsonb_object_agg(e.key, e.value) FROM jsonb_each(l.stats) e
+                WHERE (l.player_id, e.key::bigint) IN (SELECT * FROM unnest(?::bigint[], ?::bigint[]))), '{}')
+            WHERE game_id = ?
+              AND EXISTS (SELECT 1 FROM jsonb_object_keys(l.stats) k
+                          WHERE (l.player_id, k::bigint) NOT IN (SELECT * FROM unnest(?::bigint[], ?::bigint[])))
+        """ + players;
+        int removed;
+        try (PreparedStatement stmt = connection.prepareStatement(removeSql)) {
+            Array statPlayerIds = connection.createArrayOf("bigint", stats.stream().map(Statistic::getPlayerId).toArray());
+            Array statTypeIds = connection.createArrayOf("bigint", stats.stream().map(Statistic::getStatisticTypeId).toArray());
+            stmt.setArray(1, statPlayerIds);
+            stmt.setArray(2, statTypeIds);
+            stmt.setLong(3, gameId);
+            stmt.setArray(4, statPlayerIds);
+            stmt.setArray(5, statTypeIds);
+            if (playerIds != null) {
+                stmt.setArray(6, connection.createArrayOf("bigint", playerIds.toArray()));
+            }
+            removed = stmt.executeUpdate();
+        }
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "DELETE FROM statistic_line WHERE game_id = ? AND stats = '{}'" + players)) {
+            stmt.setLong(1, gameId);
+            if (playerIds != null) {
+                stmt.setArray(2, connection.createArrayOf("bigint", playerIds.toArray()));
+            }
+            stmt.executeUpdate();
+        }
+        if (!stats.isEmpty()) {
+            upsertAll(stats);
+        }
+        return removed;
+    }
+
+    public List<Statistic> getAll() throws SQLException {
+        log.info("Start getAll");
+        Connection reader = router.forRead();
+        List<Statistic> result;
+        try (PreparedStatement stmt = reader.prepareStatement(SELECT_ENTRIES)) {
+            result = readEntries(stmt);
+        }
+        log.info("End getAll: count={}", result.size());
+        return result;
+    }
+
+    // Scans statistic_line: entry ids are not indexed
+    public Statistic getById(long id) throws SQLException {
+        log.info("Start getById: id={}", id);
+        List<Statistic> result = getByIds(List.of(id));
+        Statistic stat = result.isEmpty() ? null : result.get(0);
+        log.info("End getById: return={}", stat);
+        return stat;
+    }
+
+    public List<Statistic> getByIds(Collection<Long> ids) throws SQLException {
+        log.info("Start getByIds: count={}", ids.size());
+        Connection reader = router.forRead();
+        List<Statistic> result = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        try (PreparedStatement stmt = reader.prepareStatement(SELECT_ENTRIES + " WHERE (e.value->>2)::bigint = ANY(?)")) {
+            stmt.setArray(1, reader.createArrayOf("bigint", ids.toArray()));
+            result = readEntries(stmt);
+        }
+        log.info("End getByIds: count={}", result.size());
+        return result;
+    }
+
+    public List<Statistic> getByPlayerId(long playerId) throws SQLException {
+        log.info("Start getByPlayerId: playerId={}", playerId);
+        Connection reader = router.forRead();
+        List<Statistic> result;
+        try (PreparedStatement stmt = reader.prepareStatement(SELECT_ENTRIES + " WHERE l.player_id = ?")) {
+            stmt.setLong(1, playerId);
+            result = readEntries(stmt);
+        }
+        log.info("End getByPlayerId: count={}", result.size());
+        return result;
+    }
+
+    public List<Statistic> getByPlayerIdAndSeason(long playerId, int season) throws SQLException {
+        log.info("Start getByPlayerIdAndSeason: playerId={}, season={}", playerId, season);
+        Connection reader = router.forRead();
+        List<Statistic> result;
+        try (PreparedStatement stmt = reader.prepareStatement(SELECT_ENTRIES + " WHERE l.player_id = ? AND l.season = ?")) {
+            stmt.setLong(1, playerId);
+            stmt.setInt(2, season);
+            result = readEntries(stmt);
+        }
+        log.info("End getByPlayerIdAndSeason: count={}", result.size());
+        return result;
+    }
+
+    public List<Statistic> getByPlayerIdAndGameId(long playerId, long gameId) throws SQLException {
+        log.info("Start getByPlayerIdAndGameId: playerId={}, gameId={}", playerId, gameId);
+        Connection reader = router.forRead();
+        List<Statistic> result;
+        try (PreparedStatement stmt = reader.prepareStatement(SELECT_ENTRIES + " WHERE l.player_id = ? AND l.game_id = ?")) {
+            stmt.setLong(1, playerId);
+            stmt.setLong(2, gameId);
+            result = readEntries(stmt);
+        }
+        log.info("End getByPlayerIdAndGameId: count={}", result.size());
+        return result;
+    }
+
+    public List<Statistic> getByPlayerIdsAndGameIds(Collection<Long> playerIds, Collection<Long> gameIds) throws SQLException {
+        log.info("Start getByPlayerIdsAndGameIds: players={}, games={}", playerIds.size(), gameIds.size());
+        Connection reader = router.forRead();
+        List<Statistic> result;
+        try (PreparedStatement stmt = reader.prepareStatement(SELECT_ENTRIES + " WHERE l.player_id = ANY(?) AND l.game_id = ANY(?)")) {
+            stmt.setArray(1, reader.createArrayOf("bigint", playerIds.toArray()));
+            stmt.setArray(2, reader.createArrayOf("bigint", gameIds.toArray()));
+            result = readEntries(stmt);
+        }
+        log.info("End getByPlayerIdsAndGameIds: count={}", result.size());
+        return result;
+    }
+
+    public List<Statistic> getByPlayerIdAndGameIds(long playerId, Collection<Long> gameIds) throws SQLException {
+        log.info("Start getByPlayerIdAndGameIds: playerId={}, games={}", playerId, gameIds.size());
+        Connection reader = router.forRead();
+        List<Statistic> result;
+        try (PreparedStatement stmt = reader.prepareStatement(SELECT_ENTRIES + " WHERE l.player_id = ? AND l.game_id = ANY(?)")) {
+            stmt.setLong(1, playerId);
+            stmt.setArray(2, reader.createArrayOf("bigint", gameIds.toArray()));
+            result = readEntries(stmt);
+        }
+        log.info("End getByPlayerIdAndGameIds: count={}", result.size());
+        return result;
+    }
+
+    public List<Statistic> getByGameIdAndTypeId(long gameId, long statisticTypeId) throws SQLException {
+        log.info("Start getByGameIdAndTypeId: gameId={}, typeId={}", gameId, statisticTypeId);
+        Connection reader = router.forRead();
+        List<Statistic> result;
+        try (PreparedStatement stmt = reader.prepareStatement(SELECT_ENTRIES + " WHERE l.game_id = ? AND e.key = ?")) {
+            stmt.setLong(1, gameId);
+            stmt.setString(2, String.valueOf(statisticTypeId));
+            result = readEntries(stmt);
+        }
+        log.info("End getByGameIdAndTypeId: count={}", result.size());
+        return result;
+    }
+
+    // jsonb_set leaves the row unchanged when the entry does not exist, like an UPDATE matching no row
+    public void updateNumberValue(long playerId, long gameId, long statisticTypeId, long newValue) throws SQLException {
+        log.info("Start updateNumberValue: playerId={}, gameId={}, statTypeId={}, newValue={}", playerId, gameId, statisticTypeId, newValue);
+        Connection connection = router.forWrite();
+        String sql = """
+            UPDATE statistic_line SET stats = jsonb_set(stats, ARRAY[?::text, '0'], to_jsonb(?::bigint), false)
+            WHERE player_id = ? AND game_id = ?
+        """;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, String.valueOf(statisticTypeId));
+            stmt.setLong(2, newValue);
+            stmt.setLong(3, playerId);
+            stmt.setLong(4, gameId);
+            stmt.executeUpdate();
+        }
+        log.info("End updateNumberValue");
+    }
+
+    // Adds delta to the entry's number value, relative to the stored one, or adds the entry at delta
+    public long addNumberValue(long playerId, long gameId, long statisticTypeId, long delta) throws SQLException {
+        log.info("Start addNumberValue: playerId={}, gameId={}, statTypeId={}, delta={}", playerId, gameId, statisticTypeId, delta);
+        Connection connection = router.forWrite();
+        PartitionKey key = partitions.forGame(gameId);
+        String type = String.valueOf(statisticTypeId);
+        String sql = """
+            INSERT INTO statistic_line AS l (player_id, game_id, league_id, season, stats)
+            VALUES (?, ?, ?, ?, jsonb_build_object(?::text, jsonb_build_array(?::bigint, 0::real, ?::bigint)))
+            ON CONFLICT (player_id, game_id) DO UPDATE SET stats = l.stats || jsonb_build_object(?::text,
+                CASE WHEN l.stats ?? ?::text
+                     THEN jsonb_set(l.stats->?::text, '{0}', to_jsonb((l.stats->?::text->>0)::bigint + ?::bigint))
+                     ELSE EXCLUDED.stats->?::text END)
+            RETURNING (stats->?::text->>0)::bigint
+        """;
+        long value;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, playerId);
+            stmt.setLong(2, gameId);
+            stmt.setLong(3, key.getLeagueId());
+            stmt.setInt(4, key.getSeason());
+            stmt.setString(5, type);
+            stmt.setLong(6, delta);
+            stmt.setLong(7, idGenerator.nextId());
+            for (int i = 8; i <= 11; i++) {
+                stmt.setString(i, type);
+            }
+            stmt.setLong(12, delta);
+            stmt.setString(13, type);
+            stmt.setString(14, type);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                value = rs.getLong(1);
+            }
+        }
+        log.info("End addNumberValue: value={}", value);
+        return value;
+    }
+
+    public void updateFloatValue(long playerId, long gameId, long statisticTypeId, float newValue) throws SQLException {
+        log.info("Start updateFloatValue: playerId={}, gameId={}, statTypeId={}, newValue={}", playerId, gameId, statisticTypeId, newValue);
+        Connection connection = router.forWrite();
+        String sql = """
+            UPDATE statistic_line SET stats = jsonb_set(stats, ARRAY[?::text, '1'], to_jsonb(?::real), false)
+            WHERE player_id = ? AND game_id = ?
+        """;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, String.valueOf(statisticTypeId));
+            stmt.setFloat(2, newValue);
+            stmt.setLong(3, playerId);
+            stmt.setLong(4, gameId);
+            stmt.executeUpdate();
+        }
+        log.info("End updateFloatValue");
+    }
+
+    public void removeIfExist(long playerId, long gameId, long statisticTypeId) throws SQLException {
+        log.info("Start removeIfExist: playerId={}, gameId={}, typeId={}", playerId, gameId, statisticTypeId);
+        Connection connection = router.forWrite();
+        String sql = "UPDATE statistic_line SET stats = stats - ?::text WHERE player_id = ? AND game_id = ? AND stats ?? ?::text";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, String.valueOf(statisticTypeId));
+            stmt.setLong(2, playerId);
+            stmt.setLong(3, gameId);
+            stmt.setString(4, String.valueOf(statisticTypeId));
+            stmt.executeUpdate();
+        }
+        log.info("End removeIfExist");
+    }
+
+    private void bindEntry(PreparedStatement stmt, Statistic stat, PartitionKey key, long id) throws SQLException {
+        String type = String.valueOf(stat.getStatisticTypeId());
+        stmt.setLong(1, stat.getPlayerId());
+        stmt.setLong(2, stat.getGameId());
+        stmt.setLong(3, key.getLeagueId());
+        stmt.setInt(4, key.getSeason());
+        stmt.setString(5, type);
+        stmt.setLong(6, stat.getNumberValue());
+        stmt.setFloat(7, stat.getFloatValue());
+        stmt.setLong(8, id);
+        stmt.setString(9, type);
+        stmt.setString(10, type);
+    }
+
+    private List<Statistic> readEntries(PreparedStatement stmt) throws SQLException {
+        List<Statistic> result = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                Statistic stat = new Statistic(
+                        rs.getLong("player_id"),
+                        rs.getLong("game_id"),
+                        rs.getLong("statistic_type_id")
+                );
+                stat.setId(rs.getLong("id"));
+                stat.setNumberValue(rs.getLong("number_value"));
+                stat.setFloatValue(rs.getFloat("float_value"));
+                result.add(stat);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,78 @@
+package com.skyhawk.league.repository.memory;
+
+import java.sql.SQLException;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import com.skyhawk.league.model.Event;
+import com.skyhawk.league.model.Event.EventType;
+import com.skyhawk.league.repository.EventStore;
+import com.skyhawk.league.repository.memory.MemoryTable.SortedIndex;
+
+// Append-only; a game's history is one range of the (game_id, id) index, in the order it was received
+final class MemoryEventStore extends MemoryStore<Event> implements EventStore {
+    private final SortedIndex<Event> byGame;
+
+    MemoryEventStore() {
+        super("Event", new MemoryTable<>(Event::getId, MemoryEventStore::copy));
+        byGame = table.sortedIndex(event -> new long[] {event.getGameId()});
+    }
+
+    @Override
+    public List<Event> getAll() throws SQLException {
+        List<Event> events = table.getAll();
+        events.sort(Comparator.comparingLong(Event::getId));
+        return events;
+    }
+
+    @Override
+    public List<Event> getByIds(Collection<Long> ids) throws SQLException {
+        List<Event> events = table.getAll(ids);
+        events.sort(Comparator.comparingLong(Event::getId));
+        return events;
+    }
+
+    @Override
+    public List<Event> getByGameId(long gameId) throws SQLException {
+        return table.range(byGame, gameId);
+    }
+
+    @Override
+    public LocalTime getLastEventTime(long gameId) throws SQLException {
+        LocalTime last = null;
+        for (long id : table.ids(byGame, gameId)) {
+            LocalTime eventTime = table.read(id, Event::getEventTime);
+            if (eventTime != null && (last == null || eventTime.isAfter(last))) {
+                last = eventTime;
+            }
+        }
+        return last;
+    }
+
+    @Override
+    protected long idOf(Event event) {
+        return event.getId();
+    }
+
+    @Override
+    protected void setId(Event event, long id) {
+        event.setId(id);
+    }
+
+    private static Event copy(Event event) {
+        Event copy;
+        if (event.getType() == EventType.PLAYER_ACTION && event.getPlayerId() != null && event.getStatisticTypeId() != null) {
+            copy = new Event(event.getLeagueId(), event.getGameId(), event.getPlayerId(), event.getStatisticTypeId(),
+                    event.getEventTime());
+        } else if (event.getPlayerId() != null) {
+            copy = new Event(event.getLeagueId(), event.getGameId(), event.getPlayerId(), event.getType(), event.getEventTime());
+        } else {
+            copy = new Event(event.getLeagueId(), event.getGameId(), event.getType(), event.getEventTime());
+        }
+        copy.setId(event.getId());
+        copy.setReplacesEventId(event.getReplacesEventId());
+        return copy;
+    }
+}
@@ -0,0 +1,119 @@
+package com.skyhawk.league.repository.memory;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.skyhawk.league.model.Game;
+import com.skyhawk.league.model.Game.GameStateEnum;
+import com.skyhawk.league.repository.GameStore;
+import com.skyhawk.league.repository.memory.MemoryTable.HashIndex;
+import com.skyhawk.league.repository.memory.MemoryTable.SortedIndex;
+
+// Unique by league and name. Sorted indexes on each team and on (league_id, date) serve the team
+// and season lookups; the active games are a hash index, like the partial index idx_game_active.
+final class MemoryGameStore extends MemoryStore<Game> implements GameStore {
+    private final SortedIndex<Game> byHomeTeam;
+    private final SortedIndex<Game> byVisitorTeam;
+    private final SortedIndex<Game> byLeagueDate;
+    private final HashIndex<Game> active;
+
+    MemoryGameStore() {
+        super("Game", new MemoryTable<>(Game::getId, MemoryGameStore::copy));
+        table.uniqueIndex(game -> List.of(game.getLeagueId(), game.getName()));
+        namedBy(table.hashIndex(Game::getName));
+        byHomeTeam = table.sortedIndex(game -> new long[] {game.getHomeTeamId()});
+        byVisitorTeam = table.sortedIndex(game -> new long[] {game.getVisitorTeamId()});
+        byLeagueDate = table.sortedIndex(game -> new long[] {game.getLeagueId(), game.getDate().toEpochDay()});
+        active = table.hashIndex(game -> game.getGameState() != null && game.getGameState() != GameStateEnum.End ? Boolean.TRUE : null);
+    }
+
+    @Override
+    public List<Game> getByTeamId(long teamId) throws SQLException {
+        Set<Long> ids = new LinkedHashSet<>(table.ids(byHomeTeam, teamId));
+        ids.addAll(table.ids(byVisitorTeam, teamId));
+        return table.getAll(ids);
+    }
+
+    @Override
+    public List<Long> getIdsByLeagueId(long leagueId, Integer season) throws SQLException {
+        List<Long> ids;
+        if (season == null) {
+            ids = new ArrayList<>(table.ids(byLeagueDate, leagueId));
+        } else {
+            ids = new ArrayList<>(table.ids(byLeagueDate,
+                    new long[] {leagueId, LocalDate.of(season, 1, 1).toEpochDay()},
+                    new long[] {leagueId, LocalDate.of(season + 1, 1, 1).toEpochDay()}));
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    @Override
+    public List<Game> getActiveGames() throws SQLException {
+        return table.find(active, Boolean.TRUE);
+    }
+
+    @Override
+    public Set<Long> getActiveGameIds() throws SQLException {
+        return Set.copyOf(table.ids(active, Boolean.TRUE));
+    }
+
+    @Override
+    public void updateGameState(long gameId, String gameState) throws SQLException {
+        table.reindex(gameId, game -> {
+            game.setGameState(gameState != null ? GameStateEnum.valueOf(gameState) : null);
+            return game;
+        });
+    }
+
+    @Override
+    public void updateEndTime(long gameId, LocalTime endTime) throws SQLException {
+        table.update(gameId, game -> {
+            game.setEndTime(endTime);
+            return game;
+        });
+    }
+
+    @Override
+    public void updateStartTime(long gameId, LocalTime startTime) throws SQLException {
+        table.update(gameId, game -> {
+            game.setStartTime(startTime);
+            return game;
+        });
+    }
+
+    // The season (year of the game date) without copying the row; null for an unknown game
+    Integer seasonOf(long gameId) {
+        return table.read(gameId, game -> game.getDate().getYear());
+    }
+
+    Long leagueOf(long gameId) {
+        return table.read(gameId, Game::getLeagueId);
+    }
+
+    @Override
+    protected long idOf(Game game) {
+        return game.getId();
+    }
+
+    @Override
+    protected void setId(Game game, long id) {
+        game.setId(id);
+    }
+
+    private static Game copy(Game game) {
+        Game copy = new Game(game.getLeagueId(), game.getName(), game.getDescription(), game.getHomeTeamId(),
+                game.getVisitorTeamId(), game.getDate());
+        copy.setId(game.getId());
+        copy.setStartTime(game.getStartTime());
+        copy.setEndTime(game.getEndTime());
+        copy.setGameState(game.getGameState());
+        return copy;
+    }
+}
@@ -0,0 +1,29 @@
+package com.skyhawk.league.repository.memory;
+
+import com.skyhawk.league.model.League;
+import com.skyhawk.league.repository.LeagueStore;
+
+// Unique by name
+final class MemoryLeagueStore extends MemoryStore<League> implements LeagueStore {
+
+    MemoryLeagueStore() {
+        super("League", new MemoryTable<>(League::getId, MemoryLeagueStore::copy));
+        namedBy(table.uniqueIndex(League::getName));
+    }
+
+    @Override
+    protected long idOf(League league) {
+        return league.getId();
+    }
+
+    @Override
+    protected void setId(League league, long id) {
+        league.setId(id);
+    }
+
+    private static League copy(League league) {
+        League copy = new League(league.getName(), league.getDescription());
+        copy.setId(league.getId());
+        return copy;
+    }
+}
@@ -0,0 +1,126 @@
+package com.skyhawk.league.repository.memory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.skyhawk.league.model.PlayerStint;
+import com.skyhawk.league.repository.PlayerStintStore;
+import com.skyhawk.league.repository.memory.MemoryTable.HashIndex;
+import com.skyhawk.league.repository.memory.MemoryTable.SortedIndex;
+
+// The stint ledger. A player's stints in a game are one range of the (game_id, player_id) index;
+// open stints are also in a unique index on the same columns, so a player is on court at most once.
+final class MemoryPlayerStintStore extends MemoryStore<PlayerStint> implements PlayerStintStore {
+    private final SortedIndex<PlayerStint> byGamePlayer;
+    private final HashIndex<PlayerStint> open;
+
+    MemoryPlayerStintStore() {
+        super("PlayerStint", new MemoryTable<>(PlayerStint::getId, MemoryPlayerStintStore::copy));
+        byGamePlayer = table.sortedIndex(stint -> new long[] {stint.getGameId(), stint.getPlayerId()});
+        open = table.uniqueIndex(stint -> stint.getEndMillis() == null ? List.of(stint.getGameId(), stint.getPlayerId()) : null);
+    }
+
+    @Override
+    public boolean start(long playerId, long gameId, int startMillis) throws SQLException {
+        PlayerStint stint = new PlayerStint(playerId, gameId, startMillis);
+        stint.setId(idGenerator.nextId());
+        return table.insert(stint) == stint.getId();
+    }
+
+    @Override
+    public PlayerStint end(long playerId, long gameId, int endMillis) throws SQLException {
+        return table.atomically(() -> {
+            PlayerStint stint = table.first(open, List.of(gameId, playerId));
+            return stint != null ? close(stint, endMillis) : null;
+        });
+    }
+
+    @Override
+    public List<PlayerStint> endAll(long gameId, int endMillis) throws SQLException {
+        return table.atomically(() -> {
+            List<PlayerStint> closed = new ArrayList<>();
+            for (PlayerStint stint : table.range(byGamePlayer, gameId)) {
+                if (stint.getEndMillis() == null) {
+                    closed.add(close(stint, endMillis));
+                }
+            }
+            return closed;
+        });
+    }
+
+    // Same as the SQL: a stint never ends before it started, and its played millis include it
+    private PlayerStint close(PlayerStint stint, int endMillis) {
+        int end = Math.max(endMillis, stint.getStartMillis());
+        table.reindex(stint.getId(), row -> {
+            row.setEndMillis(end);
+            return row;
+        });
+        stint.setEndMillis(end);
+        long played = 0;
+        for (PlayerStint other : table.range(byGamePlayer, stint.getGameId(), stint.getPlayerId())) {
+            played += other.getMillis();
+        }
+        stint.setPlayedMillis(played);
+        return stint;
+    }
+
+    @Override
+    public Map<Long, Long> getPlayTimeMillis(long gameId) throws SQLException {
+        Map<Long, Long> result = new LinkedHashMap<>();
+        for (PlayerStint stint : table.range(byGamePlayer, gameId)) {
+            if (stint.getEndMillis() != null) {
+                result.merge(stint.getPlayerId(), stint.getMillis(), Long::sum);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void replaceStints(long gameId, Collection<Long> playerIds, List<PlayerStint> stints) throws SQLException {
+        table.atomically(() -> {
+            for (long id : table.ids(byGamePlayer, gameId)) {
+                Long playerId = table.read(id, PlayerStint::getPlayerId);
+                if (playerId != null && (playerIds == null || playerIds.contains(playerId))) {
+                    table.delete(id);
+                }
+            }
+            for (PlayerStint stint : stints) {
+                if (stint.getId() == 0) {
+                    stint.setId(idGenerator.nextId());
+                }
+                table.insert(stint);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public List<PlayerStint> getByGameId(long gameId) throws SQLException {
+        List<PlayerStint> stints = table.range(byGamePlayer, gameId);
+        stints.sort(Comparator.comparingInt(PlayerStint::getStartMillis).thenComparingLong(PlayerStint::getId));
+        return stints;
+    }
+
+    @Override
+    protected long idOf(PlayerStint stint) {
+        return stint.getId();
+    }
+
+    @Override
+    protected void setId(PlayerStint stint, long id) {
+        stint.setId(id);
+    }
+
+    private static PlayerStint copy(PlayerStint stint) {
+        PlayerStint copy = new PlayerStint(stint.getPlayerId(), stint.getGameId(), stint.getStartMillis());
+        copy.setId(stint.getId());
+        copy.setEndMillis(stint.getEndMillis());
+        copy.setPlayedMillis(stint.getPlayedMillis());
+        return copy;
+    }
+}
@@ -0,0 +1,46 @@
+package com.skyhawk.league.repository.memory;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import com.skyhawk.league.model.Player;
+import com.skyhawk.league.repository.PlayerStore;
+import com.skyhawk.league.repository.memory.MemoryTable.SortedIndex;
+
+// Unique by team and name; a team's players are one range of the (team_id) index
+final class MemoryPlayerStore extends MemoryStore<Player> implements PlayerStore {
+    private final SortedIndex<Player> byTeam;
+
+    MemoryPlayerStore() {
+        super("Player", new MemoryTable<>(Player::getId, MemoryPlayerStore::copy));
+        table.uniqueIndex(player -> List.of(player.getTeamId(), player.getName()));
+        namedBy(table.hashIndex(Player::getName));
+        byTeam = table.sortedIndex(player -> new long[] {player.getTeamId()});
+    }
+
+    @Override
+    public List<Player> getByTeamId(long teamId) throws SQLException {
+        return table.range(byTeam, teamId);
+    }
+
+    // The team's id without copying the row; null for an unknown player
+    Long teamOf(long playerId) {
+        return table.read(playerId, Player::getTeamId);
+    }
+
+    @Override
+    protected long idOf(Player player) {
+        return player.getId();
+    }
+
+    @Override
+    protected void setId(Player player, long id) {
+        player.setId(id);
+    }
+
+    private static Player copy(Player player) {
+        Player copy = new Player(player.getTeamId(), player.getName(), player.getDescription());
+        copy.setId(player.getId());
+        return copy;
+    }
+}
@@ -0,0 +1,56 @@
+package com.skyhawk.league.repository.memory;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import com.skyhawk.league.model.StatisticSketch;
+import com.skyhawk.league.repository.StatisticSketchStore;
+import com.skyhawk.league.repository.memory.MemoryTable.HashIndex;
+import com.skyhawk.league.repository.memory.MemoryTable.SortedIndex;
+
+// Unique by (league, statistic type, season, team); a league's sketches are one range of the league index
+final class MemoryStatisticSketchStore extends MemoryStore<StatisticSketch> implements StatisticSketchStore {
+    private final HashIndex<StatisticSketch> byKey;
+    private final SortedIndex<StatisticSketch> byLeague;
+
+    MemoryStatisticSketchStore() {
+        super("StatisticSketch", new MemoryTable<>(StatisticSketch::getId, MemoryStatisticSketchStore::copy));
+        byKey = table.uniqueIndex(sketch -> List.of(sketch.getLeagueId(), sketch.getStatisticTypeId(),
+                sketch.getSeason(), sketch.getTeamId()));
+        byLeague = table.sortedIndex(sketch -> new long[] {sketch.getLeagueId()});
+    }
+
+    @Override
+    public void upsertAll(List<StatisticSketch> sketches) throws SQLException {
+        for (StatisticSketch sketch : sketches) {
+            long id = saveIfNotExists(sketch);
+            byte[] blob = sketch.getSketch();
+            table.update(id, row -> {
+                row.setSketch(blob);
+                return row;
+            });
+        }
+    }
+
+    @Override
+    public List<StatisticSketch> getByLeagueId(long leagueId) throws SQLException {
+        return table.range(byLeague, leagueId);
+    }
+
+    @Override
+    protected long idOf(StatisticSketch sketch) {
+        return sketch.getId();
+    }
+
+    @Override
+    protected void setId(StatisticSketch sketch, long id) {
+        sketch.setId(id);
+    }
+
+    private static StatisticSketch copy(StatisticSketch sketch) {
+        StatisticSketch copy = new StatisticSketch(sketch.getLeagueId(), sketch.getStatisticTypeId(), sketch.getSeason(),
+                sketch.getTeamId(), sketch.getSketch());
+        copy.setId(sketch.getId());
+        return copy;
+    }
+}
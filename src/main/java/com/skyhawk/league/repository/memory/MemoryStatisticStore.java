@@ -0,0 +1,286 @@
+package com.skyhawk.league.repository.memory;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.skyhawk.league.model.Game;
+import com.skyhawk.league.model.Player;
+import com.skyhawk.league.model.Statistic;
+import com.skyhawk.league.model.StatisticRecord;
+import com.skyhawk.league.model.StatisticType;
+import com.skyhawk.league.model.Team;
+import com.skyhawk.league.repository.StatisticStore;
+import com.skyhawk.league.repository.memory.MemoryTable.HashIndex;
+import com.skyhawk.league.repository.memory.MemoryTable.SortedIndex;
+
+// Unique by (player_id, game_id, statistic_type_id). Sorted indexes by player then game and by game
+// then player serve the player and game reads; seasons and leagues come from the game store, as
+// rows do not carry partition keys here.
+final class MemoryStatisticStore extends MemoryStore<Statistic> implements StatisticStore {
+    private final HashIndex<Statistic> byKey;
+    private final SortedIndex<Statistic> byPlayerGame;
+    private final SortedIndex<Statistic> byGamePlayer;
+    private final MemoryGameStore games;
+    private final MemoryPlayerStore players;
+    private final MemoryTeamStore teams;
+    private final MemoryStatisticTypeStore statisticTypes;
+
+    MemoryStatisticStore(MemoryGameStore games, MemoryPlayerStore players, MemoryTeamStore teams,
+            MemoryStatisticTypeStore statisticTypes) {
+        super("Statistic", new MemoryTable<>(Statistic::getId, MemoryStatisticStore::copy));
+        this.games = games;
+        this.players = players;
+        this.teams = teams;
+        this.statisticTypes = statisticTypes;
+        byKey = table.uniqueIndex(MemoryStatisticStore::keyOf);
+        byPlayerGame = table.sortedIndex(stat -> new long[] {stat.getPlayerId(), stat.getGameId(), stat.getStatisticTypeId()});
+        byGamePlayer = table.sortedIndex(stat -> new long[] {stat.getGameId(), stat.getPlayerId(), stat.getStatisticTypeId()});
+    }
+
+    @Override
+    public long saveIfNotExists(Statistic stat) throws SQLException {
+        requireGame(stat.getGameId());
+        return super.saveIfNotExists(stat);
+    }
+
+    @Override
+    public void saveAll(List<Statistic> stats) throws SQLException {
+        for (Statistic stat : stats) {
+            requireGame(stat.getGameId());
+        }
+        super.saveAll(stats);
+    }
+
+    @Override
+    public void replaceGameStatistics(long gameId, List<Statistic> stats) throws SQLException {
+        replaceRows(gameId, null, stats);
+    }
+
+    @Override
+    public void replacePlayerStatistics(long gameId, Collection<Long> playerIds, List<Statistic> stats) throws SQLException {
+        if (!playerIds.isEmpty()) {
+            replaceRows(gameId, playerIds, stats);
+        }
+    }
+
+    // Deletes the game's rows missing from the list, of all players or only of playerIds, and upserts the list
+    private void replaceRows(long gameId, Collection<Long> playerIds, List<Statistic> stats) throws SQLException {
+        requireGame(gameId);
+        Set<List<Long>> kept = new HashSet<>();
+        for (Statistic stat : stats) {
+            kept.add(List.of(stat.getPlayerId(), stat.getStatisticTypeId()));
+        }
+        table.atomically(() -> {
+            for (Statistic row : table.range(byGamePlayer, gameId)) {
+                if ((playerIds == null || playerIds.contains(row.getPlayerId()))
+                        && !kept.contains(List.of(row.getPlayerId(), row.getStatisticTypeId()))) {
+                    table.delete(row.getId());
+                }
+            }
+            for (Statistic stat : stats) {
+                upsert(stat);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void upsertAll(List<Statistic> stats) throws SQLException {
+        for (Statistic stat : stats) {
+            requireGame(stat.getGameId());
+        }
+        for (Statistic stat : stats) {
+            upsert(stat);
+        }
+    }
+
+    // Overwrites the values of the row with the stat's key, or inserts a row with a new id when there is none
+    private void upsert(Statistic stat) {
+        while (true) {
+            Statistic existing = table.first(byKey, keyOf(stat));
+            if (existing != null) {
+                if (table.update(existing.getId(), row -> withValues(row, stat.getNumberValue(), stat.getFloatValue()))) {
+                    return;
+                }
+                // Deleted meanwhile: insert it again
+                continue;
+            }
+            Statistic row = copy(stat);
+            row.setId(idGenerator.nextId());
+            if (table.insert(row) == row.getId()) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public List<Statistic> getByPlayerId(long playerId) throws SQLException {
+        return table.range(byPlayerGame, playerId);
+    }
+
+    @Override
+    public List<Statistic> getByPlayerIdAndSeason(long playerId, int season) throws SQLException {
+        List<Statistic> result = new ArrayList<>();
+        for (Statistic stat : table.range(byPlayerGame, playerId)) {
+            if (Objects.equals(games.seasonOf(stat.getGameId()), season)) {
+                result.add(stat);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Statistic> getByPlayerIdAndGameId(long playerId, long gameId) throws SQLException {
+        return table.range(byPlayerGame, playerId, gameId);
+    }
+
+    @Override
+    public List<Statistic> getByPlayerIdsAndGameIds(Collection<Long> playerIds, Collection<Long> gameIds) throws SQLException {
+        List<Statistic> result = new ArrayList<>();
+        for (long playerId : playerIds) {
+            for (long gameId : gameIds) {
+                result.addAll(table.range(byPlayerGame, playerId, gameId));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Statistic> getByPlayerIdAndGameIds(long playerId, Collection<Long> gameIds) throws SQLException {
+        List<Statistic> result = new ArrayList<>();
+        for (long gameId : gameIds) {
+            result.addAll(table.range(byPlayerGame, playerId, gameId));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Statistic> getByGameIdAndTypeId(long gameId, long statisticTypeId) throws SQLException {
+        List<Statistic> result = new ArrayList<>();
+        for (long id : table.ids(byGamePlayer, gameId)) {
+            Statistic stat = table.get(id);
+            if (stat != null && stat.getStatisticTypeId() == statisticTypeId) {
+                result.add(stat);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void updateNumberValue(long playerId, long gameId, long statisticTypeId, long newValue) throws SQLException {
+        for (long id : table.ids(byKey, List.of(playerId, gameId, statisticTypeId))) {
+            table.update(id, row -> withValues(row, newValue, row.getFloatValue()));
+        }
+    }
+
+    @Override
+    public long addNumberValue(long playerId, long gameId, long statisticTypeId, long delta) throws SQLException {
+        requireGame(gameId);
+        List<Long> key = List.of(playerId, gameId, statisticTypeId);
+        long[] value = new long[1];
+        while (true) {
+            Statistic existing = table.first(byKey, key);
+            if (existing != null) {
+                if (table.update(existing.getId(), row -> {
+                    value[0] = row.getNumberValue() + delta;
+                    return withValues(row, value[0], row.getFloatValue());
+                })) {
+                    return value[0];
+                }
+                // Deleted meanwhile: insert it again
+                continue;
+            }
+            Statistic row = new Statistic(playerId, gameId, statisticTypeId);
+            row.setId(idGenerator.nextId());
+            row.setNumberValue(delta);
+            if (table.insert(row) == row.getId()) {
+                return delta;
+            }
+        }
+    }
+
+    @Override
+    public void updateFloatValue(long playerId, long gameId, long statisticTypeId, float newValue) throws SQLException {
+        for (long id : table.ids(byKey, List.of(playerId, gameId, statisticTypeId))) {
+            table.update(id, row -> withValues(row, row.getNumberValue(), newValue));
+        }
+    }
+
+    @Override
+    public void removeIfExist(long playerId, long gameId, long statisticTypeId) throws SQLException {
+        for (long id : List.copyOf(table.ids(byKey, List.of(playerId, gameId, statisticTypeId)))) {
+            table.delete(id);
+        }
+    }
+
+    // Rows are visited game by game; names are resolved once per player, team and statistic type,
+    // and rows whose player, team or type is missing are left out, as by the joins of the SQL
+    @Override
+    public long streamByLeague(long leagueId, Integer season, int fetchSize, RecordHandler handler)
+            throws SQLException, IOException {
+        Map<Long, Player> playerById = new HashMap<>();
+        Map<Long, Team> teamById = new HashMap<>();
+        Map<Long, StatisticType> typeById = new HashMap<>();
+        long count = 0;
+        for (long gameId : games.getIdsByLeagueId(leagueId, season)) {
+            Game game = games.getById(gameId);
+            if (game == null) {
+                continue;
+            }
+            for (Statistic stat : table.range(byGamePlayer, gameId)) {
+                Player player = playerById.computeIfAbsent(stat.getPlayerId(), players.table::get);
+                Team team = player != null ? teamById.computeIfAbsent(player.getTeamId(), teams.table::get) : null;
+                StatisticType type = typeById.computeIfAbsent(stat.getStatisticTypeId(), statisticTypes.table::get);
+                if (team == null || type == null) {
+                    continue;
+                }
+                handler.accept(new StatisticRecord(game.getName(), game.getDate(), team.getName(), player.getName(),
+                        type.getName(), stat.getNumberValue(), stat.getFloatValue()));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void requireGame(long gameId) throws SQLException {
+        if (games.leagueOf(gameId) == null) {
+            throw new SQLException("Game not found: " + gameId);
+        }
+    }
+
+    @Override
+    protected long idOf(Statistic stat) {
+        return stat.getId();
+    }
+
+    @Override
+    protected void setId(Statistic stat, long id) {
+        stat.setId(id);
+    }
+
+    private static List<Long> keyOf(Statistic stat) {
+        return List.of(stat.getPlayerId(), stat.getGameId(), stat.getStatisticTypeId());
+    }
+
+    private static Statistic withValues(Statistic row, long numberValue, float floatValue) {
+        row.setNumberValue(numberValue);
+        row.setFloatValue(floatValue);
+        return row;
+    }
+
+    private static Statistic copy(Statistic stat) {
+        Statistic copy = new Statistic(stat.getPlayerId(), stat.getGameId(), stat.getStatisticTypeId());
+        copy.setId(stat.getId());
+        copy.setNumberValue(stat.getNumberValue());
+        copy.setFloatValue(stat.getFloatValue());
+        return copy;
+    }
+}
@@ -0,0 +1,41 @@
+package com.skyhawk.league.repository.memory;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import com.skyhawk.league.model.StatisticType;
+import com.skyhawk.league.repository.StatisticTypeStore;
+import com.skyhawk.league.repository.memory.MemoryTable.HashIndex;
+
+// Unique by league and name
+final class MemoryStatisticTypeStore extends MemoryStore<StatisticType> implements StatisticTypeStore {
+    private final HashIndex<StatisticType> byLeagueName;
+
+    MemoryStatisticTypeStore() {
+        super("StatisticType", new MemoryTable<>(StatisticType::getId, MemoryStatisticTypeStore::copy));
+        byLeagueName = table.uniqueIndex(type -> List.of(type.getLeagueId(), type.getName()));
+        namedBy(table.hashIndex(StatisticType::getName));
+    }
+
+    @Override
+    public StatisticType getByLeagueIdAndName(long leagueId, String name) throws SQLException {
+        return table.first(byLeagueName, List.of(leagueId, name));
+    }
+
+    @Override
+    protected long idOf(StatisticType type) {
+        return type.getId();
+    }
+
+    @Override
+    protected void setId(StatisticType type, long id) {
+        type.setId(id);
+    }
+
+    private static StatisticType copy(StatisticType type) {
+        StatisticType copy = new StatisticType(type.getLeagueId(), type.getName(), type.getDescription(), type.getType(),
+                type.getMinValue(), type.getMaxValue());
+        copy.setId(type.getId());
+        return copy;
+    }
+}
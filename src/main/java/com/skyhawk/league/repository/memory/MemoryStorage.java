@@ -0,0 +1,88 @@
+package com.skyhawk.league.repository.memory;
+
+import com.skyhawk.league.repository.EventStore;
+import com.skyhawk.league.repository.GameStore;
+import com.skyhawk.league.repository.LeagueStore;
+import com.skyhawk.league.repository.PlayerStintStore;
+import com.skyhawk.league.repository.PlayerStore;
+import com.skyhawk.league.repository.StatisticSketchStore;
+import com.skyhawk.league.repository.StatisticStore;
+import com.skyhawk.league.repository.StatisticTypeStore;
+import com.skyhawk.league.repository.StorageBackend;
+import com.skyhawk.league.repository.TeamStore;
+
+/**
+ * A storage backend that keeps every table in the heap of this process: for edge deployments
+ * without a database, tests that start in milliseconds and a baseline for benchmarks that leaves
+ * the database out. Data lives as long as the instance. Each table is a {@link MemoryTable} with
+ * hash indexes for the unique keys of the SQL schema and sorted indexes for the range reads, so
+ * saveIfNotExists and saveAll behave as they do on PostgreSQL and lookups never scan a table.
+ *
+ * There are no foreign keys beyond statistics requiring their game, and no transactions: a write
+ * made of several rows (e.g. replacing a game's statistics) is atomic with respect to other writers
+ * of the table, not to readers.
+ */
+public class MemoryStorage implements StorageBackend {
+    private final MemoryLeagueStore leagues = new MemoryLeagueStore();
+    private final MemoryTeamStore teams = new MemoryTeamStore();
+    private final MemoryPlayerStore players = new MemoryPlayerStore();
+    private final MemoryGameStore games = new MemoryGameStore();
+    private final MemoryStatisticTypeStore statisticTypes = new MemoryStatisticTypeStore();
+    private final MemoryStatisticStore statistics = new MemoryStatisticStore(games, players, teams, statisticTypes);
+    private final MemoryEventStore events = new MemoryEventStore();
+    private final MemoryPlayerStintStore stints = new MemoryPlayerStintStore();
+    private final MemoryStatisticSketchStore sketches = new MemoryStatisticSketchStore();
+
+    @Override
+    public LeagueStore leagues() {
+        return leagues;
+    }
+
+    @Override
+    public TeamStore teams() {
+        return teams;
+    }
+
+    @Override
+    public PlayerStore players() {
+        return players;
+    }
+
+    @Override
+    public GameStore games() {
+        return games;
+    }
+
+    @Override
+    public StatisticTypeStore statisticTypes() {
+        return statisticTypes;
+    }
+
+    @Override
+    public StatisticStore statistics() {
+        return statistics;
+    }
+
+    @Override
+    public EventStore events() {
+        return events;
+    }
+
+    @Override
+    public PlayerStintStore stints() {
+        return stints;
+    }
+
+    @Override
+    public StatisticSketchStore sketches() {
+        return sketches;
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryStorage [leagues=" + leagues.table.size() + ", teams=" + teams.table.size() + ", players="
+                + players.table.size() + ", games=" + games.table.size() + ", statistics=" + statistics.table.size()
+                + ", events=" + events.table.size() + ", stints=" + stints.table.size()
+                + ", sketches=" + sketches.table.size() + "]";
+    }
+}
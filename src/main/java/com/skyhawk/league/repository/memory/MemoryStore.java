@@ -0,0 +1,78 @@
+package com.skyhawk.league.repository.memory;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+import com.skyhawk.league.repository.BaseRepository;
+import com.skyhawk.league.repository.SnowflakeIdGenerator;
+import com.skyhawk.league.repository.memory.MemoryTable.HashIndex;
+
+// The BaseRepository part shared by the in-memory stores, over one MemoryTable
+abstract class MemoryStore<T> implements BaseRepository<T> {
+    protected final MemoryTable<T> table;
+    protected final SnowflakeIdGenerator idGenerator = SnowflakeIdGenerator.getInstance();
+    private final String entity;
+    // Index behind getByName, null when the entity has no name
+    private HashIndex<T> names;
+
+    protected MemoryStore(String entity, MemoryTable<T> table) {
+        this.entity = entity;
+        this.table = table;
+    }
+
+    protected abstract long idOf(T row);
+
+    protected abstract void setId(T row, long id);
+
+    protected void namedBy(HashIndex<T> names) {
+        this.names = names;
+    }
+
+    // Nothing to create: tables and indexes are set up by the store's constructor
+    @Override
+    public void createTable() {
+    }
+
+    @Override
+    public long saveIfNotExists(T entity) throws SQLException {
+        if (idOf(entity) == 0) {
+            setId(entity, idGenerator.nextId());
+        }
+        long id = table.insert(entity);
+        setId(entity, id);
+        return id;
+    }
+
+    // Entities whose unique key is taken get the id of the stored row, as with the JDBC repositories
+    @Override
+    public void saveAll(List<T> entities) throws SQLException {
+        for (T entity : entities) {
+            saveIfNotExists(entity);
+        }
+    }
+
+    @Override
+    public List<T> getAll() throws SQLException {
+        return table.getAll();
+    }
+
+    @Override
+    public T getById(long id) throws SQLException {
+        return table.get(id);
+    }
+
+    @Override
+    public List<T> getByIds(Collection<Long> ids) throws SQLException {
+        return table.getAll(ids);
+    }
+
+    // The first row with the name, by id; names are unique per league or team only
+    @Override
+    public T getByName(String name) throws SQLException {
+        if (names == null) {
+            throw new UnsupportedOperationException(entity + " does not support getByName()");
+        }
+        return table.first(names, name);
+    }
+}
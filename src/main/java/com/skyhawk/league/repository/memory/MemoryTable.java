@@ -0,0 +1,309 @@
+package com.skyhawk.league.repository.memory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * One table of the in-memory engine: rows by id in a ConcurrentHashMap, plus the indexes its store
+ * declares.
+ *
+ * - Hash indexes map a key (e.g. List.of(leagueId, name)) to the ids of its rows. A unique hash
+ *   index plays the part of a SQL unique constraint: an insert whose key is taken is refused and
+ *   the id of the row holding the key is returned instead. A key function returning null leaves
+ *   the row out of the index, like a partial index.
+ * - Sorted indexes keep long[] keys in lexicographic order, the row id last, so every row whose key
+ *   starts with a prefix is one range scan, in key order.
+ *
+ * Reads take no lock. Inserts, deletes and updates that change an indexed key are serialized by the
+ * table's lock, so unique keys hold; a row is put before its index entries are added and its index
+ * entries are removed before the row, and index readers skip ids whose row is gone. Updates of
+ * unindexed values replace the row atomically without the lock. Rows are copied on the way in and
+ * out, as callers mutate the models they get.
+ */
+final class MemoryTable<T> {
+    private final Map<Long, T> rows = new ConcurrentHashMap<>();
+    private final ToLongFunction<T> idOf;
+    private final UnaryOperator<T> copy;
+    private final List<HashIndex<T>> hashIndexes = new ArrayList<>();
+    private final List<SortedIndex<T>> sortedIndexes = new ArrayList<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    MemoryTable(ToLongFunction<T> idOf, UnaryOperator<T> copy) {
+        this.idOf = idOf;
+        this.copy = copy;
+    }
+
+    HashIndex<T> uniqueIndex(Function<T, Object> keyOf) {
+        HashIndex<T> index = new HashIndex<>(keyOf, true);
+        hashIndexes.add(index);
+        return index;
+    }
+
+    HashIndex<T> hashIndex(Function<T, Object> keyOf) {
+        HashIndex<T> index = new HashIndex<>(keyOf, false);
+        hashIndexes.add(index);
+        return index;
+    }
+
+    // keyOf returns the key columns without the id, which the index appends
+    SortedIndex<T> sortedIndex(Function<T, long[]> keyOf) {
+        SortedIndex<T> index = new SortedIndex<>(keyOf);
+        sortedIndexes.add(index);
+        return index;
+    }
+
+    // Stores a copy of the row unless its id or a unique key is taken; returns the id of the stored
+    // row, which is the row's own id when it was inserted
+    long insert(T row) {
+        T stored = copy.apply(row);
+        long id = idOf.applyAsLong(stored);
+        writeLock.lock();
+        try {
+            if (rows.containsKey(id)) {
+                return id;
+            }
+            for (HashIndex<T> index : hashIndexes) {
+                if (index.unique) {
+                    Long taken = index.taken(stored);
+                    if (taken != null) {
+                        return taken;
+                    }
+                }
+            }
+            rows.put(id, stored);
+            addToIndexes(id, stored);
+            return id;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Replaces the row with change applied to a copy of it, when no indexed key changes; false if
+    // there is no such row
+    boolean update(long id, UnaryOperator<T> change) {
+        return rows.computeIfPresent(id, (key, row) -> change.apply(copy.apply(row))) != null;
+    }
+
+    // Like update, for a change of indexed keys; the row is moved in every index
+    boolean reindex(long id, UnaryOperator<T> change) {
+        writeLock.lock();
+        try {
+            T row = rows.get(id);
+            if (row == null) {
+                return false;
+            }
+            T changed = change.apply(copy.apply(row));
+            removeFromIndexes(id, row);
+            rows.put(id, changed);
+            addToIndexes(id, changed);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    boolean delete(long id) {
+        writeLock.lock();
+        try {
+            T row = rows.get(id);
+            if (row == null) {
+                return false;
+            }
+            removeFromIndexes(id, row);
+            rows.remove(id);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Runs the writes as one unit with respect to other writers of the table; readers may see part of it
+    <R> R atomically(Supplier<R> writes) {
+        writeLock.lock();
+        try {
+            return writes.get();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    T get(long id) {
+        T row = rows.get(id);
+        return row != null ? copy.apply(row) : null;
+    }
+
+    // A value of the stored row, without copying it; null if there is no such row
+    <R> R read(long id, Function<T, R> value) {
+        T row = rows.get(id);
+        return row != null ? value.apply(row) : null;
+    }
+
+    List<T> getAll() {
+        List<T> result = new ArrayList<>(rows.size());
+        for (T row : rows.values()) {
+            result.add(copy.apply(row));
+        }
+        return result;
+    }
+
+    List<T> getAll(Collection<Long> ids) {
+        List<T> result = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            T row = rows.get(id);
+            if (row != null) {
+                result.add(copy.apply(row));
+            }
+        }
+        return result;
+    }
+
+    int size() {
+        return rows.size();
+    }
+
+    // Ids of the rows with the key, in id order
+    Set<Long> ids(HashIndex<T> index, Object key) {
+        if (index.unique) {
+            Long id = index.uniqueEntries.get(key);
+            return id != null ? Set.of(id) : Set.of();
+        }
+        Set<Long> ids = index.entries.get(key);
+        return ids != null ? ids : Set.of();
+    }
+
+    T first(HashIndex<T> index, Object key) {
+        for (long id : ids(index, key)) {
+            T row = get(id);
+            if (row != null) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    List<T> find(HashIndex<T> index, Object key) {
+        return getAll(ids(index, key));
+    }
+
+    // Ids of the rows whose key starts with prefix, in key order
+    List<Long> ids(SortedIndex<T> index, long... prefix) {
+        long[] to = Arrays.copyOf(prefix, prefix.length);
+        NavigableSet<long[]> range;
+        if (prefix.length == 0) {
+            range = index.entries;
+        } else {
+            to[to.length - 1]++;
+            range = index.entries.subSet(prefix, true, to, false);
+        }
+        return idsOf(range);
+    }
+
+    // Ids of the rows with from <= key < to, in key order
+    List<Long> ids(SortedIndex<T> index, long[] from, long[] to) {
+        return idsOf(index.entries.subSet(from, true, to, false));
+    }
+
+    List<T> range(SortedIndex<T> index, long... prefix) {
+        return getAll(ids(index, prefix));
+    }
+
+    private static List<Long> idsOf(NavigableSet<long[]> range) {
+        List<Long> ids = new ArrayList<>();
+        for (long[] key : range) {
+            ids.add(key[key.length - 1]);
+        }
+        return ids;
+    }
+
+    private void addToIndexes(long id, T row) {
+        for (HashIndex<T> index : hashIndexes) {
+            index.add(id, row);
+        }
+        for (SortedIndex<T> index : sortedIndexes) {
+            index.entries.add(index.entryOf(id, row));
+        }
+    }
+
+    private void removeFromIndexes(long id, T row) {
+        for (HashIndex<T> index : hashIndexes) {
+            index.remove(id, row);
+        }
+        for (SortedIndex<T> index : sortedIndexes) {
+            index.entries.remove(index.entryOf(id, row));
+        }
+    }
+
+    // A unique index maps each key to its one id; other indexes keep the ids of a key in a sorted set
+    static final class HashIndex<T> {
+        private final Function<T, Object> keyOf;
+        private final boolean unique;
+        private final Map<Object, Long> uniqueEntries = new ConcurrentHashMap<>();
+        private final Map<Object, Set<Long>> entries = new ConcurrentHashMap<>();
+
+        private HashIndex(Function<T, Object> keyOf, boolean unique) {
+            this.keyOf = keyOf;
+            this.unique = unique;
+        }
+
+        // Id of the row holding the unique key of row, null if it is free
+        private Long taken(T row) {
+            Object key = keyOf.apply(row);
+            return key != null ? uniqueEntries.get(key) : null;
+        }
+
+        private void add(long id, T row) {
+            Object key = keyOf.apply(row);
+            if (key == null) {
+                return;
+            }
+            if (unique) {
+                uniqueEntries.put(key, id);
+            } else {
+                entries.computeIfAbsent(key, k -> new ConcurrentSkipListSet<>()).add(id);
+            }
+        }
+
+        private void remove(long id, T row) {
+            Object key = keyOf.apply(row);
+            if (key == null) {
+                return;
+            }
+            if (unique) {
+                uniqueEntries.remove(key, id);
+            } else {
+                entries.computeIfPresent(key, (k, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+    }
+
+    static final class SortedIndex<T> {
+        private final Function<T, long[]> keyOf;
+        private final NavigableSet<long[]> entries = new ConcurrentSkipListSet<>(Arrays::compare);
+
+        private SortedIndex(Function<T, long[]> keyOf) {
+            this.keyOf = keyOf;
+        }
+
+        private long[] entryOf(long id, T row) {
+            long[] key = keyOf.apply(row);
+            long[] entry = Arrays.copyOf(key, key.length + 1);
+            entry[key.length] = id;
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.skyhawk.league.repository.memory;
+
+import java.util.List;
+
+import com.skyhawk.league.model.Team;
+import com.skyhawk.league.repository.TeamStore;
+
+// Unique by league and name
+final class MemoryTeamStore extends MemoryStore<Team> implements TeamStore {
+
+    MemoryTeamStore() {
+        super("Team", new MemoryTable<>(Team::getId, MemoryTeamStore::copy));
+        table.uniqueIndex(team -> List.of(team.getLeagueId(), team.getName()));
+        namedBy(table.hashIndex(Team::getName));
+    }
+
+    @Override
+    protected long idOf(Team team) {
+        return team.getId();
+    }
+
+    @Override
+    protected void setId(Team team, long id) {
+        team.setId(id);
+    }
+
+    private static Team copy(Team team) {
+        Team copy = new Team(team.getLeagueId(), team.getName(), team.getDescription());
+        copy.setId(team.getId());
+        return copy;
+    }
+}
@@ -0,0 +1,133 @@
+package com.skyhawk.league.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class KllSketchTest {
+    // Comfortably above the 1.7/k bound of the class doc, for k = 200
+    private static final double RANK_ERROR = 0.02;
+
+    private static float[] values(int count, long seed) {
+        Random random = new Random(seed);
+        float[] values = new float[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = (float) (random.nextGaussian() * 10 + 20);
+        }
+        return values;
+    }
+
+    private static double exactRank(float[] sorted, double value) {
+        int below = 0;
+        while (below < sorted.length && sorted[below] <= value) {
+            below++;
+        }
+        return (double) below / sorted.length;
+    }
+
+    private static void assertRanks(KllSketch sketch, float[] values) {
+        float[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double fraction = 0.01; fraction < 1; fraction += 0.01) {
+            float value = sorted[(int) (fraction * sorted.length)];
+            double error = Math.abs(sketch.rank(value) - exactRank(sorted, value));
+            assertTrue(error <= RANK_ERROR, "rank error " + error + " at " + value);
+            double quantileRank = exactRank(sorted, sketch.quantile(fraction));
+            assertTrue(Math.abs(quantileRank - fraction) <= RANK_ERROR, "quantile " + fraction + " has rank " + quantileRank);
+        }
+    }
+
+    @Test
+    void ranksAndQuantilesAreWithinTheErrorBound() {
+        float[] values = values(200_000, 1);
+        KllSketch sketch = new KllSketch();
+        for (float value : values) {
+            sketch.add(value);
+        }
+
+        assertEquals(values.length, sketch.count());
+        assertRanks(sketch, values);
+    }
+
+    @Test
+    void smallSketchIsExact() {
+        KllSketch sketch = new KllSketch();
+        for (int i = 1; i <= 100; i++) {
+            sketch.add(i);
+        }
+        assertEquals(0.5, sketch.rank(50));
+        assertEquals(50, sketch.quantile(0.5));
+        assertEquals(1, sketch.quantile(0));
+        assertEquals(100, sketch.quantile(1));
+    }
+
+    @Test
+    void emptySketch() {
+        KllSketch sketch = new KllSketch();
+        assertEquals(0, sketch.rank(1));
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+    }
+
+    @Test
+    void mergeEstimatesTheUnion() {
+        float[] first = values(80_000, 2);
+        float[] second = values(120_000, 3);
+        for (int i = 0; i < second.length; i++) {
+            second[i] += 15;
+        }
+        KllSketch merged = new KllSketch();
+        KllSketch other = new KllSketch();
+        for (float value : first) {
+            merged.add(value);
+        }
+        for (float value : second) {
+            other.add(value);
+        }
+
+        merged.merge(other);
+
+        float[] union = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, union, first.length, second.length);
+        assertEquals(union.length, merged.count());
+        assertRanks(merged, union);
+    }
+
+    @Test
+    void mergeOfDifferentKIsRefused() {
+        assertThrows(IllegalArgumentException.class, () -> new KllSketch(200).merge(new KllSketch(100)));
+    }
+
+    @Test
+    void bytesRoundTrip() {
+        KllSketch sketch = new KllSketch(100);
+        for (float value : values(50_000, 4)) {
+            sketch.add(value);
+        }
+
+        byte[] bytes = sketch.toBytes();
+        KllSketch read = KllSketch.fromBytes(bytes);
+
+        assertEquals(sketch.count(), read.count());
+        assertArrayEquals(bytes, read.toBytes());
+        for (double fraction = 0; fraction <= 1; fraction += 0.05) {
+            assertEquals(sketch.quantile(fraction), read.quantile(fraction));
+        }
+        // A read sketch keeps counting from where it was
+        read.merge(KllSketch.fromBytes(bytes));
+        assertEquals(2 * sketch.count(), read.count());
+        assertEquals(sketch.rank(20), read.rank(20), RANK_ERROR);
+    }
+
+    @Test
+    void unknownFormatIsRefused() {
+        byte[] bytes = new KllSketch().toBytes();
+        bytes[3] = 99;
+        assertThrows(IllegalArgumentException.class, () -> KllSketch.fromBytes(bytes));
+    }
+}
@@ -0,0 +1,117 @@
+package com.skyhawk.league.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.skyhawk.league.model.Statistic;
+
+class LeaderboardTest {
+
+    private static List<Integer> players(List<Leaderboard.Entry> entries) {
+        List<Integer> players = new ArrayList<>();
+        for (Leaderboard.Entry entry : entries) {
+            players.add(entry.player());
+        }
+        return players;
+    }
+
+    @Test
+    void leadersAreRankedByTotalThenPlayer() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.add(0, 5);
+        leaderboard.add(1, 9);
+        leaderboard.add(2, 5);
+        leaderboard.add(3, 1);
+
+        assertEquals(List.of(1, 0, 2, 3), players(leaderboard.top(10)));
+        assertEquals(List.of(1, 0), players(leaderboard.top(2)));
+        assertEquals(9, leaderboard.top(1).get(0).total());
+    }
+
+    @Test
+    void aChangedTotalReplacesThePlayersEntry() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.add(0, 5);
+        leaderboard.add(1, 9);
+
+        leaderboard.add(0, 6);
+        leaderboard.add(1, -2);
+
+        List<Leaderboard.Entry> top = leaderboard.top(10);
+        assertEquals(List.of(0, 1), players(top));
+        assertEquals(11, top.get(0).total());
+        assertEquals(7, top.get(1).total());
+    }
+
+    @Test
+    void totalsBackAtZeroLeaveTheRanking() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.add(0, 0.1);
+        leaderboard.add(0, 0.2);
+        leaderboard.add(1, 4);
+
+        // Float residue of 0.1 + 0.2 - 0.3 counts as zero
+        leaderboard.add(0, -0.3);
+
+        assertEquals(List.of(1), players(leaderboard.top(10)));
+        leaderboard.add(0, 1);
+        assertEquals(List.of(1, 0), players(leaderboard.top(10)));
+    }
+
+    @Test
+    void aDeltaTooSmallToChangeTheTotalKeepsThePlayerRanked() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.add(0, 1e9);
+        leaderboard.add(1, 5);
+
+        leaderboard.add(0, 1e-8);
+
+        assertEquals(List.of(0, 1), players(leaderboard.top(10)));
+        assertEquals(1e9, leaderboard.top(1).get(0).total());
+    }
+
+    @Test
+    void playersBeyondTheInitialCapacityAreRanked() {
+        Leaderboard leaderboard = new Leaderboard();
+        for (int player = 0; player < 200; player++) {
+            leaderboard.add(player, player);
+        }
+
+        List<Leaderboard.Entry> top = leaderboard.top(3);
+        assertEquals(List.of(199, 198, 197), players(top));
+        // Player 0 has a total of zero
+        assertEquals(199, leaderboard.top(1000).size());
+    }
+
+    @Test
+    void columnsRankEverySeasonAndTypeApart() {
+        StatisticColumns columns = new StatisticColumns();
+        columns.addGame(1, 2024);
+        columns.addGame(2, 2025);
+        columns.addPlayer(10, 100);
+        columns.addPlayer(20, 200);
+        columns.addNumberValue(10, 1, 3, 10);
+        columns.addNumberValue(20, 1, 3, 12);
+        columns.addNumberValue(10, 2, 3, 30);
+        columns.addNumberValue(10, 1, 4, 50);
+        Statistic statistic = new Statistic(20, 1, 3);
+        statistic.setNumberValue(5);
+        columns.upsertAll(List.of(statistic));
+
+        List<StatisticColumns.Leader> leaders = columns.leaders(3, 2024, 10);
+
+        assertEquals(2, leaders.size());
+        assertEquals(10, leaders.get(0).getPlayerId());
+        assertEquals(100, leaders.get(0).getTeamId());
+        assertEquals(10, leaders.get(0).getTotal());
+        assertEquals(20, leaders.get(1).getPlayerId());
+        assertEquals(5, leaders.get(1).getTotal());
+        assertEquals(30, columns.leaders(3, 2025, 10).get(0).getTotal());
+        assertTrue(columns.leaders(99, 2024, 10).isEmpty());
+    }
+}
@@ -0,0 +1,79 @@
+package com.skyhawk.league.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class RollingWindowsTest {
+    private static final long POINTS = 3;
+    private static final long FOULS = 4;
+
+    private static Map<Long, Map<Long, Double>> player(long playerId, Map<Long, Double> values) {
+        return Map.of(playerId, values);
+    }
+
+    @Test
+    void averagesAreOverTheGamesInTheWindow() {
+        RollingWindows windows = new RollingWindows(3);
+        windows.push(1, player(10, Map.of(POINTS, 10.0)));
+        windows.push(2, player(10, Map.of(POINTS, 20.0, FOULS, 2.0)));
+
+        assertEquals(2, windows.getGames(10));
+        assertEquals(Map.of(POINTS, 15.0, FOULS, 1.0), windows.getAverages(10));
+    }
+
+    @Test
+    void aFullWindowDropsItsOldestGame() {
+        RollingWindows windows = new RollingWindows(3);
+        for (long game = 1; game <= 5; game++) {
+            windows.push(game, player(10, Map.of(POINTS, game * 10.0)));
+        }
+
+        assertEquals(3, windows.getGames(10));
+        // Games 3, 4 and 5
+        assertEquals(Map.of(POINTS, 40.0), windows.getAverages(10));
+    }
+
+    @Test
+    void pushingAGameAgainReplacesItsValuesInPlace() {
+        RollingWindows windows = new RollingWindows(2);
+        windows.push(1, player(10, Map.of(POINTS, 10.0)));
+        windows.push(2, player(10, Map.of(POINTS, 20.0)));
+
+        windows.push(1, player(10, Map.of(POINTS, 30.0)));
+        assertEquals(Map.of(POINTS, 25.0), windows.getAverages(10));
+
+        // Game 1 is still the oldest
+        windows.push(3, player(10, Map.of(POINTS, 0.0)));
+        assertEquals(Map.of(POINTS, 10.0), windows.getAverages(10));
+    }
+
+    @Test
+    void replaceRewritesOnlyGamesStillInTheWindow() {
+        RollingWindows windows = new RollingWindows(2);
+        windows.push(1, Map.of(10L, Map.of(POINTS, 10.0), 20L, Map.of(POINTS, 8.0)));
+        windows.push(2, player(10, Map.of(POINTS, 20.0)));
+        windows.push(3, player(10, Map.of(POINTS, 30.0)));
+
+        // Game 1 has left player 10's window but not player 20's; player 20 now has no values
+        windows.replace(1, List.of(10L, 20L), player(10, Map.of(POINTS, 100.0)));
+
+        assertEquals(Map.of(POINTS, 25.0), windows.getAverages(10));
+        assertTrue(windows.getAverages(20).isEmpty());
+        assertEquals(1, windows.getGames(20));
+    }
+
+    @Test
+    void playersWithoutFinishedGamesHaveNoAverages() {
+        RollingWindows windows = new RollingWindows(5);
+
+        assertEquals(0, windows.getGames(10));
+        assertTrue(windows.getAverages(10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new RollingWindows(0));
+    }
+}
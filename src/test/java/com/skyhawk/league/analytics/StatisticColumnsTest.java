@@ -0,0 +1,164 @@
+package com.skyhawk.league.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.skyhawk.league.model.Statistic;
+
+class StatisticColumnsTest {
+    private static final long POINTS = 3;
+    private static final long FOULS = 4;
+    private static final long HOME = 100;
+    private static final long VISITOR = 200;
+
+    private StatisticColumns columns;
+
+    // Games 1 and 2 in 2024, game 3 in 2025; players 10 and 11 home, 20 visitor
+    @BeforeEach
+    void setUp() {
+        columns = new StatisticColumns();
+        columns.addGame(1, 2024);
+        columns.addGame(2, 2024);
+        columns.addGame(3, 2025);
+        columns.addPlayer(10, HOME);
+        columns.addPlayer(11, HOME);
+        columns.addPlayer(20, VISITOR);
+    }
+
+    private static Statistic statistic(long playerId, long gameId, long statisticTypeId, long number, float decimal) {
+        Statistic statistic = new Statistic(playerId, gameId, statisticTypeId);
+        statistic.setNumberValue(number);
+        statistic.setFloatValue(decimal);
+        return statistic;
+    }
+
+    private static Map<Long, StatisticColumns.Aggregate> byId(List<StatisticColumns.Aggregate> aggregates) {
+        Map<Long, StatisticColumns.Aggregate> byId = new HashMap<>();
+        for (StatisticColumns.Aggregate aggregate : aggregates) {
+            byId.put(aggregate.getId(), aggregate);
+        }
+        return byId;
+    }
+
+    @Test
+    void totalsAddNumberAndFloatValuesPerPlayerAndSeason() {
+        columns.saveIfNotExists(statistic(10, 1, POINTS, 10, 0.5f));
+        columns.addNumberValue(10, 2, POINTS, 4);
+        columns.addNumberValue(10, 2, POINTS, 2);
+        columns.addNumberValue(10, 3, POINTS, 7);
+        columns.addNumberValue(20, 1, POINTS, 3);
+        // A fouls row alone still counts the game as played
+        columns.addNumberValue(11, 1, FOULS, 1);
+
+        Map<Long, StatisticColumns.Aggregate> season = byId(columns.byPlayer(POINTS, 2024));
+        assertEquals(16.5, season.get(10L).getTotal(), 1e-6);
+        assertEquals(2, season.get(10L).getGames());
+        assertEquals(8.25, season.get(10L).getPerGame(), 1e-6);
+        assertEquals(3, season.get(20L).getTotal(), 1e-6);
+        assertEquals(0, season.get(11L).getTotal(), 1e-6);
+        assertEquals(1, season.get(11L).getGames());
+
+        Map<Long, StatisticColumns.Aggregate> career = byId(columns.byPlayer(POINTS, null));
+        assertEquals(23.5, career.get(10L).getTotal(), 1e-6);
+        assertEquals(3, career.get(10L).getGames());
+        assertEquals(5, columns.rowCount());
+    }
+
+    @Test
+    void teamTotalsAddTheirPlayers() {
+        columns.addNumberValue(10, 1, POINTS, 10);
+        columns.addNumberValue(11, 1, POINTS, 5);
+        columns.addNumberValue(11, 2, POINTS, 1);
+        columns.addNumberValue(20, 1, POINTS, 8);
+
+        Map<Long, StatisticColumns.Aggregate> teams = byId(columns.byTeam(POINTS, 2024));
+
+        assertEquals(16, teams.get(HOME).getTotal(), 1e-6);
+        assertEquals(2, teams.get(HOME).getGames());
+        assertEquals(8, teams.get(VISITOR).getTotal(), 1e-6);
+        assertEquals(1, teams.get(VISITOR).getGames());
+    }
+
+    @Test
+    void saveIfNotExistsKeepsAnExistingRow() {
+        columns.addNumberValue(10, 1, POINTS, 10);
+
+        columns.saveIfNotExists(statistic(10, 1, POINTS, 99, 0));
+
+        assertEquals(10, byId(columns.byPlayer(POINTS, 2024)).get(10L).getTotal(), 1e-6);
+        assertEquals(1, columns.rowCount());
+    }
+
+    @Test
+    void replacedPlayersLoseTheirOldRowsOfTheGame() {
+        columns.addNumberValue(10, 1, POINTS, 10);
+        columns.addNumberValue(10, 1, FOULS, 2);
+        columns.addNumberValue(20, 1, POINTS, 8);
+
+        columns.replacePlayerStatistics(1, List.of(10L), List.of(statistic(10, 1, POINTS, 6, 0)));
+
+        Map<Long, StatisticColumns.Aggregate> points = byId(columns.byPlayer(POINTS, 2024));
+        assertEquals(6, points.get(10L).getTotal(), 1e-6);
+        assertEquals(8, points.get(20L).getTotal(), 1e-6);
+        assertEquals(0, byId(columns.byPlayer(FOULS, 2024)).get(10L).getTotal(), 1e-6);
+        assertEquals(Map.of(10L, Map.of(POINTS, 6.0), 20L, Map.of(POINTS, 8.0)), columns.gameValues(1, HOME, VISITOR));
+    }
+
+    @Test
+    void seasonAveragesArePerGamePlayedForEveryType() {
+        columns.addNumberValue(10, 1, POINTS, 10);
+        columns.addNumberValue(10, 2, POINTS, 6);
+        columns.addNumberValue(10, 2, FOULS, 3);
+        columns.addNumberValue(20, 1, FOULS, 1);
+        columns.addNumberValue(20, 3, POINTS, 50);
+
+        StatisticColumns.SeasonAverages averages = columns.seasonAverages(2024);
+
+        assertArrayEquals(new long[] { 10, 20 }, averages.playerIds());
+        assertArrayEquals(new long[] { POINTS, FOULS }, averages.typeIds());
+        assertArrayEquals(new float[] { 8, 1.5f, 0, 1 }, averages.averages(), 1e-6f);
+    }
+
+    @Test
+    void valueChangesMoveTheVersion() {
+        columns.addNumberValue(10, 1, POINTS, 10);
+        long version = columns.version();
+
+        columns.upsertAll(List.of(statistic(10, 1, POINTS, 10, 0)));
+        assertEquals(version, columns.version());
+
+        columns.updateFloatValue(10, 1, POINTS, 0.5f);
+        assertTrue(columns.version() > version);
+        assertEquals(2025, columns.latestSeason());
+    }
+
+    @Test
+    void rowsOfUnknownPlayersOrGamesAreRefused() {
+        assertThrows(IllegalStateException.class, () -> columns.addNumberValue(99, 1, POINTS, 1));
+        assertThrows(IllegalStateException.class, () -> columns.addNumberValue(10, 99, POINTS, 1));
+    }
+
+    @Test
+    void rowsSpanSeveralScanChunks() {
+        columns.addPlayer(30, VISITOR);
+        for (long game = 4; game < 4 + 70_000; game++) {
+            columns.addGame(game, 2024);
+            columns.addNumberValue(30, game, POINTS, 1);
+        }
+
+        StatisticColumns.Aggregate aggregate = byId(columns.byPlayer(POINTS, 2024)).get(30L);
+
+        assertEquals(70_000, aggregate.getTotal(), 1e-6);
+        assertEquals(70_000, aggregate.getGames());
+        assertEquals(70_000, columns.rowCount());
+    }
+}
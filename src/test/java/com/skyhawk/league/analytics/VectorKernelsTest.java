@@ -0,0 +1,79 @@
+package com.skyhawk.league.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// Needs the jdk.incubator.vector module, which the test JVM is started with
+class VectorKernelsTest {
+
+    // The plain loop PlayerFeatures falls back to
+    private static void addScaledScalar(float[] scores, float[] column, int offset, int count, float weight) {
+        for (int i = 0; i < count; i++) {
+            scores[i] += column[offset + i] * weight;
+        }
+    }
+
+    @Test
+    void addScaledMatchesTheScalarLoop() {
+        Random random = new Random(42);
+        // Counts below, at and between multiples of any lane count, and columns at odd offsets
+        for (int count : new int[] { 0, 1, 3, 7, 8, 15, 16, 17, 63, 64, 65, 1000 }) {
+            for (int offset : new int[] { 0, 1, 5 }) {
+                float[] column = new float[offset + count + 3];
+                float[] scores = new float[count];
+                for (int i = 0; i < column.length; i++) {
+                    column[i] = (float) random.nextGaussian();
+                }
+                for (int i = 0; i < count; i++) {
+                    scores[i] = (float) random.nextGaussian();
+                }
+                float weight = (float) random.nextGaussian();
+                float[] expected = scores.clone();
+
+                addScaledScalar(expected, column, offset, count, weight);
+                VectorKernels.addScaled(scores, column, offset, count, weight);
+
+                // The fused multiply-add rounds once instead of twice
+                assertArrayEquals(expected, scores, 1e-5f);
+            }
+        }
+    }
+
+    @Test
+    void addScaledLeavesScoresBeyondCountAlone() {
+        float[] scores = new float[40];
+        float[] column = new float[40];
+        Arrays.fill(column, 1);
+
+        VectorKernels.addScaled(scores, column, 0, 33, 2);
+
+        for (int i = 0; i < scores.length; i++) {
+            assertEquals(i < 33 ? 2f : 0f, scores[i], 0f);
+        }
+    }
+
+    @Test
+    void nearestPlayersFollowTheirProfiles() {
+        // Players 1 and 2 score alike, 3 fouls instead; averages are player-major over points and fouls
+        StatisticColumns.SeasonAverages averages = new StatisticColumns.SeasonAverages(
+                new long[] { 1, 2, 3, 4 }, new long[] { 3, 4 },
+                new float[] { 20, 1, 18, 1.5f, 2, 5, 10, 3 });
+        PlayerFeatures features = new PlayerFeatures(2024, 0, averages);
+
+        List<PlayerFeatures.Similar> nearest = features.nearest(1, 3);
+
+        assertTrue(PlayerFeatures.isSimd());
+        assertEquals(3, nearest.size());
+        assertEquals(2, nearest.get(0).playerId());
+        assertEquals(3, nearest.get(2).playerId());
+        assertTrue(nearest.get(0).score() > 0.9f);
+        assertTrue(features.nearest(99, 3).isEmpty());
+    }
+}
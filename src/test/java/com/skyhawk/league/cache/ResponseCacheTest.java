@@ -0,0 +1,45 @@
+package com.skyhawk.league.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ResponseCacheTest {
+
+    @Test
+    void invalidatingATagDropsItsEntriesAndStaleComputations() {
+        ResponseCache cache = new ResponseCache(1 << 20);
+        long stamp = cache.stamp();
+        assertTrue(cache.put("a", SerializedResponse.json("{}"), stamp, ResponseCache.playerTag(1)));
+        assertTrue(cache.put("b", SerializedResponse.json("{}"), stamp, ResponseCache.playerTag(2)));
+
+        cache.invalidate(ResponseCache.playerTag(1));
+
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+        // Computed from reads made before the write
+        assertFalse(cache.put("a", SerializedResponse.json("{}"), stamp, ResponseCache.playerTag(1)));
+        assertTrue(cache.put("a", SerializedResponse.json("{}"), cache.stamp(), ResponseCache.playerTag(1)));
+    }
+
+    @Test
+    void tagVersionsArePrunedOnceTooManyPileUp() {
+        ResponseCache cache = new ResponseCache(1 << 20);
+        long stamp = cache.stamp();
+
+        for (long player = 0; player <= ResponseCache.MAX_TAG_VERSIONS; player++) {
+            cache.invalidate(ResponseCache.playerTag(player));
+        }
+
+        assertEquals(0, cache.tagVersionCount());
+        // An untouched tag, but the stamp predates the pruning
+        assertFalse(cache.put("a", SerializedResponse.json("{}"), stamp, ResponseCache.teamTag(1)));
+        assertTrue(cache.put("a", SerializedResponse.json("{}"), cache.stamp(), ResponseCache.playerTag(0)));
+        cache.invalidate(ResponseCache.playerTag(0));
+        assertEquals(1, cache.tagVersionCount());
+    }
+}
@@ -0,0 +1,108 @@
+package com.skyhawk.league.collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LongIntMapTest {
+    // A map of up to 8 entries has 16 slots
+    private static final int MASK = Hashing.tableSize(8) - 1;
+
+    // Keys whose home slot is the given one, in the 16-slot table
+    private static List<Long> keysAt(int home, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; keys.size() < count; key++) {
+            if ((Hashing.mix(key) & MASK) == home) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    @Test
+    void removalShiftsTheRestOfTheProbeRunBack() {
+        LongIntMap map = new LongIntMap(-1, 8);
+        List<Long> run = keysAt(3, 4);
+        for (int i = 0; i < run.size(); i++) {
+            map.put(run.get(i), i);
+        }
+
+        assertEquals(0, map.remove(run.get(0)));
+        assertEquals(2, map.remove(run.get(2)));
+
+        assertEquals(2, map.size());
+        assertEquals(1, map.get(run.get(1)));
+        assertEquals(3, map.get(run.get(3)));
+        assertFalse(map.containsKey(run.get(0)));
+        assertEquals(-1, map.remove(run.get(2)));
+    }
+
+    @Test
+    void removalKeepsEntriesThatCannotMoveBeforeTheirHome() {
+        LongIntMap map = new LongIntMap(-1, 8);
+        // Slot 3 from home 3, slot 4 from home 4, slot 5 from home 3: freeing 3 moves the last one
+        // back, past the entry at home in 4, which must stay
+        List<Long> atThree = keysAt(3, 2);
+        long atFour = keysAt(4, 1).get(0);
+        map.put(atThree.get(0), 30);
+        map.put(atFour, 40);
+        map.put(atThree.get(1), 31);
+
+        map.remove(atThree.get(0));
+
+        assertEquals(31, map.get(atThree.get(1)));
+        assertEquals(40, map.get(atFour));
+        assertTrue(map.containsKey(atFour));
+        map.remove(atFour);
+        assertEquals(31, map.get(atThree.get(1)));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void runsWrappingAroundTheTableEnd() {
+        LongIntMap map = new LongIntMap(-1, 8);
+        List<Long> run = keysAt(MASK, 3);
+        long atZero = keysAt(0, 1).get(0);
+        for (int i = 0; i < run.size(); i++) {
+            map.put(run.get(i), i);
+        }
+        map.put(atZero, 100);
+
+        map.remove(run.get(0));
+        map.remove(atZero);
+
+        assertEquals(1, map.get(run.get(1)));
+        assertEquals(2, map.get(run.get(2)));
+        assertEquals(-1, map.get(atZero));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void matchesHashMapUnderRandomPutsAndRemoves() {
+        LongIntMap map = new LongIntMap(-1);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(key);
+                assertEquals(removed != null ? removed : -1, map.remove(key));
+            } else {
+                Integer previous = expected.put(key, i);
+                assertEquals(previous != null ? previous : -1, map.put(key, i));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 2_000; key++) {
+            assertEquals(expected.getOrDefault(key, -1), map.get(key));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.skyhawk.league.live;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.skyhawk.league.model.Event;
+import com.skyhawk.league.model.Event.EventType;
+import com.skyhawk.league.model.StatisticType;
+import com.skyhawk.league.model.StatisticType.StatTypeEnum;
+
+class GameLineupTest {
+    private static final long GAME = 5;
+    private static final long HOME = 100;
+    private static final long VISITOR = 200;
+    private static final long POINTS = 3;
+    private static final long FOULS = 4;
+
+    @Test
+    void eachChangeOfPlayersOnCourtIsANewLineup() {
+        GameLineup lineup = new GameLineup(GAME, HOME, VISITOR);
+        lineup.start(HOME, 10, 0);
+        lineup.start(HOME, 11, 0);
+        lineup.end(HOME, 10, 60_000);
+        lineup.start(HOME, 12, 60_000);
+        lineup.endAll(90_000);
+
+        List<GameLineup.Unit> units = lineup.getUnits(HOME);
+
+        // The roster of 10 alone lasted no time and is a lineup as well
+        assertEquals(4, units.size());
+        assertArrayEquals(new long[] { 10, 11 }, units.get(1).playerIds());
+        assertEquals(60_000, units.get(1).millis());
+        assertArrayEquals(new long[] { 11 }, units.get(2).playerIds());
+        assertArrayEquals(new long[] { 11, 12 }, units.get(3).playerIds());
+        assertEquals(30_000, units.get(3).millis());
+        assertFalse(units.get(3).onCourt());
+    }
+
+    @Test
+    void actionsCountForTheActingUnitAndAgainstTheOpponents() {
+        GameLineup lineup = new GameLineup(GAME, HOME, VISITOR);
+        lineup.start(HOME, 10, 0);
+        lineup.start(VISITOR, 20, 0);
+        lineup.add(HOME, POINTS, 1_000);
+        lineup.add(HOME, POINTS, 2_000);
+        lineup.add(VISITOR, POINTS, 3_000);
+        lineup.add(VISITOR, FOULS, 4_000);
+
+        assertArrayEquals(new long[] { POINTS, FOULS }, lineup.getStatisticTypeIds());
+        GameLineup.Unit home = lineup.getUnits(HOME).get(0);
+        assertArrayEquals(new int[] { 2, 0 }, home.scored());
+        assertArrayEquals(new int[] { 1, 1 }, home.conceded());
+        GameLineup.Unit visitor = lineup.getUnits(VISITOR).get(0);
+        assertArrayEquals(new int[] { 1, 1 }, visitor.scored());
+        assertArrayEquals(new int[] { 2, 0 }, visitor.conceded());
+        // Still on court: its time runs to the last event
+        assertTrue(home.onCourt());
+        assertEquals(4_000, home.millis());
+    }
+
+    @Test
+    void aTeamBeyondItsSlotsOrNotInTheGameIsIgnored() {
+        GameLineup lineup = new GameLineup(GAME, HOME, VISITOR);
+        for (long player = 1; player <= 65; player++) {
+            lineup.start(HOME, player, 0);
+        }
+        lineup.start(300, 99, 0);
+        lineup.add(300, POINTS, 0);
+
+        List<GameLineup.Unit> units = lineup.getUnits(HOME);
+        assertEquals(64, units.size());
+        assertEquals(64, units.get(63).playerIds().length);
+        assertTrue(lineup.getUnits(300).isEmpty());
+        assertEquals(0, lineup.getStatisticTypeIds().length);
+    }
+
+    @Test
+    void replayTakesPlayersOffWhenTheyReachALimit() {
+        StatisticType fouls = new StatisticType(1, "fouls", null, StatTypeEnum.NUMBER, null, 2);
+        fouls.setId(FOULS);
+        List<Event> history = List.of(
+                new Event(1, GAME, EventType.GAME_START, LocalTime.of(20, 0)),
+                new Event(1, GAME, 10, EventType.PLAYER_START, LocalTime.of(20, 0)),
+                new Event(1, GAME, 20, EventType.PLAYER_START, LocalTime.of(20, 0)),
+                new Event(1, GAME, 10, FOULS, LocalTime.of(20, 1)),
+                new Event(1, GAME, 10, FOULS, LocalTime.of(20, 2)),
+                new Event(1, GAME, 20, POINTS, LocalTime.of(20, 3)),
+                new Event(1, GAME, EventType.GAME_END, LocalTime.of(20, 4)));
+
+        GameLineup lineup = GameLineup.replay(GAME, HOME, VISITOR, history, Map.of(10L, HOME, 20L, VISITOR),
+                Map.of(FOULS, fouls));
+
+        GameLineup.Unit home = lineup.getUnits(HOME).get(0);
+        assertEquals(120_000, home.millis());
+        assertArrayEquals(new int[] { 2, 0 }, home.scored());
+        // Player 10 was off when the visitors scored, so nobody of the home team conceded it
+        assertArrayEquals(new int[] { 0, 0 }, home.conceded());
+        assertEquals(240_000, lineup.getUnits(VISITOR).get(0).millis());
+    }
+}
@@ -0,0 +1,116 @@
+package com.skyhawk.league.live;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class LiveStatisticCountersTest {
+    private static final long GAME = 5;
+    private static final long POINTS = 3;
+    private static final long FOULS = 4;
+
+    @Test
+    void countersAreNotLoadedUntilTheirStoredValueIs() {
+        LiveStatisticCounters counters = new LiveStatisticCounters(64);
+
+        assertEquals(LiveStatisticCounters.NOT_LOADED, counters.add(GAME, 17, POINTS, 2));
+        assertTrue(counters.load(GAME, 17, POINTS, 10));
+        // Another counter of the game's table is still unloaded
+        assertEquals(LiveStatisticCounters.NOT_LOADED, counters.add(GAME, 17, FOULS, 1));
+
+        assertEquals(12, counters.add(GAME, 17, POINTS, 2));
+        assertEquals(11, counters.add(GAME, 17, POINTS, -1));
+    }
+
+    @Test
+    void loadingAgainKeepsTheCountedValue() {
+        LiveStatisticCounters counters = new LiveStatisticCounters(64);
+        counters.load(GAME, 17, POINTS, 10);
+        counters.add(GAME, 17, POINTS, 3);
+
+        assertTrue(counters.load(GAME, 17, POINTS, 10));
+
+        assertEquals(13, counters.add(GAME, 17, POINTS, 0));
+    }
+
+    @Test
+    void snapshotHoldsTheLoadedCountersOfOnePlayer() {
+        LiveStatisticCounters counters = new LiveStatisticCounters(64);
+        counters.load(GAME, 17, POINTS, 10);
+        counters.load(GAME, 17, FOULS, 2);
+        counters.load(GAME, 18, POINTS, 7);
+        counters.load(GAME + 1, 17, POINTS, 30);
+
+        assertEquals(Map.of(POINTS, 10L, FOULS, 2L), counters.snapshot(GAME, 17));
+        assertEquals(Map.of(POINTS, 7L), counters.snapshot(GAME, 18));
+        assertTrue(counters.snapshot(GAME, 19).isEmpty());
+    }
+
+    @Test
+    void releaseDropsTheGamesCounters() {
+        LiveStatisticCounters counters = new LiveStatisticCounters(64);
+        counters.load(GAME, 17, POINTS, 10);
+        counters.load(GAME + 1, 17, POINTS, 30);
+
+        counters.release(GAME);
+
+        assertEquals(1, counters.gameCount());
+        assertEquals(LiveStatisticCounters.NOT_LOADED, counters.add(GAME, 17, POINTS, 1));
+        assertEquals(31, counters.add(GAME + 1, 17, POINTS, 1));
+    }
+
+    @Test
+    void aFullTableRefusesNewCounters() {
+        // Rounded up to 4 slots
+        LiveStatisticCounters counters = new LiveStatisticCounters(3);
+        for (long player = 1; player <= 4; player++) {
+            assertTrue(counters.load(GAME, player, POINTS, player));
+        }
+
+        assertFalse(counters.load(GAME, 5, POINTS, 5));
+        assertEquals(LiveStatisticCounters.NOT_LOADED, counters.add(GAME, 5, POINTS, 1));
+        assertEquals(5, counters.add(GAME, 4, POINTS, 1));
+    }
+
+    @Test
+    void disabledCountersLoadNothing() {
+        LiveStatisticCounters counters = new LiveStatisticCounters(0);
+
+        assertFalse(counters.isEnabled());
+        assertFalse(counters.load(GAME, 17, POINTS, 10));
+        assertEquals(0, counters.gameCount());
+    }
+
+    @Test
+    void concurrentIncrementsAreNotLost() throws Exception {
+        LiveStatisticCounters counters = new LiveStatisticCounters(64);
+        counters.load(GAME, 17, POINTS, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        counters.add(GAME, 17, POINTS, 1);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(40_000, counters.add(GAME, 17, POINTS, 0));
+    }
+}
@@ -0,0 +1,132 @@
+package com.skyhawk.league.replay;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.skyhawk.league.model.Event;
+import com.skyhawk.league.model.Event.EventType;
+
+class GameReplayTest {
+    private static final long LEAGUE = 1;
+    private static final long GAME = 2;
+    private static final long PLAYER = 3;
+    private static final long POINTS = 10;
+    private static final long REBOUNDS = 11;
+
+    private final List<Event> recorded = new ArrayList<>();
+    private long nextId = 100;
+
+    private Event action(long statisticTypeId, String time) {
+        return record(new Event(LEAGUE, GAME, PLAYER, statisticTypeId, LocalTime.parse(time)));
+    }
+
+    private Event correction(Event replaced, long statisticTypeId, String time) {
+        Event event = new Event(LEAGUE, GAME, PLAYER, statisticTypeId, LocalTime.parse(time));
+        event.setReplacesEventId(replaced.getId());
+        return record(event);
+    }
+
+    private Event retraction(Event retracted) {
+        Event event = new Event(LEAGUE, GAME, EventType.RETRACTION, LocalTime.parse("23:00"));
+        event.setReplacesEventId(retracted.getId());
+        return record(event);
+    }
+
+    private Event record(Event event) {
+        event.setId(nextId++);
+        recorded.add(event);
+        return event;
+    }
+
+    private List<Long> effectiveIds() {
+        return GameReplay.effectiveHistory(recorded).stream().map(Event::getId).toList();
+    }
+
+    @Test
+    void correctionTakesThePlaceOfTheEvent() {
+        Event first = action(POINTS, "19:00");
+        Event second = action(POINTS, "19:01");
+        Event corrected = correction(first, REBOUNDS, "19:00");
+
+        assertEquals(List.of(corrected.getId(), second.getId()), effectiveIds());
+    }
+
+    @Test
+    void correctionOfACorrectionReplacesItAgain() {
+        Event first = action(POINTS, "19:00");
+        Event corrected = correction(first, REBOUNDS, "19:00");
+        Event again = correction(corrected, POINTS, "19:00:30");
+
+        List<Event> history = GameReplay.effectiveHistory(recorded);
+        assertEquals(List.of(again.getId()), history.stream().map(Event::getId).toList());
+        assertEquals(POINTS, history.get(0).getStatisticTypeId());
+    }
+
+    @Test
+    void correctionOfAReplacedEventIsAppliedToItsPosition() {
+        Event first = action(POINTS, "19:00");
+        correction(first, REBOUNDS, "19:00");
+        // Replacing the original again still targets the same position
+        Event latest = correction(first, POINTS, "19:00:10");
+
+        assertEquals(List.of(latest.getId()), effectiveIds());
+    }
+
+    @Test
+    void retractionDropsTheEventAndItsCorrections() {
+        Event first = action(POINTS, "19:00");
+        Event second = action(POINTS, "19:01");
+        Event corrected = correction(first, REBOUNDS, "19:00");
+        retraction(corrected);
+
+        assertEquals(List.of(second.getId()), effectiveIds());
+    }
+
+    @Test
+    void correctionOfARetractedEventIsIgnored() {
+        Event first = action(POINTS, "19:00");
+        retraction(first);
+        correction(first, REBOUNDS, "19:00");
+        Event second = action(POINTS, "19:01");
+        // A second retraction of the same position, and one of an unknown id
+        retraction(first);
+        Event unknown = new Event(LEAGUE, GAME, PLAYER, POINTS, LocalTime.parse("19:02"));
+        unknown.setId(9_999);
+        retraction(unknown);
+
+        assertEquals(List.of(second.getId()), effectiveIds());
+    }
+
+    @Test
+    void eventsAreInEventTimeOrderWithTiesInOrderOfReceipt() {
+        Event late = action(POINTS, "19:05");
+        Event early = action(POINTS, "19:01");
+        Event tie = action(REBOUNDS, "19:01");
+        // Moved earlier by its correction; in ties it keeps the place of the event it replaces, received first
+        Event moved = correction(late, POINTS, "19:01");
+
+        assertEquals(List.of(moved.getId(), early.getId(), tie.getId()), effectiveIds());
+    }
+
+    @Test
+    void replayOfTheEffectiveHistoryCountsOnlyItsActions() {
+        Event first = action(POINTS, "19:00");
+        action(POINTS, "19:01");
+        Event third = action(POINTS, "19:02");
+        correction(first, REBOUNDS, "19:00");
+        retraction(third);
+
+        GameReplay replay = new GameReplay(GAME, 99, Map.of());
+        replay.applyAll(GameReplay.effectiveHistory(recorded));
+
+        assertEquals(1, replay.getStatistics(PLAYER).get(POINTS).getNumberValue());
+        assertEquals(1, replay.getStatistics(PLAYER).get(REBOUNDS).getNumberValue());
+        assertEquals(2, replay.getApplied());
+    }
+}
@@ -0,0 +1,51 @@
+package com.skyhawk.league.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class SnowflakeIdGeneratorTest {
+
+    @Test
+    void idsIncreaseAndCarryTheirNodeAndTime() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(37);
+        long before = System.currentTimeMillis();
+
+        long previous = 0;
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous, "id " + id + " after " + previous);
+            assertEquals(37, SnowflakeIdGenerator.nodeOf(id));
+            previous = id;
+        }
+
+        // A burst of more than 4096 ids a millisecond borrows the following milliseconds
+        long timestamp = SnowflakeIdGenerator.timestampOf(previous);
+        assertTrue(timestamp >= before && timestamp <= System.currentTimeMillis() + 10);
+    }
+
+    @Test
+    void nodesNeverShareIds() {
+        SnowflakeIdGenerator first = new SnowflakeIdGenerator(1);
+        SnowflakeIdGenerator second = new SnowflakeIdGenerator(2);
+        Set<Long> ids = new HashSet<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            assertTrue(ids.add(first.nextId()));
+            assertTrue(ids.add(second.nextId()));
+        }
+    }
+
+    @Test
+    void nodeIdsOutsideTenBitsAreRefused() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1));
+        assertEquals(SnowflakeIdGenerator.MAX_NODE_ID,
+                SnowflakeIdGenerator.nodeOf(new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID).nextId()));
+    }
+}
@@ -0,0 +1,98 @@
+package com.skyhawk.league.repository.memory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MemoryTableTest {
+
+    // Immutable, so the table's copies can be the rows themselves
+    private record Row(long id, long leagueId, int season, String name) {
+        Row withName(String newName) {
+            return new Row(id, leagueId, season, newName);
+        }
+    }
+
+    private MemoryTable<Row> table;
+    private MemoryTable.HashIndex<Row> byLeagueName;
+    private MemoryTable.SortedIndex<Row> byLeagueSeason;
+
+    @BeforeEach
+    void setUp() {
+        table = new MemoryTable<>(Row::id, row -> row);
+        byLeagueName = table.uniqueIndex(row -> row.name() != null ? List.of(row.leagueId(), row.name()) : null);
+        byLeagueSeason = table.sortedIndex(row -> new long[] { row.leagueId(), row.season() });
+    }
+
+    @Test
+    void insertOfTakenUniqueKeyIsRefusedWithTheHoldersId() {
+        assertEquals(1, table.insert(new Row(1, 10, 2024, "points")));
+
+        assertEquals(1, table.insert(new Row(2, 10, 2024, "points")));
+        assertEquals(1, table.size());
+        assertNull(table.get(2));
+        // The key is per league
+        assertEquals(3, table.insert(new Row(3, 11, 2024, "points")));
+    }
+
+    @Test
+    void insertOfTakenIdReturnsIt() {
+        table.insert(new Row(1, 10, 2024, "points"));
+
+        assertEquals(1, table.insert(new Row(1, 10, 2024, "rebounds")));
+        assertEquals("points", table.get(1).name());
+        assertNull(table.first(byLeagueName, List.of(10L, "rebounds")));
+    }
+
+    @Test
+    void rowsWithoutUniqueKeyAreNotIndexed() {
+        assertEquals(1, table.insert(new Row(1, 10, 2024, null)));
+        assertEquals(2, table.insert(new Row(2, 10, 2024, null)));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    void deleteAndReindexFreeTheUniqueKey() {
+        table.insert(new Row(1, 10, 2024, "points"));
+        assertTrue(table.delete(1));
+        assertEquals(2, table.insert(new Row(2, 10, 2024, "points")));
+
+        assertTrue(table.reindex(2, row -> row.withName("assists")));
+        assertEquals(3, table.insert(new Row(3, 10, 2024, "points")));
+        assertEquals(2, table.first(byLeagueName, List.of(10L, "assists")).id());
+        assertEquals(2, table.insert(new Row(4, 10, 2024, "assists")));
+    }
+
+    @Test
+    void sortedIndexPrefixCoversExactlyTheKeysStartingWithIt() {
+        table.insert(new Row(7, 10, 2024, "a"));
+        table.insert(new Row(3, 10, 2023, "b"));
+        table.insert(new Row(5, 10, 2024, "c"));
+        table.insert(new Row(1, 9, 2024, "d"));
+        table.insert(new Row(2, 11, 2023, "e"));
+
+        // Key order: season, then id
+        assertEquals(List.of(3L, 5L, 7L), table.ids(byLeagueSeason, 10));
+        assertEquals(List.of(5L, 7L), table.ids(byLeagueSeason, 10, 2024));
+        assertEquals(List.of(), table.ids(byLeagueSeason, 10, 2025));
+        assertEquals(List.of(1L, 3L, 5L, 7L, 2L), table.ids(byLeagueSeason));
+        assertEquals(List.of(3L, 5L, 7L, 2L), table.ids(byLeagueSeason, new long[] { 10 }, new long[] { 11, 2024 }));
+    }
+
+    @Test
+    void sortedIndexFollowsReindexAndDelete() {
+        table.insert(new Row(1, 10, 2024, "a"));
+        table.insert(new Row(2, 10, 2024, "b"));
+
+        table.reindex(1, row -> new Row(1, 12, 2024, "a"));
+        table.delete(2);
+
+        assertEquals(List.of(), table.ids(byLeagueSeason, 10));
+        assertEquals(List.of(1L), table.ids(byLeagueSeason, 12, 2024));
+    }
+}